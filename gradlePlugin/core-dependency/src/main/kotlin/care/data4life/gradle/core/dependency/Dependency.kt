@@ -162,6 +162,9 @@ object Dependency {
         const val koin = "io.insert-koin:koin-test:${Version.multiplatform.koin}"
 
         const val okHttpMockWebServer = "com.squareup.okhttp3:mockwebserver:${Version.jvm.okHttp}"
+
+        const val jmhCore = "org.openjdk.jmh:jmh-core:${Version.jvmTest.jmh}"
+        const val jmhGenerator = "org.openjdk.jmh:jmh-generator-annprocess:${Version.jvmTest.jmh}"
     }
 
     object Android {
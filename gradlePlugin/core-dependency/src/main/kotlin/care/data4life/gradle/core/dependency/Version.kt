@@ -232,6 +232,11 @@ object Version {
          * [mockito](https://github.com/mockito/mockito)
          */
         const val mockito = "4.7.0"
+
+        /**
+         * [JMH](https://github.com/openjdk/jmh)
+         */
+        const val jmh = "1.35"
     }
 
     object Android {
@@ -9,6 +9,7 @@ import android.content.Intent
 import android.content.pm.ApplicationInfo
 import android.content.pm.PackageManager
 import care.data4life.sdk.attachment.AttachmentService
+import care.data4life.sdk.attachment.AttachmentTransferLimiter
 import care.data4life.sdk.attachment.FileService
 import care.data4life.sdk.auth.AuthorizationConfiguration
 import care.data4life.sdk.auth.AuthorizationService
@@ -149,7 +150,8 @@ class Data4LifeClient private constructor(
             val authService = AuthorizationService(context, authConfiguration, authStore)
             val cryptoStore = CryptoSecureStore(secureStore = secureStore)
             val cryptoService = CryptoService(initConfig.alias, cryptoStore)
-            val tagCryptoService = TagCryptoService(cryptoService)
+            val taggingService = TaggingService(sdkConfig.clientId)
+            val tagCryptoService = TagCryptoService(cryptoService, taggingService.warmUpTags)
             val connectivityService = NetworkConnectivityServiceAndroid(context)
             val apiService = ApiService(
                 authService = authService,
@@ -164,10 +166,15 @@ class Data4LifeClient private constructor(
             )
 
             val userService = UserService(initConfig.alias, authService, apiService, cryptoStore, cryptoService)
-            val taggingService = TaggingService(sdkConfig.clientId)
             val resourceCryptoService = ResourceCryptoService(cryptoService)
             val fileService = FileService(initConfig.alias, apiService, cryptoService)
-            val attachmentService = AttachmentService(fileService, AndroidImageResizer())
+            val attachmentService = AttachmentService(
+                fileService,
+                AndroidImageResizer(),
+                initConfig.attachmentConcurrency,
+                initConfig.maxConcurrentTransfers?.let { limit -> AttachmentTransferLimiter(limit) }
+                    ?: AttachmentTransferLimiter.SHARED
+            )
             val errorHandler = D4LErrorHandler()
             val callHandler = CallHandler(errorHandler)
             val recordService = RecordService(
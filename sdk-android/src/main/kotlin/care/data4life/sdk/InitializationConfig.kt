@@ -16,16 +16,21 @@
 package care.data4life.sdk
 
 import care.data4life.fhir.util.Preconditions
+import care.data4life.sdk.attachment.AttachmentContract.Companion.DEFAULT_CONCURRENCY
 import care.data4life.sdk.auth.Authorization.Companion.defaultScopes
 
 class InitializationConfig private constructor(
     val alias: String,
-    val scopes: Set<String>
+    val scopes: Set<String>,
+    val attachmentConcurrency: Int,
+    val maxConcurrentTransfers: Int?
 ) {
 
     class Builder {
         private var alias: String = DEFAULT_ALIAS
         private var scopes: Set<String> = DEFAULT_SCOPES
+        private var attachmentConcurrency: Int = DEFAULT_CONCURRENCY
+        private var maxConcurrentTransfers: Int? = null
 
         fun setAlias(alias: String): Builder {
             this.alias = alias
@@ -37,10 +42,32 @@ class InitializationConfig private constructor(
             return this
         }
 
+        /**
+         * Sets the maximum number of concurrent attachment transfers of a record.
+         */
+        fun setAttachmentConcurrency(attachmentConcurrency: Int): Builder {
+            this.attachmentConcurrency = attachmentConcurrency
+            return this
+        }
+
+        /**
+         * Sets the maximum number of concurrent attachment transfers of the client.
+         * Unless it is set, the client shares one limit with all other clients of the process.
+         */
+        fun setMaxConcurrentTransfers(maxConcurrentTransfers: Int): Builder {
+            this.maxConcurrentTransfers = maxConcurrentTransfers
+            return this
+        }
+
         fun build(): InitializationConfig {
             Preconditions.checkArgument(alias.isNotEmpty(), "alias is required")
             Preconditions.checkArgument(scopes.isNotEmpty(), "scopes are required")
-            return InitializationConfig(alias, scopes)
+            Preconditions.checkArgument(attachmentConcurrency > 0, "attachmentConcurrency has to be positive")
+            Preconditions.checkArgument(
+                maxConcurrentTransfers?.let { limit -> limit > 0 } ?: true,
+                "maxConcurrentTransfers has to be positive"
+            )
+            return InitializationConfig(alias, scopes, attachmentConcurrency, maxConcurrentTransfers)
         }
     }
 
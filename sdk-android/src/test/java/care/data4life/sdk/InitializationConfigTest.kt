@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+package care.data4life.sdk
+
+import care.data4life.sdk.attachment.AttachmentContract
+import com.google.common.truth.Truth
+import org.junit.Test
+
+class InitializationConfigTest {
+    @Test
+    fun `Given no transfer limits are set, it uses the default concurrency and the shared limit`() {
+        // When
+        val config = InitializationConfig.Builder().build()
+
+        // Then
+        Truth.assertThat(config.attachmentConcurrency).isEqualTo(AttachmentContract.DEFAULT_CONCURRENCY)
+        Truth.assertThat(config.maxConcurrentTransfers).isNull()
+    }
+
+    @Test
+    fun `Given transfer limits are set, it keeps them`() {
+        // When
+        val config = InitializationConfig.Builder()
+            .setAttachmentConcurrency(2)
+            .setMaxConcurrentTransfers(6)
+            .build()
+
+        // Then
+        Truth.assertThat(config.attachmentConcurrency).isEqualTo(2)
+        Truth.assertThat(config.maxConcurrentTransfers).isEqualTo(6)
+    }
+
+    @Test(expected = IllegalArgumentException::class)
+    fun `Given a non positive attachment concurrency, it fails`() {
+        InitializationConfig.Builder()
+            .setAttachmentConcurrency(0)
+            .build()
+    }
+}
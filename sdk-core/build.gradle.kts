@@ -98,6 +98,30 @@ configure<SourceSetContainer> {
     }
 }
 
+val jmh: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output
+    runtimeClasspath += sourceSets.main.get().output
+}
+
+configurations.named("jmhImplementation") {
+    extendsFrom(configurations.implementation.get())
+}
+
+dependencies {
+    "jmhImplementation"(Dependency.JvmTest.jmhCore)
+    "jmhAnnotationProcessor"(Dependency.JvmTest.jmhGenerator)
+}
+
+val runBenchmarks by tasks.registering(JavaExec::class) {
+    group = "verification"
+    description = "Runs the JMH benchmarks of sdk-core"
+
+    classpath = jmh.runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    args = listOfNotNull(project.findProperty("jmhInclude")?.toString()) +
+        (project.findProperty("jmhProfiler")?.let { profiler -> listOf("-prof", profiler.toString()) } ?: emptyList())
+}
+
 val templatesPath = "${projectDir}/src/main/resources/templates"
 val configPath = "${projectDir}/src-gen/main/java/care/data4life/sdk/config"
 
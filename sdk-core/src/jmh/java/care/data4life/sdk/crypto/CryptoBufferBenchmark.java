@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+package care.data4life.sdk.crypto;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.KeyGenerator;
+
+import care.data4life.sdk.securestore.SecureStoreContract;
+
+/**
+ * Compares the byte array based encrypt/decrypt round trip of the {@link CryptoService} with the
+ * buffer based one, which writes IV and ciphertext into one buffer and decrypts in place.
+ * <p>
+ * Run it with: ./gradlew :sdk-core:runBenchmarks -PjmhInclude=CryptoBufferBenchmark -PjmhProfiler=gc
+ * and compare gc.alloc.rate.norm, the allocated bytes per round trip.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CryptoBufferBenchmark {
+    @Param({"1048576", "10485760"})
+    public int payloadSize;
+
+    private CryptoService cryptoService;
+    private GCKey key;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() throws GeneralSecurityException {
+        SecureStoreContract.SecureStore secureStore = (SecureStoreContract.SecureStore) Proxy.newProxyInstance(
+                getClass().getClassLoader(),
+                new Class<?>[]{SecureStoreContract.SecureStore.class},
+                (proxy, method, args) -> null
+        );
+        cryptoService = new CryptoService("benchmark", new CryptoSecureStore(secureStore));
+
+        KeyGenerator generator = KeyGenerator.getInstance("AES");
+        generator.init(256);
+        key = new GCKey(
+                GCAESKeyAlgorithm.Companion.createDataAlgorithm(),
+                new GCSymmetricKey(generator.generateKey()),
+                256
+        );
+
+        payload = new byte[payloadSize];
+        new SecureRandom().nextBytes(payload);
+    }
+
+    @Benchmark
+    public byte[] arrays() {
+        byte[] encrypted = cryptoService.encrypt(key, payload).blockingGet();
+        return cryptoService.decrypt(key, encrypted).blockingGet();
+    }
+
+    @Benchmark
+    public ByteBuffer heapBuffers() {
+        ByteBuffer encrypted = cryptoService.encryptBuffer(key, ByteBuffer.wrap(payload), false).blockingGet();
+        return cryptoService.decryptBuffer(key, encrypted).blockingGet();
+    }
+
+    @Benchmark
+    public ByteBuffer directBuffers() {
+        ByteBuffer encrypted = cryptoService.encryptBuffer(key, ByteBuffer.wrap(payload), true).blockingGet();
+        return cryptoService.decryptBuffer(key, encrypted).blockingGet();
+    }
+}
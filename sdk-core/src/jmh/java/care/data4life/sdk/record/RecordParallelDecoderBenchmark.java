@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.record;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+
+import io.reactivex.Flowable;
+
+/**
+ * Measures how decoding a search page scales with the parallelism of the {@link RecordParallelDecoder}.
+ * Each item is AES-GCM decrypted and parsed, which resembles the work done per EncryptedRecord.
+ * <p>
+ * Run it with: ./gradlew :sdk-core:runBenchmarks -PjmhInclude=RecordParallelDecoderBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecordParallelDecoderBenchmark {
+    private static final int IV_SIZE = 12;
+    private static final int TAG_SIZE = 128;
+
+    @Param({"1", "2", "4", "8", "16"})
+    public int parallelism;
+
+    @Param({"100"})
+    public int pageSize;
+
+    @Param({"16384"})
+    public int payloadSize;
+
+    private SecretKey key;
+    private List<byte[]> page;
+    private RecordParallelDecoder decoder;
+
+    @Setup
+    public void setUp() throws GeneralSecurityException {
+        KeyGenerator generator = KeyGenerator.getInstance("AES");
+        generator.init(256);
+        key = generator.generateKey();
+
+        SecureRandom random = new SecureRandom();
+        page = new ArrayList<>(pageSize);
+        for (int idx = 0; idx < pageSize; idx++) {
+            byte[] payload = new byte[payloadSize];
+            for (int pos = 0; pos < payloadSize; pos++) {
+                payload[pos] = (byte) ('a' + random.nextInt(26));
+            }
+            page.add(encrypt(payload, random));
+        }
+
+        decoder = new RecordParallelDecoder(parallelism);
+    }
+
+    @Benchmark
+    public List<Integer> decodePage() {
+        return decoder
+                .decode(Flowable.fromIterable(page), this::decode)
+                .toList()
+                .blockingGet();
+    }
+
+    private Integer decode(byte[] encrypted) {
+        try {
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_SIZE, encrypted, 0, IV_SIZE));
+            byte[] plain = cipher.doFinal(encrypted, IV_SIZE, encrypted.length - IV_SIZE);
+            return new String(plain, StandardCharsets.UTF_8).indexOf('z');
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private byte[] encrypt(byte[] payload, SecureRandom random) throws GeneralSecurityException {
+        byte[] iv = new byte[IV_SIZE];
+        random.nextBytes(iv);
+
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_SIZE, iv));
+        byte[] cipherText = cipher.doFinal(payload);
+
+        byte[] encrypted = new byte[IV_SIZE + cipherText.length];
+        System.arraycopy(iv, 0, encrypted, 0, IV_SIZE);
+        System.arraycopy(cipherText, 0, encrypted, IV_SIZE, cipherText.length);
+        return encrypted;
+    }
+}
@@ -35,7 +35,7 @@ abstract class BaseClient(
     private val legacyDataClient: SdkContract.LegacyDataClient = createLegacyDataClient(userService, recordService, handler)
 ) : SdkContract.Client, SdkContract.LegacyDataClient by legacyDataClient, SdkContract.AuthClient by authClient {
     override val userId: String
-        get() = userService.finishLogin(true).flatMap { userService.userID }.blockingGet()
+        get() = userService.session.userId.blockingGet()
 
     companion object {
 
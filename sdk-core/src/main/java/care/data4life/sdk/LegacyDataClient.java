@@ -18,13 +18,18 @@ package care.data4life.sdk;
 
 import org.threeten.bp.LocalDate;
 
+import java.io.File;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import javax.annotation.Nullable;
 
 import care.data4life.fhir.stu3.model.Attachment;
 import care.data4life.fhir.stu3.model.DomainResource;
+import care.data4life.sdk.attachment.AttachmentContract;
+import care.data4life.sdk.attachment.AttachmentFileWriter;
 import care.data4life.sdk.auth.UserService;
 import care.data4life.sdk.call.CallHandler;
 import care.data4life.sdk.call.Task;
@@ -68,9 +73,8 @@ public class LegacyDataClient implements SdkContract.LegacyDataClient {
             T resource,
             ResultListener<Record<T>> listener
     ) {
-        Single<Record<T>> operation = userService.finishLogin(true)
-                .flatMap(ignore -> userService.getUserID())
-                .flatMap(uid -> recordService.createRecord(uid, resource, new ArrayList()));
+        Single<Record<T>> operation = userService.getSession()
+                .execute(uid -> recordService.createRecord(uid, resource, new ArrayList()));
         handler.executeSingle(operation, listener);
     }
 
@@ -80,25 +84,34 @@ public class LegacyDataClient implements SdkContract.LegacyDataClient {
             ResultListener<Record<T>> listener,
             List<String> annotations
     ) {
-        Single<Record<T>> operation = userService.finishLogin(true)
-                .flatMap(ignore -> userService.getUserID())
-                .flatMap(uid -> recordService.createRecord(uid, resource, annotations));
+        Single<Record<T>> operation = userService.getSession()
+                .execute(uid -> recordService.createRecord(uid, resource, annotations));
+        handler.executeSingle(operation, listener);
+    }
+
+    @Override
+    public <T extends DomainResource> void createRecord(
+            T resource,
+            Map<Attachment, AttachmentContract.UploadSource> attachmentSources,
+            ResultListener<Record<T>> listener,
+            List<String> annotations
+    ) {
+        Single<Record<T>> operation = userService.getSession()
+                .execute(uid -> recordService.createRecord(uid, resource, attachmentSources, annotations));
         handler.executeSingle(operation, listener);
     }
 
     @Override
     public <T extends DomainResource> void createRecords(List<T> resources, ResultListener<CreateResult<T>> listener) {
-        Single<CreateResult<T>> operation = userService.finishLogin(true)
-                .flatMap(ignore -> userService.getUserID())
-                .flatMap(uid -> recordService.createRecords(resources, uid));
+        Single<CreateResult<T>> operation = userService.getSession()
+                .execute(uid -> recordService.createRecords(resources, uid));
         handler.executeSingle(operation, listener);
     }
 
     @Override
     public <T extends DomainResource> void updateRecord(T resource, ResultListener<Record<T>> listener) {
-        Single<Record<T>> operation = userService.finishLogin(true)
-                .flatMap(ignore -> userService.getUserID())
-                .flatMap(uid -> recordService.updateRecord(uid, resource.id, resource, new ArrayList()));
+        Single<Record<T>> operation = userService.getSession()
+                .execute(uid -> recordService.updateRecord(uid, resource.id, resource, new ArrayList()));
         handler.executeSingle(operation, listener);
     }
 
@@ -108,17 +121,27 @@ public class LegacyDataClient implements SdkContract.LegacyDataClient {
             ResultListener<Record<T>> listener,
             List<String> annotations
     ) {
-        Single<Record<T>> operation = userService.finishLogin(true)
-                .flatMap(ignore -> userService.getUserID())
-                .flatMap(uid -> recordService.updateRecord(uid, resource.id, resource, annotations));
+        Single<Record<T>> operation = userService.getSession()
+                .execute(uid -> recordService.updateRecord(uid, resource.id, resource, annotations));
+        handler.executeSingle(operation, listener);
+    }
+
+    @Override
+    public <T extends DomainResource> void updateRecord(
+            T resource,
+            Map<Attachment, AttachmentContract.UploadSource> attachmentSources,
+            ResultListener<Record<T>> listener,
+            List<String> annotations
+    ) {
+        Single<Record<T>> operation = userService.getSession()
+                .execute(uid -> recordService.updateRecord(uid, resource.id, resource, attachmentSources, annotations));
         handler.executeSingle(operation, listener);
     }
 
     @Override
     public <T extends DomainResource> void updateRecords(List<T> resources, ResultListener<UpdateResult<T>> listener) {
-        Single<UpdateResult<T>> operation = userService.finishLogin(true)
-                .flatMap(ignore -> userService.getUserID())
-                .flatMap(uid -> recordService.updateRecords(resources, uid));
+        Single<UpdateResult<T>> operation = userService.getSession()
+                .execute(uid -> recordService.updateRecords(resources, uid));
         handler.executeSingle(operation, listener);
     }
 
@@ -247,6 +270,22 @@ public class LegacyDataClient implements SdkContract.LegacyDataClient {
         return handler.executeSingle(operation, listener);
     }
 
+    @Override
+    public Task downloadAttachmentTo(String recordId, String attachmentId, DownloadType type, OutputStream target, ResultListener<Attachment> listener) {
+        Single<Attachment> operation = userService.getUserID()
+                .flatMap(uid -> recordService.downloadFhir3AttachmentTo(recordId, attachmentId, uid, type, target));
+        return handler.executeSingle(operation, listener);
+    }
+
+    @Override
+    public Task downloadAttachmentTo(String recordId, String attachmentId, DownloadType type, File target, ResultListener<Attachment> listener) {
+        Single<Attachment> operation = userService.getUserID()
+                .flatMap(uid -> AttachmentFileWriter.INSTANCE.write(target, output ->
+                        recordService.downloadFhir3AttachmentTo(recordId, attachmentId, uid, type, output)
+                ));
+        return handler.executeSingle(operation, listener);
+    }
+
     private void deleteAttachment(String attachmentId, ResultListener<Boolean> listener) {
         Single<Boolean> operation = userService.getUserID()
                 .flatMap(uid -> recordService.deleteAttachment(attachmentId, uid));
@@ -18,6 +18,7 @@ package care.data4life.sdk
 import care.data4life.sdk.attachment.AttachmentContract
 import care.data4life.sdk.attachment.AttachmentGuardian
 import care.data4life.sdk.attachment.AttachmentHasher
+import care.data4life.sdk.attachment.PreparedAttachment
 import care.data4life.sdk.attachment.ThumbnailService
 import care.data4life.sdk.attachment.ThumbnailService.Companion.SPLIT_CHAR
 import care.data4life.sdk.call.DataRecord
@@ -35,10 +36,10 @@ import care.data4life.sdk.fhir.Fhir4Attachment
 import care.data4life.sdk.fhir.Fhir4Resource
 import care.data4life.sdk.fhir.FhirContract
 import care.data4life.sdk.lang.CoreRuntimeException
-import care.data4life.sdk.lang.D4LException
 import care.data4life.sdk.lang.DataValidationException
 import care.data4life.sdk.migration.MigrationContract
 import care.data4life.sdk.migration.RecordCompatibilityService
+import care.data4life.sdk.model.BatchResult
 import care.data4life.sdk.model.CreateResult
 import care.data4life.sdk.model.DeleteResult
 import care.data4life.sdk.model.DownloadResult
@@ -52,32 +53,45 @@ import care.data4life.sdk.model.RecordMapper
 import care.data4life.sdk.model.UpdateResult
 import care.data4life.sdk.network.NetworkingContract
 import care.data4life.sdk.network.model.DecryptedRecordGuard
+import care.data4life.sdk.network.model.EncryptedRecord
 import care.data4life.sdk.network.model.NetworkModelContract
 import care.data4life.sdk.network.model.NetworkModelContract.DecryptedBaseRecord
 import care.data4life.sdk.network.model.NetworkModelInternalContract.DecryptedFhir3Record
 import care.data4life.sdk.network.model.NetworkModelInternalContract.DecryptedFhir4Record
 import care.data4life.sdk.network.model.RecordCryptoService
+import care.data4life.sdk.record.DecryptedRecordSnapshot
+import care.data4life.sdk.record.RecordBatchExecutor
 import care.data4life.sdk.record.RecordContract
 import care.data4life.sdk.record.RecordContract.Service.Companion.DOWNSCALED_ATTACHMENT_IDS_FMT
 import care.data4life.sdk.record.RecordContract.Service.Companion.DOWNSCALED_ATTACHMENT_IDS_SIZE
 import care.data4life.sdk.record.RecordContract.Service.Companion.DOWNSCALED_ATTACHMENT_IDS_SIZE_WITHOUT_PREVIEW
-import care.data4life.sdk.record.RecordContract.Service.Companion.EMPTY_RECORD_ID
 import care.data4life.sdk.record.RecordContract.Service.Companion.FULL_ATTACHMENT_ID_POS
 import care.data4life.sdk.record.RecordContract.Service.Companion.PREVIEW_ID_POS
 import care.data4life.sdk.record.RecordContract.Service.Companion.THUMBNAIL_ID_POS
+import care.data4life.sdk.record.RecordContract.Service.Companion.VERSION_CONFLICT_RETRIES
+import care.data4life.sdk.record.RecordHandle
+import care.data4life.sdk.record.RecordPaginator
+import care.data4life.sdk.record.RecordParallelDecoder
 import care.data4life.sdk.tag.Annotations
 import care.data4life.sdk.tag.TaggingContract
 import care.data4life.sdk.util.Base64.decode
 import care.data4life.sdk.util.MimeType
-import care.data4life.sdk.util.MimeType.Companion.recognizeMimeType
 import care.data4life.sdk.wrapper.SdkAttachmentFactory
 import care.data4life.sdk.wrapper.SdkFhirAttachmentHelper
 import care.data4life.sdk.wrapper.SdkIdentifierFactory
 import care.data4life.sdk.wrapper.WrapperContract
 import care.data4life.sdk.wrapper.WrapperInternalContract
+import io.reactivex.BackpressureStrategy
 import io.reactivex.Completable
+import io.reactivex.Flowable
 import io.reactivex.Observable
 import io.reactivex.Single
+import java.io.OutputStream
+import java.net.HttpURLConnection.HTTP_CONFLICT
+import java.net.HttpURLConnection.HTTP_PRECON_FAILED
+import java.util.IdentityHashMap
+import java.util.concurrent.atomic.AtomicInteger
+import retrofit2.HttpException
 
 // TODO internal
 // TODO add Factory
@@ -91,7 +105,13 @@ class RecordService internal constructor(
     private val attachmentService: AttachmentContract.Service,
     private val cryptoService: CryptoContract.Service,
     private val errorHandler: SdkContract.ErrorHandler,
-    private val compatibilityService: MigrationContract.CompatibilityService
+    private val compatibilityService: MigrationContract.CompatibilityService,
+    private val batchExecutor: RecordContract.BatchExecutor = RecordBatchExecutor(errorHandler),
+    private val paginator: RecordContract.Paginator = RecordPaginator(),
+    private val decoder: RecordContract.Decoder = RecordParallelDecoder(),
+    private val thumbnailService: AttachmentContract.ThumbnailService? = null,
+    private val recordCache: RecordContract.Cache? = null,
+    private val contentDigest: RecordContract.ContentDigest? = null
 ) : RecordContract.Service {
 
     constructor(
@@ -117,6 +137,41 @@ class RecordService internal constructor(
         RecordCompatibilityService(cryptoService, tagCryptoService)
     )
 
+    @JvmOverloads
+    constructor(
+        partnerId: String,
+        alias: String,
+        apiService: NetworkingContract.Service,
+        tagCryptoService: TaggingContract.CryptoService,
+        taggingService: TaggingContract.Service,
+        resourceCryptoService: FhirContract.CryptoService,
+        attachmentService: AttachmentContract.Service,
+        cryptoService: CryptoContract.Service,
+        errorHandler: SdkContract.ErrorHandler,
+        batchExecutor: RecordContract.BatchExecutor,
+        decoder: RecordContract.Decoder = RecordParallelDecoder(),
+        thumbnailService: AttachmentContract.ThumbnailService? = null,
+        recordCache: RecordContract.Cache? = null,
+        contentDigest: RecordContract.ContentDigest? = null
+    ) : this(
+        partnerId,
+        alias,
+        apiService,
+        tagCryptoService,
+        taggingService,
+        resourceCryptoService,
+        attachmentService,
+        cryptoService,
+        errorHandler,
+        RecordCompatibilityService(cryptoService, tagCryptoService),
+        batchExecutor,
+        RecordPaginator(),
+        decoder,
+        thumbnailService,
+        recordCache,
+        contentDigest
+    )
+
     private val recordCryptoService: NetworkModelContract.CryptoService = RecordCryptoService(
         alias,
         apiService,
@@ -143,20 +198,25 @@ class RecordService internal constructor(
     private fun <T : Any> createRecord(
         userId: String,
         resource: T,
-        annotations: Annotations
+        annotations: Annotations,
+        attachmentSources: Map<out Any, AttachmentContract.UploadSource> = emptyMap()
     ): Single<BaseRecord<T>> {
-        checkDataRestrictions(resource)
+        val preparedAttachments = prepareAttachments(resource)
+        checkDataRestrictions(preparedAttachments)
+        val sources = prepareAttachmentSources(resource, attachmentSources)
 
         val data = extractUploadData(resource)
 
         return fromResource(resource, annotations)
-            .map { createdRecord -> uploadData(createdRecord, userId) }
+            .flatMap { createdRecord -> uploadAttachmentSources(createdRecord, userId, sources) }
+            .map { createdRecord -> uploadData(createdRecord, userId, preparedAttachments, sources.keys) }
             .map { createdRecord -> removeUploadData(createdRecord) }
             .map { createdRecord -> encryptRecord(createdRecord) }
             .flatMap { encryptedRecord -> apiService.createRecord(alias, userId, encryptedRecord) }
             .map { encryptedRecord -> decryptRecord<T>(encryptedRecord, userId) }
             .map { receivedRecord -> restoreUploadData(receivedRecord, resource, data) }
             .map { receivedRecord -> assignResourceId(receivedRecord) }
+            .map { receivedRecord -> scheduleDownscaledImages(receivedRecord, preparedAttachments, userId) }
             .map { receivedRecord -> recordFactory.getInstance(receivedRecord) }
     }
 
@@ -197,47 +257,93 @@ class RecordService internal constructor(
         annotations
     ) as Single<Fhir4Record<T>>
 
+    @Suppress("UNCHECKED_CAST")
+    @Throws(
+        IllegalArgumentException::class,
+        DataValidationException.UnsupportedFileType::class,
+        DataValidationException.MaxDataSizeViolation::class
+    )
+    override fun <T : Fhir3Resource> createRecord(
+        userId: String,
+        resource: T,
+        attachmentSources: Map<Fhir3Attachment, AttachmentContract.UploadSource>,
+        annotations: Annotations
+    ): Single<Record<T>> = createRecord(
+        userId,
+        resource as Any,
+        annotations,
+        attachmentSources
+    ) as Single<Record<T>>
+
+    @Suppress("UNCHECKED_CAST")
+    @Throws(
+        IllegalArgumentException::class,
+        DataValidationException.UnsupportedFileType::class,
+        DataValidationException.MaxDataSizeViolation::class
+    )
+    override fun <T : Fhir4Resource> createRecord(
+        userId: String,
+        resource: T,
+        attachmentSources: Map<Fhir4Attachment, AttachmentContract.UploadSource>,
+        annotations: Annotations
+    ): Single<Fhir4Record<T>> = createRecord(
+        userId,
+        resource as Any,
+        annotations,
+        attachmentSources
+    ) as Single<Fhir4Record<T>>
+
+    override fun <T : Fhir3Resource> createFhir3Records(
+        userId: String,
+        resources: List<T>,
+        annotations: Annotations
+    ): Single<BatchResult<T, Record<T>>> = batchExecutor.execute(resources) { resource ->
+        createRecord(userId, resource, annotations)
+    }
+
+    override fun <T : Fhir4Resource> createFhir4Records(
+        userId: String,
+        resources: List<T>,
+        annotations: Annotations
+    ): Single<BatchResult<T, Fhir4Record<T>>> = batchExecutor.execute(resources) { resource ->
+        createRecord(userId, resource, annotations)
+    }
+
+    override fun createDataRecords(
+        userId: String,
+        resources: List<DataResource>,
+        annotations: Annotations
+    ): Single<BatchResult<DataResource, DataRecord<DataResource>>> = batchExecutor.execute(resources) { resource ->
+        createRecord(userId, resource, annotations)
+    }
+
     fun <T : Fhir3Resource> createRecords(
         resources: List<T>,
         userId: String
     ): Single<CreateResult<T>> {
-        val failedOperations: MutableList<Pair<T, D4LException>> = mutableListOf()
-        return Observable
-            .fromCallable { resources }
-            .flatMapIterable { it }
-            .flatMapSingle { resource ->
-                createRecord(userId, resource, listOf())
-                    .ignoreErrors {
-                        failedOperations.add(Pair(resource, errorHandler.handleError(it)))
-                    }
-            }
-            .toList()
-            .map { CreateResult(it, failedOperations) }
+        return createFhir3Records(userId, resources, listOf())
+            .map { result -> CreateResult(result.successfulOperations, result.failedOperations) }
     }
 
     override fun deleteRecord(
         userId: String,
         recordId: String
-    ): Completable = apiService.deleteRecord(alias, userId, recordId)
+    ): Completable {
+        val deletion = apiService.deleteRecord(alias, userId, recordId)
+
+        return if (recordCache == null) {
+            deletion
+        } else {
+            deletion.doFinally { recordCache.invalidate(userId, recordId) }
+        }
+    }
 
     fun deleteRecords(recordIds: List<String>, userId: String): Single<DeleteResult> {
-        val failedDeletes: MutableList<Pair<String, D4LException>> = mutableListOf()
-        return Observable
-            .fromCallable { recordIds }
-            .flatMapIterable { it }
-            .flatMapSingle { recordId ->
-                deleteRecord(userId, recordId)
-                    .doOnError { error ->
-                        failedDeletes.add(
-                            Pair(recordId, errorHandler.handleError(error))
-                        )
-                    }
-                    .toSingleDefault(recordId)
-                    .onErrorReturnItem(EMPTY_RECORD_ID)
+        return batchExecutor
+            .execute(recordIds) { recordId ->
+                deleteRecord(userId, recordId).toSingleDefault(recordId)
             }
-            .filter { it.isNotEmpty() }
-            .toList()
-            .map { DeleteResult(it, failedDeletes) }
+            .map { result -> DeleteResult(result.successfulOperations, result.failedOperations) }
     }
 
     // ToDo throw error on false error
@@ -245,9 +351,7 @@ class RecordService internal constructor(
         recordId: String,
         userId: String
     ): Single<BaseRecord<T>> {
-        return apiService
-            .fetchRecord(alias, userId, recordId)
-            .map { encryptedRecord -> decryptRecord<T>(encryptedRecord, userId) }
+        return fetchDecryptedRecord<T>(recordId, userId)
             .map { decryptedRecord -> assignResourceId(decryptedRecord) }
             .map { decryptedRecord -> recordFactory.getInstance(decryptedRecord) }
     }
@@ -264,6 +368,22 @@ class RecordService internal constructor(
         recordId: String
     ): Single<Fhir4Record<T>> = _fetchRecord<T>(recordId, userId) as Single<Fhir4Record<T>>
 
+    override fun <T : Fhir4Resource> fetchFhir4RecordHandle(
+        userId: String,
+        recordId: String
+    ): Single<RecordHandle<T>> = fetchRecordHandle(recordId, userId)
+
+    private fun <T : Any> fetchRecordHandle(
+        recordId: String,
+        userId: String
+    ): Single<RecordHandle<T>> {
+        // the version has to match the fetched state, so the cache is bypassed
+        return apiService.fetchRecord(alias, userId, recordId)
+            .map { encryptedRecord ->
+                createRecordHandle(encryptedRecord.version, decryptRecord<T>(encryptedRecord, userId))
+            }
+    }
+
     @Suppress("UNCHECKED_CAST")
     override fun fetchDataRecord(
         userId: String,
@@ -275,20 +395,28 @@ class RecordService internal constructor(
         recordIds: List<String>,
         userId: String
     ): Single<FetchResult<T>> {
-        val failedFetches: MutableList<Pair<String, D4LException>> = arrayListOf()
-        return Observable
-            .fromCallable { recordIds }
-            .flatMapIterable { it }
-            .flatMapSingle { recordId ->
+        return batchExecutor
+            .execute(recordIds) { recordId ->
                 fetchFhir3Record<T>(
                     userId = userId,
                     recordId = recordId
-                ).ignoreErrors {
-                    failedFetches.add(Pair(recordId, errorHandler.handleError(it)))
-                }
+                )
             }
-            .toList()
-            .map { FetchResult(it, failedFetches) }
+            .map { result -> FetchResult(result.successfulOperations, result.failedOperations) }
+    }
+
+    override fun <T : Fhir4Resource> fetchFhir4Records(
+        userId: String,
+        recordIds: List<String>
+    ): Single<BatchResult<String, Fhir4Record<T>>> = batchExecutor.execute(recordIds) { recordId ->
+        fetchFhir4Record<T>(userId, recordId)
+    }
+
+    override fun fetchDataRecords(
+        userId: String,
+        recordIds: List<String>
+    ): Single<BatchResult<String, DataRecord<DataResource>>> = batchExecutor.execute(recordIds) { recordId ->
+        fetchDataRecord(userId, recordId)
     }
 
     private fun <T : Any> searchRecords(
@@ -326,12 +454,121 @@ class RecordService internal constructor(
                 )
             }
             .flatMapIterable { it }
-            .map { encryptedRecord -> decryptRecord<T>(encryptedRecord, userId) }
-            .map { decryptedRecord -> assignResourceId(decryptedRecord) }
-            .map { decryptedRecord -> recordFactory.getInstance(decryptedRecord) }
+            .toFlowable(BackpressureStrategy.BUFFER)
+            .let { encryptedRecords ->
+                decoder.decode(encryptedRecords) { encryptedRecord ->
+                    decodeRecord<T>(encryptedRecord, userId)
+                }
+            }
             .toList()
     }
 
+    private fun <T : Any> streamRecords(
+        userId: String,
+        resourceType: Class<T>,
+        annotations: Annotations,
+        creationDate: SdkContract.CreationDateRange?,
+        updateDateTime: SdkContract.UpdateDateTimeRange?,
+        includeDeletedRecords: Boolean,
+        pageSize: Int
+    ): Flowable<BaseRecord<T>> {
+        val (startCreationDate, endCreationDate) = dateResolver.resolveCreationDate(creationDate)
+        val (startUpdateDate, endUpdateDate) = dateResolver.resolveUpdateDate(updateDateTime)
+
+        return Single
+            .fromCallable {
+                compatibilityService.resolveSearchTags(
+                    taggingService.getTagsFromType(resourceType),
+                    annotations
+                )
+            }
+            .flatMapPublisher { tags ->
+                paginator.paginate(pageSize) { offset ->
+                    apiService.searchRecords(
+                        alias,
+                        userId,
+                        startCreationDate,
+                        endCreationDate,
+                        startUpdateDate,
+                        endUpdateDate,
+                        includeDeletedRecords,
+                        pageSize,
+                        offset,
+                        tags
+                    ).first(emptyList())
+                }
+            }
+            .let { encryptedRecords ->
+                decoder.decode(encryptedRecords) { encryptedRecord ->
+                    decodeRecord<T>(encryptedRecord, userId)
+                }
+            }
+    }
+
+    private fun <T : Any> decodeRecord(
+        encryptedRecord: NetworkModelContract.EncryptedRecord,
+        userId: String
+    ): BaseRecord<T> {
+        val decryptedRecord = decryptRecord<T>(encryptedRecord, userId)
+        return recordFactory.getInstance(assignResourceId(decryptedRecord))
+    }
+
+    @Suppress("UNCHECKED_CAST")
+    override fun <T : Fhir3Resource> streamFhir3Records(
+        userId: String,
+        resourceType: Class<T>,
+        annotations: Annotations,
+        creationDateRange: SdkContract.CreationDateRange?,
+        updateDateTimeRange: SdkContract.UpdateDateTimeRange?,
+        includeDeletedRecords: Boolean,
+        pageSize: Int
+    ): Flowable<Record<T>> = streamRecords(
+        userId,
+        resourceType,
+        annotations,
+        creationDateRange,
+        updateDateTimeRange,
+        includeDeletedRecords,
+        pageSize
+    ) as Flowable<Record<T>>
+
+    @Suppress("UNCHECKED_CAST")
+    override fun <T : Fhir4Resource> streamFhir4Records(
+        userId: String,
+        resourceType: Class<T>,
+        annotations: Annotations,
+        creationDateRange: SdkContract.CreationDateRange?,
+        updateDateTimeRange: SdkContract.UpdateDateTimeRange?,
+        includeDeletedRecords: Boolean,
+        pageSize: Int
+    ): Flowable<Fhir4Record<T>> = streamRecords(
+        userId,
+        resourceType,
+        annotations,
+        creationDateRange,
+        updateDateTimeRange,
+        includeDeletedRecords,
+        pageSize
+    ) as Flowable<Fhir4Record<T>>
+
+    @Suppress("UNCHECKED_CAST")
+    override fun streamDataRecords(
+        userId: String,
+        annotations: Annotations,
+        creationDateRange: SdkContract.CreationDateRange?,
+        updateDateTimeRange: SdkContract.UpdateDateTimeRange?,
+        includeDeletedRecords: Boolean,
+        pageSize: Int
+    ): Flowable<DataRecord<DataResource>> = streamRecords(
+        userId,
+        DataResource::class.java,
+        annotations,
+        creationDateRange,
+        updateDateTimeRange,
+        includeDeletedRecords,
+        pageSize
+    ) as Flowable<DataRecord<DataResource>>
+
     @Suppress("UNCHECKED_CAST")
     override fun <T : Fhir3Resource> searchFhir3Records(
         userId: String,
@@ -402,20 +639,75 @@ class RecordService internal constructor(
         userId: String,
         recordId: String,
         resource: T,
-        annotations: Annotations
+        annotations: Annotations,
+        attachmentSources: Map<out Any, AttachmentContract.UploadSource> = emptyMap()
     ): Single<BaseRecord<T>> {
-        checkDataRestrictions(resource)
+        return updateRecordIfChanged(userId, recordId, resource, annotations, attachmentSources)
+            .map { (record, _) -> record }
+    }
+
+    /**
+     * Updates the record, unless its resource and annotations equal the given ones, as determined by the
+     * ContentDigest. Unchanged records are neither encrypted nor sent, so their update date stays untouched.
+     *
+     * @return the record and whether the update had been skipped
+     */
+    @Throws(
+        DataValidationException.UnsupportedFileType::class,
+        DataValidationException.MaxDataSizeViolation::class
+    )
+    internal fun <T : Any> updateRecordIfChanged(
+        userId: String,
+        recordId: String,
+        resource: T,
+        annotations: Annotations,
+        attachmentSources: Map<out Any, AttachmentContract.UploadSource> = emptyMap()
+    ): Single<Pair<BaseRecord<T>, Boolean>> {
+        val preparedAttachments = prepareAttachments(resource)
+        checkDataRestrictions(preparedAttachments)
+        val sources = prepareAttachmentSources(resource, attachmentSources)
         val data = extractUploadData(resource)
 
-        return apiService
-            .fetchRecord(alias, userId, recordId)
-            .map { fetchedRecord ->
-                decryptRecord<T>(
-                    fetchedRecord,
-                    userId
-                )
-            } // Fixme: Resource clash
-            .map { decryptedRecord -> updateData(decryptedRecord, resource, userId) }
+        return fetchDecryptedRecord<T>(recordId, userId) // Fixme: Resource clash
+            .flatMap { decryptedRecord ->
+                if (sources.isEmpty() && isUnchanged(decryptedRecord, resource, annotations, data)) {
+                    Single.just(decryptedRecord)
+                        .map { unchangedRecord ->
+                            unchangedRecord.also {
+                                it.resource = resource
+                                it.annotations = annotations
+                            }
+                        }
+                        .map { unchangedRecord -> assignResourceId(unchangedRecord) }
+                        .map { unchangedRecord -> Pair(recordFactory.getInstance(unchangedRecord), true) }
+                } else {
+                    updateDecryptedRecord(
+                        userId,
+                        recordId,
+                        decryptedRecord,
+                        resource,
+                        annotations,
+                        data,
+                        preparedAttachments,
+                        sources
+                    ).map { record -> Pair(record, false) }
+                }
+            }
+    }
+
+    private fun <T : Any> updateDecryptedRecord(
+        userId: String,
+        recordId: String,
+        record: DecryptedBaseRecord<T>,
+        resource: T,
+        annotations: Annotations,
+        data: HashMap<Any, String?>?,
+        preparedAttachments: Map<Any, PreparedAttachment>,
+        sources: Map<Any, AttachmentContract.UploadSource>
+    ): Single<BaseRecord<T>> {
+        return Single.just(record)
+            .flatMap { decryptedRecord -> uploadAttachmentSources(decryptedRecord, userId, sources) }
+            .map { decryptedRecord -> updateData(decryptedRecord, resource, userId, preparedAttachments, sources.keys) }
             .map { decryptedRecord ->
                 cleanObsoleteAdditionalIdentifiers(resource)
 
@@ -434,6 +726,7 @@ class RecordService internal constructor(
                     encryptedRecord
                 )
             }
+            .doFinally { recordCache?.invalidate(userId, recordId) }
             .map { encryptedRecord -> decryptRecord<T>(encryptedRecord, userId) }
             .map { decryptedRecord -> restoreUploadData(decryptedRecord, resource, data) }
             .map { decryptedRecord -> assignResourceId(decryptedRecord) }
@@ -474,6 +767,148 @@ class RecordService internal constructor(
         annotations
     ) as Single<Fhir4Record<T>>
 
+    @Suppress("UNCHECKED_CAST")
+    @Throws(
+        IllegalArgumentException::class,
+        DataValidationException.UnsupportedFileType::class,
+        DataValidationException.MaxDataSizeViolation::class
+    )
+    override fun <T : Fhir3Resource> updateRecord(
+        userId: String,
+        recordId: String,
+        resource: T,
+        attachmentSources: Map<Fhir3Attachment, AttachmentContract.UploadSource>,
+        annotations: Annotations
+    ): Single<Record<T>> = updateRecord(
+        userId,
+        recordId,
+        resource as Any,
+        annotations,
+        attachmentSources
+    ) as Single<Record<T>>
+
+    @Suppress("UNCHECKED_CAST")
+    @Throws(
+        IllegalArgumentException::class,
+        DataValidationException.UnsupportedFileType::class,
+        DataValidationException.MaxDataSizeViolation::class
+    )
+    override fun <T : Fhir4Resource> updateRecord(
+        userId: String,
+        recordId: String,
+        resource: T,
+        attachmentSources: Map<Fhir4Attachment, AttachmentContract.UploadSource>,
+        annotations: Annotations
+    ): Single<Fhir4Record<T>> = updateRecord(
+        userId,
+        recordId,
+        resource as Any,
+        annotations,
+        attachmentSources
+    ) as Single<Fhir4Record<T>>
+
+    @Throws(
+        DataValidationException.UnsupportedFileType::class,
+        DataValidationException.MaxDataSizeViolation::class
+    )
+    internal fun <T : Any> updateRecord(
+        userId: String,
+        handle: RecordHandle<T>,
+        resource: T,
+        annotations: Annotations
+    ): Single<RecordHandle<T>> {
+        val recordId = handle.record.identifier
+        val preparedAttachments = prepareAttachments(resource)
+        checkDataRestrictions(preparedAttachments)
+        val data = extractUploadData(resource)
+        val unsavedAttachments = collectUnsavedAttachments(resource)
+
+        return updateRecordAt(
+            userId,
+            recordId,
+            handle.version,
+            resource,
+            annotations,
+            data,
+            preparedAttachments
+        ) { handle.snapshot.restore() }
+            .onErrorResumeNext { error: Throwable ->
+                if (isVersionConflict(error)) {
+                    // the record changed in the meantime, so the update is applied on top of its current state
+                    revertUploadData(resource, data, unsavedAttachments)
+                    apiService.fetchRecord(alias, userId, recordId)
+                        .flatMap { encryptedRecord ->
+                            updateRecordAt(
+                                userId,
+                                recordId,
+                                encryptedRecord.version,
+                                resource,
+                                annotations,
+                                data,
+                                preparedAttachments
+                            ) { decryptRecord(encryptedRecord, userId) }
+                        }
+                } else {
+                    Single.error(error)
+                }
+            }
+    }
+
+    private fun <T : Any> updateRecordAt(
+        userId: String,
+        recordId: String,
+        version: Int,
+        resource: T,
+        annotations: Annotations,
+        data: HashMap<Any, String?>?,
+        preparedAttachments: Map<Any, PreparedAttachment>,
+        currentRecord: () -> DecryptedBaseRecord<T>
+    ): Single<RecordHandle<T>> {
+        return Single.fromCallable { currentRecord() }
+            .map { decryptedRecord -> updateData(decryptedRecord, resource, userId, preparedAttachments) }
+            .map { decryptedRecord ->
+                cleanObsoleteAdditionalIdentifiers(resource)
+
+                decryptedRecord.also {
+                    it.resource = resource
+                    it.annotations = annotations
+                }
+            }
+            .map { decryptedRecord -> removeUploadData(decryptedRecord) }
+            .map { decryptedRecord -> (encryptRecord(decryptedRecord) as EncryptedRecord).copy(version = version) }
+            .flatMap { encryptedRecord ->
+                apiService.updateRecord(
+                    alias,
+                    userId,
+                    recordId,
+                    encryptedRecord
+                )
+            }
+            .doFinally { recordCache?.invalidate(userId, recordId) }
+            .map { encryptedRecord ->
+                createRecordHandle(encryptedRecord.version, decryptRecord(encryptedRecord, userId)) { decryptedRecord ->
+                    restoreUploadData(decryptedRecord, resource, data)
+                }
+            }
+    }
+
+    @Suppress("UNCHECKED_CAST")
+    @Throws(
+        DataValidationException.UnsupportedFileType::class,
+        DataValidationException.MaxDataSizeViolation::class
+    )
+    override fun <T : Fhir4Resource> updateRecord(
+        userId: String,
+        handle: RecordHandle<T>,
+        resource: T,
+        annotations: Annotations
+    ): Single<RecordHandle<T>> = updateRecord(
+        userId,
+        handle as RecordHandle<Any>,
+        resource as Any,
+        annotations
+    ) as Single<RecordHandle<T>>
+
     @Suppress("UNCHECKED_CAST")
     override fun updateRecord(
         userId: String,
@@ -487,22 +922,75 @@ class RecordService internal constructor(
         annotations
     ) as Single<DataRecord<DataResource>>
 
+    override fun <T : Fhir3Resource> updateFhir3Records(
+        userId: String,
+        resources: List<T>,
+        annotations: Annotations
+    ): Single<BatchResult<T, Record<T>>> = if (contentDigest == null) {
+        batchExecutor.execute(resources) { resource ->
+            updateRecord(userId, resource.id!!, resource, annotations)
+        }
+    } else {
+        updateBatch<T, Record<T>>(userId, resources, annotations) { resource -> Pair(resource.id!!, resource) }
+    }
+
+    override fun <T : Fhir4Resource> updateFhir4Records(
+        userId: String,
+        resources: List<T>,
+        annotations: Annotations
+    ): Single<BatchResult<T, Fhir4Record<T>>> = if (contentDigest == null) {
+        batchExecutor.execute(resources) { resource ->
+            updateRecord(userId, resource.id!!, resource, annotations)
+        }
+    } else {
+        updateBatch<T, Fhir4Record<T>>(userId, resources, annotations) { resource -> Pair(resource.id!!, resource) }
+    }
+
+    override fun updateDataRecords(
+        userId: String,
+        resources: Map<String, DataResource>,
+        annotations: Annotations
+    ): Single<BatchResult<String, DataRecord<DataResource>>> = if (contentDigest == null) {
+        batchExecutor.execute(resources.keys.toList()) { recordId ->
+            updateRecord(userId, recordId, resources.getValue(recordId), annotations)
+        }
+    } else {
+        updateBatch<String, DataRecord<DataResource>>(userId, resources.keys.toList(), annotations) { recordId ->
+            Pair(recordId, resources.getValue(recordId))
+        }
+    }
+
+    @Suppress("UNCHECKED_CAST")
+    private fun <K, R> updateBatch(
+        userId: String,
+        items: List<K>,
+        annotations: Annotations,
+        target: (item: K) -> Pair<String, Any>
+    ): Single<BatchResult<K, R>> {
+        // each subscription counts its own unchanged updates
+        return Single.defer {
+            val unchangedOperations = AtomicInteger(0)
+
+            batchExecutor.execute(items) { item ->
+                val (recordId, resource) = target(item)
+
+                updateRecordIfChanged(userId, recordId, resource, annotations)
+                    .map { (record, unchanged) ->
+                        if (unchanged) unchangedOperations.incrementAndGet()
+                        record as R
+                    }
+            }.map { result -> result.copy(unchangedOperations = unchangedOperations.get()) }
+        }
+    }
+
     fun <T : Fhir3Resource> updateRecords(
         resources: List<T>,
         userId: String
     ): Single<UpdateResult<T>> {
-        val failedUpdates: MutableList<Pair<T, D4LException>> = arrayListOf()
-        return Observable
-            .fromCallable { resources }
-            .flatMapIterable { it }
-            .flatMapSingle { resource ->
-                updateRecord(userId, resource.id!!, resource, listOf())
-                    .ignoreErrors {
-                        failedUpdates.add(Pair(resource, errorHandler.handleError(it)))
-                    }
+        return updateFhir3Records(userId, resources, listOf())
+            .map { result ->
+                UpdateResult(result.successfulOperations, result.failedOperations, result.unchangedOperations)
             }
-            .toList()
-            .map { UpdateResult(it, failedUpdates) }
     }
 
     private fun _countRecords(
@@ -581,9 +1069,7 @@ class RecordService internal constructor(
         recordId: String,
         userId: String,
         resourceBarrier: (resource: Any) -> Boolean
-    ): Single<BaseRecord<T>> = apiService
-        .fetchRecord(alias, userId, recordId)
-        .map { encryptedRecord -> decryptRecord<T>(encryptedRecord, userId) }
+    ): Single<BaseRecord<T>> = fetchDecryptedRecord<T>(recordId, userId)
         .map { decryptedRecord -> failOnResourceInconsistency(decryptedRecord, resourceBarrier) }
         .map { decryptedRecord -> downloadData(decryptedRecord, userId) }
         .map { decryptedRecord ->
@@ -598,18 +1084,9 @@ class RecordService internal constructor(
         recordIds: List<String>,
         userId: String
     ): Single<DownloadResult<T>> {
-        val failedDownloads: MutableList<Pair<String, D4LException>> = arrayListOf()
-        return Observable
-            .fromCallable { recordIds }
-            .flatMapIterable { it }
-            .flatMapSingle { recordId ->
-                downloadFhir3Record<T>(recordId, userId)
-                    .ignoreErrors {
-                        failedDownloads.add(Pair(recordId, errorHandler.handleError(it)))
-                    }
-            }
-            .toList()
-            .map { records -> DownloadResult(records as MutableList<Record<T>>?, failedDownloads) }
+        return batchExecutor
+            .execute(recordIds) { recordId -> downloadFhir3Record<T>(recordId, userId) }
+            .map { result -> DownloadResult(result.successfulOperations, result.failedOperations) }
     }
 
     override fun downloadFhir3Attachment(
@@ -671,9 +1148,7 @@ class RecordService internal constructor(
         userId: String,
         type: DownloadType,
         resourceBarrier: (resource: Any) -> Boolean
-    ): Single<List<R>> = apiService
-        .fetchRecord(alias, userId, recordId)
-        .map { encryptedRecord -> decryptRecord<T>(encryptedRecord, userId) }
+    ): Single<List<R>> = fetchDecryptedRecord<T>(recordId, userId)
         .map { decryptedRecord -> failOnResourceInconsistency(decryptedRecord, resourceBarrier) }
         .flatMap { decryptedRecord ->
             downloadAttachmentsFromStorage(
@@ -684,7 +1159,106 @@ class RecordService internal constructor(
             )
         }
 
+    @Throws(IllegalArgumentException::class)
+    override fun downloadFhir3AttachmentTo(
+        recordId: String,
+        attachmentId: String,
+        userId: String,
+        type: DownloadType,
+        target: OutputStream
+    ): Single<Fhir3Attachment> = downloadAttachmentTo<Fhir3Resource, Fhir3Attachment>(
+        recordId,
+        attachmentId,
+        userId,
+        type,
+        target,
+        ::isFhir3
+    )
+
+    @Throws(IllegalArgumentException::class)
+    override fun downloadFhir4AttachmentTo(
+        recordId: String,
+        attachmentId: String,
+        userId: String,
+        type: DownloadType,
+        target: OutputStream
+    ): Single<Fhir4Attachment> = downloadAttachmentTo<Fhir4Resource, Fhir4Attachment>(
+        recordId,
+        attachmentId,
+        userId,
+        type,
+        target,
+        ::isFhir4
+    )
+
+    @Throws(IllegalArgumentException::class)
+    private fun <T : Any, R : Any> downloadAttachmentTo(
+        recordId: String,
+        attachmentId: String,
+        userId: String,
+        type: DownloadType,
+        target: OutputStream,
+        resourceBarrier: (resource: Any) -> Boolean
+    ): Single<R> = fetchDecryptedRecord<T>(recordId, userId)
+        .map { decryptedRecord -> failOnResourceInconsistency(decryptedRecord, resourceBarrier) }
+        .flatMap { decryptedRecord ->
+            streamAttachmentFromStorage(
+                attachmentId,
+                userId,
+                type,
+                decryptedRecord,
+                target
+            )
+        }
+
     //region utility methods
+    private fun <T : Any> fetchDecryptedRecord(
+        recordId: String,
+        userId: String
+    ): Single<DecryptedBaseRecord<T>> {
+        val fetch = { apiService.fetchRecord(alias, userId, recordId) }
+        val decrypt = { encryptedRecord: NetworkModelContract.EncryptedRecord ->
+            decryptRecord<T>(encryptedRecord, userId)
+        }
+
+        return recordCache?.fetch(userId, recordId, fetch, decrypt)
+            ?: fetch().map { encryptedRecord -> decrypt(encryptedRecord) }
+    }
+
+    private fun <T : Any> createRecordHandle(
+        version: Int,
+        decryptedRecord: DecryptedBaseRecord<T>,
+        complete: (DecryptedBaseRecord<T>) -> DecryptedBaseRecord<T> = { it }
+    ): RecordHandle<T> {
+        // the snapshot is taken from the decrypted state, so it does not hold any attachment payloads
+        val snapshot = DecryptedRecordSnapshot.of(decryptedRecord)
+        val record = assignResourceId(complete(decryptedRecord))
+
+        return RecordHandle(recordFactory.getInstance(record), version, snapshot)
+    }
+
+    private fun <T : Any> isUnchanged(
+        record: DecryptedBaseRecord<T>,
+        resource: T,
+        annotations: Annotations,
+        data: HashMap<Any, String?>?
+    ): Boolean {
+        val digest = contentDigest ?: return false
+        // stored records never carry attachment payloads, so new payloads always need a regular update
+        if (data != null && data.values.any { payload -> payload != null }) return false
+        if (record.resource.javaClass != resource.javaClass) return false
+
+        // created records are stored without a resource id, while updated ones carry it
+        assignResourceId(record)
+        return digest.digest(record.resource, record.annotations)
+            .contentEquals(digest.digest(resource, annotations))
+    }
+
+    private fun isVersionConflict(error: Throwable): Boolean {
+        return error is HttpException &&
+            (error.code() == HTTP_CONFLICT || error.code() == HTTP_PRECON_FAILED)
+    }
+
     @Throws(IllegalArgumentException::class)
     private fun <T : Any> failOnResourceInconsistency(
         record: DecryptedBaseRecord<T>,
@@ -726,9 +1300,60 @@ class RecordService internal constructor(
         type: DownloadType,
         decryptedRecord: DecryptedBaseRecord<T>
     ): Single<List<R>> {
+        val attachments = selectAttachmentsForDownload(attachmentIds, type, decryptedRecord)
+
+        return attachmentService.download(
+            attachments,
+            // FIXME this is forced
+            decryptedRecord.attachmentsKey!!,
+            userId
+        )
+            .flattenAsObservable { attachment -> attachment }
+            .map { attachment ->
+                if (attachment.id!!.contains(SPLIT_CHAR)) {
+                    updateAttachmentMeta(attachment)
+                } else {
+                    attachment
+                }
+            }
+            .map { attachment -> attachment.unwrap<R>() }
+            .toList()
+    }
+
+    @Throws(
+        DataValidationException.IdUsageViolation::class,
+        DataValidationException.InvalidAttachmentPayloadHash::class
+    )
+    internal fun <T : Any, R : Any> streamAttachmentFromStorage(
+        attachmentId: String,
+        userId: String,
+        type: DownloadType,
+        decryptedRecord: DecryptedBaseRecord<T>,
+        target: OutputStream
+    ): Single<R> {
+        val attachment = selectAttachmentsForDownload(listOf(attachmentId), type, decryptedRecord).single()
+
+        return attachmentService.downloadTo(
+            attachment,
+            // FIXME this is forced
+            decryptedRecord.attachmentsKey!!,
+            userId,
+            target
+        ).map { downloadedAttachment -> downloadedAttachment.unwrap<R>() }
+    }
+
+    @Throws(
+        DataValidationException.IdUsageViolation::class,
+        IllegalArgumentException::class
+    )
+    private fun <T : Any> selectAttachmentsForDownload(
+        attachmentIds: List<String>,
+        type: DownloadType,
+        decryptedRecord: DecryptedBaseRecord<T>
+    ): List<WrapperContract.Attachment> {
         if (fhirAttachmentHelper.hasAttachment(decryptedRecord.resource)) {
             val resource = decryptedRecord.resource
-            val attachments = fhirAttachmentHelper.getAttachment(resource) ?: emptyList<R?>()
+            val attachments = fhirAttachmentHelper.getAttachment(resource) ?: emptyList<Any?>()
             val validAttachments = mutableListOf<WrapperContract.Attachment>()
 
             for (rawAttachment in attachments) {
@@ -750,22 +1375,7 @@ class RecordService internal constructor(
                 type
             )
 
-            return attachmentService.download(
-                validAttachments,
-                // FIXME this is forced
-                decryptedRecord.attachmentsKey!!,
-                userId
-            )
-                .flattenAsObservable { attachment -> attachment }
-                .map { attachment ->
-                    if (attachment.id!!.contains(SPLIT_CHAR)) {
-                        updateAttachmentMeta(attachment)
-                    } else {
-                        attachment
-                    }
-                }
-                .map { attachment -> attachment.unwrap<R>() }
-                .toList()
+            return validAttachments
         }
 
         throw IllegalArgumentException("Expected a record of a type that has attachment")
@@ -825,6 +1435,26 @@ class RecordService internal constructor(
         }
     }
 
+    private fun <T : Any> collectUnsavedAttachments(resource: T): List<Any> {
+        if (!isFhirWithPossibleAttachments(resource)) return emptyList()
+
+        return fhirAttachmentHelper.getAttachment(resource)
+            ?.filterNotNull()
+            ?.filter { rawAttachment -> attachmentFactory.wrap(rawAttachment).id == null }
+            ?: emptyList()
+    }
+
+    private fun <T : Any> revertUploadData(
+        resource: T,
+        data: HashMap<Any, String?>?,
+        unsavedAttachments: List<Any>
+    ) {
+        unsavedAttachments.forEach { rawAttachment -> attachmentFactory.wrap(rawAttachment).id = null }
+        if (data != null) {
+            fhirAttachmentHelper.updateAttachmentData(resource, data)
+        }
+    }
+
     internal fun <T : Any> restoreUploadData(
         record: DecryptedBaseRecord<T>,
         originalResource: T,
@@ -859,9 +1489,12 @@ class RecordService internal constructor(
         record: DecryptedBaseRecord<T>,
         resource: T,
         attachments: List<WrapperContract.Attachment>,
-        userId: String
+        userId: String,
+        withDownscaledImages: Boolean = true
     ) {
-        if (attachments.isNotEmpty()) {
+        if (attachments.isEmpty()) return
+
+        if (withDownscaledImages) {
             updateFhirResourceIdentifier(
                 resource,
                 attachmentService.upload(
@@ -870,16 +1503,89 @@ class RecordService internal constructor(
                     userId
                 ).blockingGet()
             )
+        } else {
+            attachmentService.uploadOriginals(
+                attachments,
+                resolveAttachmentKey(record),
+                userId
+            ).blockingGet()
+        }
+    }
+
+    /**
+     * Checks that each of the given sources is keyed by an Attachment of the resource,
+     * which neither carries an id nor data, since its content is streamed from the source.
+     *
+     * @return the sources by the identity of the raw Attachments
+     */
+    @Throws(IllegalArgumentException::class)
+    private fun <T : Any> prepareAttachmentSources(
+        resource: T,
+        attachmentSources: Map<out Any, AttachmentContract.UploadSource>
+    ): Map<Any, AttachmentContract.UploadSource> {
+        if (attachmentSources.isEmpty()) {
+            return emptyMap()
+        }
+
+        val attachments = if (isFhirWithPossibleAttachments(resource)) {
+            fhirAttachmentHelper.getAttachment(resource) ?: emptyList()
+        } else {
+            emptyList()
+        }
+        val sources = IdentityHashMap<Any, AttachmentContract.UploadSource>(attachmentSources.size)
+
+        for ((rawAttachment, source) in attachmentSources) {
+            require(attachments.any { it === rawAttachment }) {
+                "The streamed Attachment is not part of the given resource."
+            }
+
+            val attachment = attachmentFactory.wrap(rawAttachment)
+            require(attachment.id == null && attachment.data == null) {
+                "The streamed Attachment may neither carry an id nor data."
+            }
+
+            sources[rawAttachment] = source
+        }
+
+        return sources
+    }
+
+    /**
+     * Streams the content of each source into the storage and sets the id, hash and size of its Attachment.
+     * Streamed Attachments are uploaded without downscaled images, since their content is never held in memory.
+     */
+    private fun <T : Any> uploadAttachmentSources(
+        record: DecryptedBaseRecord<T>,
+        userId: String,
+        sources: Map<Any, AttachmentContract.UploadSource>
+    ): Single<DecryptedBaseRecord<T>> {
+        if (sources.isEmpty()) {
+            return Single.just(record)
         }
+
+        val attachmentsKey = resolveAttachmentKey(record)
+        return Flowable.fromIterable(sources.entries)
+            .concatMapSingle { (rawAttachment, source) ->
+                attachmentService.uploadStream(
+                    attachmentFactory.wrap(rawAttachment),
+                    source,
+                    attachmentsKey,
+                    userId
+                )
+            }
+            .ignoreElements()
+            .toSingleDefault(record)
     }
 
     private fun determineUploadableAttachment(
         rawAttachments: List<Any?>,
-        validAttachments: MutableList<WrapperContract.Attachment>
+        validAttachments: MutableList<WrapperContract.Attachment>,
+        preparedAttachments: Map<Any, PreparedAttachment>,
+        streamedAttachments: Set<Any>
     ) {
         for (rawAttachment in rawAttachments) {
-            if (rawAttachment != null) {
-                val attachment = attachmentFactory.wrap(rawAttachment)
+            if (rawAttachment != null && rawAttachment !in streamedAttachments) {
+                val attachment = preparedAttachments[rawAttachment] ?: attachmentFactory.wrap(rawAttachment)
                 attachmentGuardian.guardId(attachment)
                 attachmentGuardian.guardSize(attachment)
                 attachmentGuardian.guardHash(attachment)
@@ -896,7 +1602,9 @@ class RecordService internal constructor(
     )
     internal fun <T : Any> uploadData(
         record: DecryptedBaseRecord<T>,
-        userId: String
+        userId: String,
+        preparedAttachments: Map<Any, PreparedAttachment> = emptyMap(),
+        streamedAttachments: Set<Any> = emptySet()
     ): DecryptedBaseRecord<T> {
         if (!isFhir(record.resource)) {
             return record
@@ -910,19 +1618,118 @@ class RecordService internal constructor(
 
         val validAttachments: MutableList<WrapperContract.Attachment> = arrayListOf()
 
-        determineUploadableAttachment(attachments, validAttachments)
-        uploadAttachmentsOnDemand(record, resource, validAttachments, userId)
+        determineUploadableAttachment(attachments, validAttachments, preparedAttachments, streamedAttachments)
+        uploadAttachmentsOnDemand(
+            record,
+            resource,
+            validAttachments,
+            userId,
+            withDownscaledImages = thumbnailService == null
+        )
+        return record
+    }
+
+    /**
+     * Hands the downscaling of the images, which had been uploaded by a created record, over to the ThumbnailService.
+     * Once they are uploaded, their ids are added to the record by a follow-up update.
+     */
+    internal fun <T : Any> scheduleDownscaledImages(
+        record: DecryptedBaseRecord<T>,
+        preparedAttachments: Map<Any, PreparedAttachment>,
+        userId: String
+    ): DecryptedBaseRecord<T> {
+        val thumbnails = thumbnailService
+        val attachmentsKey = record.attachmentsKey
+        val recordId = record.identifier
+        if (thumbnails == null || attachmentsKey == null || recordId == null) {
+            return record
+        }
+
+        val originals = preparedAttachments.values
+            .filter { attachment -> attachment.id != null }
+            .map { attachment -> attachment to attachment.payload }
+
+        if (originals.isNotEmpty()) {
+            thumbnails.schedule(
+                Single.defer { attachmentService.uploadDownscaled(originals, attachmentsKey, userId) }
+                    .flatMapCompletable { uploadedAttachments ->
+                        appendDownscaledAttachmentIds(recordId, uploadedAttachments, userId)
+                    }
+            )
+        }
+
         return record
     }
 
+    internal fun appendDownscaledAttachmentIds(
+        recordId: String,
+        uploadedAttachments: List<Pair<WrapperContract.Attachment, List<String>?>>,
+        userId: String
+    ): Completable {
+        val downscaledAttachments = uploadedAttachments.filter { (_, additionalIds) -> additionalIds != null }
+        if (downscaledAttachments.isEmpty()) {
+            return Completable.complete()
+        }
+
+        return appendDownscaledAttachmentIdsAt(recordId, downscaledAttachments, userId, VERSION_CONFLICT_RETRIES)
+            .doFinally { recordCache?.invalidate(userId, recordId) }
+    }
+
+    /**
+     * Adds the AdditionalIds to the current state of the record. The record is written at the version it was
+     * fetched with, so a concurrent update is not reverted; on a conflict the ids are applied to the newer state.
+     */
+    private fun appendDownscaledAttachmentIdsAt(
+        recordId: String,
+        downscaledAttachments: List<Pair<WrapperContract.Attachment, List<String>?>>,
+        userId: String,
+        remainingRetries: Int
+    ): Completable {
+        return apiService
+            .fetchRecord(alias, userId, recordId)
+            .flatMapCompletable { fetchedRecord ->
+                val decryptedRecord = decryptRecord<Any>(fetchedRecord, userId)
+                // the record might have been updated meanwhile, so only its remaining Attachments are referenced
+                val currentAttachmentIds = fhirAttachmentHelper.getAttachment(decryptedRecord.resource)
+                    ?.mapNotNull { rawAttachment -> rawAttachment?.let { attachmentFactory.wrap(it).id } }
+                    ?: emptyList()
+                val currentAttachments = downscaledAttachments.filter { (attachment, _) ->
+                    attachment.id in currentAttachmentIds
+                }
+
+                if (currentAttachments.isEmpty()) {
+                    Completable.complete()
+                } else {
+                    updateFhirResourceIdentifier(decryptedRecord.resource, currentAttachments)
+                    apiService
+                        .updateRecord(
+                            alias,
+                            userId,
+                            recordId,
+                            (encryptRecord(decryptedRecord) as EncryptedRecord).copy(version = fetchedRecord.version)
+                        )
+                        .ignoreElement()
+                }
+            }
+            .onErrorResumeNext { error: Throwable ->
+                if (isVersionConflict(error) && remainingRetries > 0) {
+                    appendDownscaledAttachmentIdsAt(recordId, downscaledAttachments, userId, remainingRetries - 1)
+                } else {
+                    Completable.error(error)
+                }
+            }
+    }
+
     private fun determineUpdateableAttachment(
         rawNewAttachments: List<Any?>,
         oldAttachments: MutableMap<String, WrapperContract.Attachment>,
-        validAttachments: MutableList<WrapperContract.Attachment>
+        validAttachments: MutableList<WrapperContract.Attachment>,
+        preparedAttachments: Map<Any, PreparedAttachment>,
+        streamedAttachments: Set<Any>
     ) {
         for (rawNewAttachment in rawNewAttachments) {
-            if (rawNewAttachment != null) {
-                val newAttachment = attachmentFactory.wrap(rawNewAttachment)
+            if (rawNewAttachment != null && rawNewAttachment !in streamedAttachments) {
+                val newAttachment = preparedAttachments[rawNewAttachment] ?: attachmentFactory.wrap(rawNewAttachment)
                 attachmentGuardian.guardSize(newAttachment)
 
                 val oldAttachment = if (newAttachment.id == null) {
@@ -948,7 +1755,9 @@ class RecordService internal constructor(
     internal fun <T : Any> updateData(
         record: DecryptedBaseRecord<T>,
         newResource: T,
-        userId: String
+        userId: String,
+        preparedAttachments: Map<Any, PreparedAttachment> = emptyMap(),
+        streamedAttachments: Set<Any> = emptySet()
     ): DecryptedBaseRecord<T> {
         if (!isFhir(record.resource)) {
             return record
@@ -977,7 +1786,9 @@ class RecordService internal constructor(
         determineUpdateableAttachment(
             fhirAttachmentHelper.getAttachment(newResource) ?: listOf<Any>(),
             oldAttachments,
-            validAttachments
+            validAttachments,
+            preparedAttachments,
+            streamedAttachments
         )
 
         uploadAttachmentsOnDemand(record, newResource, validAttachments, userId)
@@ -1124,25 +1935,48 @@ class RecordService internal constructor(
         DataValidationException.UnsupportedFileType::class
     )
     fun <T : Any> checkDataRestrictions(resource: T) {
-        if (isFhirWithPossibleAttachments(resource)) {
-            val attachments = fhirAttachmentHelper.getAttachment(resource)
-                ?: return
+        checkDataRestrictions(prepareAttachments(resource))
+    }
 
-            for (rawAttachment in attachments) {
-                rawAttachment ?: continue
+    @Throws(
+        DataValidationException.MaxDataSizeViolation::class,
+        DataValidationException.UnsupportedFileType::class
+    )
+    internal fun checkDataRestrictions(preparedAttachments: Map<Any, PreparedAttachment>) {
+        for (attachment in preparedAttachments.values) {
+            if (attachment.mimeType == MimeType.UNKNOWN) {
+                throw DataValidationException.UnsupportedFileType()
+            }
+            if (attachment.payloadSize > DATA_SIZE_MAX_BYTES) {
+                throw DataValidationException.MaxDataSizeViolation()
+            }
+        }
+    }
 
-                val attachment = attachmentFactory.wrap(rawAttachment)
-                if (attachment.data is String) {
-                    val data = decode(attachment.data!!)
-                    if (recognizeMimeType(data) == MimeType.UNKNOWN) {
-                        throw DataValidationException.UnsupportedFileType()
-                    }
-                    if (data.size > DATA_SIZE_MAX_BYTES) {
-                        throw DataValidationException.MaxDataSizeViolation()
-                    }
-                }
+    /**
+     * Decodes the payload of each Attachment of the given resource once,
+     * so the restriction checks, the hash guard and the upload do not decode it again.
+     *
+     * @return the PreparedAttachments by the identity of the raw Attachments, which carry data
+     */
+    internal fun <T : Any> prepareAttachments(resource: T): Map<Any, PreparedAttachment> {
+        if (!isFhirWithPossibleAttachments(resource)) {
+            return emptyMap()
+        }
+
+        val attachments = fhirAttachmentHelper.getAttachment(resource) ?: return emptyMap()
+        val preparedAttachments = IdentityHashMap<Any, PreparedAttachment>(attachments.size)
+
+        for (rawAttachment in attachments) {
+            rawAttachment ?: continue
+
+            val preparedAttachment = PreparedAttachment.prepare(attachmentFactory.wrap(rawAttachment))
+            if (preparedAttachment != null) {
+                preparedAttachments[rawAttachment] = preparedAttachment
             }
         }
+
+        return preparedAttachments
     }
 
     @Throws(DataValidationException.IdUsageViolation::class)
@@ -1180,11 +2014,4 @@ class RecordService internal constructor(
         }
     }
     //endregion
-
-    private fun <T> Single<T>.ignoreErrors(exceptionHandler: (Throwable) -> Unit) =
-        retryWhen { errors ->
-            errors
-                .doOnNext { exceptionHandler(it) }
-                .map { 0 }
-        }
 }
@@ -15,6 +15,7 @@
  */
 package care.data4life.sdk
 
+import care.data4life.sdk.attachment.AttachmentContract
 import care.data4life.sdk.call.Callback
 import care.data4life.sdk.call.DataRecord
 import care.data4life.sdk.call.Fhir4Record
@@ -26,7 +27,10 @@ import care.data4life.sdk.lang.D4LException
 import care.data4life.sdk.listener.Callback as LegacyCallback
 import care.data4life.sdk.listener.ResultListener as LegacyListener
 import care.data4life.sdk.model.DownloadType
+import care.data4life.sdk.record.RecordHandle
 import care.data4life.sdk.tag.Annotations
+import java.io.File
+import java.io.OutputStream
 import org.threeten.bp.LocalDate
 import org.threeten.bp.LocalDateTime
 
@@ -92,6 +96,24 @@ interface SdkContract {
             callback: Callback<Fhir4Record<T>>
         ): Task
 
+        /**
+         * Creates a {@link Fhir4Record} and streams the content of each given source into the Attachment it is keyed by,
+         * so it is never held in memory. Use {@link care.data4life.sdk.attachment.FileUploadSource} for a File
+         * and {@link care.data4life.sdk.attachment.StreamUploadSource} for an InputStream.
+         *
+         * @param resource          the resource that will be created
+         * @param attachmentSources the sources by the Attachments of the resource, which may neither carry an id nor data
+         * @param annotations       custom annotations added as tags to the record
+         * @param callback          either {@link Callback#onSuccess(Object)} or {@link Callback#onError(D4LException)} will be called
+         * @return {@link Task} which can be used to cancel ongoing operation or to query operation status
+         */
+        fun <T : Fhir4Resource> create(
+            resource: T,
+            attachmentSources: Map<Fhir4Attachment, AttachmentContract.UploadSource>,
+            annotations: Annotations,
+            callback: Callback<Fhir4Record<T>>
+        ): Task
+
         /**
          * Update an {@link Fhir4Record}
          *
@@ -108,6 +130,43 @@ interface SdkContract {
             callback: Callback<Fhir4Record<T>>
         ): Task
 
+        /**
+         * Update an {@link Fhir4Record} and streams the content of each given source into the Attachment it is keyed by,
+         * so it is never held in memory. Use {@link care.data4life.sdk.attachment.FileUploadSource} for a File
+         * and {@link care.data4life.sdk.attachment.StreamUploadSource} for an InputStream.
+         *
+         * @param recordId          the id of the {@link care.data4life.sdk.model.definitions.DataRecord} that shall be update
+         * @param resource          the updated resource that shall be uploaded
+         * @param attachmentSources the sources by the Attachments of the resource, which may neither carry an id nor data
+         * @param annotations       custom annotations added as tags to the record
+         * @param callback          either {@link Callback#onSuccess(Object)} or {@link Callback#onError(D4LException)} will be called
+         * @return {@link Task} which can be used to cancel ongoing operation or to query operation status
+         */
+        fun <T : Fhir4Resource> update(
+            recordId: String,
+            resource: T,
+            attachmentSources: Map<Fhir4Attachment, AttachmentContract.UploadSource>,
+            annotations: Annotations,
+            callback: Callback<Fhir4Record<T>>
+        ): Task
+
+        /**
+         * Update an {@link Fhir4Record} through a {@link RecordHandle}, without fetching it beforehand.
+         * If the record has been changed in the meantime, it is fetched and the update is applied on top of it.
+         *
+         * @param handle         the {@link RecordHandle} of the record that shall be updated
+         * @param resource       the updated resource that shall be uploaded
+         * @param annotations    custom annotations added as tags to the record
+         * @param callback       either {@link Callback#onSuccess(Object)} or {@link Callback#onError(D4LException)} will be called
+         * @return {@link Task} which can be used to cancel ongoing operation or to query operation status
+         */
+        fun <T : Fhir4Resource> update(
+            handle: RecordHandle<T>,
+            resource: T,
+            annotations: Annotations,
+            callback: Callback<RecordHandle<T>>
+        ): Task
+
         /**
          * Download an {@link Fhir4Record}
          *
@@ -137,6 +196,15 @@ interface SdkContract {
          */
         fun <T : Fhir4Resource> fetch(recordId: String, callback: Callback<Fhir4Record<T>>): Task
 
+        /**
+         * Fetch a {@link RecordHandle} of an {@link Fhir4Record} with given recordId, which can be used for subsequent updates
+         *
+         * @param recordId          the id of the data record which shall be fetched
+         * @param callback          either {@link Callback#onSuccess(Object)} or {@link Callback#onError(D4LException)} will be called
+         * @return {@link Task} which can be used to cancel ongoing operation or to query operation status
+         */
+        fun <T : Fhir4Resource> fetchHandle(recordId: String, callback: Callback<RecordHandle<T>>): Task
+
         /**
          * Search {@link Fhir4Record} with filters
          *
@@ -210,6 +278,51 @@ interface SdkContract {
             type: DownloadType,
             callback: Callback<List<Fhir4Attachment>>
         ): Task
+
+        /**
+         * Download a specific {@link Fhir4Attachment} from a {@link Fhir4Record} directly into the given target.
+         * The content is decrypted and its hash is verified while it is streamed, so it is never held in memory.
+         *
+         * @param recordId     the id of the record the attachment belongs to
+         * @param attachmentId the id of the attachment that shall be downloaded
+         * @param type         the size of attachment that shall be downloaded(Full, Medium, Small).
+         *                     This property has effect only for image type attachments.
+         * @param target       the stream the content is written into, it is neither flushed nor closed
+         * @param callback     either {@link Callback#onSuccess(Object)} or {@link Callback#onError(D4LException)} will be called
+         *                     The resulting {@link Fhir4Attachment} carries the hash and size, but no data.
+         * @return {@link Task} which can be used to cancel ongoing operation or to query operation status
+         * @throws IllegalArgumentException if {@param recordId} is not FHIR4
+         */
+        fun downloadAttachmentTo(
+            recordId: String,
+            attachmentId: String,
+            type: DownloadType,
+            target: OutputStream,
+            callback: Callback<Fhir4Attachment>
+        ): Task
+
+        /**
+         * Download a specific {@link Fhir4Attachment} from a {@link Fhir4Record} directly into the given file.
+         * The content is decrypted and its hash is verified while it is streamed, so it is never held in memory.
+         * If the download fails, the file is deleted.
+         *
+         * @param recordId     the id of the record the attachment belongs to
+         * @param attachmentId the id of the attachment that shall be downloaded
+         * @param type         the size of attachment that shall be downloaded(Full, Medium, Small).
+         *                     This property has effect only for image type attachments.
+         * @param target       the file the content is written into, an existing file is overwritten
+         * @param callback     either {@link Callback#onSuccess(Object)} or {@link Callback#onError(D4LException)} will be called
+         *                     The resulting {@link Fhir4Attachment} carries the hash and size, but no data.
+         * @return {@link Task} which can be used to cancel ongoing operation or to query operation status
+         * @throws IllegalArgumentException if {@param recordId} is not FHIR4
+         */
+        fun downloadAttachmentTo(
+            recordId: String,
+            attachmentId: String,
+            type: DownloadType,
+            target: File,
+            callback: Callback<Fhir4Attachment>
+        ): Task
     }
 
     interface DataRecordClient {
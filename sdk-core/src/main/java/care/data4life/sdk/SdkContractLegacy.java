@@ -18,12 +18,16 @@ package care.data4life.sdk;
 
 import org.threeten.bp.LocalDate;
 
+import java.io.File;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.Map;
 
 import javax.annotation.Nullable;
 
 import care.data4life.fhir.stu3.model.Attachment;
 import care.data4life.fhir.stu3.model.DomainResource;
+import care.data4life.sdk.attachment.AttachmentContract;
 import care.data4life.sdk.call.Task;
 import care.data4life.sdk.lang.D4LException;
 import care.data4life.sdk.listener.Callback;
@@ -71,6 +75,24 @@ public interface SdkContractLegacy {
          */
         <T extends DomainResource> void createRecord(T resource, ResultListener<Record<T>> listener, List<String> annotations);
 
+        /**
+         * Creates a record and streams the content of each given source into the attachment it is keyed by,
+         * so it is never held in memory. Use {@link care.data4life.sdk.attachment.FileUploadSource} for a file
+         * and {@link care.data4life.sdk.attachment.StreamUploadSource} for an input stream.
+         *
+         * @param resource          the resource that shall be created
+         * @param attachmentSources the sources by the attachments of the resource, which may neither carry an id nor data
+         * @param listener          result contains either record or Error
+         * @param annotations       custom annotations added as tags to the record
+         * @param <T>               the type of the created {@link Record} as a subclass of {@link DomainResource}
+         */
+        <T extends DomainResource> void createRecord(
+                T resource,
+                Map<Attachment, AttachmentContract.UploadSource> attachmentSources,
+                ResultListener<Record<T>> listener,
+                List<String> annotations
+        );
+
         /**
          * Create a list of records
          *
@@ -223,6 +245,24 @@ public interface SdkContractLegacy {
          */
         <T extends DomainResource> void updateRecord(T resource, ResultListener<Record<T>> listener, List<String> annotations);
 
+        /**
+         * Update a record and streams the content of each given source into the attachment it is keyed by,
+         * so it is never held in memory. Use {@link care.data4life.sdk.attachment.FileUploadSource} for a file
+         * and {@link care.data4life.sdk.attachment.StreamUploadSource} for an input stream.
+         *
+         * @param resource          the updated resource that shall be uploaded
+         * @param attachmentSources the sources by the attachments of the resource, which may neither carry an id nor data
+         * @param listener          either {@link ResultListener#onSuccess(Object)} or {@link ResultListener#onError(D4LException)} will be called
+         * @param annotations       custom annotations added as tags to the record
+         * @param <T>               the type of {@link Record} as a subclass of {@link DomainResource}
+         */
+        <T extends DomainResource> void updateRecord(
+                T resource,
+                Map<Attachment, AttachmentContract.UploadSource> attachmentSources,
+                ResultListener<Record<T>> listener,
+                List<String> annotations
+        );
+
         /**
          * Update a list of records
          *
@@ -255,5 +295,36 @@ public interface SdkContractLegacy {
          * @return {@link Task} which can be used to cancel ongoing operation or to query operation status.
          */
         Task downloadAttachments(String recordId, List<String> attachmentIds, DownloadType type, ResultListener<List<Attachment>> listener);
+
+        /**
+         * Download a specific attachment from a record directly into the given target.
+         * The content is decrypted and its hash is verified while it is streamed, so it is never held in memory.
+         *
+         * @param recordId     the id of the record the attachment belongs to
+         * @param attachmentId the id of the attachment that shall be downloaded
+         * @param type         the size of attachment that shall be downloaded(Full, Medium, Small).
+         *                     This property has effect only for image type attachments.
+         * @param target       the stream the content is written into, it is neither flushed nor closed
+         * @param listener     either {@link ResultListener#onSuccess(Object)} or {@link ResultListener#onError(D4LException)} will be called.
+         *                     The resulting attachment carries the hash and size, but no data.
+         * @return {@link Task} which can be used to cancel ongoing operation or to query operation status.
+         */
+        Task downloadAttachmentTo(String recordId, String attachmentId, DownloadType type, OutputStream target, ResultListener<Attachment> listener);
+
+        /**
+         * Download a specific attachment from a record directly into the given file.
+         * The content is decrypted and its hash is verified while it is streamed, so it is never held in memory.
+         * If the download fails, the file is deleted.
+         *
+         * @param recordId     the id of the record the attachment belongs to
+         * @param attachmentId the id of the attachment that shall be downloaded
+         * @param type         the size of attachment that shall be downloaded(Full, Medium, Small).
+         *                     This property has effect only for image type attachments.
+         * @param target       the file the content is written into, an existing file is overwritten
+         * @param listener     either {@link ResultListener#onSuccess(Object)} or {@link ResultListener#onError(D4LException)} will be called.
+         *                     The resulting attachment carries the hash and size, but no data.
+         * @return {@link Task} which can be used to cancel ongoing operation or to query operation status.
+         */
+        Task downloadAttachmentTo(String recordId, String attachmentId, DownloadType type, File target, ResultListener<Attachment> listener);
     }
 }
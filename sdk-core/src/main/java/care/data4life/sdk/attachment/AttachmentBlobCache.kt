@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.attachment
+
+import care.data4life.sdk.attachment.AttachmentContract.BlobCache.Companion.DEFAULT_MAX_BYTES
+import care.data4life.sdk.log.Log
+import java.io.File
+import java.io.FileNotFoundException
+import java.io.FileOutputStream
+import java.io.IOException
+import java.io.RandomAccessFile
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.security.MessageDigest
+
+/**
+ * Keeps the still encrypted blobs of downloaded documents as files in the given directory.
+ * Documents never change under their id, so a cached blob stays valid until it is evicted.
+ * The blobs are read through memory-mapped files and evicted in least recently used order,
+ * once their total size exceeds the given limit.
+ */
+class AttachmentBlobCache @JvmOverloads constructor(
+    private val directory: File,
+    private val maxBytes: Long = DEFAULT_MAX_BYTES
+) : AttachmentContract.BlobCache {
+    private val lock = Any()
+    private val entries = LinkedHashMap<String, Long>(16, 0.75f, true)
+    private var cachedBytes = 0L
+
+    init {
+        require(maxBytes > 0) { "The size of the cache must be positive." }
+
+        directory.mkdirs()
+        restoreEntries()
+    }
+
+    override val size: Long
+        get() = synchronized(lock) { cachedBytes }
+
+    private fun restoreEntries() {
+        val files = directory.listFiles() ?: return
+        // leftovers of interrupted writes are never referenced
+        files.filter { file -> file.name.endsWith(PENDING_SUFFIX) }.forEach { file -> file.delete() }
+
+        synchronized(lock) {
+            files
+                .filter { file -> file.isFile && file.name.endsWith(BLOB_SUFFIX) }
+                .sortedBy { file -> file.lastModified() }
+                .forEach { file ->
+                    entries[file.name] = file.length()
+                    cachedBytes += file.length()
+                }
+            evict()
+        }
+    }
+
+    override fun get(documentId: String): ByteBuffer? {
+        val name = nameOf(documentId)
+        val file = File(directory, name)
+
+        // the blob is mapped under the lock, since opening it for writing would recreate a concurrently deleted file
+        return synchronized(lock) {
+            entries[name] ?: return null
+
+            try {
+                if (!file.isFile) {
+                    throw FileNotFoundException("The cached blob vanished from the cache.")
+                }
+
+                RandomAccessFile(file, "rw").use { blob ->
+                    blob.channel.map(FileChannel.MapMode.PRIVATE, 0, blob.length())
+                }.also { file.setLastModified(System.currentTimeMillis()) }
+            } catch (error: IOException) {
+                Log.error(error, "Failed to read a cached document")
+                cachedBytes -= entries.remove(name) ?: 0L
+                file.delete()
+                null
+            }
+        }
+    }
+
+    override fun put(documentId: String, blob: ByteArray) {
+        if (blob.size > maxBytes) {
+            return
+        }
+
+        val name = nameOf(documentId)
+        var pending: File? = null
+        try {
+            pending = File.createTempFile(name, PENDING_SUFFIX, directory)
+            FileOutputStream(pending).use { target -> target.write(blob) }
+            // the blob is renamed in whole, so readers never map a partially written file
+            if (!pending.renameTo(File(directory, name))) {
+                throw IOException("Failed to move the blob into the cache.")
+            }
+        } catch (error: IOException) {
+            Log.error(error, "Failed to cache a document")
+            pending?.delete()
+            return
+        }
+
+        synchronized(lock) {
+            cachedBytes += blob.size - (entries.put(name, blob.size.toLong()) ?: 0L)
+            evict()
+        }
+    }
+
+    private fun evict() {
+        val iterator = entries.entries.iterator()
+        while (cachedBytes > maxBytes && iterator.hasNext()) {
+            val (name, size) = iterator.next()
+            iterator.remove()
+            cachedBytes -= size
+            File(directory, name).delete()
+        }
+    }
+
+    override fun remove(documentId: String) {
+        val name = nameOf(documentId)
+        synchronized(lock) {
+            val size = entries.remove(name) ?: return
+            cachedBytes -= size
+            File(directory, name).delete()
+        }
+    }
+
+    override fun clear() {
+        synchronized(lock) {
+            entries.keys.forEach { name -> File(directory, name).delete() }
+            entries.clear()
+            cachedBytes = 0L
+        }
+    }
+
+    private fun nameOf(documentId: String): String {
+        val digest = MessageDigest.getInstance(NAME_ALGORITHM).digest(documentId.toByteArray(Charsets.UTF_8))
+        return digest.joinToString(separator = "", postfix = BLOB_SUFFIX) { byte -> "%02x".format(byte) }
+    }
+
+    private companion object {
+        const val NAME_ALGORITHM = "SHA-256"
+        const val BLOB_SUFFIX = ".blob"
+        const val PENDING_SUFFIX = ".pending"
+    }
+}
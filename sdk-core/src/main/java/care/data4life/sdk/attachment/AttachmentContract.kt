@@ -20,7 +20,12 @@ import care.data4life.sdk.crypto.GCKey
 import care.data4life.sdk.lang.DataValidationException
 import care.data4life.sdk.lang.ImageResizeException
 import care.data4life.sdk.wrapper.WrapperContract.Attachment
+import io.reactivex.Completable
 import io.reactivex.Single
+import java.io.IOException
+import java.io.InputStream
+import java.io.OutputStream
+import java.nio.ByteBuffer
 
 interface AttachmentContract {
     interface Service {
@@ -30,6 +35,27 @@ interface AttachmentContract {
             userId: String
         ): Single<List<Pair<Attachment, List<String>?>>>
 
+        /**
+         * Uploads the given Attachments like upload, but leaves out their downscaled images.
+         */
+        fun uploadOriginals(
+            attachments: List<Attachment>,
+            attachmentsKey: GCKey,
+            userId: String
+        ): Single<List<Attachment>>
+
+        /**
+         * Resizes and uploads the downscaled images of the given already uploaded Attachments,
+         * each paired with its original data.
+         *
+         * @return the Attachments paired with the ids of their downscaled images like upload
+         */
+        fun uploadDownscaled(
+            originals: List<Pair<Attachment, ByteArray>>,
+            attachmentsKey: GCKey,
+            userId: String
+        ): Single<List<Pair<Attachment, List<String>?>>>
+
         @Throws(DataValidationException.InvalidAttachmentPayloadHash::class)
         fun download(
             attachments: List<Attachment>,
@@ -37,15 +63,111 @@ interface AttachmentContract {
             userId: String
         ): Single<List<Attachment>>
 
+        /**
+         * Uploads the content of the given source without holding it in memory and
+         * sets the id, hash and size of the given Attachment.
+         * The source is subject to the same restrictions as inline attachment data: its file type is sniffed
+         * from the leading bytes and it may not exceed DATA_SIZE_MAX_BYTES, otherwise the upload fails with
+         * a DataValidationException.
+         */
+        fun uploadStream(
+            attachment: Attachment,
+            source: UploadSource,
+            attachmentsKey: GCKey,
+            userId: String
+        ): Single<Attachment>
+
+        /**
+         * Streams the content of the given Attachment into the sink without holding it in memory,
+         * verifies its hash and sets its hash and size. The data of the Attachment stays untouched.
+         */
+        @Throws(DataValidationException.InvalidAttachmentPayloadHash::class)
+        fun downloadTo(
+            attachment: Attachment,
+            attachmentsKey: GCKey,
+            userId: String,
+            sink: OutputStream
+        ): Single<Attachment>
+
         fun delete(attachmentId: String, userId: String): Single<Boolean>
     }
 
+    interface TransferLimiter {
+        /**
+         * Defers the subscription to the given transfer until one of the shared slots is free
+         * and holds the slot until the transfer terminates.
+         */
+        fun <T : Any> limit(transfer: Single<T>): Single<T>
+    }
+
+    interface ThumbnailService {
+        /**
+         * Number of jobs, which are queued or running.
+         */
+        val pending: Int
+
+        /**
+         * Runs the given job in the background. If the queue is full, the job is run by the calling thread,
+         * so the queued original images stay bounded.
+         */
+        fun schedule(job: Completable)
+
+        companion object {
+            const val DEFAULT_QUEUE_CAPACITY = 16
+            const val DEFAULT_WORKERS = 2
+        }
+    }
+
+    interface BlobCache {
+        /**
+         * Number of bytes, which are currently cached.
+         */
+        val size: Long
+
+        /**
+         * Maps the still encrypted blob of the given document, if it is cached, and marks it as recently used.
+         * Writes to the returned buffer are private to it, so it may be decrypted in place.
+         */
+        fun get(documentId: String): ByteBuffer?
+
+        /**
+         * Stores the still encrypted blob of the given document and evicts the least recently used blobs,
+         * until the cache fits into its limit again. Failures to write the blob are logged and otherwise ignored.
+         */
+        fun put(documentId: String, blob: ByteArray)
+
+        fun remove(documentId: String)
+
+        fun clear()
+
+        companion object {
+            const val DEFAULT_MAX_BYTES = 64L * 1024L * 1024L
+        }
+    }
+
     interface FileService {
         fun downloadFile(key: GCKey, userId: String, fileId: String): Single<ByteArray>
         fun uploadFile(key: GCKey, userId: String, data: ByteArray): Single<String>
+        fun uploadStream(key: GCKey, userId: String, source: UploadSource): Single<StreamedUpload>
+        fun downloadStream(key: GCKey, userId: String, fileId: String, sink: OutputStream): Single<StreamedDownload>
         fun deleteFile(userId: String, fileId: String): Single<Boolean>
     }
 
+    interface UploadSource {
+        /**
+         * Number of bytes to upload or null if it is unknown upfront.
+         */
+        val size: Long?
+
+        /**
+         * Whether the source can be opened more than once, for instance to retry a failed upload.
+         */
+        val isRepeatable: Boolean
+
+        @Throws(IOException::class)
+        fun open(): InputStream
+    }
+
     // FIXME check internal use against Java and Kotlin Clients
     interface ImageResizer {
         @Throws(ImageResizeException.JpegWriterMissing::class)
@@ -62,6 +184,21 @@ interface AttachmentContract {
             targetQuality: Int
         ): ByteArray?
 
+        /**
+         * Resizes the image to each of the given heights, while decoding it only once.
+         * Implementations may derive the smaller targets from the larger ones.
+         *
+         * @return the resized images in the order of the given heights, null for a height the image does not exceed
+         */
+        @Throws(ImageResizeException.JpegWriterMissing::class)
+        fun resizeToHeights(
+            originalImage: ByteArray,
+            targetHeights: List<Int>,
+            targetQuality: Int
+        ): List<ByteArray?> = targetHeights.map { targetHeight ->
+            resizeToHeight(originalImage, targetHeight, targetQuality)
+        }
+
         fun isResizable(data: ByteArray): Boolean
 
         companion object {
@@ -98,6 +235,8 @@ interface AttachmentContract {
     }
 
     companion object {
+        const val DEFAULT_CONCURRENCY = 4
+        const val DEFAULT_MAX_CONCURRENT_TRANSFERS = 8
         internal const val DOWNSCALED_ATTACHMENT_ID_POS = 1
         internal const val SPLIT_CHAR = "#"
     }
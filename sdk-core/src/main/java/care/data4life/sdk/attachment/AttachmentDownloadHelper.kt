@@ -38,17 +38,33 @@ object AttachmentDownloadHelper : AttachmentInternalContract.DownloadHelper {
         data: ByteArray
     ): WrapperContract.Attachment {
         val newHash = AttachmentHasher.hash(data)
+        guardHash(attachment, newHash)
 
-        return if (!attachment.id!!.contains(SPLIT_CHAR) &&
+        return attachment.also {
+            it.data = Base64.encodeToString(data)
+            it.hash = newHash
+        }
+    }
+
+    override fun addAttachmentDigest(
+        attachment: WrapperContract.Attachment,
+        download: StreamedDownload
+    ): WrapperContract.Attachment {
+        guardHash(attachment, download.hash)
+
+        return attachment.also {
+            it.hash = download.hash
+            it.size = download.size.toInt()
+        }
+    }
+
+    @Throws(DataValidationException.InvalidAttachmentPayloadHash::class)
+    private fun guardHash(attachment: WrapperContract.Attachment, newHash: String) {
+        if (!attachment.id!!.contains(SPLIT_CHAR) &&
             CompatibilityValidator.isHashable(attachment) &&
             attachment.hash != newHash
         ) {
             throw DataValidationException.InvalidAttachmentPayloadHash("Attachment hash is invalid")
-        } else {
-            attachment.also {
-                it.data = Base64.encodeToString(data)
-                it.hash = newHash
-            }
         }
     }
 }
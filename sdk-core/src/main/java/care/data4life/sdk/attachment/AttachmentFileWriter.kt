@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.attachment
+
+import io.reactivex.Single
+import java.io.BufferedOutputStream
+import java.io.File
+import java.io.FileOutputStream
+import java.io.OutputStream
+
+internal object AttachmentFileWriter {
+    /**
+     * Runs the download against a buffered stream into the given file, which is closed before the result is emitted.
+     * The file is deleted if the download fails, so no partial content is left behind.
+     */
+    fun <T : Any> write(
+        file: File,
+        download: (target: OutputStream) -> Single<T>
+    ): Single<T> {
+        return Single.using(
+            { BufferedOutputStream(FileOutputStream(file)) },
+            { target -> download(target) },
+            { target -> target.close() },
+            true
+        ).doOnError { file.delete() }
+    }
+}
@@ -51,7 +51,8 @@ object AttachmentGuardian : AttachmentContract.Guardian {
         val data = attachment.data
             ?: throw DataValidationException.ExpectedFieldViolation("Attachment.data expected")
 
-        if (hash(data) != hash) {
+        val payloadHash = if (attachment is PreparedAttachment) attachment.payloadHash else hash(data)
+        if (payloadHash != hash) {
             throw DataValidationException.InvalidAttachmentPayloadHash("Attachment.hash is not valid")
         }
 
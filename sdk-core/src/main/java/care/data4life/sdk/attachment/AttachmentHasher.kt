@@ -18,7 +18,18 @@ package care.data4life.sdk.attachment
 
 import care.data4life.sdk.util.Base64
 import care.data4life.sdk.util.HashUtil
+import java.security.MessageDigest
 
 object AttachmentHasher : AttachmentContract.Hasher {
+    private const val HASH_ALGORITHM = "SHA-1"
+
     override fun hash(data: ByteArray): String = Base64.encodeToString(HashUtil.sha1(data))
+
+    /**
+     * Provides a digest for content, which is only seen in chunks.
+     * Passed to [encode] it yields the same hash as [hash].
+     */
+    internal fun createDigest(): MessageDigest = MessageDigest.getInstance(HASH_ALGORITHM)
+
+    internal fun encode(digest: MessageDigest): String = Base64.encodeToString(digest.digest())
 }
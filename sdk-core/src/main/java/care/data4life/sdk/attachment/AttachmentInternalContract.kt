@@ -29,5 +29,10 @@ internal class AttachmentInternalContract {
             attachment: WrapperContract.Attachment,
             data: ByteArray
         ): WrapperContract.Attachment
+
+        fun addAttachmentDigest(
+            attachment: WrapperContract.Attachment,
+            download: StreamedDownload
+        ): WrapperContract.Attachment
     }
 }
@@ -15,6 +15,7 @@
  */
 package care.data4life.sdk.attachment
 
+import care.data4life.sdk.attachment.AttachmentContract.Companion.DEFAULT_CONCURRENCY
 import care.data4life.sdk.attachment.AttachmentContract.ImageResizer.Companion.DEFAULT_PREVIEW_SIZE_PX
 import care.data4life.sdk.attachment.AttachmentContract.ImageResizer.Companion.DEFAULT_THUMBNAIL_SIZE_PX
 import care.data4life.sdk.crypto.GCKey
@@ -23,20 +24,34 @@ import care.data4life.sdk.util.Base64.decode
 import care.data4life.sdk.wrapper.SdkImageResizer
 import care.data4life.sdk.wrapper.WrapperContract
 import io.reactivex.Observable
+import io.reactivex.Scheduler
 import io.reactivex.Single
+import io.reactivex.schedulers.Schedulers
+import java.io.OutputStream
 
 // TODO add internal
-class AttachmentService constructor(
+class AttachmentService @JvmOverloads constructor(
     private val fileService: AttachmentContract.FileService,
-    resizer: AttachmentContract.ImageResizer
+    resizer: AttachmentContract.ImageResizer,
+    private val concurrency: Int = DEFAULT_CONCURRENCY,
+    private val limiter: AttachmentContract.TransferLimiter = AttachmentTransferLimiter.SHARED,
+    private val scheduler: Scheduler = Schedulers.io()
 ) : AttachmentContract.Service {
     private val imageResizer = SdkImageResizer(resizer)
 
+    init {
+        require(concurrency > 0) { "The concurrency of the attachment transfers must be positive." }
+    }
+
     override fun delete(
         attachmentId: String,
         userId: String
     ): Single<Boolean> = fileService.deleteFile(userId, attachmentId)
 
+    private fun <T : Any> transfer(operation: () -> Single<T>): Single<T> {
+        return limiter.limit(Single.defer { operation() }).subscribeOn(scheduler)
+    }
+
     @Throws(DataValidationException.InvalidAttachmentPayloadHash::class)
     override fun download(
         attachments: List<WrapperContract.Attachment>,
@@ -47,125 +62,175 @@ class AttachmentService constructor(
             .fromCallable { attachments }
             .flatMapIterable { it }
             .filter { it.id != null }
-            .map { attachment ->
-                val attachmentId = AttachmentDownloadHelper.deriveAttachmentId(attachment)
-
-                val data = fileService.downloadFile(
-                    attachmentsKey,
-                    userId,
-                    attachmentId
-                ).blockingGet()
-
-                AttachmentDownloadHelper.addAttachmentPayload(attachment, data)
-            }
+            .concatMapEager(
+                { attachment -> downloadAttachment(attachment, attachmentsKey, userId).toObservable() },
+                concurrency,
+                1
+            )
             .toList()
     }
 
+    private fun downloadAttachment(
+        attachment: WrapperContract.Attachment,
+        attachmentsKey: GCKey,
+        userId: String
+    ): Single<WrapperContract.Attachment> {
+        return transfer {
+            fileService.downloadFile(
+                attachmentsKey,
+                userId,
+                AttachmentDownloadHelper.deriveAttachmentId(attachment)
+            )
+        }.map { data -> AttachmentDownloadHelper.addAttachmentPayload(attachment, data) }
+    }
+
     override fun upload(
         attachments: List<WrapperContract.Attachment>,
         attachmentsKey: GCKey,
         userId: String
     ): Single<List<Pair<WrapperContract.Attachment, List<String>?>>> {
-        return Observable.fromIterable(attachments)
-            .filter { it.data != null }
-            .map { attachment ->
-                val originalData = decode(attachment.data!!)
-                attachment.id = fileService.uploadFile(
-                    attachmentsKey,
-                    userId,
-                    originalData
-                ).blockingGet()
-
-                val additionalIds = uploadDownscaledImages(
-                    attachmentsKey,
-                    userId,
-                    attachment,
-                    originalData
-                )
-                Pair(attachment, additionalIds)
-            }
-            .toList()
+        return uploadEach(attachments.filter { it.data != null }) { attachment ->
+            val originalData = uploadOriginal(attachmentsKey, userId, attachment)
+            val additionalIds = uploadDownscaledImages(
+                attachmentsKey,
+                userId,
+                attachment,
+                originalData
+            )
+            Pair(attachment, additionalIds)
+        }
     }
 
-    // TODO -> thumbnail service
-    private fun uploadDownscaledImages(
+    override fun uploadOriginals(
+        attachments: List<WrapperContract.Attachment>,
         attachmentsKey: GCKey,
-        userId: String,
-        attachment: WrapperContract.Attachment,
-        originalData: ByteArray
-    ): List<String>? {
-        return if (imageResizer.isResizable(originalData)) {
-            val additionalIds = mutableListOf<String>()
-            additionalIds.add(
-                scaleToPreviewAndUpload(
-                    attachmentsKey,
-                    userId,
-                    attachment,
-                    originalData
-                ).also { it ?: return null }!!
-            )
+        userId: String
+    ): Single<List<WrapperContract.Attachment>> {
+        return uploadEach(attachments.filter { it.data != null }) { attachment ->
+            uploadOriginal(attachmentsKey, userId, attachment)
+            attachment
+        }
+    }
 
-            additionalIds.add(
-                scaleToThumbnailAndUpload(
-                    attachmentsKey,
-                    userId,
-                    attachment,
-                    originalData
-                ).also { it ?: return null }!!
+    override fun uploadDownscaled(
+        originals: List<Pair<WrapperContract.Attachment, ByteArray>>,
+        attachmentsKey: GCKey,
+        userId: String
+    ): Single<List<Pair<WrapperContract.Attachment, List<String>?>>> {
+        return uploadEach(originals) { (attachment, originalData) ->
+            val additionalIds = uploadDownscaledImages(
+                attachmentsKey,
+                userId,
+                attachment,
+                originalData
             )
-
-            additionalIds
-        } else {
-            emptyList()
+            Pair(attachment, additionalIds)
         }
     }
 
-    private fun scaleToPreviewAndUpload(
+    private fun <T : Any, R : Any> uploadEach(
+        items: List<T>,
+        upload: (T) -> R
+    ): Single<List<R>> {
+        return Observable.fromIterable(items)
+            .concatMapEager(
+                { item ->
+                    Observable
+                        .fromCallable { upload(item) }
+                        .subscribeOn(scheduler)
+                },
+                concurrency,
+                1
+            )
+            .toList()
+    }
+
+    private fun uploadOriginal(
         attachmentsKey: GCKey,
         userId: String,
+        attachment: WrapperContract.Attachment
+    ): ByteArray {
+        val originalData = if (attachment is PreparedAttachment) attachment.payload else decode(attachment.data!!)
+        attachment.id = transfer {
+            fileService.uploadFile(attachmentsKey, userId, originalData)
+        }.blockingGet()
+
+        return originalData
+    }
+
+    override fun uploadStream(
         attachment: WrapperContract.Attachment,
-        originalData: ByteArray
-    ): String? {
-        return resizeAndUpload(
-            attachmentsKey,
-            userId,
-            attachment,
-            originalData,
-            DEFAULT_PREVIEW_SIZE_PX
-        )
+        source: AttachmentContract.UploadSource,
+        attachmentsKey: GCKey,
+        userId: String
+    ): Single<WrapperContract.Attachment> {
+        return transfer { fileService.uploadStream(attachmentsKey, userId, source) }
+            .map { upload ->
+                attachment.also {
+                    it.id = upload.fileId
+                    it.hash = upload.hash
+                    it.size = upload.size
+                        .takeIf { size -> size <= Int.MAX_VALUE }
+                        ?.toInt()
+                        ?: throw DataValidationException.MaxDataSizeViolation()
+                    it.data = null
+                }
+            }
     }
 
-    private fun scaleToThumbnailAndUpload(
+    @Throws(DataValidationException.InvalidAttachmentPayloadHash::class)
+    override fun downloadTo(
+        attachment: WrapperContract.Attachment,
+        attachmentsKey: GCKey,
+        userId: String,
+        sink: OutputStream
+    ): Single<WrapperContract.Attachment> {
+        return transfer {
+            fileService.downloadStream(
+                attachmentsKey,
+                userId,
+                AttachmentDownloadHelper.deriveAttachmentId(attachment),
+                sink
+            )
+        }.map { download -> AttachmentDownloadHelper.addAttachmentDigest(attachment, download) }
+    }
+
+    // TODO -> thumbnail service
+    private fun uploadDownscaledImages(
         attachmentsKey: GCKey,
         userId: String,
         attachment: WrapperContract.Attachment,
         originalData: ByteArray
-    ): String? {
-        return resizeAndUpload(
-            attachmentsKey,
-            userId,
-            attachment,
-            originalData,
-            DEFAULT_THUMBNAIL_SIZE_PX
-        )
+    ): List<String>? {
+        return if (imageResizer.isResizable(originalData)) {
+            // both sizes are resolved upfront from a single decoding, so nothing is uploaded if one of them fails
+            val (preview, thumbnail) = imageResizer.resize(
+                originalData,
+                listOf(DEFAULT_PREVIEW_SIZE_PX, DEFAULT_THUMBNAIL_SIZE_PX)
+            )
+            if (preview === originalData || thumbnail === originalData) return null
+
+            Single.zip(
+                uploadDownscaledImage(attachmentsKey, userId, attachment, preview),
+                uploadDownscaledImage(attachmentsKey, userId, attachment, thumbnail)
+            ) { previewId, thumbnailId -> listOf(previewId, thumbnailId) }
+                .blockingGet()
+        } else {
+            emptyList()
+        }
     }
 
     // TODO -> thumbnail service
-    private fun resizeAndUpload(
+    private fun uploadDownscaledImage(
         attachmentsKey: GCKey,
         userId: String,
         attachment: WrapperContract.Attachment,
-        originalData: ByteArray,
-        targetHeight: Int
-    ): String? {
-        return when (val downscaledImage = imageResizer.resize(originalData, targetHeight)) {
-            originalData -> null
-            is ByteArray -> fileService.uploadFile(
-                attachmentsKey,
-                userId,
-                downscaledImage
-            ).blockingGet()
-            else -> attachment.id // currentSizePx <= targetSizePx && nothing to upload
+        downscaledImage: ByteArray?
+    ): Single<String> {
+        return if (downscaledImage is ByteArray) {
+            transfer { fileService.uploadFile(attachmentsKey, userId, downscaledImage) }
+        } else {
+            Single.just(attachment.id!!) // currentSizePx <= targetSizePx && nothing to upload
         }
     }
 }
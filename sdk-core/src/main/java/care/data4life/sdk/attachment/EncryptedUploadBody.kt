@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+package care.data4life.sdk.attachment
+
+import care.data4life.sdk.config.DataRestriction.DATA_SIZE_MAX_BYTES
+import care.data4life.sdk.crypto.CryptoContract
+import care.data4life.sdk.crypto.CryptoContract.Service.Companion.IV_SIZE
+import care.data4life.sdk.crypto.CryptoContract.Service.Companion.TAG_SIZE
+import care.data4life.sdk.crypto.GCKey
+import care.data4life.sdk.network.NetworkingContract.Companion.MEDIA_TYPE_OCTET_STREAM
+import java.security.DigestInputStream
+import okhttp3.MediaType
+import okhttp3.MediaType.Companion.toMediaType
+import okhttp3.RequestBody
+import okio.BufferedSink
+
+/**
+ * Encrypts the source while OkHttp writes the request, so only a fixed size buffer is held in memory.
+ * The SHA-1 hash and the size of the plain content are taken on the fly, while the data restrictions
+ * of attachments are enforced by a RestrictedUploadStream.
+ */
+internal class EncryptedUploadBody(
+    private val key: GCKey,
+    private val source: AttachmentContract.UploadSource,
+    private val cryptoService: CryptoContract.Service
+) : RequestBody() {
+    @Volatile
+    private var upload: Pair<String, Long>? = null
+
+    val hash: String
+        get() = checkNotNull(upload) { "The body has not been written yet." }.first
+
+    val size: Long
+        get() = checkNotNull(upload) { "The body has not been written yet." }.second
+
+    override fun contentType(): MediaType = MEDIA_TYPE_OCTET_STREAM.toMediaType()
+
+    override fun contentLength(): Long {
+        return source.size?.let { size -> IV_SIZE + size + TAG_SIZE / Byte.SIZE_BITS } ?: -1
+    }
+
+    override fun isOneShot(): Boolean = !source.isRepeatable
+
+    override fun writeTo(sink: BufferedSink) {
+        val digest = AttachmentHasher.createDigest()
+        val size = RestrictedUploadStream(source.open(), DATA_SIZE_MAX_BYTES.toLong()).use { input ->
+            cryptoService.encryptStream(key, DigestInputStream(input, digest), sink.outputStream())
+        }
+
+        upload = AttachmentHasher.encode(digest) to size
+    }
+}
@@ -15,33 +15,120 @@
  */
 package care.data4life.sdk.attachment
 
+import care.data4life.sdk.config.DataRestriction.DATA_SIZE_MAX_BYTES
 import care.data4life.sdk.crypto.CryptoContract
 import care.data4life.sdk.crypto.GCKey
+import care.data4life.sdk.crypto.toByteArray
+import care.data4life.sdk.lang.DataValidationException
 import care.data4life.sdk.lang.FileException
 import care.data4life.sdk.network.NetworkingContract
 import io.reactivex.Single
+import java.io.OutputStream
+import java.nio.ByteBuffer
+import java.security.DigestOutputStream
 
 // TODO internal
-class FileService(
+class FileService @JvmOverloads constructor(
     private val alias: String,
     private val apiService: NetworkingContract.Service,
-    private val cryptoService: CryptoContract.Service
+    private val cryptoService: CryptoContract.Service,
+    private val blobCache: AttachmentContract.BlobCache? = null
 ) : AttachmentContract.FileService {
 
     override fun downloadFile(key: GCKey, userId: String, fileId: String): Single<ByteArray> {
+        return Single
+            .defer { decryptCachedFile(key, userId, fileId) ?: decryptDownloadedFile(key, userId, fileId) }
+            .map { decryptedFile -> decryptedFile.toByteArray() }
+            .onErrorResumeNext { error -> Single.error(FileException.DownloadFailed(error)) }
+    }
+
+    private fun decryptCachedFile(key: GCKey, userId: String, fileId: String): Single<ByteBuffer>? {
+        val cachedFile = blobCache?.get(fileId) ?: return null
+
+        return cryptoService
+            .decryptBuffer(key, cachedFile)
+            .onErrorResumeNext { _: Throwable ->
+                // a damaged blob is dropped and the file is fetched again
+                blobCache.remove(fileId)
+                decryptDownloadedFile(key, userId, fileId)
+            }
+    }
+
+    private fun decryptDownloadedFile(key: GCKey, userId: String, fileId: String): Single<ByteBuffer> {
         return apiService
             .downloadDocument(alias, userId, fileId)
-            .flatMap { downloadedFile -> cryptoService.decrypt(key, downloadedFile) }
-            .onErrorResumeNext { error -> Single.error(FileException.DownloadFailed(error)) }
+            // the blob is cached before the decryption, which overwrites it in place
+            .doOnSuccess { downloadedFile -> blobCache?.put(fileId, downloadedFile) }
+            .flatMap { downloadedFile ->
+                cryptoService
+                    .decryptBuffer(key, ByteBuffer.wrap(downloadedFile))
+                    .doOnError { blobCache?.remove(fileId) }
+            }
     }
 
     override fun uploadFile(key: GCKey, userId: String, data: ByteArray): Single<String> {
         return cryptoService
-            .encrypt(key, data)
-            .flatMap { encryptedData -> apiService.uploadDocument(alias, userId, encryptedData) }
+            .encryptBuffer(key, ByteBuffer.wrap(data), false)
+            .flatMap { encryptedData -> apiService.uploadDocument(alias, userId, encryptedData.toByteArray()) }
             .onErrorResumeNext { error -> Single.error(FileException.UploadFailed(error)) }
     }
 
+    override fun uploadStream(
+        key: GCKey,
+        userId: String,
+        source: AttachmentContract.UploadSource
+    ): Single<StreamedUpload> {
+        return Single
+            .fromCallable {
+                if ((source.size ?: 0) > DATA_SIZE_MAX_BYTES) {
+                    throw DataValidationException.MaxDataSizeViolation()
+                }
+
+                EncryptedUploadBody(key, source, cryptoService)
+            }
+            .flatMap { body ->
+                apiService
+                    .uploadDocument(alias, userId, body)
+                    .map { fileId -> StreamedUpload(fileId, body.hash, body.size) }
+            }
+            .onErrorResumeNext { error -> Single.error(resolveUploadError(error)) }
+    }
+
+    private fun resolveUploadError(error: Throwable): Throwable {
+        val violation = generateSequence(error) { it.cause }
+            .filterIsInstance<RestrictedUploadStream.Violation>()
+            .firstOrNull()
+
+        return when {
+            error is DataValidationException -> error
+            violation != null -> violation.violation
+            else -> FileException.UploadFailed(error)
+        }
+    }
+
+    override fun downloadStream(
+        key: GCKey,
+        userId: String,
+        fileId: String,
+        sink: OutputStream
+    ): Single<StreamedDownload> {
+        return apiService
+            .streamDocument(alias, userId, fileId)
+            .map { body ->
+                body.use {
+                    val digest = AttachmentHasher.createDigest()
+                    val size = cryptoService.decryptStream(
+                        key,
+                        body.byteStream(),
+                        DigestOutputStream(sink, digest)
+                    )
+
+                    StreamedDownload(AttachmentHasher.encode(digest), size)
+                }
+            }
+            .onErrorResumeNext { error -> Single.error(FileException.DownloadFailed(error)) }
+    }
+
     override fun deleteFile(
         userId: String,
         fileId: String
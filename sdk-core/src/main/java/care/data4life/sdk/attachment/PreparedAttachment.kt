@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.attachment
+
+import care.data4life.sdk.util.Base64
+import care.data4life.sdk.util.MimeType
+import care.data4life.sdk.util.MimeType.Companion.recognizeMimeType
+import care.data4life.sdk.wrapper.WrapperContract
+
+/**
+ * An Attachment, whose payload is decoded only once.
+ * The restriction checks, the hash guard and the upload share the decoded bytes and what is derived from them.
+ */
+internal class PreparedAttachment(
+    private val attachment: WrapperContract.Attachment,
+    val payload: ByteArray
+) : WrapperContract.Attachment by attachment {
+    val payloadSize: Int
+        get() = payload.size
+
+    val mimeType: MimeType by lazy { recognizeMimeType(payload) }
+
+    val payloadHash: String by lazy { AttachmentHasher.hash(payload) }
+
+    companion object {
+        fun prepare(attachment: WrapperContract.Attachment): PreparedAttachment? {
+            return attachment.data?.let { data -> PreparedAttachment(attachment, Base64.decode(data)) }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.attachment
+
+import care.data4life.sdk.lang.DataValidationException
+import care.data4life.sdk.util.MimeType
+import care.data4life.sdk.util.MimeType.Companion.recognizeMimeType
+import java.io.BufferedInputStream
+import java.io.FilterInputStream
+import java.io.IOException
+import java.io.InputStream
+
+/**
+ * Applies the data restrictions of attachments to a stream while it is read, since its content is not known upfront.
+ * The leading bytes are sniffed for a supported file type before anything is handed out and the stream
+ * fails as soon as it exceeds the given number of bytes.
+ */
+internal class RestrictedUploadStream(
+    stream: InputStream,
+    private val maxBytes: Long
+) : FilterInputStream(BufferedInputStream(stream)) {
+    private var isSniffed = false
+    private var count = 0L
+
+    /**
+     * Raised within the upload, which only allows IOExceptions, and resolved to its violation afterwards.
+     */
+    class Violation(val violation: DataValidationException) : IOException(violation.message, violation)
+
+    @Throws(IOException::class)
+    private fun sniff() {
+        if (isSniffed) {
+            return
+        }
+
+        val header = ByteArray(SNIFF_SIZE)
+        var read = 0
+
+        `in`.mark(SNIFF_SIZE)
+        while (read < SNIFF_SIZE) {
+            val chunk = `in`.read(header, read, SNIFF_SIZE - read)
+            if (chunk == -1) break
+            read += chunk
+        }
+        `in`.reset()
+
+        if (recognizeMimeType(header.copyOf(read)) == MimeType.UNKNOWN) {
+            throw Violation(DataValidationException.UnsupportedFileType())
+        }
+        isSniffed = true
+    }
+
+    @Throws(IOException::class)
+    private fun count(bytes: Long): Long {
+        if (bytes > 0) {
+            count += bytes
+        }
+
+        if (count > maxBytes) {
+            throw Violation(DataValidationException.MaxDataSizeViolation())
+        }
+        return bytes
+    }
+
+    override fun read(): Int {
+        sniff()
+        return `in`.read().also { byte -> if (byte != -1) count(1) }
+    }
+
+    override fun read(b: ByteArray, off: Int, len: Int): Int {
+        sniff()
+        return count(`in`.read(b, off, len).toLong()).toInt()
+    }
+
+    override fun skip(n: Long): Long {
+        sniff()
+        return count(`in`.skip(n))
+    }
+
+    override fun markSupported(): Boolean = false
+
+    override fun mark(readlimit: Int) = Unit
+
+    override fun reset() {
+        throw IOException("mark/reset not supported")
+    }
+
+    companion object {
+        private val SNIFF_SIZE = MimeType.values()
+            .flatMap { type -> type.byteSignature().mapNotNull { signature -> signature?.size } }
+            .maxOrNull() ?: 0
+    }
+}
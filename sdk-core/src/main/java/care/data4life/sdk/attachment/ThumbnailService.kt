@@ -16,8 +16,86 @@
 
 package care.data4life.sdk.attachment
 
-// TODO encapsulate thumbnail generation and handling
-class ThumbnailService {
+import care.data4life.sdk.attachment.AttachmentContract.ThumbnailService.Companion.DEFAULT_QUEUE_CAPACITY
+import care.data4life.sdk.attachment.AttachmentContract.ThumbnailService.Companion.DEFAULT_WORKERS
+import care.data4life.sdk.log.Log
+import io.reactivex.Completable
+import io.reactivex.Scheduler
+import io.reactivex.schedulers.Schedulers
+import java.util.concurrent.ArrayBlockingQueue
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Generates and uploads downscaled images off the calling thread.
+ * Jobs are queued up to the given capacity and drained on the given Scheduler by at most the given number of workers.
+ */
+class ThumbnailService @JvmOverloads constructor(
+    capacity: Int = DEFAULT_QUEUE_CAPACITY,
+    private val workers: Int = DEFAULT_WORKERS,
+    private val scheduler: Scheduler = Schedulers.io()
+) : AttachmentContract.ThumbnailService {
+    private val jobs: ArrayBlockingQueue<Completable>
+    private val activeWorkers = AtomicInteger(0)
+    private val pendingJobs = AtomicInteger(0)
+
+    init {
+        require(capacity > 0) { "The capacity of the queue must be positive." }
+        require(workers > 0) { "The number of workers must be positive." }
+        jobs = ArrayBlockingQueue(capacity)
+    }
+
+    override val pending: Int
+        get() = pendingJobs.get()
+
+    override fun schedule(job: Completable) {
+        pendingJobs.incrementAndGet()
+
+        if (jobs.offer(job)) {
+            if (acquireWorker()) {
+                scheduler.scheduleDirect(::drain)
+            }
+        } else {
+            run(job)
+        }
+    }
+
+    private fun acquireWorker(): Boolean {
+        while (true) {
+            val active = activeWorkers.get()
+            if (active >= workers) {
+                return false
+            }
+            if (activeWorkers.compareAndSet(active, active + 1)) {
+                return true
+            }
+        }
+    }
+
+    private fun drain() {
+        while (true) {
+            val job = jobs.poll()
+            if (job != null) {
+                run(job)
+                continue
+            }
+
+            activeWorkers.decrementAndGet()
+            // a job might have been queued, while this worker was about to stop
+            if (jobs.isEmpty() || !acquireWorker()) {
+                return
+            }
+        }
+    }
+
+    private fun run(job: Completable) {
+        try {
+            job.blockingAwait()
+        } catch (error: Exception) {
+            Log.error(error, "Failed to upload downscaled images")
+        } finally {
+            pendingJobs.decrementAndGet()
+        }
+    }
 
     companion object {
         const val SPLIT_CHAR = "#"
@@ -26,10 +26,25 @@ interface AuthContract {
 
     interface UserService {
         val userID: Single<String>
+        val session: SessionContext
 
         fun finishLogin(isAuthorized: Boolean): Single<Boolean>
         fun isLoggedIn(alias: String): Single<Boolean>
         fun logout(): Completable
         fun refreshSessionToken(alias: String): Single<String>
     }
+
+    /**
+     * Keeps the result of a finished login (userId and key material) in memory, so subsequent
+     * operations do not need to run the login flow again.
+     *
+     * The context is refreshed on demand, if a call fails with 401, if the CommonKey of the session
+     * is not known anymore or if it gets invalidated (e.g. on logout).
+     */
+    interface SessionContext {
+        val userId: Single<String>
+
+        fun <T> execute(operation: (userId: String) -> Single<T>): Single<T>
+        fun invalidate()
+    }
 }
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.auth
+
+import care.data4life.sdk.crypto.CryptoContract
+import io.reactivex.Single
+import java.net.HttpURLConnection.HTTP_UNAUTHORIZED
+import retrofit2.HttpException
+
+class SessionContext(
+    private val userService: AuthContract.UserService,
+    private val cryptoService: CryptoContract.Service
+) : AuthContract.SessionContext {
+    private val lock = Any()
+
+    @Volatile
+    private var session: Session? = null
+    private var pendingSession: Single<Session>? = null
+
+    override val userId: Single<String>
+        get() = resolveSession().map { session -> session.userId }
+
+    override fun <T> execute(operation: (userId: String) -> Single<T>): Single<T> {
+        return userId
+            .flatMap { userId -> operation(userId) }
+            .doOnError { error ->
+                if (isUnauthorized(error)) {
+                    invalidate()
+                }
+            }
+    }
+
+    override fun invalidate() {
+        synchronized(lock) { session = null }
+    }
+
+    private fun resolveSession(): Single<Session> {
+        return Single.defer {
+            val currentSession = session
+
+            if (currentSession is Session && cryptoService.hasCommonKey(currentSession.commonKeyId)) {
+                Single.just(currentSession)
+            } else {
+                establishSession()
+            }
+        }
+    }
+
+    private fun establishSession(): Single<Session> {
+        return synchronized(lock) {
+            pendingSession ?: userService.finishLogin(true)
+                .flatMap { userService.userID }
+                .map { userId -> Session(userId, cryptoService.currentCommonKeyId) }
+                .doOnSuccess { newSession -> session = newSession }
+                .doFinally { synchronized(lock) { pendingSession = null } }
+                .cache()
+                .also { pendingSession = it }
+        }
+    }
+
+    private fun isUnauthorized(error: Throwable): Boolean {
+        var cause: Throwable? = error
+
+        while (cause != null) {
+            if (cause is HttpException && cause.code() == HTTP_UNAUTHORIZED) {
+                return true
+            }
+            cause = cause.cause
+        }
+
+        return false
+    }
+
+    private data class Session(
+        val userId: String,
+        val commonKeyId: String
+    )
+}
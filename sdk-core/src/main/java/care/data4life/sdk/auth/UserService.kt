@@ -16,21 +16,25 @@
 
 package care.data4life.sdk.auth
 
+import care.data4life.sdk.attachment.AttachmentContract
 import care.data4life.sdk.crypto.CryptoContract
 import care.data4life.sdk.log.Log
 import care.data4life.sdk.network.NetworkingContract
 import care.data4life.sdk.network.model.NetworkModelContract
+import care.data4life.sdk.record.RecordContract
 import io.reactivex.Completable
 import io.reactivex.Single
 
 // TODO: internal
 // TODO: This is the main state management -> might worth to label it like it
-class UserService(
+class UserService @JvmOverloads constructor(
     private val alias: String,
     private val authService: AuthorizationContract.Service,
     private val apiService: NetworkingContract.Service,
     private val secureStore: CryptoContract.SecureStore,
-    private val cryptoService: CryptoContract.Service
+    private val cryptoService: CryptoContract.Service,
+    private val recordCache: RecordContract.Cache? = null,
+    private val blobCache: AttachmentContract.BlobCache? = null
 ) : AuthContract.UserService {
     // TODO: No Single needed
     override val userID: Single<String>
@@ -41,6 +45,8 @@ class UserService(
             )
         }
 
+    override val session: AuthContract.SessionContext = SessionContext(this, cryptoService)
+
     // TODO: Refactor this, so it calls the API only on demand
     // TODO: No Single needed
     // TODO: make sure sides effects are independent of the order of calls
@@ -82,7 +88,14 @@ class UserService(
         return apiService
             .logout(alias)
             .doOnError { throwable: Throwable -> Log.error(throwable, "Failed to logout") }
-            .doOnComplete { secureStore.clear() }
+            .doOnComplete {
+                secureStore.clear()
+                cryptoService.clearKeyCache()
+                // the blobs are still encrypted, but they must not outlive the session of their user either
+                recordCache?.clear()
+                blobCache?.clear()
+                session.invalidate()
+            }
     }
 
     // TODO: No Single needed
@@ -19,17 +19,25 @@ package care.data4life.sdk.crypto
 import care.data4life.sdk.crypto.CryptoInternalContract.CommonKeyService.Companion.DEFAULT_COMMON_KEY_ID
 import care.data4life.sdk.lang.D4LException
 import java.io.IOException
+import java.util.concurrent.ConcurrentHashMap
 
 internal class CommonKeyService(
     private val alias: String,
     private val storage: CryptoContract.SecureStore,
     private val keyFactory: KeyFactory
 ) : CryptoInternalContract.CommonKeyService {
+    private val commonKeys = ConcurrentHashMap<String, GCKey>()
+
+    @Volatile
+    private var currentCommonKeyId: String? = null
 
     override fun fetchCurrentCommonKeyId(): String {
+        currentCommonKeyId?.let { return it }
+
         var commonKeyId: String? = null
         try {
             commonKeyId = String(storage.getSecret(aliasCurrentCommonKeyId))
+            currentCommonKeyId = commonKeyId
         } catch (e: D4LException) {
             // ignore
         }
@@ -38,33 +46,35 @@ internal class CommonKeyService(
     }
 
     @Throws(IOException::class)
-    override fun fetchCurrentCommonKey(): GCKey {
-        var commonKeyId = DEFAULT_COMMON_KEY_ID
-        try {
-            commonKeyId = String(storage.getSecret(aliasCurrentCommonKeyId))
-        } catch (e: D4LException) {
-            // ignore
-        }
-
-        return fetchCommonKey(commonKeyId)
-    }
+    override fun fetchCurrentCommonKey(): GCKey = fetchCommonKey(fetchCurrentCommonKeyId())
 
     override fun fetchCommonKey(commonKeyId: String): GCKey {
+        commonKeys[commonKeyId]?.let { return it }
+
         val exchangeCommonKey = storage.getExchangeKey(aliasCommonKey(commonKeyId))
 
-        return keyFactory.createGCKey(exchangeCommonKey)
+        return keyFactory.createGCKey(exchangeCommonKey).also { commonKey ->
+            commonKeys[commonKeyId] = commonKey
+        }
     }
 
     override fun storeCurrentCommonKeyId(commonKeyId: String) {
         storage.storeSecret(aliasCurrentCommonKeyId, commonKeyId.toCharArray())
+        currentCommonKeyId = commonKeyId
     }
 
     override fun storeCommonKey(commonKeyId: String, commonKey: GCKey) {
         storage.storeKey(aliasCommonKey(commonKeyId), commonKey, KeyType.COMMON_KEY)
+        commonKeys[commonKeyId] = commonKey
     }
 
     override fun hasCommonKey(commonKeyId: String): Boolean {
-        return storage.contains(aliasCommonKey(commonKeyId))
+        return commonKeys.containsKey(commonKeyId) || storage.contains(aliasCommonKey(commonKeyId))
+    }
+
+    override fun clearCache() {
+        commonKeys.clear()
+        currentCommonKeyId = null
     }
 
     private fun aliasCommonKey(commonKeyId: String) = "${alias}_crypto_common_key_$commonKeyId"
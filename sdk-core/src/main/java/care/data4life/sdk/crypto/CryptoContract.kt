@@ -16,11 +16,15 @@
 
 package care.data4life.sdk.crypto
 
+import care.data4life.sdk.crypto.error.CryptoException
 import care.data4life.sdk.lang.D4LException
 import care.data4life.sdk.lang.D4LRuntimeException
 import care.data4life.sdk.network.model.NetworkModelContract
 import io.reactivex.Single
 import java.io.IOException
+import java.io.InputStream
+import java.io.OutputStream
+import java.nio.ByteBuffer
 import java.security.InvalidAlgorithmParameterException
 import java.security.InvalidKeyException
 import java.security.NoSuchAlgorithmException
@@ -57,6 +61,40 @@ interface CryptoContract {
         fun encrypt(key: GCKey, data: ByteArray): Single<ByteArray>
         fun decrypt(key: GCKey, data: ByteArray): Single<ByteArray>
 
+        /**
+         * Encrypts the remaining bytes of the given buffer into a single newly allocated buffer,
+         * which holds the IV followed by the ciphertext and is ready to be read.
+         *
+         * @param direct allocates the resulting buffer outside of the heap
+         */
+        fun encryptBuffer(key: GCKey, data: ByteBuffer, direct: Boolean): Single<ByteBuffer>
+
+        /**
+         * Decrypts the remaining bytes of the given buffer, the IV followed by the ciphertext, in place.
+         * The resulting buffer shares its content with the given one and covers only the plaintext.
+         */
+        fun decryptBuffer(key: GCKey, data: ByteBuffer): Single<ByteBuffer>
+
+        /**
+         * Streams the given source through the cipher into the sink, prefixed by a fresh IV,
+         * while holding only a fixed size buffer in memory.
+         *
+         * @return the number of plain bytes, which had been read from the source
+         */
+        @Throws(IOException::class, CryptoException.EncryptionFailed::class)
+        fun encryptStream(key: GCKey, source: InputStream, sink: OutputStream): Long
+
+        /**
+         * Streams the given source, the IV followed by the ciphertext, through the cipher into the sink,
+         * while holding only a fixed size buffer in memory.
+         * The tag is verified once the source is exhausted, so the sink may already have received
+         * plain bytes, when the decryption fails.
+         *
+         * @return the number of plain bytes, which had been written into the sink
+         */
+        @Throws(IOException::class, CryptoException.DecryptionFailed::class)
+        fun decryptStream(key: GCKey, source: InputStream, sink: OutputStream): Long
+
         // TODO move this into a convenience layer
         fun encryptAndEncodeString(key: GCKey, data: String): Single<String>
 
@@ -117,6 +155,12 @@ interface CryptoContract {
         fun storeCommonKey(commonKeyId: String, commonKey: GCKey)
         fun hasCommonKey(commonKeyId: String): Boolean
 
+        /**
+         * Drops the in-memory copies of the common keys and the tag encryption key,
+         * so the next access reads them from the SecureStore again.
+         */
+        fun clearKeyCache()
+
         @Throws(
             BadPaddingException::class,
             IllegalBlockSizeException::class,
@@ -144,6 +188,26 @@ interface CryptoContract {
             const val GC_KEYPAIR = "crypto_gc_keypair"
             val KEY_VERSION = KeyVersion.VERSION_1
             const val IV_SIZE = 12
+            const val TAG_SIZE = 128
+            const val STREAM_BUFFER_SIZE = 8192
+        }
+    }
+
+    interface KeyPool {
+        val size: Int
+        val hits: Long
+        val misses: Long
+
+        /**
+         * Hands out a pre-generated key or, if the pool is drained, a freshly generated one.
+         * Either way the pool is refilled in the background afterwards.
+         */
+        fun take(): GCKey
+
+        fun refill()
+
+        companion object {
+            const val DEFAULT_CAPACITY = 16
         }
     }
 }
@@ -34,6 +34,8 @@ internal class CryptoInternalContract {
 
         fun hasCommonKey(commonKeyId: String): Boolean
 
+        fun clearCache()
+
         companion object {
             const val DEFAULT_COMMON_KEY_ID = "00000000-0000-0000-0000-000000000000"
         }
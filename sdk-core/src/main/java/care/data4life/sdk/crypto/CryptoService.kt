@@ -18,6 +18,8 @@ package care.data4life.sdk.crypto
 import care.data4life.sdk.crypto.CryptoContract.Service.Companion.GC_KEYPAIR
 import care.data4life.sdk.crypto.CryptoContract.Service.Companion.IV_SIZE
 import care.data4life.sdk.crypto.CryptoContract.Service.Companion.KEY_VERSION
+import care.data4life.sdk.crypto.CryptoContract.Service.Companion.STREAM_BUFFER_SIZE
+import care.data4life.sdk.crypto.CryptoContract.Service.Companion.TAG_SIZE
 import care.data4life.sdk.crypto.CryptoContract.Service.Companion.TEK_KEY
 import care.data4life.sdk.crypto.ExchangeKeyFactory.createKey
 import care.data4life.sdk.crypto.error.CryptoException
@@ -30,7 +32,15 @@ import care.data4life.sdk.util.Base64
 import com.squareup.moshi.Moshi
 import io.reactivex.Single
 import java.io.IOException
+import java.io.InputStream
+import java.io.OutputStream
+import java.nio.ByteBuffer
+import java.security.GeneralSecurityException
+import java.security.MessageDigest
 import java.security.SecureRandom
+import javax.crypto.Cipher
+import javax.crypto.spec.GCMParameterSpec
+import javax.crypto.spec.IvParameterSpec
 
 // TODO internal
 // TODO remove open (only needed for Test)
@@ -45,6 +55,14 @@ open class CryptoService : CryptoProtocol, CryptoContract.Service {
     private var keyFactory: KeyFactory
     private var commonKeyService: CryptoInternalContract.CommonKeyService
 
+    @Volatile
+    private var tagEncryptionKey: GCKey? = null
+
+    /**
+     * Pool of pre-generated data keys, which is only present if a pool capacity was given.
+     */
+    val keyPool: CryptoContract.KeyPool?
+
     // for testing only
     internal constructor(
         alias: String,
@@ -53,7 +71,8 @@ open class CryptoService : CryptoProtocol, CryptoContract.Service {
         rng: SecureRandom,
         base64: Base64,
         keyFactory: KeyFactory,
-        commonKeyService: CommonKeyService
+        commonKeyService: CommonKeyService,
+        keyPoolCapacity: Int = NO_KEY_POOL
     ) {
         this.alias = alias
         this.storage = storage
@@ -62,11 +81,14 @@ open class CryptoService : CryptoProtocol, CryptoContract.Service {
         this.base64 = base64
         this.keyFactory = keyFactory
         this.commonKeyService = commonKeyService
+        this.keyPool = createKeyPool(keyPoolCapacity)
     }
 
+    @JvmOverloads
     constructor(
         alias: String,
-        storage: CryptoSecureStore
+        storage: CryptoSecureStore,
+        keyPoolCapacity: Int = NO_KEY_POOL
     ) {
         this.alias = alias
         this.storage = storage
@@ -75,6 +97,7 @@ open class CryptoService : CryptoProtocol, CryptoContract.Service {
         base64 = Base64
         keyFactory = KeyFactory(base64)
         commonKeyService = CommonKeyService(alias, storage, keyFactory)
+        keyPool = createKeyPool(keyPoolCapacity)
     }
 
     override fun encrypt(key: GCKey, data: ByteArray): Single<ByteArray> {
@@ -109,9 +132,176 @@ open class CryptoService : CryptoProtocol, CryptoContract.Service {
             }
     }
 
+    private fun createSymCipher(mode: Int, key: GCKey, iv: ByteArray): Cipher {
+        return createCypher(key.algorithm.transformation).also { cipher ->
+            cipher.init(mode, key.getSymmetricKey().value, GCMParameterSpec(TAG_SIZE, iv))
+        }
+    }
+
+    private fun allocate(size: Int, direct: Boolean): ByteBuffer {
+        return if (direct) {
+            ByteBuffer.allocateDirect(size)
+        } else {
+            ByteBuffer.allocate(size)
+        }
+    }
+
+    override fun encryptBuffer(key: GCKey, data: ByteBuffer, direct: Boolean): Single<ByteBuffer> {
+        return Single
+            .fromCallable {
+                val iv = ByteArray(IV_SIZE)
+                rng.nextBytes(iv)
+                val cipher = createSymCipher(Cipher.ENCRYPT_MODE, key, iv)
+                val encrypted = allocate(IV_SIZE + cipher.getOutputSize(data.remaining()), direct)
+
+                encrypted.put(iv)
+                cipher.doFinal(data, encrypted)
+                encrypted.flip()
+                encrypted
+            }
+            .onErrorResumeNext { error ->
+                Log.error(error, "Failed to encrypt data")
+                Single.error(CryptoException.EncryptionFailed("Failed to encrypt data") as D4LException)
+            }
+    }
+
+    override fun decryptBuffer(key: GCKey, data: ByteBuffer): Single<ByteBuffer> {
+        return Single
+            .fromCallable {
+                val start = data.position()
+                val iv = ByteArray(IV_SIZE)
+                data.get(iv)
+                val cipher = createSymCipher(Cipher.DECRYPT_MODE, key, iv)
+                // the plaintext overwrites the IV and the ciphertext, which the Cipher handles copy-safe
+                val decrypted = data.duplicate()
+
+                decrypted.position(start)
+                cipher.doFinal(data, decrypted)
+                decrypted.limit(decrypted.position())
+                decrypted.position(start)
+                decrypted
+            }
+            .onErrorResumeNext { error ->
+                Log.error(error, "Failed to decrypt data")
+                Single.error(CryptoException.DecryptionFailed("Failed to decrypt data") as D4LException)
+            }
+    }
+
+    override fun encryptStream(key: GCKey, source: InputStream, sink: OutputStream): Long {
+        val iv = ByteArray(IV_SIZE)
+        rng.nextBytes(iv)
+        val cipher = try {
+            createSymCipher(Cipher.ENCRYPT_MODE, key, iv)
+        } catch (error: GeneralSecurityException) {
+            Log.error(error, "Failed to encrypt stream")
+            throw CryptoException.EncryptionFailed("Failed to encrypt stream")
+        }
+        val buffer = ByteArray(STREAM_BUFFER_SIZE)
+        val output = ByteArray(cipher.getOutputSize(STREAM_BUFFER_SIZE))
+        var size = 0L
+
+        sink.write(iv)
+        try {
+            var read = source.read(buffer)
+            while (read >= 0) {
+                size += read
+                sink.write(output, 0, cipher.update(buffer, 0, read, output))
+                read = source.read(buffer)
+            }
+            sink.write(output, 0, cipher.doFinal(output, 0))
+        } catch (error: GeneralSecurityException) {
+            Log.error(error, "Failed to encrypt stream")
+            throw CryptoException.EncryptionFailed("Failed to encrypt stream")
+        }
+
+        return size
+    }
+
+    private fun createCounterCipher(key: GCKey, iv: ByteArray): Cipher {
+        // GCM encrypts with AES-CTR, which starts with the counter 2 for a 96 bit IV
+        val counter = iv.copyOf(COUNTER_SIZE)
+        counter[COUNTER_SIZE - 1] = GCM_INITIAL_COUNTER
+
+        return createCypher(CTR_TRANSFORMATION).also { cipher ->
+            cipher.init(Cipher.DECRYPT_MODE, key.getSymmetricKey().value, IvParameterSpec(counter))
+        }
+    }
+
+    private fun readIv(source: InputStream): ByteArray {
+        val iv = ByteArray(IV_SIZE)
+        var read = 0
+
+        while (read < IV_SIZE) {
+            val chunk = source.read(iv, read, IV_SIZE - read)
+            if (chunk < 0) {
+                throw CryptoException.DecryptionFailed("Failed to decrypt stream")
+            }
+            read += chunk
+        }
+
+        return iv
+    }
+
+    override fun decryptStream(key: GCKey, source: InputStream, sink: OutputStream): Long {
+        val iv = readIv(source)
+        val tagSize = TAG_SIZE / Byte.SIZE_BITS
+        // GCM ciphers hold back the plaintext until the tag is verified, so the ciphertext is
+        // decrypted with AES-CTR, while the tag is recomputed by encrypting the plaintext again
+        val (decryption, authentication) = try {
+            createCounterCipher(key, iv) to createSymCipher(Cipher.ENCRYPT_MODE, key, iv)
+        } catch (error: GeneralSecurityException) {
+            Log.error(error, "Failed to decrypt stream")
+            throw CryptoException.DecryptionFailed("Failed to decrypt stream")
+        }
+        val buffer = ByteArray(STREAM_BUFFER_SIZE + tagSize)
+        val plain = ByteArray(decryption.getOutputSize(STREAM_BUFFER_SIZE))
+        val scratch = ByteArray(authentication.getOutputSize(STREAM_BUFFER_SIZE))
+        var buffered = 0
+        var size = 0L
+
+        try {
+            var read = source.read(buffer, buffered, buffer.size - buffered)
+            while (read >= 0) {
+                buffered += read
+                // the last bytes of the source might be the tag, so they are held back
+                val ready = buffered - tagSize
+                if (ready > 0) {
+                    val plainSize = decryption.update(buffer, 0, ready, plain, 0)
+                    authentication.update(plain, 0, plainSize, scratch, 0)
+                    sink.write(plain, 0, plainSize)
+                    size += plainSize
+
+                    System.arraycopy(buffer, ready, buffer, 0, tagSize)
+                    buffered = tagSize
+                }
+                read = source.read(buffer, buffered, buffer.size - buffered)
+            }
+
+            if (buffered < tagSize) {
+                throw CryptoException.DecryptionFailed("Failed to decrypt stream")
+            }
+
+            val plainSize = decryption.doFinal(plain, 0)
+            authentication.update(plain, 0, plainSize, scratch, 0)
+            sink.write(plain, 0, plainSize)
+            size += plainSize
+
+            val authenticated = authentication.doFinal(scratch, 0)
+            val tag = scratch.copyOfRange(authenticated - tagSize, authenticated)
+            if (!MessageDigest.isEqual(tag, buffer.copyOf(tagSize))) {
+                throw CryptoException.DecryptionFailed("Failed to decrypt stream")
+            }
+        } catch (error: GeneralSecurityException) {
+            Log.error(error, "Failed to decrypt stream")
+            throw CryptoException.DecryptionFailed("Failed to decrypt stream")
+        }
+
+        return size
+    }
+
     override fun encryptAndEncodeByteArray(key: GCKey, data: ByteArray): Single<String> {
-        return encrypt(key, data)
-            .map { dataArray -> base64.encodeToString(dataArray) }
+        return encryptBuffer(key, ByteBuffer.wrap(data), false)
+            .map { encrypted -> base64.encodeToString(encrypted.toByteArray()) }
             .onErrorResumeNext { error ->
                 Log.error(error, "Failed to encrypt string")
                 Single.error(CryptoException.EncryptionFailed("Failed to encrypt string") as D4LException)
@@ -150,7 +340,8 @@ open class CryptoService : CryptoProtocol, CryptoContract.Service {
     override fun decodeAndDecryptByteArray(key: GCKey, dataBase64: String): Single<ByteArray> {
         return Single
             .fromCallable { base64.decode(dataBase64) }
-            .flatMap { decoded -> decrypt(key, decoded) }
+            .flatMap { decoded -> decryptBuffer(key, ByteBuffer.wrap(decoded)) }
+            .map { decrypted -> decrypted.toByteArray() }
             .onErrorResumeNext { error ->
                 Log.error(error, "Failed to decrypt string")
                 Single.error(CryptoException.DecryptionFailed("Failed to decrypt string") as D4LException)
@@ -203,13 +394,23 @@ open class CryptoService : CryptoProtocol, CryptoContract.Service {
             .map { data -> base64.encodeToString(data) }
     }
 
+    private fun createKeyPool(capacity: Int): CryptoContract.KeyPool? {
+        return if (capacity > NO_KEY_POOL) {
+            GCKeyPool(::createGCKey, capacity).also { pool -> pool.refill() }
+        } else {
+            null
+        }
+    }
+
+    private fun createGCKey(): GCKey {
+        val algorithm = GCAESKeyAlgorithm.createDataAlgorithm()
+        val options = KeyOptions(KEY_VERSION.symmetricKeySize)
+        return generateSymKey(algorithm, options)
+    }
+
     override fun generateGCKey(): Single<GCKey> {
         return Single
-            .fromCallable { GCAESKeyAlgorithm.createDataAlgorithm() }
-            .map { algorithm ->
-                val options = KeyOptions(KEY_VERSION.symmetricKeySize)
-                generateSymKey(algorithm, options)
-            }
+            .fromCallable { keyPool?.take() ?: createGCKey() }
             .onErrorResumeNext { error ->
                 Log.error(error, "Failed to generate encryption key")
                 Single.error(CryptoException.KeyGenerationFailed("Failed to generate encryption key") as D4LException)
@@ -280,10 +481,13 @@ open class CryptoService : CryptoProtocol, CryptoContract.Service {
 
     override fun storeTagEncryptionKey(tek: GCKey) {
         storeKey(TEK_KEY, tek, KeyType.TAG_KEY)
+        tagEncryptionKey = tek
     }
 
     @Throws(IOException::class)
-    override fun fetchTagEncryptionKey(): GCKey = getGCKey(TEK_KEY)
+    override fun fetchTagEncryptionKey(): GCKey {
+        return tagEncryptionKey ?: getGCKey(TEK_KEY).also { tek -> tagEncryptionKey = tek }
+    }
 
     private fun storeKey(key: String, value: GCKey, keyType: KeyType) {
         storage.storeKey(prefix() + key, value, keyType)
@@ -322,4 +526,17 @@ open class CryptoService : CryptoProtocol, CryptoContract.Service {
 
     override fun hasCommonKey(commonKeyId: String): Boolean =
         commonKeyService.hasCommonKey(commonKeyId)
+
+    override fun clearKeyCache() {
+        tagEncryptionKey = null
+        commonKeyService.clearCache()
+    }
+
+    companion object {
+        const val NO_KEY_POOL = 0
+
+        private const val CTR_TRANSFORMATION = "AES/CTR/NoPadding"
+        private const val COUNTER_SIZE = 16
+        private const val GCM_INITIAL_COUNTER: Byte = 2
+    }
 }
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+package care.data4life.sdk.crypto
+
+import care.data4life.sdk.crypto.CryptoContract.KeyPool.Companion.DEFAULT_CAPACITY
+import care.data4life.sdk.log.Log
+import io.reactivex.Scheduler
+import io.reactivex.schedulers.Schedulers
+import java.util.concurrent.ArrayBlockingQueue
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Keeps a bounded number of data keys ready, so drawing a key does not wait on the SecureRandom.
+ * The pool is refilled on the given Scheduler by at most one worker at a time.
+ */
+class GCKeyPool @JvmOverloads constructor(
+    private val generateKey: () -> GCKey,
+    capacity: Int = DEFAULT_CAPACITY,
+    private val scheduler: Scheduler = Schedulers.io()
+) : CryptoContract.KeyPool {
+    private val keys: ArrayBlockingQueue<GCKey>
+    private val refilling = AtomicBoolean(false)
+    private val hitCount = AtomicLong(0)
+    private val missCount = AtomicLong(0)
+
+    init {
+        require(capacity > 0) { "The capacity of the pool must be positive." }
+        keys = ArrayBlockingQueue(capacity)
+    }
+
+    override val size: Int
+        get() = keys.size
+
+    override val hits: Long
+        get() = hitCount.get()
+
+    override val misses: Long
+        get() = missCount.get()
+
+    override fun take(): GCKey {
+        val key = keys.poll()
+
+        if (key == null) {
+            missCount.incrementAndGet()
+        } else {
+            hitCount.incrementAndGet()
+        }
+
+        refill()
+        return key ?: generateKey()
+    }
+
+    override fun refill() {
+        if (keys.remainingCapacity() > 0 && refilling.compareAndSet(false, true)) {
+            scheduler.scheduleDirect(::fill)
+        }
+    }
+
+    private fun fill() {
+        try {
+            while (keys.remainingCapacity() > 0) {
+                keys.offer(generateKey())
+            }
+        } catch (error: Exception) {
+            Log.error(error, "Failed to pre-generate encryption keys")
+        } finally {
+            refilling.set(false)
+        }
+    }
+}
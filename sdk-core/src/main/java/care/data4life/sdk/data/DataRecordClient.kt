@@ -35,9 +35,7 @@ internal class DataRecordClient(
         operation: (userId: String) -> Single<T>,
         callback: Callback<T>
     ): Task {
-        val flow = userService.finishLogin(true)
-            .flatMap { userService.userID }
-            .flatMap { userId -> operation(userId) }
+        val flow = userService.session.execute(operation)
         return handler.executeSingle(flow, callback)
     }
 
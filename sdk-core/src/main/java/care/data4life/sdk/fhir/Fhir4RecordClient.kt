@@ -17,6 +17,8 @@
 package care.data4life.sdk.fhir
 
 import care.data4life.sdk.SdkContract
+import care.data4life.sdk.attachment.AttachmentContract
+import care.data4life.sdk.attachment.AttachmentFileWriter
 import care.data4life.sdk.auth.AuthContract
 import care.data4life.sdk.call.CallHandler
 import care.data4life.sdk.call.Callback
@@ -24,8 +26,11 @@ import care.data4life.sdk.call.Fhir4Record
 import care.data4life.sdk.call.Task
 import care.data4life.sdk.model.DownloadType
 import care.data4life.sdk.record.RecordContract
+import care.data4life.sdk.record.RecordHandle
 import care.data4life.sdk.tag.Annotations
 import io.reactivex.Single
+import java.io.File
+import java.io.OutputStream
 
 internal class Fhir4RecordClient(
     private val userService: AuthContract.UserService,
@@ -37,9 +42,7 @@ internal class Fhir4RecordClient(
         operation: (userId: String) -> Single<T>,
         callback: Callback<T>
     ): Task {
-        val flow = userService.finishLogin(true)
-            .flatMap { userService.userID }
-            .flatMap { userId -> operation(userId) }
+        val flow = userService.session.execute(operation)
         return handler.executeSingle(flow, callback)
     }
 
@@ -52,6 +55,16 @@ internal class Fhir4RecordClient(
         callback
     )
 
+    override fun <T : Fhir4Resource> create(
+        resource: T,
+        attachmentSources: Map<Fhir4Attachment, AttachmentContract.UploadSource>,
+        annotations: Annotations,
+        callback: Callback<Fhir4Record<T>>
+    ): Task = executeOperationFlow(
+        { userId -> recordService.createRecord(userId, resource, attachmentSources, annotations) },
+        callback
+    )
+
     override fun <T : Fhir4Resource> update(
         recordId: String,
         resource: T,
@@ -62,6 +75,27 @@ internal class Fhir4RecordClient(
         callback
     )
 
+    override fun <T : Fhir4Resource> update(
+        recordId: String,
+        resource: T,
+        attachmentSources: Map<Fhir4Attachment, AttachmentContract.UploadSource>,
+        annotations: Annotations,
+        callback: Callback<Fhir4Record<T>>
+    ): Task = executeOperationFlow(
+        { userId -> recordService.updateRecord(userId, recordId, resource, attachmentSources, annotations) },
+        callback
+    )
+
+    override fun <T : Fhir4Resource> update(
+        handle: RecordHandle<T>,
+        resource: T,
+        annotations: Annotations,
+        callback: Callback<RecordHandle<T>>
+    ): Task = executeOperationFlow(
+        { userId -> recordService.updateRecord(userId, handle, resource, annotations) },
+        callback
+    )
+
     override fun <T : Fhir4Resource> fetch(
         recordId: String,
         callback: Callback<Fhir4Record<T>>
@@ -70,6 +104,14 @@ internal class Fhir4RecordClient(
         callback
     )
 
+    override fun <T : Fhir4Resource> fetchHandle(
+        recordId: String,
+        callback: Callback<RecordHandle<T>>
+    ): Task = executeOperationFlow(
+        { userId -> recordService.fetchFhir4RecordHandle(userId, recordId) },
+        callback
+    )
+
     override fun <T : Fhir4Resource> search(
         resourceType: Class<T>,
         annotations: Annotations,
@@ -139,4 +181,30 @@ internal class Fhir4RecordClient(
         { userId -> recordService.downloadFhir4Attachments(recordId, attachmentIds, userId, type) },
         callback
     )
+
+    override fun downloadAttachmentTo(
+        recordId: String,
+        attachmentId: String,
+        type: DownloadType,
+        target: OutputStream,
+        callback: Callback<Fhir4Attachment>
+    ): Task = executeOperationFlow(
+        { userId -> recordService.downloadFhir4AttachmentTo(recordId, attachmentId, userId, type, target) },
+        callback
+    )
+
+    override fun downloadAttachmentTo(
+        recordId: String,
+        attachmentId: String,
+        type: DownloadType,
+        target: File,
+        callback: Callback<Fhir4Attachment>
+    ): Task = executeOperationFlow(
+        { userId ->
+            AttachmentFileWriter.write(target) { output ->
+                recordService.downloadFhir4AttachmentTo(recordId, attachmentId, userId, type, output)
+            }
+        },
+        callback
+    )
 }
@@ -16,6 +16,11 @@
 
 package care.data4life.sdk.migration
 
+import care.data4life.sdk.crypto.GCKey
+import care.data4life.sdk.network.NetworkingContract
+import care.data4life.sdk.tag.Annotations
+import care.data4life.sdk.tag.Tags
+
 internal class MigrationInternalContract {
     interface CompatibilityEncoder {
         fun encode(tagValue: String): QueryCompatibilityTag
@@ -32,6 +37,21 @@ internal class MigrationInternalContract {
         }
     }
 
+    interface SearchTagsCache {
+        fun resolve(
+            tagEncryptionKey: GCKey,
+            tags: Tags,
+            annotations: Annotations,
+            compile: () -> NetworkingContract.SearchTags
+        ): NetworkingContract.SearchTags
+
+        fun clear()
+
+        companion object {
+            const val DEFAULT_CAPACITY = 128
+        }
+    }
+
     data class QueryCompatibilityTag(
         val validEncoding: String,
         val kmpLegacyEncoding: String,
@@ -40,7 +40,8 @@ class RecordCompatibilityService internal constructor(
     private val cryptoService: CryptoContract.Service,
     private val tagCryptoService: TaggingContract.CryptoService,
     private val compatibilityEncoder: MigrationInternalContract.CompatibilityEncoder = CompatibilityEncoder,
-    private val searchTagsBuilderFactory: NetworkingContract.SearchTagsBuilderFactory = SearchTagsBuilder
+    private val searchTagsBuilderFactory: NetworkingContract.SearchTagsBuilderFactory = SearchTagsBuilder,
+    private val searchTagsCache: MigrationInternalContract.SearchTagsCache = SearchTagsCache()
 ) : MigrationContract.CompatibilityService {
     private fun compatibilityTagsToList(tag: QueryCompatibilityTag): List<String> {
         return listOf(
@@ -48,7 +49,7 @@ class RecordCompatibilityService internal constructor(
             tag.kmpLegacyEncoding,
             tag.jsLegacyEncoding,
             tag.iosLegacyEncoding
-        )
+        ).distinct()
     }
 
     private fun encryptTags(
@@ -71,7 +72,7 @@ class RecordCompatibilityService internal constructor(
                 tagGroup.key + DELIMITER,
                 compatibilityEncoder.encode(tagGroup.value)
             )
-        }.map { encodedTagGroup ->
+        }.distinct().map { encodedTagGroup ->
             encryptTags(
                 tagEncryptionKey,
                 encodedTagGroup
@@ -88,7 +89,7 @@ class RecordCompatibilityService internal constructor(
                 ANNOTATION_KEY + DELIMITER,
                 compatibilityEncoder.encode(annotation).copy(kmpLegacyEncoding = annotation)
             )
-        }.map { encodedTagGroup ->
+        }.distinct().map { encodedTagGroup ->
             encryptTags(
                 tagEncryptionKey,
                 encodedTagGroup
@@ -96,16 +97,27 @@ class RecordCompatibilityService internal constructor(
         }
     }
 
-    override fun resolveSearchTags(
+    private fun compileSearchTags(
         tags: Tags,
-        annotation: Annotations
+        annotation: Annotations,
+        tagEncryptionKey: GCKey
     ): NetworkingContract.SearchTags {
         val builder = searchTagsBuilderFactory.newBuilder()
-        val tagEncryptionKey = cryptoService.fetchTagEncryptionKey()
 
         mapTags(tags, tagEncryptionKey).forEach { tagGroup -> builder.addOrTuple(tagGroup) }
         mapAnnotations(annotation, tagEncryptionKey).forEach { tagGroup -> builder.addOrTuple(tagGroup) }
 
         return builder.seal()
     }
+
+    override fun resolveSearchTags(
+        tags: Tags,
+        annotation: Annotations
+    ): NetworkingContract.SearchTags {
+        val tagEncryptionKey = cryptoService.fetchTagEncryptionKey()
+
+        return searchTagsCache.resolve(tagEncryptionKey, tags, annotation) {
+            compileSearchTags(tags, annotation, tagEncryptionKey)
+        }
+    }
 }
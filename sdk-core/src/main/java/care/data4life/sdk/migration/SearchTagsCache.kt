@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+package care.data4life.sdk.migration
+
+import care.data4life.sdk.crypto.GCKey
+import care.data4life.sdk.migration.MigrationInternalContract.SearchTagsCache.Companion.DEFAULT_CAPACITY
+import care.data4life.sdk.network.NetworkingContract
+import care.data4life.sdk.tag.Annotations
+import care.data4life.sdk.tag.KeyScopedLruCache
+import care.data4life.sdk.tag.Tags
+
+private data class SearchTagsQuery(
+    val tags: Tags,
+    val annotations: Set<String>
+)
+
+/**
+ * Remembers the sealed SearchTags of recent queries for one tag encryption key.
+ */
+internal class SearchTagsCache(
+    capacity: Int = DEFAULT_CAPACITY
+) : MigrationInternalContract.SearchTagsCache {
+    private val searchTags = KeyScopedLruCache<SearchTagsQuery, NetworkingContract.SearchTags>(capacity)
+
+    override fun resolve(
+        tagEncryptionKey: GCKey,
+        tags: Tags,
+        annotations: Annotations,
+        compile: () -> NetworkingContract.SearchTags
+    ): NetworkingContract.SearchTags {
+        val query = SearchTagsQuery(tags.toMap(), annotations.toSet())
+
+        return searchTags[tagEncryptionKey, query]
+            ?: compile().also { compiled -> searchTags.put(tagEncryptionKey, query, compiled) }
+    }
+
+    override fun clear() = searchTags.clear()
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.model
+
+import care.data4life.sdk.lang.D4LException
+
+/**
+ * BatchResult is the outcome of a batch operation, which reports every item exactly once.
+ *
+ * @param successfulOperations    results of the succeeded items in the order of the given items
+ * @param failedOperations        failed items with their cause in the order of the given items
+ * @param durationMillis          wall clock time the batch took in milliseconds
+ * @param unchangedOperations     number of succeeded updates, which had been skipped, since nothing changed
+ */
+data class BatchResult<T, R> @JvmOverloads constructor(
+    val successfulOperations: List<R>,
+    val failedOperations: List<Pair<T, D4LException>>,
+    val durationMillis: Long,
+    val unchangedOperations: Int = 0
+) {
+    val processedItems: Int
+        get() = successfulOperations.size + failedOperations.size
+
+    /**
+     * Processed items per second
+     */
+    val throughput: Double
+        get() = processedItems * 1000.0 / durationMillis.coerceAtLeast(1)
+}
@@ -26,10 +26,16 @@ import kotlin.Pair;
 public class UpdateResult<T extends DomainResource> {
     private List<Record<T>> successfulUpdates;
     private List<Pair<T, D4LException>> failedUpdates;
+    private int unchangedUpdates;
 
     public UpdateResult(List<Record<T>> successfulUpdates, List<Pair<T, D4LException>> failedUpdates) {
+        this(successfulUpdates, failedUpdates, 0);
+    }
+
+    public UpdateResult(List<Record<T>> successfulUpdates, List<Pair<T, D4LException>> failedUpdates, int unchangedUpdates) {
         this.successfulUpdates = successfulUpdates;
         this.failedUpdates = failedUpdates;
+        this.unchangedUpdates = unchangedUpdates;
     }
 
     public List<Record<T>> getSuccessfulUpdates() {
@@ -39,4 +45,8 @@ public class UpdateResult<T extends DomainResource> {
     public List<Pair<T, D4LException>> getFailedUpdates() {
         return failedUpdates;
     }
+
+    public int getUnchangedUpdates() {
+        return unchangedUpdates;
+    }
 }
@@ -32,7 +32,9 @@ import io.reactivex.Single
 import io.reactivex.schedulers.Schedulers
 import java.util.HashMap
 import okhttp3.MediaType.Companion.toMediaType
+import okhttp3.RequestBody
 import okhttp3.RequestBody.Companion.toRequestBody
+import okhttp3.ResponseBody
 
 /**
  * Full constructor.
@@ -54,6 +56,8 @@ import okhttp3.RequestBody.Companion.toRequestBody
  * @param agentVersion        agent version
  * @param staticAccessToken   optional Prefetched OAuth token - if not null, it will be used directly (no token renewal).
  * @param debug               Debug flag
+ * @param httpStack           HTTP stack, which dispatcher, connection pool, limiter and circuit breaker
+ * are shared with other ApiServices
  */
 class ApiService @JvmOverloads constructor(
     private val authService: AuthorizationContract.Service,
@@ -65,7 +69,8 @@ class ApiService @JvmOverloads constructor(
     agent: NetworkingContract.Client,
     agentVersion: String,
     private val staticAccessToken: ByteArray? = null,
-    debug: Boolean
+    debug: Boolean,
+    httpStack: HttpStack = HttpStack.SHARED
 ) : NetworkingContract.Service {
     private val service = HealthCloudApiFactory.getInstance(
         ClientFactory.getInstanceLegacy(
@@ -78,10 +83,13 @@ class ApiService @JvmOverloads constructor(
             agent,
             agentVersion,
             staticAccessToken,
-            debug
+            debug,
+            httpStack
         ),
         platform,
-        environment
+        environment,
+        httpStack.configuration.asyncCalls,
+        httpStack.circuitBreaker
     )
 
     override fun fetchCommonKey(
@@ -181,6 +189,18 @@ class ApiService @JvmOverloads constructor(
         ).map(DocumentUploadResponse::documentId)
     }
 
+    override fun uploadDocument(
+        alias: String,
+        userId: String,
+        encryptedAttachment: RequestBody
+    ): Single<String> {
+        return service.uploadDocument(
+            alias,
+            userId,
+            encryptedAttachment
+        ).map(DocumentUploadResponse::documentId)
+    }
+
     override fun downloadDocument(
         alias: String,
         userId: String,
@@ -190,6 +210,12 @@ class ApiService @JvmOverloads constructor(
             .map { response -> response.bytes() }
     }
 
+    override fun streamDocument(
+        alias: String,
+        userId: String,
+        documentId: String
+    ): Single<ResponseBody> = service.streamDocument(alias, userId, documentId)
+
     override fun deleteDocument(
         alias: String,
         userId: String,
@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.network
+
+import care.data4life.sdk.lang.NetworkException
+import io.reactivex.Completable
+import io.reactivex.Observable
+import io.reactivex.Single
+import io.reactivex.subjects.PublishSubject
+import java.io.IOException
+import java.util.EnumMap
+import java.util.concurrent.atomic.AtomicBoolean
+import retrofit2.HttpException
+
+/**
+ * Suspends the requests to a group of endpoints, once they failed repeatedly, so callers fail fast
+ * with NetworkException.CircuitOpen instead of waiting for timeouts.
+ * After the open duration a limited number of requests probe the endpoints: a success closes the circuit,
+ * a failure opens it again. Failed connections, timeouts and the failure status codes of the policy
+ * count as failures, any other outcome counts as success.
+ */
+class CircuitBreaker internal constructor(
+    val policy: CircuitBreakerPolicy,
+    private val clock: () -> Long
+) {
+    constructor(policy: CircuitBreakerPolicy) : this(policy, System::currentTimeMillis)
+
+    enum class State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    data class StateChange(
+        val endpoint: NetworkingContract.Endpoint,
+        val from: State,
+        val to: State
+    )
+
+    private class Circuit {
+        var state = State.CLOSED
+        var failures = 0
+        var openedAt = 0L
+        var probes = 0
+    }
+
+    private val circuits = EnumMap<NetworkingContract.Endpoint, Circuit>(NetworkingContract.Endpoint::class.java)
+        .also { circuits -> NetworkingContract.Endpoint.values().forEach { circuits[it] = Circuit() } }
+    private val changes = PublishSubject.create<StateChange>().toSerialized()
+
+    /**
+     * Emits every transition of a circuit, after it took place.
+     */
+    val stateChanges: Observable<StateChange> = changes.hide()
+
+    @Synchronized
+    fun stateOf(endpoint: NetworkingContract.Endpoint): State = circuits.getValue(endpoint).state
+
+    private fun transition(endpoint: NetworkingContract.Endpoint, circuit: Circuit, to: State): StateChange? {
+        val from = circuit.state
+        if (from == to) {
+            return null
+        }
+
+        circuit.state = to
+        circuit.failures = 0
+        circuit.probes = 0
+        if (to == State.OPEN) {
+            circuit.openedAt = clock()
+        }
+
+        return StateChange(endpoint, from, to)
+    }
+
+    private fun publish(change: StateChange?) {
+        if (change is StateChange) {
+            changes.onNext(change)
+        }
+    }
+
+    private fun tryAcquire(endpoint: NetworkingContract.Endpoint): Boolean {
+        var change: StateChange? = null
+        val isPermitted = synchronized(this) {
+            val circuit = circuits.getValue(endpoint)
+
+            if (circuit.state == State.OPEN && clock() - circuit.openedAt >= policy.openDurationMillis) {
+                change = transition(endpoint, circuit, State.HALF_OPEN)
+            }
+
+            when (circuit.state) {
+                State.CLOSED -> true
+                State.OPEN -> false
+                State.HALF_OPEN -> if (circuit.probes < policy.halfOpenProbes) {
+                    circuit.probes += 1
+                    true
+                } else {
+                    false
+                }
+            }
+        }
+
+        publish(change)
+        return isPermitted
+    }
+
+    private fun onSuccess(endpoint: NetworkingContract.Endpoint) {
+        val change = synchronized(this) {
+            val circuit = circuits.getValue(endpoint)
+            circuit.failures = 0
+            if (circuit.state == State.HALF_OPEN) transition(endpoint, circuit, State.CLOSED) else null
+        }
+
+        publish(change)
+    }
+
+    private fun onFailure(endpoint: NetworkingContract.Endpoint) {
+        val change = synchronized(this) {
+            val circuit = circuits.getValue(endpoint)
+
+            when (circuit.state) {
+                State.HALF_OPEN -> transition(endpoint, circuit, State.OPEN)
+                State.CLOSED -> {
+                    circuit.failures += 1
+                    if (circuit.failures >= policy.failureThreshold) {
+                        transition(endpoint, circuit, State.OPEN)
+                    } else {
+                        null
+                    }
+                }
+                State.OPEN -> null
+            }
+        }
+
+        publish(change)
+    }
+
+    @Synchronized
+    private fun onCancel(endpoint: NetworkingContract.Endpoint) {
+        val circuit = circuits.getValue(endpoint)
+        if (circuit.state == State.HALF_OPEN && circuit.probes > 0) {
+            circuit.probes -= 1
+        }
+    }
+
+    private fun isFailure(error: Throwable): Boolean {
+        return error is IOException ||
+            (error is HttpException && error.code() in policy.failureStatusCodes)
+    }
+
+    private fun record(endpoint: NetworkingContract.Endpoint, error: Throwable?) {
+        if (error is Throwable && isFailure(error)) {
+            onFailure(endpoint)
+        } else {
+            onSuccess(endpoint)
+        }
+    }
+
+    internal fun <T> guard(endpoint: NetworkingContract.Endpoint, operation: Observable<T>): Observable<T> {
+        return Observable.defer {
+            if (tryAcquire(endpoint)) {
+                val isSettled = AtomicBoolean(false)
+
+                operation
+                    .doOnComplete { if (isSettled.compareAndSet(false, true)) record(endpoint, null) }
+                    .doOnError { error -> if (isSettled.compareAndSet(false, true)) record(endpoint, error) }
+                    .doOnDispose { if (isSettled.compareAndSet(false, true)) onCancel(endpoint) }
+            } else {
+                Observable.error(NetworkException.CircuitOpen(endpoint))
+            }
+        }
+    }
+
+    internal fun <T> guard(endpoint: NetworkingContract.Endpoint, operation: Single<T>): Single<T> {
+        return guard(endpoint, operation.toObservable()).singleOrError()
+    }
+
+    internal fun guard(endpoint: NetworkingContract.Endpoint, operation: Completable): Completable {
+        return guard(endpoint, operation.toObservable<Any>()).ignoreElements()
+    }
+}
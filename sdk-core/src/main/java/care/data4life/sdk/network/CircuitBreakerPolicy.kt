@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.network
+
+/**
+ * Configures when the requests to a group of endpoints are suspended.
+ *
+ * @param failureThreshold      number of consecutive failures, which open the circuit
+ * @param openDurationMillis    time in milliseconds requests fail fast, before the circuit is probed again
+ * @param halfOpenProbes        number of requests, which may probe a half open circuit at once
+ * @param failureStatusCodes    status codes, which count as failure besides failed connections and timeouts
+ */
+data class CircuitBreakerPolicy @JvmOverloads constructor(
+    val failureThreshold: Int = DEFAULT_FAILURE_THRESHOLD,
+    val openDurationMillis: Long = DEFAULT_OPEN_DURATION_MILLIS,
+    val halfOpenProbes: Int = DEFAULT_HALF_OPEN_PROBES,
+    val failureStatusCodes: Set<Int> = DEFAULT_FAILURE_STATUS_CODES
+) {
+    init {
+        require(failureThreshold > 0) { "The failure threshold must be positive." }
+        require(openDurationMillis > 0) { "The open duration must be positive." }
+        require(halfOpenProbes > 0) { "The number of probes must be positive." }
+    }
+
+    companion object {
+        const val DEFAULT_FAILURE_THRESHOLD = 5
+        const val DEFAULT_OPEN_DURATION_MILLIS = 30 * 1000L
+        const val DEFAULT_HALF_OPEN_PROBES = 1
+        val DEFAULT_FAILURE_STATUS_CODES = setOf(500, 502, 503, 504)
+    }
+}
@@ -42,6 +42,7 @@ import retrofit2.http.POST
 import retrofit2.http.PUT
 import retrofit2.http.Path
 import retrofit2.http.Query
+import retrofit2.http.Streaming
 
 interface HealthCloudApi {
     // Key
@@ -135,6 +136,15 @@ interface HealthCloudApi {
         @Path("documentId") documentId: String
     ): Single<ResponseBody>
 
+    @Streaming
+    @GET("/users/{userId}/documents/{documentId}")
+    @Headers(AUTHORIZATION_WITH_ACCESS_TOKEN)
+    fun streamDocument(
+        @Header(HEADER_ALIAS) alias: String,
+        @Path("userId") userId: String,
+        @Path("documentId") documentId: String
+    ): Single<ResponseBody>
+
     @DELETE("/users/{userId}/documents/{documentId}")
     @Headers(AUTHORIZATION_WITH_ACCESS_TOKEN)
     fun deleteDocument(
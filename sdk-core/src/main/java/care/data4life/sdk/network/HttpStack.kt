@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.network
+
+import care.data4life.sdk.network.util.interceptor.RequestLimiter
+import java.util.concurrent.TimeUnit
+import okhttp3.ConnectionPool
+import okhttp3.Dispatcher
+import okhttp3.OkHttpClient
+import okhttp3.Protocol
+
+/**
+ * Owns one dispatcher and one connection pool, which are shared by every client built from it.
+ * ApiServices of different aliases may share a stack, so they reuse connections and are bound by common limits.
+ */
+class HttpStack @JvmOverloads constructor(
+    val configuration: NetworkConfiguration = NetworkConfiguration()
+) {
+    private val client: OkHttpClient by lazy {
+        OkHttpClient.Builder()
+            .dispatcher(
+                Dispatcher().also { dispatcher ->
+                    dispatcher.maxRequests = configuration.maxRequests
+                    dispatcher.maxRequestsPerHost = configuration.maxRequestsPerHost
+                }
+            )
+            .connectionPool(
+                ConnectionPool(
+                    configuration.maxIdleConnections,
+                    configuration.keepAliveMillis,
+                    TimeUnit.MILLISECONDS
+                )
+            )
+            .protocols(
+                if (configuration.preferHttp2) {
+                    listOf(Protocol.HTTP_2, Protocol.HTTP_1_1)
+                } else {
+                    listOf(Protocol.HTTP_1_1)
+                }
+            )
+            .build()
+    }
+
+    val runningCalls: Int
+        get() = client.dispatcher.runningCallsCount()
+
+    val queuedCalls: Int
+        get() = client.dispatcher.queuedCallsCount()
+
+    /**
+     * Throttles the requests of all clients built from the stack, if the configuration sets RequestLimits.
+     */
+    val limiter: RequestLimiter? = configuration.requestLimits?.let { limits -> RequestLimiter(limits) }
+
+    /**
+     * Guards the calls of all ApiServices using the stack, if the configuration sets a CircuitBreakerPolicy.
+     */
+    val circuitBreaker: CircuitBreaker? = configuration.circuitBreaker?.let { policy -> CircuitBreaker(policy) }
+
+    internal fun newClientBuilder(): OkHttpClient.Builder = client.newBuilder()
+
+    companion object {
+        @JvmStatic
+        val SHARED: HttpStack by lazy { HttpStack() }
+    }
+}
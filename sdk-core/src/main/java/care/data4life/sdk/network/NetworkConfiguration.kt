@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.network
+
+import care.data4life.sdk.network.util.interceptor.RequestLimits
+import care.data4life.sdk.network.util.interceptor.RetryPolicy
+
+/**
+ * Tunes the HTTP stack of the SDK.
+ *
+ * @param maxRequests           maximum number of asynchronous requests in flight at once
+ * @param maxRequestsPerHost    maximum number of asynchronous requests in flight at once per host
+ * @param maxIdleConnections    maximum number of idle connections kept in the connection pool
+ * @param keepAliveMillis       time in milliseconds an idle connection is kept in the connection pool
+ * @param preferHttp2           negotiates HTTP/2 with servers, which support it, otherwise only HTTP/1.1 is used
+ * @param asyncCalls            executes requests asynchronously on the dispatcher of the stack, instead of
+ * blocking the subscribing thread, so the request limits above apply
+ * @param retryPolicy           determines which failed requests are retried and how long to wait in between
+ * @param tokenRefreshMarginMillis  refreshes an access token this many milliseconds before it expires,
+ * instead of waiting for a 401; 0 disables the proactive refresh
+ * @param requestLimits         throttles the requests on the client side by rate and adaptive concurrency;
+ * null disables the throttling
+ * @param circuitBreaker        suspends the requests to a group of endpoints after repeated failures;
+ * null disables the circuit breaker
+ */
+data class NetworkConfiguration @JvmOverloads constructor(
+    val maxRequests: Int = DEFAULT_MAX_REQUESTS,
+    val maxRequestsPerHost: Int = DEFAULT_MAX_REQUESTS_PER_HOST,
+    val maxIdleConnections: Int = DEFAULT_MAX_IDLE_CONNECTIONS,
+    val keepAliveMillis: Long = DEFAULT_KEEP_ALIVE_MILLIS,
+    val preferHttp2: Boolean = true,
+    val asyncCalls: Boolean = false,
+    val retryPolicy: RetryPolicy = RetryPolicy(),
+    val tokenRefreshMarginMillis: Long = 0,
+    val requestLimits: RequestLimits? = null,
+    val circuitBreaker: CircuitBreakerPolicy? = null
+) {
+    init {
+        require(maxRequests > 0) { "The maximum of requests must be positive." }
+        require(maxRequestsPerHost > 0) { "The maximum of requests per host must be positive." }
+        require(maxIdleConnections >= 0) { "The maximum of idle connections must not be negative." }
+        require(keepAliveMillis > 0) { "The keep alive of connections must be positive." }
+        require(tokenRefreshMarginMillis >= 0) { "The margin of the token refresh must not be negative." }
+    }
+
+    companion object {
+        const val DEFAULT_MAX_REQUESTS = 64
+        const val DEFAULT_MAX_REQUESTS_PER_HOST = 16
+        const val DEFAULT_MAX_IDLE_CONNECTIONS = 16
+        const val DEFAULT_KEEP_ALIVE_MILLIS = 5 * 60 * 1000L
+    }
+}
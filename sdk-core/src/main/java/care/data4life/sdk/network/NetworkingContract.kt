@@ -24,6 +24,8 @@ import care.data4life.sdk.network.model.VersionList
 import io.reactivex.Completable
 import io.reactivex.Observable
 import io.reactivex.Single
+import okhttp3.RequestBody
+import okhttp3.ResponseBody
 
 interface NetworkingContract {
     // TODO: Break this down
@@ -78,8 +80,19 @@ interface NetworkingContract {
             encryptedAttachment: ByteArray
         ): Single<String>
 
+        fun uploadDocument(
+            alias: String,
+            userId: String,
+            encryptedAttachment: RequestBody
+        ): Single<String>
+
         fun downloadDocument(alias: String, userId: String, documentId: String): Single<ByteArray>
 
+        /**
+         * Opens the document without reading it into memory. The caller has to close the returned body.
+         */
+        fun streamDocument(alias: String, userId: String, documentId: String): Single<ResponseBody>
+
         fun deleteDocument(alias: String, userId: String, documentId: String): Single<Boolean>
 
         // TODO: Move into a user/utils route
@@ -96,6 +109,30 @@ interface NetworkingContract {
         INGESTION("ingestion"),
     }
 
+    /**
+     * Groups the endpoints of the Health Cloud, which share their limits.
+     */
+    enum class Endpoint {
+        RECORDS,
+        DOCUMENTS,
+        KEYS,
+        OTHER;
+
+        companion object {
+            @JvmStatic
+            fun of(path: String): Endpoint {
+                val segments = path.split('/')
+
+                return when {
+                    "records" in segments -> RECORDS
+                    "documents" in segments -> DOCUMENTS
+                    "commonkeys" in segments || "tek" in segments -> KEYS
+                    else -> OTHER
+                }
+            }
+        }
+    }
+
     fun interface NetworkConnectivityService {
         fun isConnected(): Boolean
     }
@@ -135,6 +172,7 @@ interface NetworkingContract {
         const val HEADER_SDK_VERSION = "d4l-sdk-version"
         const val FORMAT_CLIENT_VERSION = "%s-%s"
         const val HEADER_TOTAL_COUNT = "x-total-count"
+        const val HEADER_RETRY_AFTER = "Retry-After"
         const val PARAM_TAG_ENCRYPTION_KEY = "tek"
         const val FORMAT_BEARER_TOKEN = "Bearer %s"
         const val FORMAT_BASIC_AUTH = "Basic %s"
@@ -17,6 +17,7 @@
 package care.data4life.sdk.network
 
 import care.data4life.sdk.auth.AuthorizationContract
+import care.data4life.sdk.lang.D4LException
 import okhttp3.CertificatePinner
 import okhttp3.OkHttpClient
 import okhttp3.Response
@@ -44,6 +45,22 @@ internal class NetworkingInternalContract {
         fun getInstance(payload: T): Interceptor
     }
 
+    interface TokenRefresher {
+        /**
+         * Resolves the access token of the given alias and refreshes it beforehand, if it is about to expire.
+         */
+        @Throws(D4LException::class)
+        fun fetch(alias: String): String
+
+        /**
+         * Refreshes the access token of the given alias, while concurrent refreshes of the same alias
+         * await the one in flight. If the token had been already refreshed since the stale token was
+         * handed out, the current token is returned without refreshing it again.
+         */
+        @Throws(D4LException::class)
+        fun refresh(alias: String, staleToken: String?): String
+    }
+
     enum class Data4LifeURI(val uri: String) {
         SANDBOX("https://api-phdp-sandbox.hpsgc.de"),
         DEVELOPMENT("https://api-phdp-dev.hpsgc.de"),
@@ -71,7 +88,8 @@ internal class NetworkingInternalContract {
             clientName: NetworkingContract.Client,
             clientVersion: String,
             staticAccessToken: ByteArray?,
-            debugFlag: Boolean
+            debugFlag: Boolean,
+            httpStack: HttpStack = HttpStack.SHARED
         ): OkHttpClient
     }
 
@@ -79,7 +97,9 @@ internal class NetworkingInternalContract {
         fun getInstance(
             client: OkHttpClient,
             platform: String,
-            environment: NetworkingContract.Environment
+            environment: NetworkingContract.Environment,
+            asyncCalls: Boolean = false,
+            circuitBreaker: CircuitBreaker? = null
         ): HealthCloudApi
     }
 }
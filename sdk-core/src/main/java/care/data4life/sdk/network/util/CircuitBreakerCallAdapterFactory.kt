@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.network.util
+
+import care.data4life.sdk.network.CircuitBreaker
+import care.data4life.sdk.network.NetworkingContract
+import io.reactivex.Completable
+import io.reactivex.Observable
+import io.reactivex.Single
+import java.lang.reflect.Type
+import retrofit2.Call
+import retrofit2.CallAdapter
+import retrofit2.Retrofit
+
+/**
+ * Guards the reactive calls of the adapters, which follow it, by the given CircuitBreaker.
+ * The endpoint of a call is determined by the path of its request.
+ */
+internal class CircuitBreakerCallAdapterFactory(
+    private val breaker: CircuitBreaker
+) : CallAdapter.Factory() {
+    override fun get(
+        returnType: Type,
+        annotations: Array<out Annotation>,
+        retrofit: Retrofit
+    ): CallAdapter<*, *> {
+        @Suppress("UNCHECKED_CAST")
+        val delegate = retrofit.nextCallAdapter(this, returnType, annotations) as CallAdapter<Any, Any>
+
+        return GuardedCallAdapter(delegate)
+    }
+
+    private inner class GuardedCallAdapter(
+        private val delegate: CallAdapter<Any, Any>
+    ) : CallAdapter<Any, Any> {
+        override fun responseType(): Type = delegate.responseType()
+
+        override fun adapt(call: Call<Any>): Any {
+            val endpoint = NetworkingContract.Endpoint.of(call.request().url.encodedPath)
+
+            return when (val adapted = delegate.adapt(call)) {
+                is Single<*> -> breaker.guard(endpoint, adapted)
+                is Observable<*> -> breaker.guard(endpoint, adapted)
+                is Completable -> breaker.guard(endpoint, adapted)
+                else -> adapted
+            }
+        }
+    }
+}
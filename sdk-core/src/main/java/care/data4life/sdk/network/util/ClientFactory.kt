@@ -17,13 +17,18 @@
 package care.data4life.sdk.network.util
 
 import care.data4life.sdk.auth.AuthorizationContract
+import care.data4life.sdk.network.HttpStack
+import care.data4life.sdk.network.NetworkConfiguration
 import care.data4life.sdk.network.NetworkingContract
 import care.data4life.sdk.network.NetworkingContract.Client
 import care.data4life.sdk.network.NetworkingContract.Companion.PLATFORM_S4H
 import care.data4life.sdk.network.NetworkingInternalContract
 import care.data4life.sdk.network.util.interceptor.BasicAuthorizationInterceptor
+import care.data4life.sdk.network.util.interceptor.ConcurrencyLimiterInterceptor
+import care.data4life.sdk.network.util.interceptor.LimiterInterceptor
 import care.data4life.sdk.network.util.interceptor.LoggingInterceptor
 import care.data4life.sdk.network.util.interceptor.OAuthAuthorizationInterceptor
+import care.data4life.sdk.network.util.interceptor.RequestLimiter
 import care.data4life.sdk.network.util.interceptor.RetryInterceptor
 import care.data4life.sdk.network.util.interceptor.StaticAuthorizationInterceptor
 import care.data4life.sdk.network.util.interceptor.VersionInterceptor
@@ -51,7 +56,8 @@ object ClientFactory : NetworkingInternalContract.ClientFactory {
         authService: AuthorizationContract.Service,
         user: String,
         clientSecret: String,
-        staticAccessToken: ByteArray?
+        staticAccessToken: ByteArray?,
+        tokenRefreshMarginMillis: Long
     ): OkHttpClient.Builder {
         return if (staticAccessToken is ByteArray) {
             builder.addInterceptor(
@@ -62,7 +68,7 @@ object ClientFactory : NetworkingInternalContract.ClientFactory {
                 )
             )
         } else {
-            builder.addInterceptor(OAuthAuthorizationInterceptor.getInstance(authService))
+            builder.addInterceptor(OAuthAuthorizationInterceptor.getInstance(authService, tokenRefreshMarginMillis))
                 .addInterceptor(
                     BasicAuthorizationInterceptor.getInstance(
                         Pair(user, clientSecret)
@@ -71,6 +77,18 @@ object ClientFactory : NetworkingInternalContract.ClientFactory {
         }
     }
 
+    private fun addLimiterInterceptor(
+        builder: OkHttpClient.Builder,
+        limiter: RequestLimiter?,
+        factory: NetworkingInternalContract.InterceptorFactory<RequestLimiter>
+    ): OkHttpClient.Builder {
+        return if (limiter is RequestLimiter) {
+            builder.addInterceptor(factory.getInstance(limiter))
+        } else {
+            builder
+        }
+    }
+
     private fun setInterceptors(
         builder: OkHttpClient.Builder,
         authService: AuthorizationContract.Service,
@@ -80,16 +98,20 @@ object ClientFactory : NetworkingInternalContract.ClientFactory {
         agent: NetworkingContract.Client,
         clientVersion: String,
         staticAccessToken: ByteArray?,
-        debugFlag: Boolean
+        debugFlag: Boolean,
+        configuration: NetworkConfiguration,
+        limiter: RequestLimiter?
     ): OkHttpClient.Builder {
         return addAuthorizationInterceptor(
             builder,
             authService,
             clientId,
             clientSecret,
-            staticAccessToken
+            staticAccessToken,
+            configuration.tokenRefreshMarginMillis
         )
-            .addInterceptor(RetryInterceptor.getInstance(connectivityService))
+            .addInterceptor(RetryInterceptor.getInstance(connectivityService, configuration.retryPolicy))
+            .let { builder -> addLimiterInterceptor(builder, limiter, ConcurrencyLimiterInterceptor) }
             .addInterceptor(LoggingInterceptor.getInstance(debugFlag))
             .addInterceptor(VersionInterceptor.getInstance(Pair(agent, clientVersion)))
     }
@@ -112,10 +134,12 @@ object ClientFactory : NetworkingInternalContract.ClientFactory {
         clientName: NetworkingContract.Client,
         clientVersion: String,
         staticAccessToken: ByteArray?,
-        debugFlag: Boolean
+        debugFlag: Boolean,
+        httpStack: HttpStack
     ): OkHttpClient {
-        return OkHttpClient.Builder()
+        return httpStack.newClientBuilder()
             .let { builder -> setCertificationPinner(builder, environment, platform) }
+            .let { builder -> addLimiterInterceptor(builder, httpStack.limiter, LimiterInterceptor) }
             .let { builder ->
                 setInterceptors(
                     builder,
@@ -126,7 +150,9 @@ object ClientFactory : NetworkingInternalContract.ClientFactory {
                     clientName,
                     clientVersion,
                     staticAccessToken,
-                    debugFlag
+                    debugFlag,
+                    httpStack.configuration,
+                    httpStack.limiter
                 )
             }
             .let { builder -> setTimeouts(builder) }
@@ -16,6 +16,7 @@
 
 package care.data4life.sdk.network.util
 
+import care.data4life.sdk.network.CircuitBreaker
 import care.data4life.sdk.network.HealthCloudApi
 import care.data4life.sdk.network.NetworkingContract
 import care.data4life.sdk.network.NetworkingInternalContract
@@ -37,10 +38,21 @@ object HealthCloudApiFactory :
     override fun getInstance(
         client: OkHttpClient,
         platform: String,
-        environment: NetworkingContract.Environment
+        environment: NetworkingContract.Environment,
+        asyncCalls: Boolean,
+        circuitBreaker: CircuitBreaker?
     ): HealthCloudApi {
         return Retrofit.Builder()
-            .addCallAdapterFactory(RxJava2CallAdapterFactory.create())
+            .let { builder ->
+                if (circuitBreaker is CircuitBreaker) {
+                    builder.addCallAdapterFactory(CircuitBreakerCallAdapterFactory(circuitBreaker))
+                } else {
+                    builder
+                }
+            }
+            .addCallAdapterFactory(
+                if (asyncCalls) RxJava2CallAdapterFactory.createAsync() else RxJava2CallAdapterFactory.create()
+            )
             .addConverterFactory(MoshiConverterFactory.create(buildMoshi()))
             .baseUrl(environment.getApiBaseURL(platform))
             .client(client)
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.network.util.interceptor
+
+import care.data4life.sdk.auth.AuthorizationContract
+import care.data4life.sdk.lang.D4LException
+import care.data4life.sdk.network.NetworkingInternalContract
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+import okio.ByteString.Companion.decodeBase64
+
+/**
+ * Collapses concurrent refreshes of an access token per alias into a single one.
+ * If a refresh margin is given, tokens, which carry their expiry as JWT, are refreshed before they expire.
+ */
+internal class AccessTokenRefresher(
+    private val authService: AuthorizationContract.Service,
+    private val refreshMarginMillis: Long = 0,
+    private val clock: () -> Long = System::currentTimeMillis
+) : NetworkingInternalContract.TokenRefresher {
+    private val locks = ConcurrentHashMap<String, Any>()
+
+    private fun lockOf(alias: String): Any = locks.getOrPut(alias) { Any() }
+
+    private fun resolveCurrentToken(alias: String): String? {
+        return try {
+            authService.getAccessToken(alias)
+        } catch (e: D4LException) {
+            null
+        }
+    }
+
+    private fun isExpiring(token: String): Boolean {
+        val expiry = decodeExpiry(token) ?: return false
+        return clock() >= expiry - refreshMarginMillis
+    }
+
+    @Throws(D4LException::class)
+    override fun fetch(alias: String): String {
+        val token = authService.getAccessToken(alias)
+
+        return if (refreshMarginMillis > 0 && isExpiring(token)) {
+            try {
+                refresh(alias, token)
+            } catch (e: D4LException) {
+                token
+            }
+        } else {
+            token
+        }
+    }
+
+    @Throws(D4LException::class)
+    override fun refresh(alias: String, staleToken: String?): String {
+        return synchronized(lockOf(alias)) {
+            val current = if (staleToken is String) resolveCurrentToken(alias) else null
+
+            if (current is String && current != staleToken) {
+                current
+            } else {
+                authService.refreshAccessToken(alias)
+            }
+        }
+    }
+
+    companion object {
+        private val EXPIRY = "\"exp\"\\s*:\\s*(\\d+)".toRegex()
+
+        /**
+         * Reads the expiry in milliseconds from the exp claim of a JWT, if the token is one.
+         */
+        fun decodeExpiry(token: String): Long? {
+            val parts = token.split('.')
+            if (parts.size != 3) {
+                return null
+            }
+
+            val claims = parts[1].decodeBase64()?.utf8() ?: return null
+            val seconds = EXPIRY.find(claims)?.groupValues?.get(1)?.toLongOrNull() ?: return null
+
+            return TimeUnit.SECONDS.toMillis(seconds)
+        }
+    }
+}
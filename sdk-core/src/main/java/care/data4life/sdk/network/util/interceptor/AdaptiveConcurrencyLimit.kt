@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.network.util.interceptor
+
+import java.util.concurrent.locks.ReentrantLock
+import kotlin.concurrent.withLock
+import kotlin.math.max
+import kotlin.math.min
+
+/**
+ * Bounds the requests in flight by a limit, which grows additively while the server responds in time
+ * and shrinks multiplicatively on rejections or once the latency exceeds the tolerated share of its baseline.
+ * The limit shrinks at most once per round trip, since only requests started after the last decrease count.
+ */
+internal class AdaptiveConcurrencyLimit(
+    private val limits: RequestLimits,
+    private val clock: () -> Long
+) {
+    private val lock = ReentrantLock()
+    private val released = lock.newCondition()
+    private var limit = limits.initialConcurrency.toDouble()
+    private var running = 0
+    private var waiting = 0
+    private var baselineNanos = 0L
+    private var lastDecrease = Long.MIN_VALUE
+
+    val currentLimit: Int
+        get() = lock.withLock { limit.toInt() }
+
+    val inFlight: Int
+        get() = lock.withLock { running }
+
+    val queueDepth: Int
+        get() = lock.withLock { waiting }
+
+    /**
+     * Blocks until a request may be issued and returns the time it was admitted.
+     */
+    @Throws(InterruptedException::class)
+    fun acquire(): Long {
+        lock.withLock {
+            waiting += 1
+            try {
+                while (running >= limit.toInt()) {
+                    released.await()
+                }
+            } finally {
+                waiting -= 1
+            }
+
+            running += 1
+            return clock()
+        }
+    }
+
+    private fun decrease(start: Long, now: Long, ratio: Double) {
+        if (start > lastDecrease) {
+            limit = max(limits.minConcurrency.toDouble(), limit * ratio)
+            lastDecrease = now
+        }
+    }
+
+    private fun increase(utilised: Int) {
+        if (utilised * 2 >= limit) {
+            limit = min(limits.maxConcurrency.toDouble(), limit + 1 / limit)
+        }
+    }
+
+    private fun updateBaseline(latency: Long) {
+        baselineNanos = if (baselineNanos == 0L || latency < baselineNanos) {
+            latency
+        } else {
+            baselineNanos + (latency - baselineNanos) / BASELINE_DRIFT
+        }
+    }
+
+    private fun adapt(start: Long, rejected: Boolean) {
+        val now = clock()
+        val latency = now - start
+        val tolerated = baselineNanos * limits.latencyTolerance
+
+        when {
+            rejected -> decrease(start, now, limits.backoffRatio)
+            baselineNanos > 0 && latency > tolerated -> decrease(start, now, max(limits.backoffRatio, tolerated / latency))
+            else -> increase(running + 1)
+        }
+
+        if (!rejected) {
+            updateBaseline(latency)
+        }
+    }
+
+    /**
+     * Frees the slot of a request, which was admitted at the given time. The limit adapts to the outcome,
+     * unless the request failed without a response.
+     */
+    fun release(start: Long, rejected: Boolean?) {
+        lock.withLock {
+            running -= 1
+            if (rejected != null) {
+                adapt(start, rejected)
+            }
+            released.signalAll()
+        }
+    }
+
+    private companion object {
+        const val BASELINE_DRIFT = 100
+    }
+}
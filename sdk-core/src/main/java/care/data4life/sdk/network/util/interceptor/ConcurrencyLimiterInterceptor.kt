@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.network.util.interceptor
+
+import care.data4life.sdk.network.NetworkingInternalContract
+import care.data4life.sdk.network.util.interceptor.LimiterInterceptor.Factory.interruptibly
+import okhttp3.Interceptor
+import okhttp3.Response
+
+/**
+ * Limits the attempts of requests, which were admitted by the LimiterInterceptor, by the adaptive concurrency
+ * limit of the given RequestLimiter. It has to succeed the RetryInterceptor, so each attempt is measured
+ * without the backoff between them and each rejection reaches the limit, even if it is retried.
+ */
+internal class ConcurrencyLimiterInterceptor private constructor(
+    private val limiter: RequestLimiter
+) : NetworkingInternalContract.Interceptor {
+    override fun intercept(chain: Interceptor.Chain): Response {
+        val request = chain.request()
+
+        if (request.tag(RequestLimiter.Admission::class.java) == null) {
+            return chain.proceed(request)
+        }
+
+        val start = interruptibly { limiter.acquire() }
+        var statusCode: Int? = null
+        try {
+            return chain.proceed(request).also { response -> statusCode = response.code }
+        } finally {
+            limiter.release(start, statusCode)
+        }
+    }
+
+    companion object Factory : NetworkingInternalContract.InterceptorFactory<RequestLimiter> {
+        override fun getInstance(payload: RequestLimiter): NetworkingInternalContract.Interceptor {
+            return ConcurrencyLimiterInterceptor(payload)
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.network.util.interceptor
+
+import care.data4life.sdk.network.NetworkingContract
+import care.data4life.sdk.network.NetworkingContract.Companion.HEADER_ALIAS
+import care.data4life.sdk.network.NetworkingInternalContract
+import java.io.InterruptedIOException
+import okhttp3.Interceptor
+import okhttp3.Response
+
+/**
+ * Admits requests by the rate of their alias and endpoint of the given RequestLimiter. It has to precede
+ * the authorization, since the alias header is removed there, and it marks the admitted request for
+ * the ConcurrencyLimiterInterceptor, which limits each of its attempts behind the retries.
+ */
+internal class LimiterInterceptor private constructor(
+    private val limiter: RequestLimiter
+) : NetworkingInternalContract.Interceptor {
+    override fun intercept(chain: Interceptor.Chain): Response {
+        val request = chain.request()
+        val admission = RequestLimiter.Admission(
+            request.header(HEADER_ALIAS) ?: "",
+            NetworkingContract.Endpoint.of(request.url.encodedPath)
+        )
+
+        interruptibly { limiter.throttle(admission.alias, admission.endpoint) }
+
+        return chain.proceed(
+            request.newBuilder()
+                .tag(RequestLimiter.Admission::class.java, admission)
+                .build()
+        )
+    }
+
+    companion object Factory : NetworkingInternalContract.InterceptorFactory<RequestLimiter> {
+        override fun getInstance(payload: RequestLimiter): NetworkingInternalContract.Interceptor {
+            return LimiterInterceptor(payload)
+        }
+
+        @Throws(InterruptedIOException::class)
+        internal fun <T> interruptibly(action: () -> T): T {
+            return try {
+                action()
+            } catch (e: InterruptedException) {
+                Thread.currentThread().interrupt()
+                throw InterruptedIOException().also { it.initCause(e) }
+            }
+        }
+    }
+}
@@ -77,10 +77,19 @@ internal class OAuthAuthorizationInterceptor private constructor(
 
     companion object Factory :
         NetworkingInternalContract.InterceptorFactory<AuthorizationContract.Service> {
-        override fun getInstance(payload: AuthorizationContract.Service): NetworkingInternalContract.Interceptor {
+        override fun getInstance(
+            payload: AuthorizationContract.Service
+        ): NetworkingInternalContract.Interceptor = getInstance(payload, 0)
+
+        fun getInstance(
+            authService: AuthorizationContract.Service,
+            tokenRefreshMarginMillis: Long
+        ): NetworkingInternalContract.Interceptor {
+            val refresher = AccessTokenRefresher(authService, tokenRefreshMarginMillis)
+
             return OAuthAuthorizationInterceptor(
-                OAuthFetchTokenAuthorizationInterceptor(payload),
-                OAuthRetryTokenAuthorizationInterceptor(payload)
+                OAuthFetchTokenAuthorizationInterceptor(authService, refresher),
+                OAuthRetryTokenAuthorizationInterceptor(authService, refresher)
             )
         }
     }
@@ -26,10 +26,11 @@ import okhttp3.Request
 import okhttp3.Response
 
 class OAuthFetchTokenAuthorizationInterceptor internal constructor(
-    private val authService: AuthorizationContract.Service
+    authService: AuthorizationContract.Service,
+    private val refresher: NetworkingInternalContract.TokenRefresher = AccessTokenRefresher(authService)
 ) : NetworkingInternalContract.PartialInterceptor<Pair<String, Request>> {
     private fun modifyRequest(request: Request, alias: String): Request {
-        val token = authService.getAccessToken(alias)
+        val token = refresher.fetch(alias)
         return request.newBuilder()
             .replaceHeader(
                 HEADER_AUTHORIZATION,
@@ -27,8 +27,16 @@ import okhttp3.Request
 import okhttp3.Response
 
 class OAuthRetryTokenAuthorizationInterceptor internal constructor(
-    private val authService: AuthorizationContract.Service
+    private val authService: AuthorizationContract.Service,
+    private val refresher: NetworkingInternalContract.TokenRefresher = AccessTokenRefresher(authService)
 ) : NetworkingInternalContract.PartialInterceptor<Triple<String, Request, Response>> {
+    private fun resolveStaleToken(failedResponse: Response): String? {
+        return failedResponse.request.header(HEADER_AUTHORIZATION)
+            ?.removePrefix(String.format(FORMAT_BEARER_TOKEN, ""))
+    }
+
+    private fun isReplayable(request: Request): Boolean = request.body?.isOneShot() != true
+
     private fun requestAgain(
         chain: Interceptor.Chain,
         request: Request,
@@ -42,12 +50,16 @@ class OAuthRetryTokenAuthorizationInterceptor internal constructor(
         failedResponse: Response
     ): Response {
         val token = try {
-            authService.refreshAccessToken(alias)
+            refresher.refresh(alias, resolveStaleToken(failedResponse))
         } catch (e: D4LException) {
             authService.clear()
             return failedResponse
         }
 
+        if (!isReplayable(failedRequest)) {
+            return failedResponse
+        }
+
         val request = failedRequest.newBuilder()
             .replaceHeader(
                 HEADER_AUTHORIZATION,
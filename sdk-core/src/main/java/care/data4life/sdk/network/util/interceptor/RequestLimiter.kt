@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.network.util.interceptor
+
+import care.data4life.sdk.network.NetworkingContract
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Throttles the requests of all clients sharing it by a token bucket per alias and endpoint
+ * and by an adaptive concurrency limit. Its current limits and queue depth may be polled for monitoring.
+ */
+class RequestLimiter internal constructor(
+    val limits: RequestLimits,
+    private val clock: () -> Long,
+    private val sleep: (nanos: Long) -> Unit
+) {
+    constructor(limits: RequestLimits) : this(limits, System::nanoTime, TimeUnit.NANOSECONDS::sleep)
+
+    private val buckets = ConcurrentHashMap<Pair<String, NetworkingContract.Endpoint>, TokenBucket>()
+    private val concurrency = AdaptiveConcurrencyLimit(limits, clock)
+    private val throttled = AtomicInteger(0)
+
+    val concurrencyLimit: Int
+        get() = concurrency.currentLimit
+
+    val inFlight: Int
+        get() = concurrency.inFlight
+
+    /**
+     * Number of requests, which wait either for their rate or for a free slot.
+     */
+    val queueDepth: Int
+        get() = throttled.get() + concurrency.queueDepth
+
+    private fun bucketOf(alias: String, endpoint: NetworkingContract.Endpoint): TokenBucket {
+        return buckets.getOrPut(Pair(alias, endpoint)) {
+            TokenBucket(limits.requestsPerSecond, limits.burst, clock)
+        }
+    }
+
+    fun availablePermits(
+        alias: String,
+        endpoint: NetworkingContract.Endpoint
+    ): Double = bucketOf(alias, endpoint).available
+
+    /**
+     * Blocks until the rate of the given alias and endpoint admits a request.
+     */
+    @Throws(InterruptedException::class)
+    internal fun throttle(alias: String, endpoint: NetworkingContract.Endpoint) {
+        val wait = bucketOf(alias, endpoint).reserve()
+
+        if (wait > 0) {
+            throttled.incrementAndGet()
+            try {
+                sleep(wait)
+            } finally {
+                throttled.decrementAndGet()
+            }
+        }
+    }
+
+    /**
+     * Blocks until the concurrency limit admits an attempt of a request.
+     *
+     * @return the time the attempt was admitted, which has to be handed back on release
+     */
+    @Throws(InterruptedException::class)
+    internal fun acquire(): Long = concurrency.acquire()
+
+    /**
+     * @param statusCode the status code of the response or null, if the attempt failed without one
+     */
+    internal fun release(start: Long, statusCode: Int?) {
+        concurrency.release(start, statusCode?.let { code -> code in limits.rejectedStatusCodes })
+    }
+
+    /**
+     * Marks a request, which was admitted by the rate of its alias and endpoint.
+     */
+    internal data class Admission(
+        val alias: String,
+        val endpoint: NetworkingContract.Endpoint
+    )
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.network.util.interceptor
+
+/**
+ * Configures how requests to the Health Cloud are throttled on the client side.
+ *
+ * @param requestsPerSecond     sustained rate of requests per alias and endpoint
+ * @param burst                 number of requests per alias and endpoint, which may be issued at once
+ * @param initialConcurrency    number of requests in flight at once, before the limit adapts
+ * @param minConcurrency        lower bound of the adaptive concurrency limit
+ * @param maxConcurrency        upper bound of the adaptive concurrency limit
+ * @param latencyTolerance      factor by which the latency may exceed the observed baseline, before the limit shrinks
+ * @param backoffRatio          lowest factor by which the limit shrinks on a rejection or a latency increase
+ * @param rejectedStatusCodes   status codes, which signal an overload of the server
+ */
+data class RequestLimits @JvmOverloads constructor(
+    val requestsPerSecond: Double = DEFAULT_REQUESTS_PER_SECOND,
+    val burst: Int = DEFAULT_BURST,
+    val initialConcurrency: Int = DEFAULT_INITIAL_CONCURRENCY,
+    val minConcurrency: Int = DEFAULT_MIN_CONCURRENCY,
+    val maxConcurrency: Int = DEFAULT_MAX_CONCURRENCY,
+    val latencyTolerance: Double = DEFAULT_LATENCY_TOLERANCE,
+    val backoffRatio: Double = DEFAULT_BACKOFF_RATIO,
+    val rejectedStatusCodes: Set<Int> = DEFAULT_REJECTED_STATUS_CODES
+) {
+    init {
+        require(requestsPerSecond > 0) { "The rate of requests must be positive." }
+        require(burst > 0) { "The burst of requests must be positive." }
+        require(minConcurrency > 0) { "The minimum concurrency must be positive." }
+        require(maxConcurrency >= minConcurrency) { "The maximum concurrency must not be lower than the minimum." }
+        require(initialConcurrency in minConcurrency..maxConcurrency) {
+            "The initial concurrency must be within the minimum and the maximum concurrency."
+        }
+        require(latencyTolerance > 1) { "The latency tolerance must be greater than 1." }
+        require(backoffRatio > 0 && backoffRatio < 1) { "The backoff ratio must be between 0 and 1." }
+    }
+
+    companion object {
+        const val DEFAULT_REQUESTS_PER_SECOND = 20.0
+        const val DEFAULT_BURST = 40
+        const val DEFAULT_INITIAL_CONCURRENCY = 8
+        const val DEFAULT_MIN_CONCURRENCY = 1
+        const val DEFAULT_MAX_CONCURRENCY = 64
+        const val DEFAULT_LATENCY_TOLERANCE = 2.0
+        const val DEFAULT_BACKOFF_RATIO = 0.5
+        val DEFAULT_REJECTED_STATUS_CODES = setOf(429, 503)
+    }
+}
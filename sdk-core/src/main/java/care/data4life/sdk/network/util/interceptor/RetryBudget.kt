@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.network.util.interceptor
+
+/**
+ * Bounds the retries of a client to a share of its requests. Every request deposits the ratio,
+ * every retry withdraws one, while at most the capacity can be saved up.
+ */
+internal class RetryBudget(
+    private val ratio: Double,
+    private val capacity: Int
+) {
+    private var balance = capacity.toDouble()
+
+    @Synchronized
+    fun deposit() {
+        balance = (balance + ratio).coerceAtMost(capacity.toDouble())
+    }
+
+    @Synchronized
+    fun withdraw(): Boolean {
+        return if (balance >= 1) {
+            balance -= 1
+            true
+        } else {
+            false
+        }
+    }
+}
@@ -13,34 +13,120 @@
  * applications and/or if you’d like to contribute to the development of the SDK, please
  * contact D4L by email to help@data4life.care.
  */
-
 package care.data4life.sdk.network.util.interceptor
 
 import care.data4life.sdk.lang.CoreRuntimeException
 import care.data4life.sdk.network.NetworkingContract
+import care.data4life.sdk.network.NetworkingContract.Companion.HEADER_RETRY_AFTER
 import care.data4life.sdk.network.NetworkingInternalContract
-import java.net.SocketTimeoutException
+import java.io.IOException
+import java.io.InterruptedIOException
+import java.util.concurrent.TimeUnit
+import kotlin.math.pow
+import kotlin.random.Random
 import okhttp3.Interceptor
 import okhttp3.Request
 import okhttp3.Response
 
-internal class RetryInterceptor private constructor(
-    private val connection: NetworkingContract.NetworkConnectivityService
+/**
+ * Retries failed requests according to the given RetryPolicy. Failed connections are only retried for
+ * idempotent requests, as well as retryable status codes, while rejected status codes are retried for any request.
+ * The backoff is drawn with full jitter from a capped, exponentially growing range, unless the server
+ * requests a delay by Retry-After. One-shot request bodies are never replayed.
+ */
+internal class RetryInterceptor internal constructor(
+    private val connection: NetworkingContract.NetworkConnectivityService,
+    private val policy: RetryPolicy,
+    private val budget: RetryBudget = RetryBudget(policy.budgetRatio, policy.budgetCapacity),
+    private val random: Random = Random.Default,
+    private val clock: () -> Long = System::currentTimeMillis,
+    private val sleep: (millis: Long) -> Unit = Thread::sleep
 ) : NetworkingInternalContract.Interceptor {
-    private fun retry(request: Request, chain: Interceptor.Chain): Response {
-        return if (connection.isConnected()) {
-            chain.proceed(request)
+    private fun isIdempotent(request: Request): Boolean = request.method in policy.idempotentMethods
+
+    private fun isReplayable(request: Request): Boolean = request.body?.isOneShot() != true
+
+    private fun determineBackoff(attempt: Int): Long {
+        val cap = (policy.baseDelayMillis * 2.0.pow(attempt))
+            .coerceAtMost(policy.maxDelayMillis.toDouble())
+            .toLong()
+
+        return random.nextLong(cap + 1)
+    }
+
+    private fun determineRetryAfter(response: Response): Long? {
+        val retryAfter = response.header(HEADER_RETRY_AFTER) ?: return null
+        val seconds = retryAfter.trim().toLongOrNull()
+
+        return if (seconds != null) {
+            TimeUnit.SECONDS.toMillis(seconds.coerceAtLeast(0))
         } else {
+            response.headers.getDate(HEADER_RETRY_AFTER)?.let { date -> (date.time - clock()).coerceAtLeast(0) }
+        }
+    }
+
+    private fun determineDelay(request: Request, response: Response, attempt: Int): Long? {
+        val isRetryable = response.code in policy.rejectedStatusCodes ||
+            (isIdempotent(request) && response.code in policy.retryableStatusCodes)
+
+        if (!isRetryable || attempt >= policy.maxRetries || !isReplayable(request)) {
+            return null
+        }
+
+        val delay = determineRetryAfter(response) ?: determineBackoff(attempt)
+        return if (delay <= policy.maxDelayMillis && budget.withdraw()) delay else null
+    }
+
+    @Throws(IOException::class)
+    private fun determineDelay(
+        request: Request,
+        chain: Interceptor.Chain,
+        error: IOException,
+        attempt: Int
+    ): Long {
+        if (!isIdempotent(request) ||
+            attempt >= policy.maxRetries ||
+            !isReplayable(request) ||
+            chain.call().isCanceled()
+        ) {
+            throw error
+        }
+
+        if (!connection.isConnected()) {
             throw CoreRuntimeException.InternalFailure()
         }
+
+        return if (budget.withdraw()) determineBackoff(attempt) else throw error
+    }
+
+    @Throws(InterruptedIOException::class)
+    private fun pause(millis: Long) {
+        try {
+            sleep(millis)
+        } catch (e: InterruptedException) {
+            Thread.currentThread().interrupt()
+            throw InterruptedIOException().also { it.initCause(e) }
+        }
     }
 
     override fun intercept(chain: Interceptor.Chain): Response {
         val request = chain.request()
-        return try {
-            chain.proceed(request)
-        } catch (e: SocketTimeoutException) {
-            retry(request, chain)
+        var attempt = 0
+
+        budget.deposit()
+        while (true) {
+            val delay = try {
+                val response = chain.proceed(request)
+                val delay = determineDelay(request, response, attempt) ?: return response
+
+                response.close()
+                delay
+            } catch (e: IOException) {
+                determineDelay(request, chain, e, attempt)
+            }
+
+            pause(delay)
+            attempt += 1
         }
     }
 
@@ -48,8 +134,13 @@ internal class RetryInterceptor private constructor(
         NetworkingInternalContract.InterceptorFactory<NetworkingContract.NetworkConnectivityService> {
         override fun getInstance(
             payload: NetworkingContract.NetworkConnectivityService
+        ): NetworkingInternalContract.Interceptor = getInstance(payload, RetryPolicy())
+
+        fun getInstance(
+            connection: NetworkingContract.NetworkConnectivityService,
+            policy: RetryPolicy
         ): NetworkingInternalContract.Interceptor {
-            return RetryInterceptor(payload)
+            return RetryInterceptor(connection, policy)
         }
     }
 }
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.network.util.interceptor
+
+import care.data4life.sdk.network.NetworkingContract.Companion.RETRY_BACKOFF
+import care.data4life.sdk.network.NetworkingContract.Companion.RETRY_MAX
+
+/**
+ * Configures how failed requests are retried.
+ *
+ * @param maxRetries            maximum number of retries of a single request
+ * @param baseDelayMillis       cap of the first backoff in milliseconds, which doubles with every further retry
+ * @param maxDelayMillis        upper bound of any backoff in milliseconds; a longer Retry-After ends the retries
+ * @param retryableStatusCodes  status codes, which are retried for idempotent requests
+ * @param rejectedStatusCodes   status codes, which are retried for any request, since the server did not process it
+ * @param idempotentMethods     methods, which are safe to be repeated, also after a failed connection
+ * @param budgetRatio           share of the requests of a client, which may be retried
+ * @param budgetCapacity        number of retries a client may spend at once, before the ratio applies
+ */
+data class RetryPolicy @JvmOverloads constructor(
+    val maxRetries: Int = RETRY_MAX,
+    val baseDelayMillis: Long = RETRY_BACKOFF,
+    val maxDelayMillis: Long = DEFAULT_MAX_DELAY_MILLIS,
+    val retryableStatusCodes: Set<Int> = DEFAULT_RETRYABLE_STATUS_CODES,
+    val rejectedStatusCodes: Set<Int> = DEFAULT_REJECTED_STATUS_CODES,
+    val idempotentMethods: Set<String> = DEFAULT_IDEMPOTENT_METHODS,
+    val budgetRatio: Double = DEFAULT_BUDGET_RATIO,
+    val budgetCapacity: Int = DEFAULT_BUDGET_CAPACITY
+) {
+    init {
+        require(maxRetries >= 0) { "The maximum of retries must not be negative." }
+        require(baseDelayMillis > 0) { "The base delay must be positive." }
+        require(maxDelayMillis >= baseDelayMillis) { "The maximum delay must not be lower than the base delay." }
+        require(budgetRatio >= 0) { "The budget ratio must not be negative." }
+        require(budgetCapacity >= 0) { "The budget capacity must not be negative." }
+    }
+
+    companion object {
+        const val DEFAULT_MAX_DELAY_MILLIS = 30 * 1000L
+        const val DEFAULT_BUDGET_RATIO = 0.2
+        const val DEFAULT_BUDGET_CAPACITY = 10
+        val DEFAULT_RETRYABLE_STATUS_CODES = setOf(429, 502, 503, 504)
+        val DEFAULT_REJECTED_STATUS_CODES = setOf(429)
+        val DEFAULT_IDEMPOTENT_METHODS = setOf("GET", "HEAD", "OPTIONS", "PUT", "DELETE")
+    }
+}
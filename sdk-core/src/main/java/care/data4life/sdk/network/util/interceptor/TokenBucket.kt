@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.network.util.interceptor
+
+import java.util.concurrent.TimeUnit
+
+/**
+ * Hands out permits at a fixed rate, while up to the capacity can be saved up for bursts.
+ * Permits are reserved ahead, so a caller is told how long to wait instead of being rejected.
+ */
+internal class TokenBucket(
+    private val ratePerSecond: Double,
+    private val capacity: Int,
+    private val clock: () -> Long
+) {
+    private var tokens = capacity.toDouble()
+    private var lastRefill = clock()
+
+    private fun refill(now: Long) {
+        val elapsed = (now - lastRefill).coerceAtLeast(0)
+        tokens = (tokens + elapsed * ratePerSecond / TimeUnit.SECONDS.toNanos(1)).coerceAtMost(capacity.toDouble())
+        lastRefill = now
+    }
+
+    val available: Double
+        @Synchronized
+        get() = refill(clock()).let { tokens }
+
+    /**
+     * Takes a permit and returns the nanoseconds the caller has to wait, until the permit is due.
+     */
+    @Synchronized
+    fun reserve(): Long {
+        refill(clock())
+        tokens -= 1
+
+        return if (tokens >= 0) {
+            0
+        } else {
+            (-tokens / ratePerSecond * TimeUnit.SECONDS.toNanos(1)).toLong()
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.record
+
+import care.data4life.sdk.lang.D4LException
+import care.data4life.sdk.model.BatchResult
+import java.util.concurrent.atomic.AtomicReferenceArray
+
+internal class BatchResultCollector<T, R>(
+    private val items: List<T>
+) {
+    private val outcomes = AtomicReferenceArray<Outcome<R>>(items.size)
+
+    fun succeeded(index: Int, result: R): Boolean {
+        outcomes.set(index, Outcome.Success(result))
+        return true
+    }
+
+    fun failed(index: Int, error: D4LException): Boolean {
+        outcomes.set(index, Outcome.Failure(error))
+        return false
+    }
+
+    fun collect(durationMillis: Long): BatchResult<T, R> {
+        val successfulOperations = mutableListOf<R>()
+        val failedOperations = mutableListOf<Pair<T, D4LException>>()
+
+        for (index in items.indices) {
+            when (val outcome = outcomes.get(index)) {
+                is Outcome.Success -> successfulOperations.add(outcome.result)
+                is Outcome.Failure -> failedOperations.add(Pair(items[index], outcome.error))
+                null -> { /* not processed */ }
+            }
+        }
+
+        return BatchResult(successfulOperations, failedOperations, durationMillis)
+    }
+
+    private sealed class Outcome<out R> {
+        class Success<R>(val result: R) : Outcome<R>()
+        class Failure(val error: D4LException) : Outcome<Nothing>()
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.record
+
+import care.data4life.sdk.data.DataResource
+import care.data4life.sdk.fhir.Fhir3Resource
+import care.data4life.sdk.fhir.Fhir4Resource
+import care.data4life.sdk.lang.CoreRuntimeException
+import care.data4life.sdk.network.model.DecryptedDataRecord
+import care.data4life.sdk.network.model.DecryptedR4Record
+import care.data4life.sdk.network.model.DecryptedRecord
+import care.data4life.sdk.network.model.NetworkModelContract.DecryptedBaseRecord
+import care.data4life.sdk.tag.TaggingContract.Companion.TAG_FHIR_VERSION
+import care.data4life.sdk.tag.TaggingContract.Companion.TAG_RESOURCE_TYPE
+import care.data4life.sdk.wrapper.SdkFhirParser
+import care.data4life.sdk.wrapper.WrapperContract
+
+/**
+ * Freezes a decrypted record, so independent copies of it can be restored later on,
+ * while the record itself and its resource may change meanwhile.
+ * FHIR resources are kept serialized and parsed on restore, DataResources are copied.
+ */
+internal class DecryptedRecordSnapshot private constructor(
+    private val template: DecryptedBaseRecord<Any>,
+    private val serializedResource: String?,
+    private val parser: WrapperContract.FhirParser
+) {
+    @Suppress("UNCHECKED_CAST")
+    fun <T : Any> restore(): DecryptedBaseRecord<T> {
+        val resource = template.resource
+        val restored = if (resource is DataResource) {
+            copyRecord(template, DataResource(resource.asByteArray()))
+        } else {
+            copyRecord(
+                template,
+                parser.toFhir(
+                    template.tags[TAG_RESOURCE_TYPE]!!,
+                    template.tags[TAG_FHIR_VERSION]!!,
+                    serializedResource!!
+                )
+            )
+        }
+
+        return restored as DecryptedBaseRecord<T>
+    }
+
+    companion object {
+        @Suppress("UNCHECKED_CAST")
+        fun of(
+            record: DecryptedBaseRecord<*>,
+            parser: WrapperContract.FhirParser = SdkFhirParser
+        ): DecryptedRecordSnapshot {
+            val frozen = record as DecryptedBaseRecord<Any>
+            val resource = frozen.resource
+
+            return if (resource is DataResource) {
+                DecryptedRecordSnapshot(
+                    copyRecord(frozen, DataResource(resource.asByteArray())),
+                    null,
+                    parser
+                )
+            } else {
+                DecryptedRecordSnapshot(
+                    copyRecord(frozen, resource),
+                    parser.fromResource(resource),
+                    parser
+                )
+            }
+        }
+
+        @Suppress("UNCHECKED_CAST")
+        private fun copyRecord(
+            record: DecryptedBaseRecord<Any>,
+            resource: Any
+        ): DecryptedBaseRecord<Any> {
+            val tags = HashMap(record.tags)
+            val annotations = ArrayList(record.annotations)
+
+            val copy = when (record) {
+                is DecryptedRecord<*> -> (record as DecryptedRecord<Fhir3Resource>).copy(
+                    resource = resource as Fhir3Resource,
+                    tags = tags,
+                    annotations = annotations
+                )
+                is DecryptedR4Record<*> -> (record as DecryptedR4Record<Fhir4Resource>).copy(
+                    resource = resource as Fhir4Resource,
+                    tags = tags,
+                    annotations = annotations
+                )
+                is DecryptedDataRecord -> record.copy(
+                    resource = resource as DataResource,
+                    tags = tags,
+                    annotations = annotations
+                )
+                else -> throw CoreRuntimeException.UnsupportedOperation()
+            }
+
+            return copy as DecryptedBaseRecord<Any>
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.record
+
+import care.data4life.sdk.SdkContract
+import care.data4life.sdk.model.BatchResult
+import care.data4life.sdk.record.RecordContract.BatchExecutor.Companion.DEFAULT_PARALLELISM
+import io.reactivex.Flowable
+import io.reactivex.Scheduler
+import io.reactivex.Single
+import io.reactivex.schedulers.Schedulers
+
+class RecordBatchExecutor @JvmOverloads constructor(
+    private val errorHandler: SdkContract.ErrorHandler,
+    private val parallelism: Int = DEFAULT_PARALLELISM,
+    private val scheduler: Scheduler = Schedulers.io(),
+    private val clock: () -> Long = System::currentTimeMillis
+) : RecordContract.BatchExecutor {
+
+    init {
+        require(parallelism > 0) { "The parallelism of a batch must be positive." }
+    }
+
+    override fun <T, R> execute(
+        items: List<T>,
+        operation: (item: T) -> Single<R>
+    ): Single<BatchResult<T, R>> {
+        return Single.defer {
+            val collector = BatchResultCollector<T, R>(items)
+            val startTime = clock()
+
+            Flowable.range(0, items.size)
+                .flatMapSingle(
+                    { index -> executeItem(index, items[index], operation, collector) },
+                    false,
+                    parallelism
+                )
+                .ignoreElements()
+                .toSingle { collector.collect(clock() - startTime) }
+        }
+    }
+
+    private fun <T, R> executeItem(
+        index: Int,
+        item: T,
+        operation: (item: T) -> Single<R>,
+        collector: BatchResultCollector<T, R>
+    ): Single<Boolean> {
+        return Single.defer { operation(item) }
+            .subscribeOn(scheduler)
+            .map { result -> collector.succeeded(index, result) }
+            .onErrorReturn { error -> collector.failed(index, errorHandler.handleError(error)) }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.record
+
+import care.data4life.sdk.network.model.NetworkModelContract.DecryptedBaseRecord
+import care.data4life.sdk.network.model.NetworkModelContract.EncryptedRecord
+import care.data4life.sdk.record.RecordContract.Cache.Companion.DEFAULT_CAPACITY
+import care.data4life.sdk.wrapper.SdkFhirParser
+import care.data4life.sdk.wrapper.WrapperContract
+import io.reactivex.Single
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicReference
+
+/**
+ * Keeps up to the given number of decrypted records in memory, while the server stays the source of truth:
+ * every fetch still loads the encrypted record and the cached one is only reused, if its version and
+ * update date match. Callers always receive their own record, since records and resources are mutable.
+ * The first caller gets the decrypted record itself, everyone else a copy, which is restored from a snapshot
+ * taken when the record had been cached.
+ */
+class RecordCache internal constructor(
+    private val capacity: Int,
+    private val parser: WrapperContract.FhirParser
+) : RecordContract.Cache {
+    @JvmOverloads
+    constructor(capacity: Int = DEFAULT_CAPACITY) : this(capacity, SdkFhirParser)
+
+    private val hitCount = AtomicLong(0)
+    private val missCount = AtomicLong(0)
+    private val evictionCount = AtomicLong(0)
+
+    private val inFlight = ConcurrentHashMap<Key, Single<Entry>>()
+    private val entries = object : LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<Key, Entry>): Boolean {
+            return (size > capacity).also { evicts -> if (evicts) evictionCount.incrementAndGet() }
+        }
+    }
+
+    init {
+        require(capacity > 0) { "The capacity of the cache must be positive." }
+    }
+
+    override val hits: Long
+        get() = hitCount.get()
+
+    override val misses: Long
+        get() = missCount.get()
+
+    override val evictions: Long
+        get() = evictionCount.get()
+
+    @Suppress("UNCHECKED_CAST")
+    override fun <T : Any> fetch(
+        userId: String,
+        recordId: String,
+        fetch: () -> Single<EncryptedRecord>,
+        decrypt: (record: EncryptedRecord) -> DecryptedBaseRecord<T>
+    ): Single<DecryptedBaseRecord<T>> {
+        val key = Key(userId, recordId)
+
+        return Single
+            .defer { inFlight.computeIfAbsent(key) { share(key, fetch, decrypt) } }
+            .map { entry -> take(entry) as DecryptedBaseRecord<T> }
+    }
+
+    private fun <T : Any> share(
+        key: Key,
+        fetch: () -> Single<EncryptedRecord>,
+        decrypt: (record: EncryptedRecord) -> DecryptedBaseRecord<T>
+    ): Single<Entry> {
+        lateinit var shared: Single<Entry>
+        shared = fetch()
+            .map { encryptedRecord -> resolve(key, encryptedRecord, decrypt) }
+            .doFinally { inFlight.remove(key, shared) }
+            .cache()
+
+        return shared
+    }
+
+    @Suppress("UNCHECKED_CAST")
+    private fun <T : Any> resolve(
+        key: Key,
+        encryptedRecord: EncryptedRecord,
+        decrypt: (record: EncryptedRecord) -> DecryptedBaseRecord<T>
+    ): Entry {
+        val cached = synchronized(entries) { entries[key] }
+        if (cached != null && cached.isValidFor(encryptedRecord)) {
+            hitCount.incrementAndGet()
+            return cached
+        }
+
+        missCount.incrementAndGet()
+        val record = decrypt(encryptedRecord) as DecryptedBaseRecord<Any>
+        val entry = Entry(
+            encryptedRecord.version,
+            encryptedRecord.updatedDate,
+            record,
+            DecryptedRecordSnapshot.of(record, parser)
+        )
+        synchronized(entries) { entries[key] = entry }
+
+        return entry
+    }
+
+    private fun take(entry: Entry): DecryptedBaseRecord<Any> {
+        return entry.original.getAndSet(null) ?: entry.snapshot.restore()
+    }
+
+    override fun invalidate(userId: String, recordId: String) {
+        val key = Key(userId, recordId)
+        synchronized(entries) { entries.remove(key) }
+        inFlight.remove(key)
+    }
+
+    override fun clear() {
+        synchronized(entries) { entries.clear() }
+        inFlight.clear()
+    }
+
+    private data class Key(
+        val userId: String,
+        val recordId: String
+    )
+
+    private class Entry(
+        val version: Int,
+        val updatedDate: String?,
+        original: DecryptedBaseRecord<Any>,
+        val snapshot: DecryptedRecordSnapshot
+    ) {
+        val original = AtomicReference<DecryptedBaseRecord<Any>?>(original)
+
+        fun isValidFor(encryptedRecord: EncryptedRecord): Boolean {
+            return version == encryptedRecord.version && updatedDate == encryptedRecord.updatedDate
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.record
+
+import care.data4life.sdk.data.DataResource
+import care.data4life.sdk.tag.Annotations
+import care.data4life.sdk.wrapper.SdkFhirParser
+import care.data4life.sdk.wrapper.WrapperContract
+import java.security.MessageDigest
+
+/**
+ * Digests resources by their canonical serialization, FHIR resources by the FHIR parser and DataResources
+ * by their payload. Annotations are digested in their natural order, since their order carries no meaning.
+ */
+class RecordContentDigest internal constructor(
+    private val parser: WrapperContract.FhirParser
+) : RecordContract.ContentDigest {
+    constructor() : this(SdkFhirParser)
+
+    override fun <T : Any> digest(resource: T, annotations: Annotations): ByteArray {
+        val digest = MessageDigest.getInstance(ALGORITHM)
+        val content = if (resource is DataResource) {
+            resource.value
+        } else {
+            parser.fromResource(resource).toByteArray(Charsets.UTF_8)
+        }
+
+        digest.update(resource.javaClass.name.toByteArray(Charsets.UTF_8))
+        digest.update(SEPARATOR)
+        digest.update(content)
+        annotations.sorted().forEach { annotation ->
+            digest.update(SEPARATOR)
+            digest.update(annotation.toByteArray(Charsets.UTF_8))
+        }
+
+        return digest.digest()
+    }
+
+    private companion object {
+        const val ALGORITHM = "SHA-256"
+        const val SEPARATOR: Byte = 0
+    }
+}
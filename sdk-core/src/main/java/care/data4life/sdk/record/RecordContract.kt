@@ -17,6 +17,7 @@
 package care.data4life.sdk.record
 
 import care.data4life.sdk.SdkContract
+import care.data4life.sdk.attachment.AttachmentContract
 import care.data4life.sdk.call.DataRecord
 import care.data4life.sdk.call.Fhir4Record
 import care.data4life.sdk.data.DataResource
@@ -24,11 +25,15 @@ import care.data4life.sdk.fhir.Fhir3Attachment
 import care.data4life.sdk.fhir.Fhir3Resource
 import care.data4life.sdk.fhir.Fhir4Attachment
 import care.data4life.sdk.fhir.Fhir4Resource
+import care.data4life.sdk.model.BatchResult
 import care.data4life.sdk.model.DownloadType
 import care.data4life.sdk.model.Record
+import care.data4life.sdk.network.model.NetworkModelContract
 import care.data4life.sdk.tag.Annotations
 import io.reactivex.Completable
+import io.reactivex.Flowable
 import io.reactivex.Single
+import java.io.OutputStream
 
 interface RecordContract {
     interface Service {
@@ -50,6 +55,50 @@ interface RecordContract {
             annotations: Annotations
         ): Single<Fhir4Record<T>>
 
+        /**
+         * Creates the record and streams the content of each given source into the Attachment of the resource,
+         * which it is keyed by, without holding it in memory.
+         * Those Attachments may neither carry an id nor data and are stored without downscaled images.
+         */
+        @Throws(IllegalArgumentException::class)
+        fun <T : Fhir3Resource> createRecord(
+            userId: String,
+            resource: T,
+            attachmentSources: Map<Fhir3Attachment, AttachmentContract.UploadSource>,
+            annotations: Annotations
+        ): Single<Record<T>>
+
+        /**
+         * Creates the record and streams the content of each given source into the Attachment of the resource,
+         * which it is keyed by, without holding it in memory.
+         * Those Attachments may neither carry an id nor data and are stored without downscaled images.
+         */
+        @Throws(IllegalArgumentException::class)
+        fun <T : Fhir4Resource> createRecord(
+            userId: String,
+            resource: T,
+            attachmentSources: Map<Fhir4Attachment, AttachmentContract.UploadSource>,
+            annotations: Annotations
+        ): Single<Fhir4Record<T>>
+
+        fun createDataRecords(
+            userId: String,
+            resources: List<DataResource>,
+            annotations: Annotations
+        ): Single<BatchResult<DataResource, DataRecord<DataResource>>>
+
+        fun <T : Fhir3Resource> createFhir3Records(
+            userId: String,
+            resources: List<T>,
+            annotations: Annotations
+        ): Single<BatchResult<T, Record<T>>>
+
+        fun <T : Fhir4Resource> createFhir4Records(
+            userId: String,
+            resources: List<T>,
+            annotations: Annotations
+        ): Single<BatchResult<T, Fhir4Record<T>>>
+
         fun updateRecord(
             userId: String,
             recordId: String,
@@ -71,6 +120,66 @@ interface RecordContract {
             annotations: Annotations
         ): Single<Fhir4Record<T>>
 
+        /**
+         * Updates the record and streams the content of each given source into the Attachment of the resource,
+         * which it is keyed by, without holding it in memory.
+         * Those Attachments may neither carry an id nor data and are stored without downscaled images.
+         */
+        @Throws(IllegalArgumentException::class)
+        fun <T : Fhir3Resource> updateRecord(
+            userId: String,
+            recordId: String,
+            resource: T,
+            attachmentSources: Map<Fhir3Attachment, AttachmentContract.UploadSource>,
+            annotations: Annotations
+        ): Single<Record<T>>
+
+        /**
+         * Updates the record and streams the content of each given source into the Attachment of the resource,
+         * which it is keyed by, without holding it in memory.
+         * Those Attachments may neither carry an id nor data and are stored without downscaled images.
+         */
+        @Throws(IllegalArgumentException::class)
+        fun <T : Fhir4Resource> updateRecord(
+            userId: String,
+            recordId: String,
+            resource: T,
+            attachmentSources: Map<Fhir4Attachment, AttachmentContract.UploadSource>,
+            annotations: Annotations
+        ): Single<Fhir4Record<T>>
+
+        /**
+         * Updates the record of the given handle without fetching it first.
+         * The update carries the version of the handle and if the record has been changed meanwhile,
+         * it is fetched again and the update is applied on top of it.
+         *
+         * @return a handle of the updated record
+         */
+        fun <T : Fhir4Resource> updateRecord(
+            userId: String,
+            handle: RecordHandle<T>,
+            resource: T,
+            annotations: Annotations
+        ): Single<RecordHandle<T>>
+
+        fun updateDataRecords(
+            userId: String,
+            resources: Map<String, DataResource>,
+            annotations: Annotations
+        ): Single<BatchResult<String, DataRecord<DataResource>>>
+
+        fun <T : Fhir3Resource> updateFhir3Records(
+            userId: String,
+            resources: List<T>,
+            annotations: Annotations
+        ): Single<BatchResult<T, Record<T>>>
+
+        fun <T : Fhir4Resource> updateFhir4Records(
+            userId: String,
+            resources: List<T>,
+            annotations: Annotations
+        ): Single<BatchResult<T, Fhir4Record<T>>>
+
         fun deleteRecord(userId: String, recordId: String): Completable
 
         fun <T : Fhir3Resource> fetchFhir3Record(
@@ -83,8 +192,27 @@ interface RecordContract {
             recordId: String
         ): Single<Fhir4Record<T>>
 
+        /**
+         * Fetches the record like fetchFhir4Record, but returns a handle, which allows to update it
+         * without fetching it again.
+         */
+        fun <T : Fhir4Resource> fetchFhir4RecordHandle(
+            userId: String,
+            recordId: String
+        ): Single<RecordHandle<T>>
+
         fun fetchDataRecord(userId: String, recordId: String): Single<DataRecord<DataResource>>
 
+        fun <T : Fhir4Resource> fetchFhir4Records(
+            userId: String,
+            recordIds: List<String>
+        ): Single<BatchResult<String, Fhir4Record<T>>>
+
+        fun fetchDataRecords(
+            userId: String,
+            recordIds: List<String>
+        ): Single<BatchResult<String, DataRecord<DataResource>>>
+
         fun <T : Fhir3Resource> searchFhir3Records(
             userId: String,
             resourceType: Class<T>,
@@ -117,6 +245,35 @@ interface RecordContract {
             offset: Int
         ): Single<List<DataRecord<DataResource>>>
 
+        fun <T : Fhir3Resource> streamFhir3Records(
+            userId: String,
+            resourceType: Class<T>,
+            annotations: Annotations,
+            creationDateRange: SdkContract.CreationDateRange?,
+            updateDateTimeRange: SdkContract.UpdateDateTimeRange?,
+            includeDeletedRecords: Boolean,
+            pageSize: Int
+        ): Flowable<Record<T>>
+
+        fun <T : Fhir4Resource> streamFhir4Records(
+            userId: String,
+            resourceType: Class<T>,
+            annotations: Annotations,
+            creationDateRange: SdkContract.CreationDateRange?,
+            updateDateTimeRange: SdkContract.UpdateDateTimeRange?,
+            includeDeletedRecords: Boolean,
+            pageSize: Int
+        ): Flowable<Fhir4Record<T>>
+
+        fun streamDataRecords(
+            userId: String,
+            annotations: Annotations,
+            creationDateRange: SdkContract.CreationDateRange?,
+            updateDateTimeRange: SdkContract.UpdateDateTimeRange?,
+            includeDeletedRecords: Boolean,
+            pageSize: Int
+        ): Flowable<DataRecord<DataResource>>
+
         fun countFhir3Records(
             type: Class<out Fhir3Resource>,
             userId: String,
@@ -163,6 +320,19 @@ interface RecordContract {
             type: DownloadType
         ): Single<List<Fhir3Attachment>>
 
+        /**
+         * Streams the decrypted content of the attachment into the target, without holding it in memory.
+         * The returned Attachment carries the hash and size of the content, but no data.
+         */
+        @Throws(IllegalArgumentException::class)
+        fun downloadFhir3AttachmentTo(
+            recordId: String,
+            attachmentId: String,
+            userId: String,
+            type: DownloadType,
+            target: OutputStream
+        ): Single<Fhir3Attachment>
+
         @Throws(IllegalArgumentException::class)
         fun downloadFhir4Attachment(
             recordId: String,
@@ -179,6 +349,19 @@ interface RecordContract {
             type: DownloadType
         ): Single<List<Fhir4Attachment>>
 
+        /**
+         * Streams the decrypted content of the attachment into the target, without holding it in memory.
+         * The returned Attachment carries the hash and size of the content, but no data.
+         */
+        @Throws(IllegalArgumentException::class)
+        fun downloadFhir4AttachmentTo(
+            recordId: String,
+            attachmentId: String,
+            userId: String,
+            type: DownloadType,
+            target: OutputStream
+        ): Single<Fhir4Attachment>
+
         companion object {
             const val EMPTY_RECORD_ID = ""
 
@@ -189,6 +372,83 @@ interface RecordContract {
             const val FULL_ATTACHMENT_ID_POS = 1
             const val PREVIEW_ID_POS = 2
             const val THUMBNAIL_ID_POS = 3
+            const val VERSION_CONFLICT_RETRIES = 3
+        }
+    }
+
+    interface BatchExecutor {
+        /**
+         * Runs the given operation for every item with a bounded number of items in flight.
+         * Failing items are reported once and do not affect other items.
+         */
+        fun <T, R> execute(
+            items: List<T>,
+            operation: (item: T) -> Single<R>
+        ): Single<BatchResult<T, R>>
+
+        companion object {
+            const val DEFAULT_PARALLELISM = 4
+        }
+    }
+
+    interface Paginator {
+        /**
+         * Walks all pages of the given page source until a page is shorter than the page size.
+         * The next page is fetched while the current one is consumed and further pages are only
+         * requested on downstream demand.
+         */
+        fun <T> paginate(
+            pageSize: Int,
+            fetchPage: (offset: Int) -> Single<List<T>>
+        ): Flowable<T>
+
+        companion object {
+            const val PAGES_IN_FLIGHT = 2
         }
     }
+
+    interface Decoder {
+        /**
+         * Decodes the given items with a bounded number of items in flight.
+         * The decoded items are emitted in the order of the given items.
+         */
+        fun <T, R : Any> decode(
+            items: Flowable<T>,
+            decoder: (item: T) -> R
+        ): Flowable<R>
+    }
+
+    interface Cache {
+        val hits: Long
+        val misses: Long
+        val evictions: Long
+
+        /**
+         * Fetches the record by the given fetch, which is shared by concurrent callers of the same record.
+         * If the fetched record has the version and update date of the cached one, a copy of the cached decrypted
+         * record is returned, otherwise the fetched record is decrypted and cached.
+         */
+        fun <T : Any> fetch(
+            userId: String,
+            recordId: String,
+            fetch: () -> Single<NetworkModelContract.EncryptedRecord>,
+            decrypt: (record: NetworkModelContract.EncryptedRecord) -> NetworkModelContract.DecryptedBaseRecord<T>
+        ): Single<NetworkModelContract.DecryptedBaseRecord<T>>
+
+        fun invalidate(userId: String, recordId: String)
+
+        fun clear()
+
+        companion object {
+            const val DEFAULT_CAPACITY = 64
+        }
+    }
+
+    interface ContentDigest {
+        /**
+         * Digests the canonical serialization of the given resource together with the given annotations,
+         * so equal contents result in equal digests, regardless of how they had been encrypted.
+         */
+        fun <T : Any> digest(resource: T, annotations: Annotations): ByteArray
+    }
 }
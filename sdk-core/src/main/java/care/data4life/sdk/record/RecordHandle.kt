@@ -0,0 +1,29 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.record
+
+import care.data4life.sdk.model.ModelContract.BaseRecord
+
+/**
+ * A fetched record together with everything an update of it needs, its keys, tags and Attachments
+ * as well as the version it had been fetched at, so it can be updated without fetching it again.
+ */
+class RecordHandle<T : Any> internal constructor(
+    val record: BaseRecord<T>,
+    internal val version: Int,
+    internal val snapshot: DecryptedRecordSnapshot
+)
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.record
+
+import care.data4life.sdk.record.RecordContract.Paginator.Companion.PAGES_IN_FLIGHT
+import io.reactivex.Flowable
+import io.reactivex.Scheduler
+import io.reactivex.Single
+import io.reactivex.functions.Predicate
+import io.reactivex.schedulers.Schedulers
+
+class RecordPaginator @JvmOverloads constructor(
+    private val scheduler: Scheduler = Schedulers.io()
+) : RecordContract.Paginator {
+
+    override fun <T> paginate(
+        pageSize: Int,
+        fetchPage: (offset: Int) -> Single<List<T>>
+    ): Flowable<T> {
+        return Flowable.defer {
+            require(pageSize > 0) { "The page size must be positive." }
+
+            Flowable.range(0, Int.MAX_VALUE / pageSize)
+                .concatMapEager(
+                    { page -> fetch(page * pageSize, fetchPage) },
+                    PAGES_IN_FLIGHT,
+                    1
+                )
+                .takeUntil(Predicate<List<T>> { page -> page.size < pageSize })
+                .concatMapIterable({ page -> page }, 1)
+        }
+    }
+
+    private fun <T> fetch(
+        offset: Int,
+        fetchPage: (offset: Int) -> Single<List<T>>
+    ): Flowable<List<T>> {
+        return Single.defer { fetchPage(offset) }
+            .subscribeOn(scheduler)
+            .toFlowable()
+    }
+}
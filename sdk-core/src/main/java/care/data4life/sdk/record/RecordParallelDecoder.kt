@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.record
+
+import io.reactivex.Flowable
+import io.reactivex.Scheduler
+import io.reactivex.schedulers.Schedulers
+
+class RecordParallelDecoder @JvmOverloads constructor(
+    private val parallelism: Int = Runtime.getRuntime().availableProcessors(),
+    private val scheduler: Scheduler = Schedulers.io()
+) : RecordContract.Decoder {
+
+    init {
+        require(parallelism > 0) { "The parallelism of the decoder must be positive." }
+    }
+
+    override fun <T, R : Any> decode(
+        items: Flowable<T>,
+        decoder: (item: T) -> R
+    ): Flowable<R> {
+        return if (parallelism == 1) {
+            items.map { item -> decoder(item) }
+        } else {
+            items.concatMapEager(
+                { item -> Flowable.fromCallable { decoder(item) }.subscribeOn(scheduler) },
+                parallelism,
+                1
+            )
+        }
+    }
+}
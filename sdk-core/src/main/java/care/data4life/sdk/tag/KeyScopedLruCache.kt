@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.tag
+
+import care.data4life.sdk.crypto.GCKey
+
+/**
+ * Holds the most recently used entries, which were derived from tags under one tag encryption key.
+ * Tags are encrypted with a fixed IV, so anything derived from them under the same key stays valid.
+ * Switching to another key drops all entries.
+ */
+internal class KeyScopedLruCache<K, V>(
+    private val capacity: Int
+) {
+    private val lock = Any()
+    private var scope: GCKey? = null
+    private val entries = object : LinkedHashMap<K, V>(16, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<K, V>?): Boolean = size > capacity
+    }
+
+    init {
+        require(capacity > 0) { "The capacity of the cache must be positive." }
+    }
+
+    operator fun get(tagEncryptionKey: GCKey, key: K): V? {
+        return synchronized(lock) {
+            if (scope === tagEncryptionKey) entries[key] else null
+        }
+    }
+
+    fun put(tagEncryptionKey: GCKey, key: K, value: V) {
+        synchronized(lock) {
+            if (scope !== tagEncryptionKey) {
+                entries.clear()
+                scope = tagEncryptionKey
+            }
+
+            entries[key] = value
+        }
+    }
+
+    fun clear() {
+        synchronized(lock) {
+            scope = null
+            entries.clear()
+        }
+    }
+}
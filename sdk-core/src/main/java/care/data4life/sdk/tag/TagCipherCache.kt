@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.tag
+
+import care.data4life.sdk.crypto.GCKey
+
+/**
+ * Remembers plain and encrypted tags of one tag encryption key in both directions.
+ */
+class TagCipherCache @JvmOverloads constructor(
+    capacity: Int = DEFAULT_CAPACITY
+) : TaggingContract.CipherCache {
+    private val encryptedTags = KeyScopedLruCache<String, String>(capacity)
+    private val plainTags = KeyScopedLruCache<String, String>(capacity)
+
+    override fun encrypt(
+        key: GCKey,
+        plainTag: String,
+        encrypt: (plainTag: String) -> String
+    ): String {
+        return encryptedTags[key, plainTag]
+            ?: encrypt(plainTag).also { encryptedTag -> remember(key, plainTag, encryptedTag) }
+    }
+
+    override fun decrypt(
+        key: GCKey,
+        encryptedTag: String,
+        decrypt: (encryptedTag: String) -> String
+    ): String {
+        return plainTags[key, encryptedTag]
+            ?: decrypt(encryptedTag).also { plainTag -> remember(key, plainTag, encryptedTag) }
+    }
+
+    override fun clear() {
+        encryptedTags.clear()
+        plainTags.clear()
+    }
+
+    private fun remember(key: GCKey, plainTag: String, encryptedTag: String) {
+        encryptedTags.put(key, plainTag, encryptedTag)
+        plainTags.put(key, encryptedTag, plainTag)
+    }
+
+    companion object {
+        const val DEFAULT_CAPACITY = 1024
+    }
+}
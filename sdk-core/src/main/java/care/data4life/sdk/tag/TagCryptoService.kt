@@ -31,8 +31,25 @@ class TagCryptoService @JvmOverloads constructor(
     private val cryptoService: CryptoContract.Service,
     private val base64: Base64 = Base64,
     private val tagEncoding: TaggingContract.Encoding = TagEncoding,
-    private val tagConverter: TaggingContract.Converter = TagConverter
+    private val tagConverter: TaggingContract.Converter = TagConverter,
+    private val cipherCache: TaggingContract.CipherCache = TagCipherCache(),
+    private val warmUpTags: List<Tags> = emptyList()
 ) : TaggingContract.CryptoService {
+    @Volatile
+    private var warmedUpKey: GCKey? = null
+
+    constructor(
+        cryptoService: CryptoContract.Service,
+        warmUpTags: List<Tags>
+    ) : this(
+        cryptoService,
+        Base64,
+        TagEncoding,
+        TagConverter,
+        TagCipherCache(),
+        warmUpTags
+    )
+
     @Throws(D4LException::class)
     override fun encryptTagsAndAnnotations(
         tags: Tags,
@@ -44,6 +61,7 @@ class TagCryptoService @JvmOverloads constructor(
         } else {
             cryptoService.fetchTagEncryptionKey()
         }
+        warmUp(encryptionKey)
 
         return encryptAndEncodeTags(tags, encryptionKey)
             .also { encryptedTags ->
@@ -82,6 +100,7 @@ class TagCryptoService @JvmOverloads constructor(
         encryptedTagsAndAnnotations: EncryptedTagsAndAnnotations
     ): Pair<Tags, Annotations> {
         val encryptionKey = cryptoService.fetchTagEncryptionKey()
+        warmUp(encryptionKey)
 
         val tags = decryptTags(encryptedTagsAndAnnotations, encryptionKey)
         val annotations = decryptAnnotations(encryptedTagsAndAnnotations, encryptionKey)
@@ -127,11 +146,13 @@ class TagCryptoService @JvmOverloads constructor(
 
     @Throws(D4LException::class)
     private fun encryptItem(key: GCKey, tag: String): String {
-        return try {
-            cryptoService.symEncrypt(key, tag.toByteArray(), IV)
-                .let { data -> base64.encodeToString(data) }
-        } catch (e: Exception) {
-            throw CryptoException.EncryptionFailed("Failed to encrypt tag")
+        return cipherCache.encrypt(key, tag) { plainTag ->
+            try {
+                cryptoService.symEncrypt(key, plainTag.toByteArray(), IV)
+                    .let { data -> base64.encodeToString(data) }
+            } catch (e: Exception) {
+                throw CryptoException.EncryptionFailed("Failed to encrypt tag")
+            }
         }
     }
 
@@ -151,12 +172,22 @@ class TagCryptoService @JvmOverloads constructor(
 
     @Throws(D4LException::class)
     private fun decryptItem(key: GCKey, base64tag: String): String {
-        return try {
-            base64.decode(base64tag)
-                .let { encrypted -> cryptoService.symDecrypt(key, encrypted, IV) }
-                .let { decrypted -> String(decrypted, StandardCharsets.UTF_8) }
-        } catch (e: Exception) {
-            throw CryptoException.DecryptionFailed("Failed to decrypt tag")
+        return cipherCache.decrypt(key, base64tag) { encryptedTag ->
+            try {
+                base64.decode(encryptedTag)
+                    .let { encrypted -> cryptoService.symDecrypt(key, encrypted, IV) }
+                    .let { decrypted -> String(decrypted, StandardCharsets.UTF_8) }
+            } catch (e: Exception) {
+                throw CryptoException.DecryptionFailed("Failed to decrypt tag")
+            }
+        }
+    }
+
+    // fills the cipher cache with the tags every record carries, once per tag encryption key
+    private fun warmUp(encryptionKey: GCKey) {
+        if (warmUpTags.isNotEmpty() && warmedUpKey !== encryptionKey) {
+            warmedUpKey = encryptionKey
+            warmUpTags.forEach { tags -> encryptAndEncodeTags(tags, encryptionKey) }
         }
     }
 
@@ -58,6 +58,22 @@ interface TaggingContract {
         }
     }
 
+    interface CipherCache {
+        fun encrypt(
+            key: GCKey,
+            plainTag: String,
+            encrypt: (plainTag: String) -> String
+        ): String
+
+        fun decrypt(
+            key: GCKey,
+            encryptedTag: String,
+            decrypt: (encryptedTag: String) -> String
+        ): String
+
+        fun clear()
+    }
+
     // TODO: make this package internal
     fun interface Converter {
         @Throws(D4LException::class)
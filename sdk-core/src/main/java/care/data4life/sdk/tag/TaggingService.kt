@@ -37,6 +37,18 @@ class TaggingService(
     private val partnerId: String = clientId.substringBefore(SEPARATOR)
     private val fhirElementFactory: WrapperContract.FhirElementFactory = SdkFhirElementFactory
 
+    /**
+     * Default tags which are shared by the records of this client, used to warm up the tag cipher cache.
+     */
+    val warmUpTags: List<Tags>
+        get() = listOf(
+            mapOf(TAG_CLIENT to clientId, TAG_PARTNER to partnerId),
+            mapOf(TAG_UPDATED_BY_CLIENT to clientId, TAG_UPDATED_BY_PARTNER to partnerId),
+            mapOf(TAG_FHIR_VERSION to FhirContract.FhirVersion.FHIR_3.version),
+            mapOf(TAG_FHIR_VERSION to FhirContract.FhirVersion.FHIR_4.version),
+            mapOf(TAG_APPDATA_KEY to TAG_APPDATA_VALUE)
+        )
+
     private fun appendCommonDefaultTags(
         resourceType: String?,
         oldTags: Tags?
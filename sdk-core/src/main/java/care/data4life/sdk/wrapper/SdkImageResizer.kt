@@ -40,4 +40,20 @@ class SdkImageResizer(
             data
         }
     }
+
+    override fun resize(
+        data: ByteArray,
+        targetHeights: List<Int>
+    ): List<ByteArray?> {
+        return try {
+            resizer.resizeToHeights(
+                data,
+                targetHeights,
+                AttachmentContract.ImageResizer.DEFAULT_JPEG_QUALITY_PERCENT
+            )
+        } catch (exception: ImageResizeException.JpegWriterMissing) {
+            Log.error(exception, exception.message)
+            targetHeights.map { data }
+        }
+    }
 }
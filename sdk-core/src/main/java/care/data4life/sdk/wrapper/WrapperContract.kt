@@ -66,5 +66,10 @@ interface WrapperContract {
             data: ByteArray,
             targetHeight: Int
         ): ByteArray?
+
+        fun resize(
+            data: ByteArray,
+            targetHeights: List<Int>
+        ): List<ByteArray?>
     }
 }
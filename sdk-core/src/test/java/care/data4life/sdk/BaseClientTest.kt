@@ -17,8 +17,11 @@
 package care.data4life.sdk
 
 import care.data4life.sdk.auth.AuthContract
+import care.data4life.sdk.auth.SessionContext
 import care.data4life.sdk.call.CallHandler
+import care.data4life.sdk.crypto.CryptoContract
 import care.data4life.sdk.test.util.GenericTestDataProvider.ALIAS
+import care.data4life.sdk.test.util.GenericTestDataProvider.COMMON_KEY_ID
 import care.data4life.sdk.test.util.GenericTestDataProvider.USER_ID
 import io.mockk.clearAllMocks
 import io.mockk.every
@@ -58,6 +61,7 @@ class BaseClientTest {
     )
 
     private val userService: AuthContract.UserService = mockk()
+    private val cryptoService: CryptoContract.Service = mockk()
     private val recordService: RecordService = mockk()
     private val authClient: SdkContract.AuthClient = mockk()
     private val data: SdkContract.DataRecordClient = mockk()
@@ -74,8 +78,10 @@ class BaseClientTest {
     @Test
     fun `Given a User is not logged in and the userID is fetched, it returns the UserId`() {
         // Given
+        every { userService.session } returns SessionContext(userService, cryptoService)
         every { userService.finishLogin(true) } returns Single.just(true)
         every { userService.userID } returns Single.just(USER_ID)
+        every { cryptoService.currentCommonKeyId } returns COMMON_KEY_ID
 
         client = ShallowClient(
             ALIAS,
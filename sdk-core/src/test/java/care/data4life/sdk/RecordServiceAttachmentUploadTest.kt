@@ -18,6 +18,7 @@ package care.data4life.sdk
 
 import care.data4life.sdk.attachment.AttachmentContract
 import care.data4life.sdk.attachment.AttachmentGuardian
+import care.data4life.sdk.attachment.PreparedAttachment
 import care.data4life.sdk.crypto.CryptoContract
 import care.data4life.sdk.crypto.GCKey
 import care.data4life.sdk.data.DataResource
@@ -26,11 +27,17 @@ import care.data4life.sdk.fhir.Fhir3Resource
 import care.data4life.sdk.fhir.Fhir4Attachment
 import care.data4life.sdk.fhir.Fhir4Resource
 import care.data4life.sdk.fhir.FhirContract
+import care.data4life.sdk.model.ModelContract
 import care.data4life.sdk.network.NetworkingContract
 import care.data4life.sdk.network.model.NetworkModelContract.DecryptedBaseRecord
+import care.data4life.sdk.network.model.EncryptedKey
+import care.data4life.sdk.network.model.EncryptedRecord
+import care.data4life.sdk.record.RecordContract.Service.Companion.VERSION_CONFLICT_RETRIES
 import care.data4life.sdk.tag.TaggingContract
 import care.data4life.sdk.test.util.GenericTestDataProvider.ALIAS
+import care.data4life.sdk.test.util.GenericTestDataProvider.ATTACHMENT_ID
 import care.data4life.sdk.test.util.GenericTestDataProvider.PARTNER_ID
+import care.data4life.sdk.test.util.GenericTestDataProvider.RECORD_ID
 import care.data4life.sdk.test.util.GenericTestDataProvider.USER_ID
 import care.data4life.sdk.wrapper.SdkAttachmentFactory
 import care.data4life.sdk.wrapper.SdkFhirAttachmentHelper
@@ -42,15 +49,21 @@ import io.mockk.every
 import io.mockk.just
 import io.mockk.mockk
 import io.mockk.mockkObject
+import io.mockk.slot
 import io.mockk.spyk
 import io.mockk.unmockkObject
 import io.mockk.verify
 import io.mockk.verifyOrder
+import io.reactivex.Completable
 import io.reactivex.Single
+import kotlin.test.assertEquals
 import kotlin.test.assertSame
+import okhttp3.ResponseBody.Companion.toResponseBody
 import org.junit.After
 import org.junit.Before
 import org.junit.Test
+import retrofit2.HttpException
+import retrofit2.Response
 
 class RecordServiceAttachmentUploadTest {
     private lateinit var recordService: RecordService
@@ -505,6 +518,71 @@ class RecordServiceAttachmentUploadTest {
         mockkObject(AttachmentGuardian)
     }
 
+    @Test
+    fun `Given, uploadData is called with a DecryptedRecord, which contains a Fhir4 resource, its PreparedAttachments and UserId, it uploads the PreparedAttachments instead of wrapping the Attachments again`() {
+        // Given
+        mockkObject(AttachmentGuardian)
+
+        val resource: Fhir4Resource = mockk(relaxed = true)
+        val decryptedRecord: DecryptedBaseRecord<Fhir4Resource> = mockk()
+        val attachmentKey: GCKey = mockk()
+        val rawAttachment: Fhir4Attachment = mockk()
+        val preparedAttachment: PreparedAttachment = mockk()
+        val updatedAttachments = listOf<Pair<WrapperContract.Attachment, List<String>>>(
+            mockk()
+        )
+
+        every { decryptedRecord.attachmentsKey } returns attachmentKey
+
+        every { preparedAttachment.id } returns null
+
+        every { decryptedRecord.resource } returns resource
+        every { SdkFhirAttachmentHelper.hasAttachment(resource) } returns true
+        every { SdkFhirAttachmentHelper.getAttachment(resource) } returns mutableListOf<Any?>(rawAttachment)
+
+        every { AttachmentGuardian.guardId(preparedAttachment) } just Runs
+        every { AttachmentGuardian.guardSize(preparedAttachment) } just Runs
+        every { AttachmentGuardian.guardHash(preparedAttachment) } returns true
+
+        every {
+            attachmentService.upload(
+                listOf(preparedAttachment),
+                attachmentKey,
+                USER_ID
+            )
+        } returns Single.just(updatedAttachments)
+        every {
+            recordService.updateFhirResourceIdentifier(
+                resource,
+                updatedAttachments
+            )
+        } returns Unit
+
+        // When
+        val record = recordService.uploadData(
+            decryptedRecord,
+            USER_ID,
+            mapOf<Any, PreparedAttachment>(rawAttachment to preparedAttachment)
+        )
+
+        // Then
+        assertSame(
+            actual = record,
+            expected = decryptedRecord
+        )
+
+        verify(exactly = 1) {
+            attachmentService.upload(
+                listOf(preparedAttachment),
+                attachmentKey,
+                USER_ID
+            )
+        }
+        verify(exactly = 0) { SdkAttachmentFactory.wrap(any()) }
+
+        unmockkObject(AttachmentGuardian)
+    }
+
     @Test
     fun `Given, uploadData is called with a DecryptedRecord, which contains a Fhir4 resource, and UserId, it ignores Attachments, which are null`() {
         // Given
@@ -653,4 +731,307 @@ class RecordServiceAttachmentUploadTest {
 
         mockkObject(AttachmentGuardian)
     }
+
+    @Test
+    fun `Given, uploadData is called with a DecryptedRecord, which contains a Fhir4 resource, and UserId, while a ThumbnailService is used, it uploads only the original Attachments`() {
+        // Given
+        mockkObject(AttachmentGuardian)
+
+        val thumbnailService: AttachmentContract.ThumbnailService = mockk()
+        recordService = spyk(
+            RecordService(
+                PARTNER_ID,
+                ALIAS,
+                apiService,
+                tagCryptoService,
+                taggingService,
+                resourceCryptoService,
+                attachmentService,
+                cryptoService,
+                errorHandler,
+                mockk(),
+                thumbnailService = thumbnailService
+            )
+        )
+
+        val resource: Fhir4Resource = mockk(relaxed = true)
+        val decryptedRecord: DecryptedBaseRecord<Fhir4Resource> = mockk()
+        val attachmentKey: GCKey = mockk()
+        val rawAttachments: MutableList<Fhir4Attachment> = mutableListOf(
+            mockk()
+        )
+        val wrappedAttachment: WrapperContract.Attachment = spyk()
+
+        every { decryptedRecord.attachmentsKey } returns attachmentKey
+
+        every { wrappedAttachment.id } returns null
+        every { wrappedAttachment.hash } returns "hash"
+        every { wrappedAttachment.size } returns 42
+
+        every { decryptedRecord.resource } returns resource
+        every { SdkFhirAttachmentHelper.hasAttachment(resource) } returns true
+        every { SdkFhirAttachmentHelper.getAttachment(resource) } returns rawAttachments as MutableList<Any?>
+        every { SdkAttachmentFactory.wrap(rawAttachments[0]) } returns wrappedAttachment
+
+        every { AttachmentGuardian.guardId(wrappedAttachment) } just Runs
+        every { AttachmentGuardian.guardSize(wrappedAttachment) } just Runs
+        every { AttachmentGuardian.guardHash(wrappedAttachment) } returns true
+
+        every {
+            attachmentService.uploadOriginals(
+                listOf(wrappedAttachment),
+                attachmentKey,
+                USER_ID
+            )
+        } returns Single.just(listOf(wrappedAttachment))
+
+        // When
+        val record = recordService.uploadData(decryptedRecord, USER_ID)
+
+        // Then
+        assertSame(
+            actual = record,
+            expected = decryptedRecord
+        )
+
+        verify(exactly = 1) {
+            attachmentService.uploadOriginals(
+                listOf(wrappedAttachment),
+                attachmentKey,
+                USER_ID
+            )
+        }
+        verify(exactly = 0) {
+            attachmentService.upload(any(), any(), any())
+            recordService.updateFhirResourceIdentifier(any(), any())
+        }
+        verify { thumbnailService wasNot Called }
+
+        unmockkObject(AttachmentGuardian)
+    }
+
+    @Test
+    fun `Given, scheduleDownscaledImages is called with a created DecryptedRecord, its PreparedAttachments and a UserId, it schedules the upload of the downscaled images and the update of the Record`() {
+        // Given
+        val thumbnailService: AttachmentContract.ThumbnailService = mockk()
+        recordService = spyk(
+            RecordService(
+                PARTNER_ID,
+                ALIAS,
+                apiService,
+                tagCryptoService,
+                taggingService,
+                resourceCryptoService,
+                attachmentService,
+                cryptoService,
+                errorHandler,
+                mockk(),
+                thumbnailService = thumbnailService
+            )
+        )
+
+        val decryptedRecord: DecryptedBaseRecord<Fhir4Resource> = mockk()
+        val attachmentKey: GCKey = mockk()
+        val rawAttachment: Fhir4Attachment = mockk()
+        val wrappedAttachment: WrapperContract.Attachment = mockk()
+        val data = "image".toByteArray()
+        val preparedAttachment = PreparedAttachment(wrappedAttachment, data)
+        val uploadedAttachments = listOf<Pair<WrapperContract.Attachment, List<String>?>>(
+            preparedAttachment to listOf("preview", "thumbnail")
+        )
+        val job = slot<Completable>()
+        val originals = slot<List<Pair<WrapperContract.Attachment, ByteArray>>>()
+
+        every { decryptedRecord.attachmentsKey } returns attachmentKey
+        every { decryptedRecord.identifier } returns RECORD_ID
+        every { wrappedAttachment.id } returns ATTACHMENT_ID
+        every { thumbnailService.schedule(capture(job)) } just Runs
+        every {
+            attachmentService.uploadDownscaled(capture(originals), attachmentKey, USER_ID)
+        } returns Single.just(uploadedAttachments)
+        every {
+            recordService.appendDownscaledAttachmentIds(RECORD_ID, uploadedAttachments, USER_ID)
+        } returns Completable.complete()
+
+        // When
+        val record = recordService.scheduleDownscaledImages(
+            decryptedRecord,
+            mapOf<Any, PreparedAttachment>(rawAttachment to preparedAttachment),
+            USER_ID
+        )
+
+        // Then
+        assertSame(
+            actual = record,
+            expected = decryptedRecord
+        )
+        verify { attachmentService wasNot Called }
+
+        job.captured.test().assertComplete()
+
+        assertEquals(
+            actual = originals.captured,
+            expected = listOf<Pair<WrapperContract.Attachment, ByteArray>>(preparedAttachment to data)
+        )
+        verify(exactly = 1) {
+            recordService.appendDownscaledAttachmentIds(RECORD_ID, uploadedAttachments, USER_ID)
+        }
+    }
+
+    private fun encryptedRecord(body: String, version: Int): EncryptedRecord {
+        return EncryptedRecord(
+            null,
+            RECORD_ID,
+            listOf("tag"),
+            body,
+            ModelContract.RecordStatus.Active,
+            null,
+            EncryptedKey("key"),
+            null,
+            1,
+            version = version
+        )
+    }
+
+    @Test
+    fun `Given, appendDownscaledAttachmentIds is called with a RecordId, uploaded Attachments and a UserId, it adds the AdditionalIds of the Attachments, which the Record still contains`() {
+        // Given
+        val resource: Fhir4Resource = mockk()
+        val fetchedRecord = encryptedRecord("fetched", 4)
+        val updatedRecord = encryptedRecord("updated", 0)
+        val decryptedRecord: DecryptedBaseRecord<Any> = mockk()
+        val rawAttachment: Fhir4Attachment = mockk()
+        val currentAttachment: WrapperContract.Attachment = mockk()
+        val removedAttachment: WrapperContract.Attachment = mockk()
+        val uploadedAttachments = listOf<Pair<WrapperContract.Attachment, List<String>?>>(
+            currentAttachment to listOf("preview", "thumbnail"),
+            removedAttachment to listOf("otherPreview", "otherThumbnail")
+        )
+
+        every { currentAttachment.id } returns ATTACHMENT_ID
+        every { removedAttachment.id } returns "removed"
+        every { decryptedRecord.resource } returns resource
+        every { SdkFhirAttachmentHelper.getAttachment(resource) } returns mutableListOf<Any?>(rawAttachment)
+        every { SdkAttachmentFactory.wrap(rawAttachment) } returns currentAttachment
+        every { apiService.fetchRecord(ALIAS, USER_ID, RECORD_ID) } returns Single.just(fetchedRecord)
+        every { recordService.decryptRecord<Any>(fetchedRecord, USER_ID) } returns decryptedRecord
+        every { recordService.updateFhirResourceIdentifier(resource, any()) } just Runs
+        every { recordService.encryptRecord(decryptedRecord) } returns updatedRecord
+        every {
+            apiService.updateRecord(ALIAS, USER_ID, RECORD_ID, updatedRecord.copy(version = 4))
+        } returns Single.just(updatedRecord.copy(version = 5))
+
+        // When
+        recordService.appendDownscaledAttachmentIds(RECORD_ID, uploadedAttachments, USER_ID)
+            .test()
+            .assertComplete()
+
+        // Then
+        verifyOrder {
+            apiService.fetchRecord(ALIAS, USER_ID, RECORD_ID)
+            recordService.updateFhirResourceIdentifier(resource, listOf(uploadedAttachments[0]))
+            apiService.updateRecord(ALIAS, USER_ID, RECORD_ID, updatedRecord.copy(version = 4))
+        }
+    }
+
+    @Test
+    fun `Given, appendDownscaledAttachmentIds is called, while the Record changes between its fetch and its update, it applies the AdditionalIds to the changed Record`() {
+        // Given
+        val staleResource: Fhir4Resource = mockk()
+        val currentResource: Fhir4Resource = mockk()
+        val staleRecord = encryptedRecord("stale", 4)
+        val currentRecord = encryptedRecord("current", 5)
+        val staleUpdate = encryptedRecord("staleUpdate", 0)
+        val currentUpdate = encryptedRecord("currentUpdate", 0)
+        val decryptedStaleRecord: DecryptedBaseRecord<Any> = mockk()
+        val decryptedCurrentRecord: DecryptedBaseRecord<Any> = mockk()
+        val rawAttachment: Fhir4Attachment = mockk()
+        val attachment: WrapperContract.Attachment = mockk()
+        val uploadedAttachments = listOf<Pair<WrapperContract.Attachment, List<String>?>>(
+            attachment to listOf("preview", "thumbnail")
+        )
+        val conflict = HttpException(Response.error<Any>(409, "".toResponseBody()))
+        var fetches = 0
+
+        every { attachment.id } returns ATTACHMENT_ID
+        every { decryptedStaleRecord.resource } returns staleResource
+        every { decryptedCurrentRecord.resource } returns currentResource
+        every { SdkFhirAttachmentHelper.getAttachment(any()) } returns mutableListOf<Any?>(rawAttachment)
+        every { SdkAttachmentFactory.wrap(rawAttachment) } returns attachment
+        every { apiService.fetchRecord(ALIAS, USER_ID, RECORD_ID) } answers {
+            Single.just(if (fetches++ == 0) staleRecord else currentRecord)
+        }
+        every { recordService.decryptRecord<Any>(staleRecord, USER_ID) } returns decryptedStaleRecord
+        every { recordService.decryptRecord<Any>(currentRecord, USER_ID) } returns decryptedCurrentRecord
+        every { recordService.updateFhirResourceIdentifier(any(), any()) } just Runs
+        every { recordService.encryptRecord(decryptedStaleRecord) } returns staleUpdate
+        every { recordService.encryptRecord(decryptedCurrentRecord) } returns currentUpdate
+        every {
+            apiService.updateRecord(ALIAS, USER_ID, RECORD_ID, staleUpdate.copy(version = 4))
+        } returns Single.error(conflict)
+        every {
+            apiService.updateRecord(ALIAS, USER_ID, RECORD_ID, currentUpdate.copy(version = 5))
+        } returns Single.just(currentUpdate.copy(version = 6))
+
+        // When
+        recordService.appendDownscaledAttachmentIds(RECORD_ID, uploadedAttachments, USER_ID)
+            .test()
+            .assertComplete()
+
+        // Then
+        verifyOrder {
+            apiService.updateRecord(ALIAS, USER_ID, RECORD_ID, staleUpdate.copy(version = 4))
+            recordService.updateFhirResourceIdentifier(currentResource, uploadedAttachments)
+            apiService.updateRecord(ALIAS, USER_ID, RECORD_ID, currentUpdate.copy(version = 5))
+        }
+        verify(exactly = 2) { apiService.fetchRecord(ALIAS, USER_ID, RECORD_ID) }
+    }
+
+    @Test
+    fun `Given, appendDownscaledAttachmentIds is called, while the Record keeps changing, it gives up after a bounded number of attempts`() {
+        // Given
+        val resource: Fhir4Resource = mockk()
+        val fetchedRecord = encryptedRecord("fetched", 4)
+        val updatedRecord = encryptedRecord("updated", 0)
+        val decryptedRecord: DecryptedBaseRecord<Any> = mockk()
+        val rawAttachment: Fhir4Attachment = mockk()
+        val attachment: WrapperContract.Attachment = mockk()
+        val uploadedAttachments = listOf<Pair<WrapperContract.Attachment, List<String>?>>(
+            attachment to listOf("preview", "thumbnail")
+        )
+        val conflict = HttpException(Response.error<Any>(412, "".toResponseBody()))
+
+        every { attachment.id } returns ATTACHMENT_ID
+        every { decryptedRecord.resource } returns resource
+        every { SdkFhirAttachmentHelper.getAttachment(resource) } returns mutableListOf<Any?>(rawAttachment)
+        every { SdkAttachmentFactory.wrap(rawAttachment) } returns attachment
+        every { apiService.fetchRecord(ALIAS, USER_ID, RECORD_ID) } returns Single.just(fetchedRecord)
+        every { recordService.decryptRecord<Any>(fetchedRecord, USER_ID) } returns decryptedRecord
+        every { recordService.updateFhirResourceIdentifier(resource, any()) } just Runs
+        every { recordService.encryptRecord(decryptedRecord) } returns updatedRecord
+        every {
+            apiService.updateRecord(ALIAS, USER_ID, RECORD_ID, updatedRecord.copy(version = 4))
+        } returns Single.error(conflict)
+
+        // When
+        recordService.appendDownscaledAttachmentIds(RECORD_ID, uploadedAttachments, USER_ID)
+            .test()
+            .assertError(conflict)
+
+        // Then
+        verify(exactly = VERSION_CONFLICT_RETRIES + 1) { apiService.fetchRecord(ALIAS, USER_ID, RECORD_ID) }
+    }
+
+    @Test
+    fun `Given, appendDownscaledAttachmentIds is called with uploaded Attachments, which have no AdditionalIds, it does not touch the Record`() {
+        // When
+        recordService.appendDownscaledAttachmentIds(
+            RECORD_ID,
+            listOf(mockk<WrapperContract.Attachment>() to null),
+            USER_ID
+        ).test().assertComplete()
+
+        // Then
+        verify { apiService wasNot Called }
+    }
 }
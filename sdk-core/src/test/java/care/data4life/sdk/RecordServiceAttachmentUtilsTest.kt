@@ -532,6 +532,62 @@ class RecordServiceAttachmentUtilsTest {
         assertTrue(true)
     }
 
+    @Test
+    fun `Given, prepareAttachments is called with a non FhirResource, it returns an empty map`() {
+        // Given
+        val resource: DataResource = mockk()
+
+        // When
+        val prepared = recordService.prepareAttachments(resource)
+
+        // Then
+        assertTrue(prepared.isEmpty())
+    }
+
+    @Test
+    fun `Given, prepareAttachments is called with a Fhir4 resource, it decodes each Attachment with data once and maps it to its raw Attachment`() {
+        // Given
+        mockkObject(Base64)
+
+        val resource: Fhir4Resource = mockk()
+
+        val attachments: MutableList<Fhir4Attachment?> = mutableListOf(
+            null,
+            mockk(),
+            mockk()
+        )
+        val encodedPayload = "test"
+        val decodedPayload = PDF
+        val wrappedAttachmentWithoutData: WrapperContract.Attachment = spyk()
+        val wrappedAttachment: WrapperContract.Attachment = spyk()
+
+        every { wrappedAttachmentWithoutData.data } returns null
+        every { wrappedAttachment.data } returns encodedPayload
+
+        every { SdkFhirAttachmentHelper.hasAttachment(resource) } returns true
+        every { SdkFhirAttachmentHelper.getAttachment(resource) } returns attachments as MutableList<Any?>
+        every { SdkAttachmentFactory.wrap(attachments[1]!!) } returns wrappedAttachmentWithoutData
+        every { SdkAttachmentFactory.wrap(attachments[2]!!) } returns wrappedAttachment
+        every { Base64.decode(encodedPayload) } returns decodedPayload
+
+        // When
+        val prepared = recordService.prepareAttachments(resource)
+
+        // Then
+        assertEquals(
+            expected = setOf<Any>(attachments[2]!!),
+            actual = prepared.keys
+        )
+        assertSame(
+            expected = decodedPayload,
+            actual = prepared[attachments[2]!!]!!.payload
+        )
+
+        verify(exactly = 1) { Base64.decode(any<String>()) }
+
+        unmockkObject(Base64)
+    }
+
     @Test
     fun `Given, extractUploadData is called with a non FhirResource, it returns null`() {
         // When
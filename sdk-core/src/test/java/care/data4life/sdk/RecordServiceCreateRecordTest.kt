@@ -19,8 +19,10 @@ import care.data4life.sdk.attachment.AttachmentContract
 import care.data4life.sdk.call.DataRecord
 import care.data4life.sdk.call.Fhir4Record
 import care.data4life.sdk.crypto.CryptoContract
+import care.data4life.sdk.crypto.GCKey
 import care.data4life.sdk.data.DataResource
 import care.data4life.sdk.fhir.Fhir3Resource
+import care.data4life.sdk.fhir.Fhir4Attachment
 import care.data4life.sdk.fhir.Fhir4Resource
 import care.data4life.sdk.fhir.FhirContract
 import care.data4life.sdk.migration.MigrationContract
@@ -32,13 +34,19 @@ import care.data4life.sdk.network.model.DecryptedDataRecord
 import care.data4life.sdk.network.model.EncryptedRecord
 import care.data4life.sdk.network.model.NetworkModelInternalContract.DecryptedFhir3Record
 import care.data4life.sdk.network.model.NetworkModelInternalContract.DecryptedFhir4Record
+import care.data4life.sdk.record.RecordBatchExecutor
 import care.data4life.sdk.tag.Annotations
 import care.data4life.sdk.tag.TaggingContract
 import care.data4life.sdk.test.util.GenericTestDataProvider.ALIAS
 import care.data4life.sdk.test.util.GenericTestDataProvider.PARTNER_ID
 import care.data4life.sdk.test.util.GenericTestDataProvider.USER_ID
+import care.data4life.sdk.wrapper.SdkAttachmentFactory
+import care.data4life.sdk.wrapper.SdkFhirAttachmentHelper
+import care.data4life.sdk.wrapper.WrapperContract
+import io.mockk.Runs
 import io.mockk.clearAllMocks
 import io.mockk.every
+import io.mockk.just
 import io.mockk.mockk
 import io.mockk.mockkObject
 import io.mockk.spyk
@@ -46,7 +54,9 @@ import io.mockk.unmockkObject
 import io.mockk.verify
 import io.mockk.verifyOrder
 import io.reactivex.Single
+import io.reactivex.schedulers.Schedulers
 import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
 import kotlin.test.assertSame
 import kotlin.test.assertTrue
 import org.junit.After
@@ -83,16 +93,21 @@ class RecordServiceCreateRecordTest {
                 attachmentService,
                 cryptoService,
                 errorHandler,
-                compatibilityService
+                compatibilityService,
+                RecordBatchExecutor(errorHandler, scheduler = Schedulers.trampoline())
             )
         )
 
         mockkObject(RecordMapper)
+        mockkObject(SdkFhirAttachmentHelper)
+        mockkObject(SdkAttachmentFactory)
     }
 
     @After
     fun tearDown() {
         unmockkObject(RecordMapper)
+        unmockkObject(SdkFhirAttachmentHelper)
+        unmockkObject(SdkAttachmentFactory)
     }
 
     // FHIR3
@@ -151,7 +166,7 @@ class RecordServiceCreateRecordTest {
         )
         verifyOrder {
             recordService.createRecord(USER_ID, resource, defaultAnnotation)
-            recordService.checkDataRestrictions(resource)
+            recordService.prepareAttachments(resource)
             recordService.extractUploadData(resource)
             recordService.fromResource(resource, defaultAnnotation)
             recordService.uploadData(createdRecord, USER_ID)
@@ -230,7 +245,7 @@ class RecordServiceCreateRecordTest {
         )
         verifyOrder {
             recordService.createRecord(USER_ID, resource, defaultAnnotation)
-            recordService.checkDataRestrictions(resource)
+            recordService.prepareAttachments(resource)
             recordService.extractUploadData(resource)
             recordService.fromResource(resource, defaultAnnotation)
             recordService.uploadData(createdRecord, USER_ID)
@@ -304,7 +319,7 @@ class RecordServiceCreateRecordTest {
         )
         verifyOrder {
             recordService.createRecord(USER_ID, resource, annotations)
-            recordService.checkDataRestrictions(resource)
+            recordService.prepareAttachments(resource)
             recordService.extractUploadData(resource)
             recordService.fromResource(resource, annotations)
             recordService.uploadData(createdRecord, USER_ID)
@@ -382,7 +397,7 @@ class RecordServiceCreateRecordTest {
         )
         verifyOrder {
             recordService.createRecord(USER_ID, resource, defaultAnnotation)
-            recordService.checkDataRestrictions(resource)
+            recordService.prepareAttachments(resource)
             recordService.extractUploadData(resource)
             recordService.fromResource(resource, defaultAnnotation)
             recordService.uploadData(createdRecord, USER_ID)
@@ -461,7 +476,7 @@ class RecordServiceCreateRecordTest {
         )
         verifyOrder {
             recordService.createRecord(USER_ID, resource, defaultAnnotation)
-            recordService.checkDataRestrictions(resource)
+            recordService.prepareAttachments(resource)
             recordService.extractUploadData(resource)
             recordService.fromResource(resource, defaultAnnotation)
             recordService.uploadData(createdRecord, USER_ID)
@@ -483,6 +498,141 @@ class RecordServiceCreateRecordTest {
         }
     }
 
+    @Test
+    fun `Given, createRecord is called with a Fhir4 resource, AttachmentSources and a UserId, it streams the sources into the Attachments and returns a new Record`() {
+        // Given
+        val resource: Fhir4Resource = mockk(relaxed = true)
+        val rawAttachment: Fhir4Attachment = mockk()
+        val attachment: WrapperContract.Attachment = mockk()
+        val source: AttachmentContract.UploadSource = mockk()
+        val attachmentsKey: GCKey = mockk()
+        val createdRecord: DecryptedFhir4Record<Fhir4Resource> = mockk()
+        val receivedRecord: DecryptedFhir4Record<Fhir4Resource> = mockk(relaxed = true)
+        val record: Fhir4Record<Fhir4Resource> = mockk()
+
+        every { SdkFhirAttachmentHelper.hasAttachment(resource) } returns true
+        every { SdkFhirAttachmentHelper.getAttachment(resource) } returns mutableListOf(rawAttachment)
+        every { SdkFhirAttachmentHelper.updateAttachmentData(resource, null) } just Runs
+        every { SdkAttachmentFactory.wrap(rawAttachment) } returns attachment
+        every { attachment.id } returns null
+        every { attachment.data } returns null
+
+        every { createdRecord.resource } returns resource
+        every { createdRecord.attachmentsKey } returns attachmentsKey
+        every { receivedRecord.resource } returns resource
+
+        every {
+            recordService.fromResource(resource, defaultAnnotation)
+        } returns Single.just(createdRecord)
+        every {
+            attachmentService.uploadStream(attachment, source, attachmentsKey, USER_ID)
+        } returns Single.just(attachment)
+        every { recordService.encryptRecord(createdRecord) } returns encryptedRecord
+        every {
+            apiService.createRecord(
+                ALIAS,
+                USER_ID,
+                encryptedRecord
+            )
+        } returns Single.just(encryptedRecord)
+        every {
+            recordService.decryptRecord<Fhir4Resource>(
+                encryptedRecord,
+                USER_ID
+            )
+        } returns receivedRecord
+
+        @Suppress("UNCHECKED_CAST")
+        every { RecordMapper.getInstance(receivedRecord) } returns record as BaseRecord<Fhir4Resource>
+
+        // When
+        val subscriber = recordService.createRecord(
+            USER_ID,
+            resource,
+            mapOf(rawAttachment to source),
+            defaultAnnotation
+        ).test().await()
+
+        // Then
+        val result = subscriber
+            .assertNoErrors()
+            .assertComplete()
+            .assertValueCount(1)
+            .values()[0]
+
+        assertSame(
+            actual = result,
+            expected = record
+        )
+        verifyOrder {
+            recordService.fromResource(resource, defaultAnnotation)
+            attachmentService.uploadStream(attachment, source, attachmentsKey, USER_ID)
+            recordService.encryptRecord(createdRecord)
+            apiService.createRecord(
+                ALIAS,
+                USER_ID,
+                encryptedRecord
+            )
+            RecordMapper.getInstance(receivedRecord)
+        }
+        verify(exactly = 0) { attachmentService.upload(any(), any(), any()) }
+        verify(exactly = 0) { attachmentService.uploadOriginals(any(), any(), any()) }
+    }
+
+    @Test
+    fun `Given, createRecord is called with a Fhir4 resource and AttachmentSources, which are not keyed by its Attachments, it fails with an IllegalArgumentException`() {
+        // Given
+        val resource: Fhir4Resource = mockk(relaxed = true)
+        val rawAttachment: Fhir4Attachment = mockk()
+
+        every { SdkFhirAttachmentHelper.hasAttachment(resource) } returns true
+        every { SdkFhirAttachmentHelper.getAttachment(resource) } returns mutableListOf(mockk<Fhir4Attachment>())
+        every { recordService.prepareAttachments(resource) } returns emptyMap()
+
+        // Then
+        assertFailsWith<IllegalArgumentException> {
+            // When
+            recordService.createRecord(
+                USER_ID,
+                resource,
+                mapOf(rawAttachment to mockk<AttachmentContract.UploadSource>()),
+                defaultAnnotation
+            )
+        }
+
+        verify(exactly = 0) { attachmentService.uploadStream(any(), any(), any(), any()) }
+        verify(exactly = 0) { apiService.createRecord(any(), any(), any()) }
+    }
+
+    @Test
+    fun `Given, createRecord is called with a Fhir4 resource and AttachmentSources, whose Attachments carry data, it fails with an IllegalArgumentException`() {
+        // Given
+        val resource: Fhir4Resource = mockk(relaxed = true)
+        val rawAttachment: Fhir4Attachment = mockk()
+        val attachment: WrapperContract.Attachment = mockk()
+
+        every { SdkFhirAttachmentHelper.hasAttachment(resource) } returns true
+        every { SdkFhirAttachmentHelper.getAttachment(resource) } returns mutableListOf(rawAttachment)
+        every { SdkAttachmentFactory.wrap(rawAttachment) } returns attachment
+        every { attachment.id } returns null
+        every { attachment.data } returns "AAAA"
+        every { recordService.prepareAttachments(resource) } returns emptyMap()
+
+        // Then
+        assertFailsWith<IllegalArgumentException> {
+            // When
+            recordService.createRecord(
+                USER_ID,
+                resource,
+                mapOf(rawAttachment to mockk<AttachmentContract.UploadSource>()),
+                defaultAnnotation
+            )
+        }
+
+        verify(exactly = 0) { attachmentService.uploadStream(any(), any(), any(), any()) }
+        verify(exactly = 0) { apiService.createRecord(any(), any(), any()) }
+    }
+
     @Test
     fun `Given, createRecords is called a Fhir4 resource and a UserId and Annotations, it returns a new Record`() {
         // Given
@@ -535,7 +685,7 @@ class RecordServiceCreateRecordTest {
         )
         verifyOrder {
             recordService.createRecord(USER_ID, resource, annotations)
-            recordService.checkDataRestrictions(resource)
+            recordService.prepareAttachments(resource)
             recordService.extractUploadData(resource)
             recordService.fromResource(resource, annotations)
             recordService.uploadData(createdRecord, USER_ID)
@@ -611,7 +761,7 @@ class RecordServiceCreateRecordTest {
         )
         verifyOrder {
             recordService.createRecord(USER_ID, resource, defaultAnnotation)
-            recordService.checkDataRestrictions(resource)
+            recordService.prepareAttachments(resource)
             recordService.extractUploadData(resource)
             recordService.fromResource(resource, defaultAnnotation)
             recordService.uploadData(createdRecord, USER_ID)
@@ -684,7 +834,7 @@ class RecordServiceCreateRecordTest {
         )
         verifyOrder {
             recordService.createRecord(USER_ID, resource, annotations)
-            recordService.checkDataRestrictions(resource)
+            recordService.prepareAttachments(resource)
             recordService.extractUploadData(resource)
             recordService.fromResource(resource, annotations)
             recordService.uploadData(createdRecord, USER_ID)
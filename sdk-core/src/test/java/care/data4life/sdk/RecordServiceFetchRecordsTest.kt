@@ -34,9 +34,12 @@ import care.data4life.sdk.model.RecordMapper
 import care.data4life.sdk.network.NetworkingContract
 import care.data4life.sdk.network.model.DecryptedDataRecord
 import care.data4life.sdk.network.model.EncryptedRecord
+import care.data4life.sdk.network.model.NetworkModelContract
 import care.data4life.sdk.network.model.NetworkModelContract.DecryptedBaseRecord
 import care.data4life.sdk.network.model.NetworkModelInternalContract.DecryptedFhir3Record
 import care.data4life.sdk.network.model.NetworkModelInternalContract.DecryptedFhir4Record
+import care.data4life.sdk.record.RecordBatchExecutor
+import care.data4life.sdk.record.RecordContract
 import care.data4life.sdk.tag.TaggingContract
 import care.data4life.sdk.test.util.GenericTestDataProvider.ALIAS
 import care.data4life.sdk.test.util.GenericTestDataProvider.PARTNER_ID
@@ -50,6 +53,7 @@ import io.mockk.spyk
 import io.mockk.unmockkObject
 import io.mockk.verifyOrder
 import io.reactivex.Single
+import io.reactivex.schedulers.Schedulers
 import kotlin.test.assertEquals
 import kotlin.test.assertSame
 import org.junit.After
@@ -85,7 +89,8 @@ class RecordServiceFetchRecordsTest {
                 attachmentService,
                 cryptoService,
                 errorHandler,
-                compatibilityService
+                compatibilityService,
+                RecordBatchExecutor(errorHandler, scheduler = Schedulers.trampoline())
             )
         )
 
@@ -187,6 +192,68 @@ class RecordServiceFetchRecordsTest {
         }
     }
 
+    @Test
+    fun `Given, fetchFhir4Record is called with a RecordId and UserId, while a RecordCache is used, it resolves the Record through the RecordCache`() {
+        // Given
+        val recordCache: RecordContract.Cache = mockk()
+        val recordService = spyk(
+            RecordService(
+                PARTNER_ID,
+                ALIAS,
+                apiService,
+                tagCryptoService,
+                taggingService,
+                resourceCryptoService,
+                attachmentService,
+                cryptoService,
+                errorHandler,
+                compatibilityService,
+                recordCache = recordCache
+            )
+        )
+        val resource: Fhir4Resource = mockk()
+        val id = "id"
+        val expected: Fhir4Record<Fhir4CarePlan> = mockk()
+        val decrypted: DecryptedFhir4Record<Fhir4Resource> = mockk()
+
+        every { decrypted.resource } returns resource
+        every { decrypted.identifier } returns id
+
+        every {
+            recordCache.fetch<Fhir4Resource>(USER_ID, RECORD_ID, any(), any())
+        } answers {
+            val fetch: () -> Single<NetworkModelContract.EncryptedRecord> = arg(2)
+            val decrypt: (NetworkModelContract.EncryptedRecord) -> DecryptedBaseRecord<Fhir4Resource> = arg(3)
+
+            fetch().map { encryptedRecord -> decrypt(encryptedRecord) }
+        }
+        every {
+            apiService.fetchRecord(ALIAS, USER_ID, RECORD_ID)
+        } returns Single.just(encryptedRecord)
+        every {
+            recordService.decryptRecord<Fhir4Resource>(
+                encryptedRecord,
+                USER_ID
+            )
+        } returns decrypted
+        every { RecordMapper.getInstance(decrypted) } returns expected as BaseRecord<Fhir4Resource>
+
+        // When
+        val record = recordService.fetchFhir4Record<Fhir4CarePlan>(USER_ID, RECORD_ID).blockingGet()
+
+        // Then
+        assertSame<Fhir4Record<Fhir4CarePlan>>(
+            expected = expected as Fhir4Record<Fhir4CarePlan>,
+            actual = record
+        )
+        verifyOrder {
+            recordCache.fetch<Fhir4Resource>(USER_ID, RECORD_ID, any(), any())
+            apiService.fetchRecord(ALIAS, USER_ID, RECORD_ID)
+            recordService.decryptRecord<Fhir4Resource>(encryptedRecord, USER_ID)
+            RecordMapper.getInstance(decrypted)
+        }
+    }
+
     @Test
     fun `Given, fetchDataRecord is called with a RecordId and UserId for an DataRecord, it returns a Record`() {
         // Given
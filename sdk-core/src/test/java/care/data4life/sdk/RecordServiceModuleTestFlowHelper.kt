@@ -310,43 +310,16 @@ class RecordServiceModuleTestFlowHelper(
             every { imageResizer.isResizable(data) } returns false
         } else {
             every { imageResizer.isResizable(data) } returns true
-
-            resizeImage(
-                data,
-                resizedImages.first.first,
-                DEFAULT_PREVIEW_SIZE_PX
-            )
-
-            if (resizedImages.second is Pair<*, *>) {
-                resizeImage(
-                    data,
-                    resizedImages.second!!.first,
-                    DEFAULT_THUMBNAIL_SIZE_PX
-                )
-            } else {
-                resizeImage(
+            every {
+                imageResizer.resizeToHeights(
                     data,
-                    null,
-                    DEFAULT_THUMBNAIL_SIZE_PX
+                    listOf(DEFAULT_PREVIEW_SIZE_PX, DEFAULT_THUMBNAIL_SIZE_PX),
+                    DEFAULT_JPEG_QUALITY_PERCENT
                 )
-            }
+            } returns listOf(resizedImages.first.first, resizedImages.second?.first)
         }
     }
 
-    private fun resizeImage(
-        data: ByteArray,
-        resizedImage: ByteArray?,
-        targetHeight: Int
-    ) {
-        every {
-            imageResizer.resizeToHeight(
-                data,
-                targetHeight,
-                DEFAULT_JPEG_QUALITY_PERCENT
-            )
-        } returns resizedImage
-    }
-
     fun downloadAttachment(
         userId: String,
         alias: String,
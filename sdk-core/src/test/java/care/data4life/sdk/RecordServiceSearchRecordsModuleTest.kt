@@ -30,7 +30,9 @@ import care.data4life.sdk.network.NetworkingContract
 import care.data4life.sdk.network.model.EncryptedKey
 import care.data4life.sdk.network.model.EncryptedRecord
 import care.data4life.sdk.network.util.SearchTagsBuilder
+import care.data4life.sdk.record.RecordBatchExecutor
 import care.data4life.sdk.record.RecordContract
+import care.data4life.sdk.record.RecordParallelDecoder
 import care.data4life.sdk.tag.Annotations
 import care.data4life.sdk.tag.TagCryptoService
 import care.data4life.sdk.tag.TaggingService
@@ -98,7 +100,9 @@ class RecordServiceSearchRecordsModuleTest {
                 imageResizer
             ),
             cryptoService,
-            errorHandler
+            errorHandler,
+            RecordBatchExecutor(errorHandler),
+            RecordParallelDecoder(1)
         )
 
         flowHelper = RecordServiceModuleTestFlowHelper(
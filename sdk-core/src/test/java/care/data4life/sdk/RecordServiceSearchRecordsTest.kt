@@ -33,6 +33,7 @@ import care.data4life.sdk.network.model.DecryptedDataRecord
 import care.data4life.sdk.network.model.EncryptedRecord
 import care.data4life.sdk.network.model.NetworkModelInternalContract.DecryptedFhir3Record
 import care.data4life.sdk.network.model.NetworkModelInternalContract.DecryptedFhir4Record
+import care.data4life.sdk.record.RecordParallelDecoder
 import care.data4life.sdk.tag.TaggingContract
 import care.data4life.sdk.tag.Tags
 import care.data4life.sdk.test.util.GenericTestDataProvider.ALIAS
@@ -44,6 +45,7 @@ import io.mockk.mockk
 import io.mockk.mockkObject
 import io.mockk.spyk
 import io.mockk.unmockkObject
+import io.mockk.verify
 import io.mockk.verifyOrder
 import io.reactivex.Observable
 import kotlin.test.assertEquals
@@ -82,7 +84,8 @@ class RecordServiceSearchRecordsTest {
                 attachmentService,
                 cryptoService,
                 errorHandler,
-                compatibilityService
+                compatibilityService,
+                decoder = RecordParallelDecoder(1)
             )
         )
 
@@ -916,4 +919,79 @@ class RecordServiceSearchRecordsTest {
             RecordMapper.getInstance(decryptedRecord2)
         }
     }
+
+    @Test
+    fun `Given, streamFhir3Records called with a UserId, a ResourceType and the PageSize, it emits the Records of all pages in order`() {
+        // Given
+        val includeDeletedRecords = false
+        val pageSize = 2
+
+        val encryptedRecords: List<EncryptedRecord> = List(3) { mockk() }
+        val decryptedRecords: List<DecryptedFhir3Record<Fhir3CarePlan>> = List(3) { mockk(relaxed = true) }
+        val records: List<Record<Fhir3CarePlan>> = List(3) { mockk() }
+        val searchTags: NetworkingContract.SearchTags = mockk()
+
+        decryptedRecords.forEachIndexed { idx, decryptedRecord ->
+            val resource: Fhir3CarePlan = mockk(relaxed = true)
+            every {
+                hint(Fhir3CarePlan::class)
+                decryptedRecord.resource
+            } returns resource
+            every { decryptedRecord.identifier } returns "id$idx"
+            every { decryptedRecord.annotations } returns defaultAnnotation
+            every {
+                recordService.decryptRecord<Fhir3CarePlan>(encryptedRecords[idx], USER_ID)
+            } returns decryptedRecord
+            every { RecordMapper.getInstance(decryptedRecord) } returns records[idx]
+        }
+
+        every { DateResolver.resolveCreationDate(null) } returns Pair(null, null)
+        every { DateResolver.resolveUpdateDate(null) } returns Pair(null, null)
+
+        every { taggingService.getTagsFromType(Fhir3CarePlan::class.java as Class<Any>) } returns tags
+        every { compatibilityService.resolveSearchTags(tags, defaultAnnotation) } returns searchTags
+
+        every {
+            apiService.searchRecords(
+                ALIAS,
+                USER_ID,
+                null,
+                null,
+                null,
+                null,
+                includeDeletedRecords,
+                pageSize,
+                any(),
+                searchTags
+            )
+        } answers {
+            val offset: Int = arg(8)
+            Observable.just(encryptedRecords.drop(offset).take(pageSize))
+        }
+
+        // When
+        val subscriber = recordService.streamFhir3Records(
+            USER_ID,
+            Fhir3CarePlan::class.java,
+            emptyList(),
+            null,
+            null,
+            includeDeletedRecords,
+            pageSize
+        ).test().await()
+
+        // Then
+        subscriber
+            .assertNoErrors()
+            .assertComplete()
+            .assertValueSequence(records)
+
+        verify(exactly = 1) { compatibilityService.resolveSearchTags(tags, defaultAnnotation) }
+        verify(exactly = 1) {
+            apiService.searchRecords(ALIAS, USER_ID, null, null, null, null, includeDeletedRecords, pageSize, 0, searchTags)
+        }
+        verify(exactly = 1) {
+            apiService.searchRecords(ALIAS, USER_ID, null, null, null, null, includeDeletedRecords, pageSize, 2, searchTags)
+        }
+    }
 }
@@ -37,6 +37,7 @@ import care.data4life.sdk.network.model.EncryptedRecord
 import care.data4life.sdk.network.model.NetworkModelContract.DecryptedBaseRecord
 import care.data4life.sdk.network.model.NetworkModelInternalContract.DecryptedFhir3Record
 import care.data4life.sdk.network.model.NetworkModelInternalContract.DecryptedFhir4Record
+import care.data4life.sdk.record.RecordBatchExecutor
 import care.data4life.sdk.record.RecordContract
 import care.data4life.sdk.tag.TaggingContract
 import care.data4life.sdk.test.util.GenericTestDataProvider.ALIAS
@@ -60,6 +61,8 @@ import io.mockk.verify
 import io.mockk.verifyOrder
 import io.reactivex.Completable
 import io.reactivex.Single
+import io.reactivex.schedulers.Schedulers
+import java.io.ByteArrayOutputStream
 import kotlin.test.assertEquals
 import kotlin.test.assertFailsWith
 import kotlin.test.assertSame
@@ -92,7 +95,8 @@ class RecordServiceTest {
                 attachmentService,
                 cryptoService,
                 errorHandler,
-                mockk()
+                mockk(),
+                RecordBatchExecutor(errorHandler, scheduler = Schedulers.trampoline())
             )
         )
     }
@@ -347,6 +351,37 @@ class RecordServiceTest {
         verify(exactly = 1) { apiService.deleteRecord(ALIAS, USER_ID, RECORD_ID) }
     }
 
+    @Test
+    fun `Given, deleteRecord is called with a UserId and a RecordId, while a RecordCache is used, it invalidates the cached Record after the deletion`() {
+        // Given
+        val recordCache: RecordContract.Cache = mockk()
+        val recordService = RecordService(
+            PARTNER_ID,
+            ALIAS,
+            apiService,
+            tagCryptoService,
+            taggingService,
+            resourceCryptoService,
+            attachmentService,
+            cryptoService,
+            errorHandler,
+            mockk(),
+            recordCache = recordCache
+        )
+
+        every { apiService.deleteRecord(ALIAS, USER_ID, RECORD_ID) } returns Completable.complete()
+        every { recordCache.invalidate(USER_ID, RECORD_ID) } just Runs
+
+        // When
+        recordService.deleteRecord(userId = USER_ID, recordId = RECORD_ID).blockingAwait()
+
+        // Then
+        verifyOrder {
+            apiService.deleteRecord(ALIAS, USER_ID, RECORD_ID)
+            recordCache.invalidate(USER_ID, RECORD_ID)
+        }
+    }
+
     @Test
     fun ` Given, deleteRecords is called with a UserId and a list of RecordIds, it delegates it to apiService and returns the result`() {
         // Given
@@ -1027,6 +1062,84 @@ class RecordServiceTest {
         unmockkObject(SdkAttachmentFactory)
     }
 
+    @Test
+    fun `Given, streamAttachmentFromStorage is called, with an AttachmentId, a DecryptedRecord, which contains a Fhir4Resource, and a Target, it streams the requested Attachment into the Target`() {
+        mockkObject(SdkFhirAttachmentHelper)
+        mockkObject(SdkAttachmentFactory)
+        // Given
+        val attachmentKey: GCKey = mockk()
+        val attachmentId = "abc"
+        val attachment: Fhir4Attachment = mockk()
+        val resource: Fhir4Resource = mockk()
+        val decryptedRecord: DecryptedFhir4Record<Fhir4Resource> = mockk()
+        val identifiers: List<Fhir4Identifier> = mockk()
+        val wrappedAttachment: WrapperContract.Attachment = mockk()
+        val downloadedWrappedAttachment: WrapperContract.Attachment = mockk()
+        val downloadedAttachment: Fhir4Attachment = spyk()
+        val target = ByteArrayOutputStream()
+
+        every { wrappedAttachment.id } returns attachmentId
+
+        every { decryptedRecord.resource } returns resource
+        every { decryptedRecord.attachmentsKey } returns attachmentKey
+
+        every { downloadedWrappedAttachment.unwrap<Fhir4Attachment>() } returns downloadedAttachment
+
+        every { SdkFhirAttachmentHelper.hasAttachment(resource) } returns true
+        every { SdkFhirAttachmentHelper.getAttachment(resource) } returns mutableListOf<Any?>(attachment)
+        every { SdkFhirAttachmentHelper.getIdentifier(resource) } returns identifiers
+        every { SdkAttachmentFactory.wrap(attachment) } returns wrappedAttachment
+        every {
+            recordService.setAttachmentIdForDownloadType(
+                listOf(wrappedAttachment),
+                identifiers,
+                DownloadType.Small
+            )
+        } just Runs
+
+        every {
+            attachmentService.downloadTo(
+                wrappedAttachment,
+                attachmentKey,
+                USER_ID,
+                target
+            )
+        } returns Single.just(downloadedWrappedAttachment)
+
+        // When
+        val result = recordService.streamAttachmentFromStorage<Fhir4Resource, Fhir4Attachment>(
+            attachmentId,
+            USER_ID,
+            DownloadType.Small,
+            decryptedRecord,
+            target
+        ).blockingGet()
+
+        // Then
+        assertSame(
+            actual = result,
+            expected = downloadedAttachment
+        )
+
+        verifyOrder {
+            recordService.setAttachmentIdForDownloadType(
+                listOf(wrappedAttachment),
+                identifiers,
+                DownloadType.Small
+            )
+            attachmentService.downloadTo(
+                wrappedAttachment,
+                attachmentKey,
+                USER_ID,
+                target
+            )
+        }
+        verify(exactly = 0) { attachmentService.download(any(), any(), any()) }
+
+        unmockkObject(SdkFhirAttachmentHelper)
+        unmockkObject(SdkAttachmentFactory)
+    }
+
     @Test
     fun `Given, downloadAttachmentsFromStorage is called, with a list of AttachmentsIds, a DecryptedRecord, which contains a Fhir4Resource, it downloads the requested Attachments, while updating their metas`() {
         mockkObject(SdkFhirAttachmentHelper)
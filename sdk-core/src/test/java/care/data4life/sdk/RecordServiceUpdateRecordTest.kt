@@ -20,26 +20,39 @@ import care.data4life.sdk.attachment.AttachmentContract
 import care.data4life.sdk.call.DataRecord
 import care.data4life.sdk.call.Fhir4Record
 import care.data4life.sdk.crypto.CryptoContract
+import care.data4life.sdk.crypto.GCKey
 import care.data4life.sdk.data.DataResource
 import care.data4life.sdk.fhir.Fhir3Resource
+import care.data4life.sdk.fhir.Fhir4Attachment
 import care.data4life.sdk.fhir.Fhir4Resource
 import care.data4life.sdk.fhir.FhirContract
 import care.data4life.sdk.migration.MigrationContract
+import care.data4life.sdk.model.ModelContract
 import care.data4life.sdk.model.Record
 import care.data4life.sdk.model.RecordMapper
 import care.data4life.sdk.network.NetworkingContract
 import care.data4life.sdk.network.model.DecryptedDataRecord
 import care.data4life.sdk.network.model.DecryptedR4Record
 import care.data4life.sdk.network.model.DecryptedRecord
+import care.data4life.sdk.network.model.EncryptedKey
 import care.data4life.sdk.network.model.EncryptedRecord
+import care.data4life.sdk.record.DecryptedRecordSnapshot
+import care.data4life.sdk.record.RecordBatchExecutor
+import care.data4life.sdk.record.RecordContract
+import care.data4life.sdk.record.RecordHandle
 import care.data4life.sdk.tag.Annotations
 import care.data4life.sdk.tag.TaggingContract
 import care.data4life.sdk.test.util.GenericTestDataProvider.ALIAS
 import care.data4life.sdk.test.util.GenericTestDataProvider.PARTNER_ID
 import care.data4life.sdk.test.util.GenericTestDataProvider.RECORD_ID
 import care.data4life.sdk.test.util.GenericTestDataProvider.USER_ID
+import care.data4life.sdk.wrapper.SdkAttachmentFactory
+import care.data4life.sdk.wrapper.SdkFhirAttachmentHelper
+import care.data4life.sdk.wrapper.WrapperContract
+import io.mockk.Runs
 import io.mockk.clearAllMocks
 import io.mockk.every
+import io.mockk.just
 import io.mockk.mockk
 import io.mockk.mockkObject
 import io.mockk.spyk
@@ -47,11 +60,15 @@ import io.mockk.unmockkObject
 import io.mockk.verify
 import io.mockk.verifyOrder
 import io.reactivex.Single
+import io.reactivex.schedulers.Schedulers
 import kotlin.test.assertEquals
 import kotlin.test.assertSame
+import okhttp3.ResponseBody.Companion.toResponseBody
 import org.junit.After
 import org.junit.Before
 import org.junit.Test
+import retrofit2.HttpException
+import retrofit2.Response
 
 class RecordServiceUpdateRecordTest {
     private lateinit var recordService: RecordService
@@ -82,16 +99,56 @@ class RecordServiceUpdateRecordTest {
                 attachmentService,
                 cryptoService,
                 errorHandler,
-                compatibilityService
+                compatibilityService,
+                RecordBatchExecutor(errorHandler, scheduler = Schedulers.trampoline())
             )
         )
 
         mockkObject(RecordMapper)
+        mockkObject(DecryptedRecordSnapshot)
+        mockkObject(SdkFhirAttachmentHelper)
+        mockkObject(SdkAttachmentFactory)
     }
 
     @After
     fun tearDown() {
         unmockkObject(RecordMapper)
+        unmockkObject(DecryptedRecordSnapshot)
+        unmockkObject(SdkFhirAttachmentHelper)
+        unmockkObject(SdkAttachmentFactory)
+    }
+
+    private fun createDigestingService(contentDigest: RecordContract.ContentDigest): RecordService {
+        return spyk(
+            RecordService(
+                PARTNER_ID,
+                ALIAS,
+                apiService,
+                tagCryptoService,
+                taggingService,
+                resourceCryptoService,
+                attachmentService,
+                cryptoService,
+                errorHandler,
+                RecordBatchExecutor(errorHandler, scheduler = Schedulers.trampoline()),
+                contentDigest = contentDigest
+            )
+        )
+    }
+
+    private fun encryptedRecord(body: String, version: Int): EncryptedRecord {
+        return EncryptedRecord(
+            null,
+            RECORD_ID,
+            listOf("tag"),
+            body,
+            ModelContract.RecordStatus.Active,
+            null,
+            EncryptedKey("key"),
+            null,
+            1,
+            version = version
+        )
     }
 
     @Test
@@ -156,7 +213,7 @@ class RecordServiceUpdateRecordTest {
         verifyOrder {
             recordService.updateRecord(USER_ID, RECORD_ID, resource, defaultAnnotation)
             recordService.updateRecord(USER_ID, RECORD_ID, resource as Any, defaultAnnotation)
-            recordService.checkDataRestrictions(resource)
+            recordService.prepareAttachments(resource)
             recordService.extractUploadData(resource)
             apiService.fetchRecord(
                 ALIAS,
@@ -244,7 +301,7 @@ class RecordServiceUpdateRecordTest {
         verifyOrder {
             recordService.updateRecord(USER_ID, RECORD_ID, resource, defaultAnnotation)
             recordService.updateRecord(USER_ID, RECORD_ID, resource as Any, defaultAnnotation)
-            recordService.checkDataRestrictions(resource)
+            recordService.prepareAttachments(resource)
             recordService.extractUploadData(resource)
             apiService.fetchRecord(
                 ALIAS,
@@ -329,7 +386,7 @@ class RecordServiceUpdateRecordTest {
         verifyOrder {
             recordService.updateRecord(USER_ID, RECORD_ID, resource, defaultAnnotation)
             recordService.updateRecord(USER_ID, RECORD_ID, resource as Any, defaultAnnotation)
-            recordService.checkDataRestrictions(resource)
+            recordService.prepareAttachments(resource)
             recordService.extractUploadData(resource)
             apiService.fetchRecord(
                 ALIAS,
@@ -419,7 +476,7 @@ class RecordServiceUpdateRecordTest {
         verifyOrder {
             recordService.updateRecord(USER_ID, RECORD_ID, resource, annotations)
             recordService.updateRecord(USER_ID, RECORD_ID, resource as Any, annotations)
-            recordService.checkDataRestrictions(resource)
+            recordService.prepareAttachments(resource)
             recordService.extractUploadData(resource)
             apiService.fetchRecord(
                 ALIAS,
@@ -509,7 +566,7 @@ class RecordServiceUpdateRecordTest {
         verifyOrder {
             recordService.updateRecord(USER_ID, RECORD_ID, resource, annotations)
             recordService.updateRecord(USER_ID, RECORD_ID, resource as Any, annotations)
-            recordService.checkDataRestrictions(resource)
+            recordService.prepareAttachments(resource)
             recordService.extractUploadData(resource)
             apiService.fetchRecord(
                 ALIAS,
@@ -596,7 +653,7 @@ class RecordServiceUpdateRecordTest {
         verifyOrder {
             recordService.updateRecord(USER_ID, RECORD_ID, resource, annotations)
             recordService.updateRecord(USER_ID, RECORD_ID, resource as Any, annotations)
-            recordService.checkDataRestrictions(resource)
+            recordService.prepareAttachments(resource)
             recordService.extractUploadData(resource)
             apiService.fetchRecord(
                 ALIAS,
@@ -688,7 +745,7 @@ class RecordServiceUpdateRecordTest {
         verifyOrder {
             recordService.updateRecord(USER_ID, RECORD_ID, resource, defaultAnnotation)
             recordService.updateRecord(USER_ID, RECORD_ID, resource as Any, defaultAnnotation)
-            recordService.checkDataRestrictions(resource)
+            recordService.prepareAttachments(resource)
             recordService.extractUploadData(resource)
             apiService.fetchRecord(
                 ALIAS,
@@ -778,7 +835,7 @@ class RecordServiceUpdateRecordTest {
         verifyOrder {
             recordService.updateRecord(USER_ID, RECORD_ID, resource, defaultAnnotation)
             recordService.updateRecord(USER_ID, RECORD_ID, resource as Any, defaultAnnotation)
-            recordService.checkDataRestrictions(resource)
+            recordService.prepareAttachments(resource)
             recordService.extractUploadData(resource)
             apiService.fetchRecord(
                 ALIAS,
@@ -804,6 +861,475 @@ class RecordServiceUpdateRecordTest {
         }
     }
 
+    @Test
+    fun `Given, updateRecord is called with a Fhir4 resource, AttachmentSources and a UserId, it streams the sources with the key of the fetched Record and returns a updated Record`() {
+        // Given
+        val resource: Fhir4Resource = mockk(relaxed = true)
+        val rawAttachment: Fhir4Attachment = mockk()
+        val attachment: WrapperContract.Attachment = mockk()
+        val source: AttachmentContract.UploadSource = mockk()
+        val attachmentsKey: GCKey = mockk()
+        val fetchedRecord: EncryptedRecord = mockk()
+        val decryptedFetchedRecord: DecryptedR4Record<Fhir4Resource> = mockk(relaxed = true)
+        val encryptedRecord: EncryptedRecord = mockk()
+        val receivedRecord: EncryptedRecord = mockk()
+        val receivedDecryptedRecord: DecryptedR4Record<Fhir4Resource> = mockk(relaxed = true)
+        val record: Fhir4Record<Fhir4Resource> = mockk()
+
+        every { SdkFhirAttachmentHelper.hasAttachment(resource) } returns true
+        every { SdkFhirAttachmentHelper.getAttachment(resource) } returns mutableListOf(rawAttachment)
+        every { SdkFhirAttachmentHelper.getIdentifier(resource) } returns null
+        every { SdkFhirAttachmentHelper.updateAttachmentData(resource, null) } just Runs
+        every { SdkAttachmentFactory.wrap(rawAttachment) } returns attachment
+        every { attachment.id } returns null
+        every { attachment.data } returns null
+
+        every { decryptedFetchedRecord.resource } returns resource
+        every { decryptedFetchedRecord.attachmentsKey } returns attachmentsKey
+
+        every {
+            apiService.fetchRecord(
+                ALIAS,
+                USER_ID,
+                RECORD_ID
+            )
+        } returns Single.just(fetchedRecord)
+        every {
+            recordService.decryptRecord<Fhir4Resource>(fetchedRecord, USER_ID)
+        } returns decryptedFetchedRecord
+        every {
+            attachmentService.uploadStream(attachment, source, attachmentsKey, USER_ID)
+        } returns Single.just(attachment)
+        every {
+            recordService.updateData(decryptedFetchedRecord, resource, USER_ID, any(), any())
+        } returns decryptedFetchedRecord
+        every {
+            recordService.encryptRecord(decryptedFetchedRecord)
+        } returns encryptedRecord
+        every {
+            apiService.updateRecord(
+                ALIAS,
+                USER_ID,
+                RECORD_ID,
+                encryptedRecord
+            )
+        } returns Single.just(receivedRecord)
+        every {
+            recordService.decryptRecord<Fhir4Resource>(receivedRecord, USER_ID)
+        } returns receivedDecryptedRecord
+        every { RecordMapper.getInstance(receivedDecryptedRecord) } returns record
+
+        // When
+        val observer = recordService.updateRecord(
+            USER_ID,
+            RECORD_ID,
+            resource,
+            mapOf(rawAttachment to source),
+            defaultAnnotation
+        ).test().await()
+
+        // Then
+        val result = observer.assertNoErrors()
+            .assertComplete()
+            .assertValueCount(1)
+            .values()[0]
+
+        assertSame(
+            actual = result,
+            expected = record
+        )
+
+        verifyOrder {
+            apiService.fetchRecord(
+                ALIAS,
+                USER_ID,
+                RECORD_ID
+            )
+            attachmentService.uploadStream(attachment, source, attachmentsKey, USER_ID)
+            recordService.updateData(
+                decryptedFetchedRecord,
+                resource,
+                USER_ID,
+                any(),
+                match { streamedAttachments -> rawAttachment in streamedAttachments }
+            )
+            recordService.encryptRecord(decryptedFetchedRecord)
+            apiService.updateRecord(
+                ALIAS,
+                USER_ID,
+                RECORD_ID,
+                encryptedRecord
+            )
+            RecordMapper.getInstance(receivedDecryptedRecord)
+        }
+    }
+
+    @Test
+    fun `Given, updateRecord is called with a RecordHandle, a Fhir4 resource and a UserId, it updates the Record at the version of the handle without fetching it`() {
+        // Given
+        val resource: Fhir4Resource = mockk(relaxed = true)
+        val record: Fhir4Record<Fhir4Resource> = mockk()
+        val snapshot: DecryptedRecordSnapshot = mockk()
+        val handle = RecordHandle(record, 3, snapshot)
+        val restoredRecord: DecryptedR4Record<Fhir4Resource> = mockk(relaxed = true)
+        val encryptedRecord = encryptedRecord("body", 0)
+        val receivedRecord = encryptedRecord("received", 4)
+        val receivedDecryptedRecord: DecryptedR4Record<Fhir4Resource> = mockk(relaxed = true)
+        val updatedSnapshot: DecryptedRecordSnapshot = mockk()
+        val updatedRecord: Fhir4Record<Fhir4Resource> = mockk()
+
+        every { record.identifier } returns RECORD_ID
+        every { snapshot.restore<Fhir4Resource>() } returns restoredRecord
+        every { recordService.encryptRecord(restoredRecord) } returns encryptedRecord
+        every {
+            apiService.updateRecord(
+                ALIAS,
+                USER_ID,
+                RECORD_ID,
+                encryptedRecord.copy(version = 3)
+            )
+        } returns Single.just(receivedRecord)
+        every {
+            recordService.decryptRecord<Fhir4Resource>(receivedRecord, USER_ID)
+        } returns receivedDecryptedRecord
+        every { DecryptedRecordSnapshot.of(receivedDecryptedRecord, any()) } returns updatedSnapshot
+        every { RecordMapper.getInstance(receivedDecryptedRecord) } returns updatedRecord
+
+        // When
+        val observer = recordService.updateRecord(
+            USER_ID,
+            handle,
+            resource,
+            defaultAnnotation
+        ).test().await()
+
+        // Then
+        val result = observer.assertNoErrors()
+            .assertComplete()
+            .assertValueCount(1)
+            .values()[0]
+
+        assertSame(
+            expected = updatedRecord,
+            actual = result.record
+        )
+        assertEquals(
+            expected = 4,
+            actual = result.version
+        )
+        assertSame(
+            expected = updatedSnapshot,
+            actual = result.snapshot
+        )
+        verify(exactly = 0) { apiService.fetchRecord(any(), any(), any()) }
+        verifyOrder {
+            snapshot.restore<Fhir4Resource>()
+            recordService.updateData(restoredRecord, resource, USER_ID, any())
+            restoredRecord.resource = resource
+            recordService.encryptRecord(restoredRecord)
+            apiService.updateRecord(
+                ALIAS,
+                USER_ID,
+                RECORD_ID,
+                encryptedRecord.copy(version = 3)
+            )
+            recordService.restoreUploadData(receivedDecryptedRecord, resource, null)
+        }
+    }
+
+    @Test
+    fun `Given, updateRecord is called with a RecordHandle, which version is outdated, it fetches the Record and updates it at its current version`() {
+        // Given
+        val resource: Fhir4Resource = mockk(relaxed = true)
+        val record: Fhir4Record<Fhir4Resource> = mockk()
+        val snapshot: DecryptedRecordSnapshot = mockk()
+        val handle = RecordHandle(record, 3, snapshot)
+        val restoredRecord: DecryptedR4Record<Fhir4Resource> = mockk(relaxed = true)
+        val staleRecord = encryptedRecord("stale", 0)
+        val fetchedRecord = encryptedRecord("fetched", 5)
+        val decryptedFetchedRecord: DecryptedR4Record<Fhir4Resource> = mockk(relaxed = true)
+        val encryptedRecord = encryptedRecord("body", 0)
+        val receivedRecord = encryptedRecord("received", 6)
+        val receivedDecryptedRecord: DecryptedR4Record<Fhir4Resource> = mockk(relaxed = true)
+        val updatedSnapshot: DecryptedRecordSnapshot = mockk()
+        val updatedRecord: Fhir4Record<Fhir4Resource> = mockk()
+        val conflict = HttpException(Response.error<Any>(409, "".toResponseBody()))
+
+        every { record.identifier } returns RECORD_ID
+        every { snapshot.restore<Fhir4Resource>() } returns restoredRecord
+        every { recordService.encryptRecord(restoredRecord) } returns staleRecord
+        every {
+            apiService.updateRecord(
+                ALIAS,
+                USER_ID,
+                RECORD_ID,
+                staleRecord.copy(version = 3)
+            )
+        } returns Single.error(conflict)
+        every {
+            apiService.fetchRecord(
+                ALIAS,
+                USER_ID,
+                RECORD_ID
+            )
+        } returns Single.just(fetchedRecord)
+        every {
+            recordService.decryptRecord<Fhir4Resource>(fetchedRecord, USER_ID)
+        } returns decryptedFetchedRecord
+        every { recordService.encryptRecord(decryptedFetchedRecord) } returns encryptedRecord
+        every {
+            apiService.updateRecord(
+                ALIAS,
+                USER_ID,
+                RECORD_ID,
+                encryptedRecord.copy(version = 5)
+            )
+        } returns Single.just(receivedRecord)
+        every {
+            recordService.decryptRecord<Fhir4Resource>(receivedRecord, USER_ID)
+        } returns receivedDecryptedRecord
+        every { DecryptedRecordSnapshot.of(receivedDecryptedRecord, any()) } returns updatedSnapshot
+        every { RecordMapper.getInstance(receivedDecryptedRecord) } returns updatedRecord
+
+        // When
+        val observer = recordService.updateRecord(
+            USER_ID,
+            handle,
+            resource,
+            defaultAnnotation
+        ).test().await()
+
+        // Then
+        val result = observer.assertNoErrors()
+            .assertComplete()
+            .assertValueCount(1)
+            .values()[0]
+
+        assertSame(
+            expected = updatedRecord,
+            actual = result.record
+        )
+        assertEquals(
+            expected = 6,
+            actual = result.version
+        )
+        verifyOrder {
+            apiService.updateRecord(
+                ALIAS,
+                USER_ID,
+                RECORD_ID,
+                staleRecord.copy(version = 3)
+            )
+            apiService.fetchRecord(
+                ALIAS,
+                USER_ID,
+                RECORD_ID
+            )
+            recordService.updateData(decryptedFetchedRecord, resource, USER_ID, any())
+            recordService.encryptRecord(decryptedFetchedRecord)
+            apiService.updateRecord(
+                ALIAS,
+                USER_ID,
+                RECORD_ID,
+                encryptedRecord.copy(version = 5)
+            )
+        }
+    }
+
+    @Test
+    fun `Given, updateRecord is called with a DataResource and annotations, which digest like the fetched Record, it returns the Record without updating it`() {
+        // Given
+        val contentDigest: RecordContract.ContentDigest = mockk()
+        val service = createDigestingService(contentDigest)
+        val resource = DataResource(byteArrayOf(1, 2, 3))
+        val fetchedResource = DataResource(byteArrayOf(1, 2, 3))
+        val annotations = listOf("a", "b")
+        val fetchedRecord: EncryptedRecord = mockk()
+        val decryptedFetchedRecord: DecryptedDataRecord = mockk(relaxed = true)
+        val record: DataRecord<DataResource> = mockk()
+
+        every { decryptedFetchedRecord.resource } returns fetchedResource
+        every { decryptedFetchedRecord.annotations } returns listOf("b", "a")
+        every { contentDigest.digest(fetchedResource, listOf("b", "a")) } returns byteArrayOf(42)
+        every { contentDigest.digest(resource, annotations) } returns byteArrayOf(42)
+        every {
+            apiService.fetchRecord(
+                ALIAS,
+                USER_ID,
+                RECORD_ID
+            )
+        } returns Single.just(fetchedRecord)
+        every {
+            service.decryptRecord<DataResource>(fetchedRecord, USER_ID)
+        } returns decryptedFetchedRecord
+        every { RecordMapper.getInstance(decryptedFetchedRecord) } returns record
+
+        // When
+        val observer = service.updateRecord(
+            USER_ID,
+            RECORD_ID,
+            resource,
+            annotations
+        ).test().await()
+
+        // Then
+        val result = observer.assertNoErrors()
+            .assertComplete()
+            .assertValueCount(1)
+            .values()[0]
+
+        assertSame(
+            expected = record,
+            actual = result
+        )
+        verify(exactly = 0) { service.encryptRecord(any<DecryptedDataRecord>()) }
+        verify(exactly = 0) { apiService.updateRecord(any(), any(), any(), any()) }
+    }
+
+    @Test
+    fun `Given, updateRecord is called with a DataResource, which digests differently than the fetched Record, it updates the Record`() {
+        // Given
+        val contentDigest: RecordContract.ContentDigest = mockk()
+        val service = createDigestingService(contentDigest)
+        val resource = DataResource(byteArrayOf(1, 2, 3))
+        val fetchedResource = DataResource(byteArrayOf(3, 2, 1))
+        val fetchedRecord: EncryptedRecord = mockk()
+        val decryptedFetchedRecord: DecryptedDataRecord = mockk(relaxed = true)
+        val encryptedRecord: EncryptedRecord = mockk()
+        val receivedRecord: EncryptedRecord = mockk()
+        val receivedDecryptedRecord: DecryptedDataRecord = mockk(relaxed = true)
+        val record: DataRecord<DataResource> = mockk()
+
+        every { decryptedFetchedRecord.resource } returns fetchedResource
+        every { decryptedFetchedRecord.annotations } returns defaultAnnotation
+        every { contentDigest.digest(fetchedResource, defaultAnnotation) } returns byteArrayOf(23)
+        every { contentDigest.digest(resource, defaultAnnotation) } returns byteArrayOf(42)
+        every {
+            apiService.fetchRecord(
+                ALIAS,
+                USER_ID,
+                RECORD_ID
+            )
+        } returns Single.just(fetchedRecord)
+        every {
+            service.decryptRecord<DataResource>(fetchedRecord, USER_ID)
+        } returns decryptedFetchedRecord
+        every { service.encryptRecord(decryptedFetchedRecord) } returns encryptedRecord
+        every {
+            apiService.updateRecord(
+                ALIAS,
+                USER_ID,
+                RECORD_ID,
+                encryptedRecord
+            )
+        } returns Single.just(receivedRecord)
+        every {
+            service.decryptRecord<DataResource>(receivedRecord, USER_ID)
+        } returns receivedDecryptedRecord
+        every { RecordMapper.getInstance(receivedDecryptedRecord) } returns record
+
+        // When
+        val observer = service.updateRecord(
+            USER_ID,
+            RECORD_ID,
+            resource,
+            defaultAnnotation
+        ).test().await()
+
+        // Then
+        val result = observer.assertNoErrors()
+            .assertComplete()
+            .assertValueCount(1)
+            .values()[0]
+
+        assertSame(
+            expected = record,
+            actual = result
+        )
+        verify(exactly = 1) {
+            apiService.updateRecord(
+                ALIAS,
+                USER_ID,
+                RECORD_ID,
+                encryptedRecord
+            )
+        }
+    }
+
+    @Test
+    @Suppress("UNCHECKED_CAST")
+    fun `Given, updateDataRecords is called with a ContentDigest and some Records are unchanged, it counts the skipped updates`() {
+        // Given
+        val contentDigest: RecordContract.ContentDigest = mockk()
+        val service = createDigestingService(contentDigest)
+        val resources = mapOf(
+            "1" to DataResource(byteArrayOf(1)),
+            "2" to DataResource(byteArrayOf(2))
+        )
+        val records = listOf<DataRecord<DataResource>>(
+            mockk(),
+            mockk()
+        )
+
+        every {
+            service.updateRecordIfChanged(USER_ID, "1", resources.getValue("1") as Any, defaultAnnotation)
+        } returns Single.just(Pair(records[0] as ModelContract.BaseRecord<Any>, true))
+        every {
+            service.updateRecordIfChanged(USER_ID, "2", resources.getValue("2") as Any, defaultAnnotation)
+        } returns Single.just(Pair(records[1] as ModelContract.BaseRecord<Any>, false))
+
+        // When
+        val observer = service.updateDataRecords(USER_ID, resources, defaultAnnotation).test().await()
+
+        // Then
+        val result = observer.assertNoErrors()
+            .assertComplete()
+            .assertValueCount(1)
+            .values()[0]
+
+        assertEquals(
+            expected = records,
+            actual = result.successfulOperations
+        )
+        assertEquals(
+            expected = 1,
+            actual = result.unchangedOperations
+        )
+    }
+
+    @Test
+    @Suppress("UNCHECKED_CAST")
+    fun `Given, updateDataRecords is called with a ContentDigest and its Single is subscribed twice, it counts the skipped updates of each subscription`() {
+        // Given
+        val contentDigest: RecordContract.ContentDigest = mockk()
+        val service = createDigestingService(contentDigest)
+        val resources = mapOf(
+            "1" to DataResource(byteArrayOf(1)),
+            "2" to DataResource(byteArrayOf(2))
+        )
+        val record: DataRecord<DataResource> = mockk()
+
+        every {
+            service.updateRecordIfChanged(USER_ID, any(), any(), defaultAnnotation)
+        } returns Single.just(Pair(record as ModelContract.BaseRecord<Any>, true))
+
+        val update = service.updateDataRecords(USER_ID, resources, defaultAnnotation)
+
+        // When
+        val first = update.test().await().values()[0]
+        val second = update.test().await().values()[0]
+
+        // Then
+        assertEquals(
+            expected = 2,
+            actual = first.unchangedOperations
+        )
+        assertEquals(
+            expected = 2,
+            actual = second.unchangedOperations
+        )
+    }
+
     @Test
     fun `Given, updateRecords is called with multiple resources and a UserId, returns multiple updated Records`() {
         // Given
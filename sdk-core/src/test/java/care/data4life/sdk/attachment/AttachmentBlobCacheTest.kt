@@ -0,0 +1,266 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.attachment
+
+import java.io.File
+import java.nio.ByteBuffer
+import java.nio.file.Files
+import java.util.concurrent.CyclicBarrier
+import kotlin.concurrent.thread
+import kotlin.test.assertEquals
+import kotlin.test.assertNull
+import kotlin.test.assertTrue
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+
+class AttachmentBlobCacheTest {
+    private lateinit var directory: File
+
+    @Before
+    fun setUp() {
+        directory = Files.createTempDirectory("blobs").toFile()
+    }
+
+    @After
+    fun tearDown() {
+        directory.deleteRecursively()
+    }
+
+    private fun ByteBuffer.readBytes(): ByteArray = ByteArray(remaining()).also { bytes -> duplicate().get(bytes) }
+
+    @Test
+    fun `It fulfils BlobCache`() {
+        val cache: Any = AttachmentBlobCache(directory)
+
+        assertTrue(cache is AttachmentContract.BlobCache)
+    }
+
+    @Test
+    fun `Given get is called with a DocumentId, which is not cached, it returns null`() {
+        // Given
+        val cache = AttachmentBlobCache(directory)
+
+        // When
+        val blob = cache.get("id")
+
+        // Then
+        assertNull(blob)
+    }
+
+    @Test
+    fun `Given put is called with a DocumentId and a Blob, it can be read by get afterwards`() {
+        // Given
+        val cache = AttachmentBlobCache(directory)
+        val blob = ByteArray(23) { idx -> idx.toByte() }
+
+        // When
+        cache.put("id", blob)
+
+        // Then
+        assertTrue(blob.contentEquals(cache.get("id")!!.readBytes()))
+        assertEquals(
+            expected = 23L,
+            actual = cache.size
+        )
+    }
+
+    @Test
+    fun `Given a cached Blob is read by get, writes to the returned buffer do not alter the cache`() {
+        // Given
+        val cache = AttachmentBlobCache(directory)
+        val blob = ByteArray(23) { idx -> idx.toByte() }
+
+        cache.put("id", blob)
+
+        // When
+        cache.get("id")!!.put(ByteArray(23))
+
+        // Then
+        assertTrue(blob.contentEquals(cache.get("id")!!.readBytes()))
+    }
+
+    @Test
+    fun `Given put exceeds the limit of the cache, it evicts the least recently used Blobs`() {
+        // Given
+        val cache = AttachmentBlobCache(directory, 10L)
+
+        cache.put("first", ByteArray(4))
+        cache.put("second", ByteArray(4))
+        cache.get("first")
+
+        // When
+        cache.put("third", ByteArray(4))
+
+        // Then
+        assertNull(cache.get("second"))
+        assertEquals(
+            expected = 4,
+            actual = cache.get("first")!!.remaining()
+        )
+        assertEquals(
+            expected = 4,
+            actual = cache.get("third")!!.remaining()
+        )
+        assertEquals(
+            expected = 8L,
+            actual = cache.size
+        )
+        assertEquals(
+            expected = 2,
+            actual = directory.listFiles()!!.size
+        )
+    }
+
+    @Test
+    fun `Given put is called with a Blob, which exceeds the limit of the cache on its own, it ignores it`() {
+        // Given
+        val cache = AttachmentBlobCache(directory, 10L)
+
+        cache.put("first", ByteArray(4))
+
+        // When
+        cache.put("second", ByteArray(11))
+
+        // Then
+        assertNull(cache.get("second"))
+        assertEquals(
+            expected = 4L,
+            actual = cache.size
+        )
+    }
+
+    @Test
+    fun `Given a cache is created with a Directory, which already contains Blobs, it restores them`() {
+        // Given
+        val blob = ByteArray(23) { idx -> idx.toByte() }
+
+        AttachmentBlobCache(directory).put("id", blob)
+
+        // When
+        val cache = AttachmentBlobCache(directory)
+
+        // Then
+        assertTrue(blob.contentEquals(cache.get("id")!!.readBytes()))
+        assertEquals(
+            expected = 23L,
+            actual = cache.size
+        )
+    }
+
+    @Test
+    fun `Given remove is called with a DocumentId, it drops the Blob`() {
+        // Given
+        val cache = AttachmentBlobCache(directory)
+
+        cache.put("id", ByteArray(23))
+
+        // When
+        cache.remove("id")
+
+        // Then
+        assertNull(cache.get("id"))
+        assertEquals(
+            expected = 0L,
+            actual = cache.size
+        )
+        assertEquals(
+            expected = 0,
+            actual = directory.listFiles()!!.size
+        )
+    }
+
+    @Test
+    fun `Given clear is called, it drops all Blobs`() {
+        // Given
+        val cache = AttachmentBlobCache(directory)
+
+        cache.put("first", ByteArray(4))
+        cache.put("second", ByteArray(4))
+
+        // When
+        cache.clear()
+
+        // Then
+        assertNull(cache.get("first"))
+        assertNull(cache.get("second"))
+        assertEquals(
+            expected = 0L,
+            actual = cache.size
+        )
+    }
+
+    @Test
+    fun `Given the file of a cached Blob vanished, get returns null without recreating it`() {
+        // Given
+        val cache = AttachmentBlobCache(directory)
+
+        cache.put("id", ByteArray(23))
+        directory.listFiles()!!.forEach { file -> file.delete() }
+
+        // When
+        val blob = cache.get("id")
+
+        // Then
+        assertNull(blob)
+        assertEquals(
+            expected = 0L,
+            actual = cache.size
+        )
+        assertEquals(
+            expected = 0,
+            actual = directory.listFiles()!!.size
+        )
+    }
+
+    @Test
+    fun `Given get races a remove of the same DocumentId, it returns the whole Blob or null and leaves no file behind`() {
+        // Given
+        val cache = AttachmentBlobCache(directory)
+        val blob = ByteArray(23) { idx -> idx.toByte() }
+        val reads = mutableListOf<ByteBuffer?>()
+
+        // When
+        repeat(200) {
+            cache.put("id", blob)
+
+            val barrier = CyclicBarrier(2)
+            val reader = thread {
+                barrier.await()
+                reads.add(cache.get("id"))
+            }
+            val remover = thread {
+                barrier.await()
+                cache.remove("id")
+            }
+            reader.join()
+            remover.join()
+
+            // Then
+            assertEquals(
+                expected = 0,
+                actual = directory.listFiles()!!.size
+            )
+        }
+
+        reads.filterNotNull().forEach { read -> assertTrue(blob.contentEquals(read.readBytes())) }
+        assertEquals(
+            expected = 0L,
+            actual = cache.size
+        )
+    }
+}
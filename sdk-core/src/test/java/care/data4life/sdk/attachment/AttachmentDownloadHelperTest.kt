@@ -229,4 +229,58 @@ class AttachmentDownloadHelperTest {
         unmockkObject(CompatibilityValidator)
         unmockkObject(AttachmentHasher)
     }
+
+    @Test
+    fun `Given addAttachmentDigest is called with an Attachment and a StreamedDownload, it fails, if the Attachment is not a Thumbnail and the AttachmentData is hashable and the Hash matches not the Download`() {
+        // Given
+        mockkObject(CompatibilityValidator)
+
+        val download = StreamedDownload("hash", 23)
+        val attachment: WrapperContract.Attachment = mockk()
+
+        every { attachment.id } returns "id"
+        every { attachment.hash } returns "oldHash"
+
+        every { CompatibilityValidator.isHashable(attachment) } returns true
+
+        // Then
+        val error = assertFailsWith<DataValidationException.InvalidAttachmentPayloadHash> {
+            // When
+            AttachmentDownloadHelper.addAttachmentDigest(attachment, download)
+        }
+
+        assertEquals(
+            actual = error.message,
+            expected = "Attachment hash is invalid"
+        )
+
+        verify(exactly = 0) { attachment.hash = any() }
+        verify(exactly = 0) { attachment.size = any() }
+
+        unmockkObject(CompatibilityValidator)
+    }
+
+    @Test
+    fun `Given addAttachmentDigest is called with an Attachment and a StreamedDownload, it sets the Hash and Size, if the Attachment is a Thumbnail`() {
+        // Given
+        val download = StreamedDownload("hash", 23)
+        val attachment: WrapperContract.Attachment = mockk()
+
+        every { attachment.id } returns "id#thumbnail"
+        every { attachment.hash = download.hash } just Runs
+        every { attachment.size = 23 } just Runs
+
+        // When
+        val modifiedAttachment = AttachmentDownloadHelper.addAttachmentDigest(attachment, download)
+
+        // Then
+        assertSame(
+            actual = modifiedAttachment,
+            expected = attachment
+        )
+
+        verify(exactly = 1) { attachment.hash = download.hash }
+        verify(exactly = 1) { attachment.size = 23 }
+        verify(exactly = 0) { attachment.data = any() }
+    }
 }
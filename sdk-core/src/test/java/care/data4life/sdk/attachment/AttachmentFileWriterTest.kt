@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.attachment
+
+import io.reactivex.Single
+import java.io.File
+import kotlin.test.assertFailsWith
+import kotlin.test.assertFalse
+import kotlin.test.assertSame
+import kotlin.test.assertTrue
+import org.junit.Test
+
+class AttachmentFileWriterTest {
+    @Test
+    fun `Given write is called with a File and a Download, it writes the Download into the File and returns its result`() {
+        // Given
+        val file = File.createTempFile("attachment", null).also { it.deleteOnExit() }
+        val content = ByteArray(23) { idx -> idx.toByte() }
+        val expected = Any()
+
+        // When
+        val actual = AttachmentFileWriter.write(file) { target ->
+            target.write(content)
+            Single.just(expected)
+        }.blockingGet()
+
+        // Then
+        assertSame(
+            expected = expected,
+            actual = actual
+        )
+        assertTrue(content.contentEquals(file.readBytes()))
+    }
+
+    @Test
+    fun `Given write is called with a File and a Download, it deletes the File, if the Download fails`() {
+        // Given
+        val file = File.createTempFile("attachment", null).also { it.deleteOnExit() }
+        val error = RuntimeException("Happy error path")
+
+        // Then
+        val actual = assertFailsWith<RuntimeException> {
+            // When
+            AttachmentFileWriter.write(file) { target ->
+                target.write(ByteArray(23))
+                Single.error<Any>(error)
+            }.blockingGet()
+        }
+
+        assertSame(
+            expected = error,
+            actual = actual
+        )
+        assertFalse(file.exists())
+    }
+}
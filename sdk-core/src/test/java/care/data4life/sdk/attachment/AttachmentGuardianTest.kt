@@ -17,6 +17,7 @@
 package care.data4life.sdk.attachment
 
 import care.data4life.sdk.lang.DataValidationException
+import care.data4life.sdk.util.Base64
 import care.data4life.sdk.wrapper.WrapperContract
 import io.mockk.every
 import io.mockk.mockk
@@ -236,6 +237,27 @@ class AttachmentGuardianTest {
         unmockkObject(AttachmentHasher)
     }
 
+    @Test
+    fun `Given, guardHash is called with a PreparedAttachment, it compares the AttachmentHash with the hash of its payload without decoding the AttachmentData again`() {
+        // Given
+        mockkObject(Base64)
+
+        val attachment: WrapperContract.Attachment = mockk()
+        val payload = "test".toByteArray()
+
+        every { attachment.data } returns "dGVzdA=="
+        every { attachment.hash } returns AttachmentHasher.hash(payload)
+
+        // When
+        val actual = AttachmentGuardian.guardHash(PreparedAttachment(attachment, payload))
+
+        // Then
+        assertTrue(actual)
+        verify(exactly = 0) { Base64.decode(any<String>()) }
+
+        unmockkObject(Base64)
+    }
+
     @Test
     fun `Given, guardHash is called with an Attachment and a ReferenceAttachment, it fails with a DataValidationException#ExpectedFieldViolation, if the Attachment has no hash`() {
         // Given
@@ -42,4 +42,22 @@ class AttachmentHasherTest {
             actual = hash
         )
     }
+
+    @Test
+    fun `Given encode is called with a Digest, which has been fed in chunks, it yields the same hash as hash`() {
+        // Given
+        val payload = "test".toByteArray()
+        val digest = AttachmentHasher.createDigest()
+
+        // When
+        digest.update(payload, 0, 1)
+        digest.update(payload, 1, payload.size - 1)
+        val hash = AttachmentHasher.encode(digest)
+
+        // Then
+        assertEquals(
+            expected = AttachmentHasher.hash(payload),
+            actual = hash
+        )
+    }
 }
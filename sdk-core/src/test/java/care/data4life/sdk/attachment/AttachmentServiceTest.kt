@@ -17,8 +17,10 @@
 package care.data4life.sdk.attachment
 
 import care.data4life.sdk.crypto.GCKey
+import care.data4life.sdk.lang.DataValidationException
 import care.data4life.sdk.test.util.GenericTestDataProvider.ATTACHMENT_ID
 import care.data4life.sdk.test.util.GenericTestDataProvider.USER_ID
+import care.data4life.sdk.util.Base64
 import care.data4life.sdk.util.Base64.encodeToString
 import care.data4life.sdk.wrapper.SdkImageResizer
 import care.data4life.sdk.wrapper.WrapperContract
@@ -34,6 +36,9 @@ import io.mockk.unmockkObject
 import io.mockk.verify
 import io.mockk.verifyOrder
 import io.reactivex.Single
+import io.reactivex.schedulers.Schedulers
+import java.io.ByteArrayOutputStream
+import java.util.concurrent.atomic.AtomicInteger
 import kotlin.test.assertEquals
 import kotlin.test.assertNull
 import kotlin.test.assertSame
@@ -51,7 +56,13 @@ class AttachmentServiceTest {
         clearAllMocks()
         mockkConstructor(SdkImageResizer::class)
 
-        service = AttachmentService(fileService, resizer)
+        service = AttachmentService(
+            fileService,
+            resizer,
+            concurrency = 1,
+            limiter = AttachmentTransferLimiter(1),
+            scheduler = Schedulers.trampoline()
+        )
     }
 
     @Test
@@ -244,8 +255,8 @@ class AttachmentServiceTest {
 
         every { anyConstructed<SdkImageResizer>().isResizable(data) } returns true
         every {
-            anyConstructed<SdkImageResizer>().resize(capture(originalData), any())
-        } answers { originalData.captured }
+            anyConstructed<SdkImageResizer>().resize(capture(originalData), any<List<Int>>())
+        } answers { listOf(originalData.captured, originalData.captured) }
 
         // When
         val uploaded = service.upload(listOf(attachment), attachmentKey, userId).blockingGet()
@@ -295,21 +306,17 @@ class AttachmentServiceTest {
         every {
             anyConstructed<SdkImageResizer>().resize(
                 data,
-                AttachmentContract.ImageResizer.DEFAULT_PREVIEW_SIZE_PX
+                listOf(
+                    AttachmentContract.ImageResizer.DEFAULT_PREVIEW_SIZE_PX,
+                    AttachmentContract.ImageResizer.DEFAULT_THUMBNAIL_SIZE_PX
+                )
             )
-        } returns preview
+        } returns listOf(preview, thumbnail)
 
         every {
             fileService.uploadFile(attachmentKey, userId, preview)
         } returns Single.just(previewId)
 
-        every {
-            anyConstructed<SdkImageResizer>().resize(
-                data,
-                AttachmentContract.ImageResizer.DEFAULT_THUMBNAIL_SIZE_PX
-            )
-        } returns thumbnail
-
         every {
             fileService.uploadFile(attachmentKey, userId, thumbnail)
         } returns Single.just(thumbnailId)
@@ -375,21 +382,17 @@ class AttachmentServiceTest {
         every {
             anyConstructed<SdkImageResizer>().resize(
                 data,
-                AttachmentContract.ImageResizer.DEFAULT_PREVIEW_SIZE_PX
+                listOf(
+                    AttachmentContract.ImageResizer.DEFAULT_PREVIEW_SIZE_PX,
+                    AttachmentContract.ImageResizer.DEFAULT_THUMBNAIL_SIZE_PX
+                )
             )
-        } returns preview
+        } returns listOf(preview, null)
 
         every {
             fileService.uploadFile(attachmentKey, userId, preview)
         } returns Single.just(previewId)
 
-        every {
-            anyConstructed<SdkImageResizer>().resize(
-                data,
-                AttachmentContract.ImageResizer.DEFAULT_THUMBNAIL_SIZE_PX
-            )
-        } returns null
-
         every {
             fileService.uploadFile(attachmentKey, userId, thumbnail)
         } returns Single.just(thumbnailId)
@@ -426,4 +429,274 @@ class AttachmentServiceTest {
         verify(exactly = 1) { attachment.id = receivedId }
         verify(exactly = 2) { fileService.uploadFile(any(), any(), any()) }
     }
+
+    @Test
+    fun `Given uploadOriginals is called with a list of Attachments, the AttachmentKey and the UserId, it uploads only the Attachments, which contain data, without resizing them`() {
+        // Given
+        val userId = USER_ID
+        val receivedId = "newId"
+        val attachment: WrapperContract.Attachment = mockk()
+        val attachmentWithoutData: WrapperContract.Attachment = mockk()
+        val data = "test".toByteArray()
+        val attachmentKey: GCKey = mockk()
+
+        every { attachment.data } returns encodeToString(data)
+        every { attachment.id = receivedId } just Runs
+        every { attachmentWithoutData.data } returns null
+        every {
+            fileService.uploadFile(attachmentKey, userId, data)
+        } returns Single.just(receivedId)
+
+        // When
+        val uploaded = service.uploadOriginals(
+            listOf(attachment, attachmentWithoutData),
+            attachmentKey,
+            userId
+        ).blockingGet()
+
+        // Then
+        assertEquals(
+            actual = uploaded,
+            expected = listOf(attachment)
+        )
+
+        verify(exactly = 1) { attachment.id = receivedId }
+        verify(exactly = 1) { fileService.uploadFile(any(), any(), any()) }
+        verify(exactly = 0) { anyConstructed<SdkImageResizer>().isResizable(any()) }
+    }
+
+    @Test
+    fun `Given uploadOriginals is called with a PreparedAttachment, the AttachmentKey and the UserId, it uploads its payload without decoding its data again`() {
+        // Given
+        mockkObject(Base64)
+
+        val userId = USER_ID
+        val receivedId = "newId"
+        val attachment: WrapperContract.Attachment = mockk()
+        val data = "test".toByteArray()
+        val attachmentKey: GCKey = mockk()
+
+        every { attachment.data } returns encodeToString(data)
+        every { attachment.id = receivedId } just Runs
+        every {
+            fileService.uploadFile(attachmentKey, userId, data)
+        } returns Single.just(receivedId)
+
+        // When
+        service.uploadOriginals(
+            listOf(PreparedAttachment(attachment, data)),
+            attachmentKey,
+            userId
+        ).blockingGet()
+
+        // Then
+        verify(exactly = 1) { fileService.uploadFile(attachmentKey, userId, data) }
+        verify(exactly = 1) { attachment.id = receivedId }
+        verify(exactly = 0) { Base64.decode(any<String>()) }
+
+        unmockkObject(Base64)
+    }
+
+    @Test
+    fun `Given uploadDownscaled is called with a list of uploaded Attachments and their data, the AttachmentKey and the UserId, it uploads only their downscaled images and returns the AdditionalIds`() {
+        // Given
+        val userId = USER_ID
+        val attachment: WrapperContract.Attachment = mockk()
+        val data = "test".toByteArray()
+        val attachmentKey: GCKey = mockk()
+
+        val preview = ByteArray(23)
+        val thumbnail = ByteArray(42)
+
+        val previewId = "prev"
+        val thumbnailId = "thumb"
+
+        every { anyConstructed<SdkImageResizer>().isResizable(data) } returns true
+        every {
+            anyConstructed<SdkImageResizer>().resize(
+                data,
+                listOf(
+                    AttachmentContract.ImageResizer.DEFAULT_PREVIEW_SIZE_PX,
+                    AttachmentContract.ImageResizer.DEFAULT_THUMBNAIL_SIZE_PX
+                )
+            )
+        } returns listOf(preview, thumbnail)
+
+        every {
+            fileService.uploadFile(attachmentKey, userId, preview)
+        } returns Single.just(previewId)
+
+        every {
+            fileService.uploadFile(attachmentKey, userId, thumbnail)
+        } returns Single.just(thumbnailId)
+
+        // When
+        val uploaded = service.uploadDownscaled(listOf(attachment to data), attachmentKey, userId).blockingGet()
+
+        // Then
+        assertEquals(
+            actual = uploaded,
+            expected = listOf(attachment to listOf(previewId, thumbnailId))
+        )
+
+        verify(exactly = 0) { fileService.uploadFile(attachmentKey, userId, data) }
+        verify(exactly = 2) { fileService.uploadFile(any(), any(), any()) }
+    }
+
+    @Test
+    fun `Given uploadStream is called with an Attachment, a UploadSource, AttachmentKey and UserId, it streams the Source and sets Id, Hash and Size`() {
+        // Given
+        val attachment: WrapperContract.Attachment = mockk(relaxed = true)
+        val source: AttachmentContract.UploadSource = mockk()
+        val attachmentKey: GCKey = mockk()
+        val userId = USER_ID
+        val upload = StreamedUpload("id", "hash", 23)
+
+        every { fileService.uploadStream(attachmentKey, userId, source) } returns Single.just(upload)
+
+        // When
+        val result = service.uploadStream(attachment, source, attachmentKey, userId).blockingGet()
+
+        // Then
+        assertSame(
+            actual = result,
+            expected = attachment
+        )
+        verify(exactly = 1) { attachment.id = upload.fileId }
+        verify(exactly = 1) { attachment.hash = upload.hash }
+        verify(exactly = 1) { attachment.size = 23 }
+        verify(exactly = 1) { attachment.data = null }
+        verify(exactly = 0) { fileService.uploadFile(any(), any(), any()) }
+    }
+
+    @Test
+    fun `Given uploadStream is called and the uploaded size does not fit into the Attachment, it fails with MaxDataSizeViolation`() {
+        // Given
+        val attachment: WrapperContract.Attachment = mockk(relaxed = true)
+        val source: AttachmentContract.UploadSource = mockk()
+        val attachmentKey: GCKey = mockk()
+        val userId = USER_ID
+        val upload = StreamedUpload("id", "hash", Int.MAX_VALUE + 1L)
+
+        every { fileService.uploadStream(attachmentKey, userId, source) } returns Single.just(upload)
+
+        // When
+        val subscriber = service.uploadStream(attachment, source, attachmentKey, userId).test().await()
+
+        // Then
+        subscriber.assertError(DataValidationException.MaxDataSizeViolation::class.java)
+        verify(exactly = 0) { attachment.size = any() }
+    }
+
+    @Test
+    fun `Given downloadTo is called with an Attachment, AttachmentKey, UserId and a Sink, it streams the File into the Sink and verifies it`() {
+        // Given
+        mockkObject(AttachmentDownloadHelper)
+
+        val attachment: WrapperContract.Attachment = mockk()
+        val attachmentKey: GCKey = mockk()
+        val userId = USER_ID
+        val derivedId = "id"
+        val sink = ByteArrayOutputStream()
+        val download = StreamedDownload("hash", 23)
+
+        every { AttachmentDownloadHelper.deriveAttachmentId(attachment) } returns derivedId
+        every {
+            fileService.downloadStream(attachmentKey, userId, derivedId, sink)
+        } returns Single.just(download)
+        every { AttachmentDownloadHelper.addAttachmentDigest(attachment, download) } returns attachment
+
+        // When
+        val result = service.downloadTo(attachment, attachmentKey, userId, sink).blockingGet()
+
+        // Then
+        assertSame(
+            actual = result,
+            expected = attachment
+        )
+        verifyOrder {
+            AttachmentDownloadHelper.deriveAttachmentId(attachment)
+            fileService.downloadStream(attachmentKey, userId, derivedId, sink)
+            AttachmentDownloadHelper.addAttachmentDigest(attachment, download)
+        }
+        verify(exactly = 0) { fileService.downloadFile(any(), any(), any()) }
+
+        unmockkObject(AttachmentDownloadHelper)
+    }
+
+    @Test
+    fun `Given download is called with a List of Attachments, the AttachmentKey and the UserId, it downloads them concurrently, while keeping their order`() {
+        // Given
+        mockkObject(AttachmentDownloadHelper)
+
+        val service = AttachmentService(fileService, resizer, 4, AttachmentTransferLimiter(4))
+        val attachmentKey: GCKey = mockk()
+        val attachments: List<WrapperContract.Attachment> = List(4) { mockk() }
+        val running = AtomicInteger(0)
+        val maxRunning = AtomicInteger(0)
+
+        attachments.forEachIndexed { idx, attachment ->
+            every { attachment.id } returns "$idx"
+            every { AttachmentDownloadHelper.deriveAttachmentId(attachment) } returns "$idx"
+            every {
+                AttachmentDownloadHelper.addAttachmentPayload(attachment, any())
+            } returns attachment
+        }
+        every { fileService.downloadFile(attachmentKey, USER_ID, any()) } answers {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), ::maxOf)
+            // the first attachment finishes last
+            Thread.sleep(if (thirdArg<String>() == "0") 200 else 50)
+            running.decrementAndGet()
+            Single.just(ByteArray(1))
+        }
+
+        // When
+        val downloaded = service.download(attachments, attachmentKey, USER_ID).blockingGet()
+
+        // Then
+        assertEquals(
+            expected = attachments,
+            actual = downloaded
+        )
+        assertTrue(maxRunning.get() > 1)
+
+        unmockkObject(AttachmentDownloadHelper)
+    }
+
+    @Test
+    fun `Given upload is called with a list of Attachments, it does not exceed the Limiter`() {
+        // Given
+        val service = AttachmentService(fileService, resizer, 4, AttachmentTransferLimiter(2))
+        val attachmentKey: GCKey = mockk()
+        val attachments: List<WrapperContract.Attachment> = List(6) { mockk(relaxed = true) }
+        val running = AtomicInteger(0)
+        val maxRunning = AtomicInteger(0)
+
+        attachments.forEachIndexed { idx, attachment ->
+            every { attachment.data } returns encodeToString(byteArrayOf(idx.toByte()))
+        }
+        every { anyConstructed<SdkImageResizer>().isResizable(any()) } returns false
+        every { fileService.uploadFile(attachmentKey, USER_ID, any()) } answers {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), ::maxOf)
+            Thread.sleep(50)
+            running.decrementAndGet()
+            Single.just("${thirdArg<ByteArray>()[0]}")
+        }
+
+        // When
+        val uploaded = service.upload(attachments, attachmentKey, USER_ID).blockingGet()
+
+        // Then
+        assertEquals(
+            expected = attachments,
+            actual = uploaded.map { (attachment, _) -> attachment }
+        )
+        assertEquals(
+            expected = 2,
+            actual = maxRunning.get()
+        )
+        attachments.forEachIndexed { idx, attachment ->
+            verify(exactly = 1) { attachment.id = "$idx" }
+        }
+    }
 }
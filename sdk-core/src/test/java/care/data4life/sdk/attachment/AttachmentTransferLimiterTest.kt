@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.attachment
+
+import io.reactivex.Single
+import io.reactivex.schedulers.Schedulers
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
+import kotlin.test.assertTrue
+import org.junit.Test
+
+class AttachmentTransferLimiterTest {
+    @Test
+    fun `It fulfils TransferLimiter`() {
+        val limiter: Any = AttachmentTransferLimiter(1)
+
+        assertTrue(limiter is AttachmentContract.TransferLimiter)
+    }
+
+    @Test
+    fun `Given a AttachmentTransferLimiter is created with a non positive number of transfers, it fails`() {
+        assertFailsWith<IllegalArgumentException> {
+            AttachmentTransferLimiter(0)
+        }
+    }
+
+    @Test
+    fun `Given limit is called with Transfers, it runs not more of them at once than it has slots`() {
+        // Given
+        val limiter = AttachmentTransferLimiter(2)
+        val running = AtomicInteger(0)
+        val maxRunning = AtomicInteger(0)
+        val transfer = Single.fromCallable {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), ::maxOf)
+            Thread.sleep(50)
+            running.decrementAndGet()
+        }
+
+        // When
+        val results = Single.merge(
+            List(6) { limiter.limit(transfer).subscribeOn(Schedulers.io()) }
+        ).toList().blockingGet()
+
+        // Then
+        assertEquals(
+            expected = 6,
+            actual = results.size
+        )
+        assertEquals(
+            expected = 2,
+            actual = maxRunning.get()
+        )
+        assertEquals(
+            expected = 2,
+            actual = limiter.availableSlots
+        )
+    }
+
+    @Test
+    fun `Given limit is called with a Transfer, which fails, it releases its slot`() {
+        // Given
+        val limiter = AttachmentTransferLimiter(1)
+        val error = RuntimeException("Happy error path")
+
+        // When
+        limiter.limit(Single.error<Any>(error)).test().assertError(error)
+
+        // Then
+        assertEquals(
+            expected = 1,
+            actual = limiter.availableSlots
+        )
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+package care.data4life.sdk.attachment
+
+import care.data4life.sdk.crypto.CryptoContract
+import care.data4life.sdk.crypto.CryptoContract.Service.Companion.IV_SIZE
+import care.data4life.sdk.crypto.CryptoContract.Service.Companion.TAG_SIZE
+import care.data4life.sdk.crypto.GCKey
+import care.data4life.sdk.lang.DataValidationException
+import care.data4life.sdk.network.NetworkingContract.Companion.MEDIA_TYPE_OCTET_STREAM
+import care.data4life.sdk.test.util.GenericTestDataProvider.PDF_OVERSIZED
+import care.data4life.sdk.test.util.GenericTestDataProvider.PDF_SMALL
+import io.mockk.every
+import io.mockk.mockk
+import java.io.ByteArrayInputStream
+import java.io.InputStream
+import java.io.OutputStream
+import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
+import kotlin.test.assertFalse
+import kotlin.test.assertSame
+import kotlin.test.assertTrue
+import okio.Buffer
+import org.junit.Test
+
+class EncryptedUploadBodyTest {
+    private val key: GCKey = mockk()
+    private val cryptoService: CryptoContract.Service = mockk()
+
+    private fun stubEncryption() {
+        every { cryptoService.encryptStream(key, any(), any()) } answers {
+            secondArg<InputStream>().copyTo(thirdArg<OutputStream>())
+        }
+    }
+
+    @Test
+    fun `Given a UploadSource with a known size, it reports the size of IV, ciphertext and tag as its length`() {
+        // Given
+        val body = EncryptedUploadBody(key, StreamUploadSource(ByteArrayInputStream(ByteArray(0)), 23), cryptoService)
+
+        // Then
+        assertEquals(IV_SIZE + 23L + TAG_SIZE / 8, body.contentLength())
+        assertEquals(MEDIA_TYPE_OCTET_STREAM, body.contentType().toString())
+    }
+
+    @Test
+    fun `Given a UploadSource with an unknown size, it reports an unknown length`() {
+        // Given
+        val body = EncryptedUploadBody(key, StreamUploadSource(ByteArrayInputStream(ByteArray(0))), cryptoService)
+
+        // Then
+        assertEquals(-1L, body.contentLength())
+    }
+
+    @Test
+    fun `Given a UploadSource, which is not repeatable, it is a one-shot body`() {
+        // Given
+        val streamBody = EncryptedUploadBody(key, StreamUploadSource(ByteArrayInputStream(ByteArray(0))), cryptoService)
+        val fileBody = EncryptedUploadBody(key, FileUploadSource(mockk()), cryptoService)
+
+        // Then
+        assertTrue(streamBody.isOneShot())
+        assertFalse(fileBody.isOneShot())
+    }
+
+    @Test
+    fun `Given writeTo is called, it encrypts the source into the sink and takes its hash and size on the fly`() {
+        // Given
+        val data = PDF_SMALL
+        val body = EncryptedUploadBody(key, StreamUploadSource(ByteArrayInputStream(data)), cryptoService)
+        val sink = Buffer()
+
+        stubEncryption()
+
+        // When
+        body.writeTo(sink)
+
+        // Then
+        assertTrue(data.contentEquals(sink.readByteArray()))
+        assertEquals(AttachmentHasher.hash(data), body.hash)
+        assertEquals(data.size.toLong(), body.size)
+    }
+
+    @Test
+    fun `Given the body has not been written, accessing its hash fails`() {
+        // Given
+        val body = EncryptedUploadBody(key, StreamUploadSource(ByteArrayInputStream(ByteArray(0))), cryptoService)
+
+        // Then
+        assertFailsWith<IllegalStateException> {
+            body.hash
+        }
+    }
+
+    @Test
+    fun `Given writeTo is called with a source of an unsupported file type, it fails with a Violation before writing`() {
+        // Given
+        val data = ByteArray(42) { idx -> idx.toByte() }
+        val body = EncryptedUploadBody(key, StreamUploadSource(ByteArrayInputStream(data)), cryptoService)
+        val sink = Buffer()
+
+        stubEncryption()
+
+        // Then
+        val error = assertFailsWith<RestrictedUploadStream.Violation> {
+            // When
+            body.writeTo(sink)
+        }
+
+        assertTrue(error.violation is DataValidationException.UnsupportedFileType)
+        assertEquals(0L, sink.size)
+    }
+
+    @Test
+    fun `Given writeTo is called with a source, which exceeds the maximum size, it fails with a Violation`() {
+        // Given
+        val body = EncryptedUploadBody(key, StreamUploadSource(ByteArrayInputStream(PDF_OVERSIZED)), cryptoService)
+
+        stubEncryption()
+
+        // Then
+        val error = assertFailsWith<RestrictedUploadStream.Violation> {
+            // When
+            body.writeTo(Buffer())
+        }
+
+        assertTrue(error.violation is DataValidationException.MaxDataSizeViolation)
+        assertSame(error.violation, error.cause)
+    }
+}
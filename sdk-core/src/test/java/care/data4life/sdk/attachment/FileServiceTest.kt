@@ -18,17 +18,33 @@ package care.data4life.sdk.attachment
 
 import care.data4life.sdk.crypto.CryptoContract
 import care.data4life.sdk.crypto.GCKey
+import care.data4life.sdk.crypto.error.CryptoException
+import care.data4life.sdk.config.DataRestriction.DATA_SIZE_MAX_BYTES
+import care.data4life.sdk.lang.DataValidationException
+import care.data4life.sdk.lang.FileException
 import care.data4life.sdk.network.NetworkingContract
 import care.data4life.sdk.test.util.GenericTestDataProvider.ALIAS
+import care.data4life.sdk.test.util.GenericTestDataProvider.PDF_SMALL
 import care.data4life.sdk.test.util.GenericTestDataProvider.USER_ID
+import io.mockk.Runs
 import io.mockk.clearAllMocks
 import io.mockk.every
+import io.mockk.just
 import io.mockk.mockk
+import io.mockk.verify
+import io.mockk.verifyOrder
 import io.reactivex.Single
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.InputStream
+import java.nio.ByteBuffer
 import kotlin.test.assertEquals
 import kotlin.test.assertFailsWith
 import kotlin.test.assertSame
 import kotlin.test.assertTrue
+import okhttp3.RequestBody
+import okhttp3.ResponseBody.Companion.toResponseBody
+import okio.Buffer
 import org.junit.Before
 import org.junit.Test
 
@@ -64,7 +80,9 @@ class FileServiceTest {
         every {
             apiService.downloadDocument(ALIAS, userId, fileId)
         } returns Single.just(encryptedFile)
-        every { cryptoService.decrypt(key, encryptedFile) } returns Single.just(decryptedFile)
+        every {
+            cryptoService.decryptBuffer(key, ByteBuffer.wrap(encryptedFile))
+        } returns Single.just(ByteBuffer.wrap(decryptedFile))
 
         // When
         val file = service.downloadFile(key, userId, fileId).blockingGet()
@@ -76,6 +94,107 @@ class FileServiceTest {
         )
     }
 
+    @Test
+    fun `Given downloadFile is called with Key, UserId and a FileId, while a BlobCache is used, it decrypts the cached File without downloading it`() {
+        // Given
+        val blobCache: AttachmentContract.BlobCache = mockk()
+        val service = FileService(ALIAS, apiService, cryptoService, blobCache)
+        val key: GCKey = mockk()
+        val fileId = "id"
+
+        val cachedFile = ByteBuffer.wrap(ByteArray(42))
+        val decryptedFile = ByteArray(23)
+
+        every { blobCache.get(fileId) } returns cachedFile
+        every {
+            cryptoService.decryptBuffer(key, cachedFile)
+        } returns Single.just(ByteBuffer.wrap(decryptedFile))
+
+        // When
+        val file = service.downloadFile(key, USER_ID, fileId).blockingGet()
+
+        // Then
+        assertSame(
+            actual = file,
+            expected = decryptedFile
+        )
+        verify(exactly = 0) { apiService.downloadDocument(any(), any(), any()) }
+    }
+
+    @Test
+    fun `Given downloadFile is called with Key, UserId and a FileId, while a BlobCache is used, it caches the encrypted File, if it is not cached yet`() {
+        // Given
+        val blobCache: AttachmentContract.BlobCache = mockk()
+        val service = FileService(ALIAS, apiService, cryptoService, blobCache)
+        val key: GCKey = mockk()
+        val fileId = "id"
+
+        val encryptedFile = ByteArray(42)
+        val decryptedFile = ByteArray(23)
+
+        every { blobCache.get(fileId) } returns null
+        every { blobCache.put(fileId, encryptedFile) } just Runs
+        every {
+            apiService.downloadDocument(ALIAS, USER_ID, fileId)
+        } returns Single.just(encryptedFile)
+        every {
+            cryptoService.decryptBuffer(key, ByteBuffer.wrap(encryptedFile))
+        } returns Single.just(ByteBuffer.wrap(decryptedFile))
+
+        // When
+        val file = service.downloadFile(key, USER_ID, fileId).blockingGet()
+
+        // Then
+        assertSame(
+            actual = file,
+            expected = decryptedFile
+        )
+        verifyOrder {
+            blobCache.put(fileId, encryptedFile)
+            cryptoService.decryptBuffer(key, ByteBuffer.wrap(encryptedFile))
+        }
+    }
+
+    @Test
+    fun `Given downloadFile is called with Key, UserId and a FileId, while a BlobCache is used, it drops a cached File, which cannot be decrypted, and downloads it again`() {
+        // Given
+        val blobCache: AttachmentContract.BlobCache = mockk()
+        val service = FileService(ALIAS, apiService, cryptoService, blobCache)
+        val key: GCKey = mockk()
+        val fileId = "id"
+
+        val cachedFile = ByteBuffer.wrap(ByteArray(7))
+        val encryptedFile = ByteArray(42)
+        val decryptedFile = ByteArray(23)
+
+        every { blobCache.get(fileId) } returns cachedFile
+        every { blobCache.remove(fileId) } just Runs
+        every { blobCache.put(fileId, encryptedFile) } just Runs
+        every {
+            cryptoService.decryptBuffer(key, cachedFile)
+        } returns Single.error(CryptoException.DecryptionFailed("Happy error path"))
+        every {
+            apiService.downloadDocument(ALIAS, USER_ID, fileId)
+        } returns Single.just(encryptedFile)
+        every {
+            cryptoService.decryptBuffer(key, ByteBuffer.wrap(encryptedFile))
+        } returns Single.just(ByteBuffer.wrap(decryptedFile))
+
+        // When
+        val file = service.downloadFile(key, USER_ID, fileId).blockingGet()
+
+        // Then
+        assertSame(
+            actual = file,
+            expected = decryptedFile
+        )
+        verifyOrder {
+            blobCache.remove(fileId)
+            apiService.downloadDocument(ALIAS, USER_ID, fileId)
+            blobCache.put(fileId, encryptedFile)
+        }
+    }
+
     @Test
     fun `Given downloadFile is called with Key, UserId and a FileId, it propagates errors`() {
         // Given
@@ -111,7 +230,9 @@ class FileServiceTest {
         val encryptedFile = ByteArray(42)
         val expectedFileId = "id"
 
-        every { cryptoService.encrypt(key, file) } returns Single.just(encryptedFile)
+        every {
+            cryptoService.encryptBuffer(key, ByteBuffer.wrap(file), false)
+        } returns Single.just(ByteBuffer.wrap(encryptedFile))
         every {
             apiService.uploadDocument(ALIAS, userId, encryptedFile)
         } returns Single.just(expectedFileId)
@@ -136,7 +257,7 @@ class FileServiceTest {
         val errorMessage = "Happy error path"
 
         every {
-            cryptoService.encrypt(key, file)
+            cryptoService.encryptBuffer(key, ByteBuffer.wrap(file), false)
         } returns Single.error(RuntimeException(errorMessage))
 
         // Then
@@ -170,4 +291,150 @@ class FileServiceTest {
             expected = result
         )
     }
+
+    @Test
+    fun `Given uploadStream is called with Key, UserId and a UploadSource, it encrypts the Source while uploading it and returns the FileId, Hash and Size`() {
+        // Given
+        val key: GCKey = mockk()
+        val userId = USER_ID
+        val file = PDF_SMALL
+        val expectedFileId = "id"
+        val uploaded = Buffer()
+
+        every { cryptoService.encryptStream(key, any(), any()) } answers {
+            secondArg<InputStream>().copyTo(thirdArg())
+        }
+        every {
+            apiService.uploadDocument(ALIAS, userId, any<RequestBody>())
+        } answers {
+            thirdArg<RequestBody>().writeTo(uploaded)
+            Single.just(expectedFileId)
+        }
+
+        // When
+        val upload = service.uploadStream(key, userId, StreamUploadSource(ByteArrayInputStream(file))).blockingGet()
+
+        // Then
+        assertEquals(
+            actual = upload,
+            expected = StreamedUpload(expectedFileId, AttachmentHasher.hash(file), file.size.toLong())
+        )
+        assertTrue(file.contentEquals(uploaded.readByteArray()))
+    }
+
+    @Test
+    fun `Given uploadStream is called with Key, UserId and a UploadSource, it propagates errors`() {
+        // Given
+        val key: GCKey = mockk()
+        val userId = USER_ID
+        val errorMessage = "Happy error path"
+
+        every {
+            apiService.uploadDocument(ALIAS, userId, any<RequestBody>())
+        } returns Single.error(RuntimeException(errorMessage))
+
+        // Then
+        val error = assertFailsWith<RuntimeException> {
+            // When
+            service.uploadStream(key, userId, StreamUploadSource(ByteArrayInputStream(ByteArray(1)))).blockingGet()
+        }
+
+        assertEquals(
+            actual = error.message,
+            expected = "care.data4life.sdk.lang.FileException\$UploadFailed: java.lang.RuntimeException: $errorMessage"
+        )
+    }
+
+    @Test
+    fun `Given uploadStream is called with a UploadSource of an unsupported file type, it fails with UnsupportedFileType`() {
+        // Given
+        val key: GCKey = mockk()
+        val userId = USER_ID
+
+        every { cryptoService.encryptStream(key, any(), any()) } answers {
+            secondArg<InputStream>().copyTo(thirdArg())
+        }
+        every {
+            apiService.uploadDocument(ALIAS, userId, any<RequestBody>())
+        } answers {
+            thirdArg<RequestBody>().writeTo(Buffer())
+            Single.just("id")
+        }
+
+        // When
+        val subscriber = service
+            .uploadStream(key, userId, StreamUploadSource(ByteArrayInputStream(ByteArray(23))))
+            .test()
+            .await()
+
+        // Then
+        subscriber.assertError(DataValidationException.UnsupportedFileType::class.java)
+    }
+
+    @Test
+    fun `Given uploadStream is called with a UploadSource, which announces a size above the maximum, it fails without uploading`() {
+        // Given
+        val key: GCKey = mockk()
+        val userId = USER_ID
+        val source = StreamUploadSource(ByteArrayInputStream(PDF_SMALL), DATA_SIZE_MAX_BYTES + 1L)
+
+        // When
+        val subscriber = service.uploadStream(key, userId, source).test().await()
+
+        // Then
+        subscriber.assertError(DataValidationException.MaxDataSizeViolation::class.java)
+        verify(exactly = 0) { apiService.uploadDocument(any(), any(), any<RequestBody>()) }
+    }
+
+    @Test
+    fun `Given downloadStream is called with Key, UserId, a FileId and a Sink, it decrypts the File into the Sink and returns its Hash and Size`() {
+        // Given
+        val key: GCKey = mockk()
+        val userId = USER_ID
+        val fileId = "id"
+        val file = ByteArray(23) { idx -> idx.toByte() }
+        val sink = ByteArrayOutputStream()
+
+        every {
+            apiService.streamDocument(ALIAS, userId, fileId)
+        } returns Single.just(file.toResponseBody())
+        every { cryptoService.decryptStream(key, any(), any()) } answers {
+            secondArg<InputStream>().copyTo(thirdArg())
+        }
+
+        // When
+        val download = service.downloadStream(key, userId, fileId, sink).blockingGet()
+
+        // Then
+        assertEquals(
+            actual = download,
+            expected = StreamedDownload(AttachmentHasher.hash(file), file.size.toLong())
+        )
+        assertTrue(file.contentEquals(sink.toByteArray()))
+    }
+
+    @Test
+    fun `Given downloadStream is called with Key, UserId, a FileId and a Sink, it propagates errors`() {
+        // Given
+        val key: GCKey = mockk()
+        val userId = USER_ID
+        val fileId = "id"
+        val errorMessage = "Happy error path"
+
+        every {
+            apiService.streamDocument(ALIAS, userId, fileId)
+        } returns Single.just(ByteArray(1).toResponseBody())
+        every {
+            cryptoService.decryptStream(key, any(), any())
+        } throws CryptoException.DecryptionFailed(errorMessage)
+
+        // Then
+        val error = assertFailsWith<RuntimeException> {
+            // When
+            service.downloadStream(key, userId, fileId, ByteArrayOutputStream()).blockingGet()
+        }
+
+        assertTrue(error is FileException.DownloadFailed)
+        assertTrue(error.cause is CryptoException.DecryptionFailed)
+    }
 }
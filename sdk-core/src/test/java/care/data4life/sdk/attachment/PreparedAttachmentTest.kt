@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.attachment
+
+import care.data4life.sdk.util.Base64
+import care.data4life.sdk.util.MimeType
+import care.data4life.sdk.wrapper.WrapperContract
+import io.mockk.every
+import io.mockk.mockk
+import io.mockk.mockkObject
+import io.mockk.unmockkObject
+import io.mockk.verify
+import kotlin.test.assertEquals
+import kotlin.test.assertNull
+import kotlin.test.assertSame
+import kotlin.test.assertTrue
+import org.junit.Test
+
+class PreparedAttachmentTest {
+    @Test
+    fun `It fulfils Attachment`() {
+        val attachment: Any = PreparedAttachment(mockk(), ByteArray(0))
+
+        assertTrue(attachment is WrapperContract.Attachment)
+    }
+
+    @Test
+    fun `Given prepare is called with an Attachment, which has no data, it returns null`() {
+        // Given
+        val attachment: WrapperContract.Attachment = mockk()
+
+        every { attachment.data } returns null
+
+        // When
+        val prepared = PreparedAttachment.prepare(attachment)
+
+        // Then
+        assertNull(prepared)
+    }
+
+    @Test
+    fun `Given prepare is called with an Attachment, which has data, it decodes the data once and derives its size, MimeType and hash from the payload`() {
+        // Given
+        mockkObject(Base64, AttachmentHasher)
+
+        val attachment: WrapperContract.Attachment = mockk()
+        val payload = byteArrayOf(0x25, 0x50, 0x44, 0x46, 0x2d) // %PDF-
+        val encodedPayload = Base64.encodeToString(payload)
+
+        every { attachment.data } returns encodedPayload
+        every { attachment.id } returns "id"
+
+        // When
+        val prepared = PreparedAttachment.prepare(attachment)!!
+
+        // Then
+        assertTrue(prepared.payload.contentEquals(payload))
+        assertEquals(
+            expected = payload.size,
+            actual = prepared.payloadSize
+        )
+        assertEquals(
+            expected = MimeType.PDF,
+            actual = prepared.mimeType
+        )
+        assertSame(
+            expected = prepared.payloadHash,
+            actual = prepared.payloadHash
+        )
+        assertSame(
+            expected = "id",
+            actual = prepared.id
+        )
+
+        verify(exactly = 1) { Base64.decode(encodedPayload) }
+        verify(exactly = 1) { AttachmentHasher.hash(prepared.payload) }
+
+        unmockkObject(Base64, AttachmentHasher)
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+package care.data4life.sdk.crypto
+package care.data4life.sdk.attachment
+
+import io.reactivex.Completable
+import io.reactivex.schedulers.TestScheduler
+import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
+import kotlin.test.assertTrue
+import org.junit.Test
+
+class ThumbnailServiceTest {
+    @Test
+    fun `It fulfils ThumbnailService`() {
+        val service: Any = ThumbnailService()
+
+        assertTrue(service is AttachmentContract.ThumbnailService)
+    }
+
+    @Test
+    fun `Given a non positive capacity, it fails`() {
+        assertFailsWith<IllegalArgumentException> {
+            ThumbnailService(0)
+        }
+    }
+
+    @Test
+    fun `Given schedule is called with a Job, it runs the Job on the Scheduler`() {
+        // Given
+        val scheduler = TestScheduler()
+        val service = ThumbnailService(2, 1, scheduler)
+        var runs = 0
+
+        // When
+        service.schedule(Completable.fromAction { runs++ })
+
+        // Then
+        assertEquals(0, runs)
+        assertEquals(1, service.pending)
+
+        scheduler.triggerActions()
+        assertEquals(1, runs)
+        assertEquals(0, service.pending)
+    }
+
+    @Test
+    fun `Given schedule is called, while the queue is full, it runs the Job on the calling thread`() {
+        // Given
+        val scheduler = TestScheduler()
+        val service = ThumbnailService(1, 1, scheduler)
+        val runs = mutableListOf<String>()
+
+        service.schedule(Completable.fromAction { runs.add("queued") })
+
+        // When
+        service.schedule(Completable.fromAction { runs.add("overflow") })
+
+        // Then
+        assertEquals(listOf("overflow"), runs)
+        assertEquals(1, service.pending)
+
+        scheduler.triggerActions()
+        assertEquals(listOf("overflow", "queued"), runs)
+        assertEquals(0, service.pending)
+    }
+
+    @Test
+    fun `Given a Job fails, it continues with the next Job`() {
+        // Given
+        val scheduler = TestScheduler()
+        val service = ThumbnailService(2, 1, scheduler)
+        var runs = 0
+
+        service.schedule(Completable.error(RuntimeException("failed")))
+        service.schedule(Completable.fromAction { runs++ })
+
+        // When
+        scheduler.triggerActions()
+
+        // Then
+        assertEquals(1, runs)
+        assertEquals(0, service.pending)
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+package care.data4life.sdk.attachment
+
+import java.io.ByteArrayInputStream
+import java.io.File
+import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
+import kotlin.test.assertFalse
+import kotlin.test.assertNull
+import kotlin.test.assertSame
+import kotlin.test.assertTrue
+import org.junit.Test
+
+class UploadSourceTest {
+    @Test
+    fun `Given a FileUploadSource, it reports the size of the File and can be opened repeatedly`() {
+        // Given
+        val file = File.createTempFile("upload", ".bin")
+        file.deleteOnExit()
+        file.writeBytes(ByteArray(23) { idx -> idx.toByte() })
+
+        val source = FileUploadSource(file)
+
+        // Then
+        assertEquals(23L, source.size)
+        assertTrue(source.isRepeatable)
+        assertEquals(23, source.open().use { it.readBytes() }.size)
+        assertEquals(23, source.open().use { it.readBytes() }.size)
+    }
+
+    @Test
+    fun `Given a StreamUploadSource, it hands out its stream only once`() {
+        // Given
+        val stream = ByteArrayInputStream(ByteArray(23))
+        val source = StreamUploadSource(stream)
+
+        // Then
+        assertNull(source.size)
+        assertFalse(source.isRepeatable)
+        assertSame(stream, source.open())
+        assertFailsWith<IllegalStateException> {
+            source.open()
+        }
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.auth
+
+import care.data4life.sdk.crypto.CryptoContract
+import care.data4life.sdk.crypto.GCKey
+import care.data4life.sdk.crypto.GCKeyPair
+import care.data4life.sdk.network.NetworkingContract
+import care.data4life.sdk.network.model.EncryptedKey
+import care.data4life.sdk.network.model.UserInfo
+import care.data4life.sdk.test.util.GenericTestDataProvider.ALIAS
+import care.data4life.sdk.test.util.GenericTestDataProvider.COMMON_KEY_ID
+import care.data4life.sdk.test.util.GenericTestDataProvider.USER_ID
+import io.mockk.Runs
+import io.mockk.every
+import io.mockk.just
+import io.mockk.mockk
+import io.mockk.verify
+import io.reactivex.Completable
+import io.reactivex.Single
+import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
+import kotlin.test.assertSame
+import kotlin.test.assertTrue
+import okhttp3.ResponseBody.Companion.toResponseBody
+import org.junit.Before
+import org.junit.Test
+import retrofit2.HttpException
+import retrofit2.Response
+
+class SessionContextTest {
+    private lateinit var userService: AuthContract.UserService
+    private val authService: AuthorizationContract.Service = mockk()
+    private val apiService: NetworkingContract.Service = mockk()
+    private val secureStore: CryptoContract.SecureStore = mockk()
+    private val cryptoService: CryptoContract.Service = mockk()
+    private val userInfo: UserInfo = mockk()
+
+    @Before
+    fun setUp() {
+        userService = UserService(
+            ALIAS,
+            authService,
+            apiService,
+            secureStore,
+            cryptoService
+        )
+
+        val encryptedCommonKey: EncryptedKey = mockk()
+        val encryptedTagEncryptionKey: EncryptedKey = mockk()
+        val keyPair: GCKeyPair = mockk()
+        val commonKey: GCKey = mockk()
+        val tagEncryptionKey: GCKey = mockk()
+
+        every { userInfo.userId } returns USER_ID
+        every { userInfo.commonKeyId } returns COMMON_KEY_ID
+        every { userInfo.encryptedCommonKey } returns encryptedCommonKey
+        every { userInfo.encryptedTagEncryptionKey } returns encryptedTagEncryptionKey
+
+        every { apiService.fetchUserInfo(ALIAS) } returns Single.just(userInfo)
+        every { cryptoService.fetchGCKeyPair() } returns Single.just(keyPair)
+        every {
+            cryptoService.asymDecryptSymetricKey(keyPair, encryptedCommonKey)
+        } returns Single.just(commonKey)
+        every {
+            cryptoService.symDecryptSymmetricKey(commonKey, encryptedTagEncryptionKey)
+        } returns Single.just(tagEncryptionKey)
+        every { cryptoService.storeCommonKey(COMMON_KEY_ID, commonKey) } just Runs
+        every { cryptoService.storeCurrentCommonKeyId(COMMON_KEY_ID) } just Runs
+        every { cryptoService.storeTagEncryptionKey(tagEncryptionKey) } just Runs
+        every { cryptoService.currentCommonKeyId } returns COMMON_KEY_ID
+        every { cryptoService.hasCommonKey(COMMON_KEY_ID) } returns true
+
+        every { secureStore.storeSecret("${ALIAS}_user_id", USER_ID) } just Runs
+        every { secureStore.getSecret("${ALIAS}_user_id", String::class.java) } returns USER_ID
+    }
+
+    @Test
+    fun `it fulfils SessionContext`() {
+        val session: Any = SessionContext(mockk(), mockk())
+
+        assertTrue(session is AuthContract.SessionContext)
+    }
+
+    @Test
+    fun `Given execute is called N times, it finishes the login only once`() {
+        // Given
+        val operations = 42
+        val resolvedUserIds = mutableListOf<String>()
+
+        // When
+        repeat(operations) {
+            userService.session.execute { userId ->
+                Single.just(userId)
+            }.blockingGet().also { resolvedUserIds.add(it) }
+        }
+
+        // Then
+        assertEquals(
+            actual = resolvedUserIds,
+            expected = List(operations) { USER_ID }
+        )
+        verify(exactly = 1) { apiService.fetchUserInfo(ALIAS) }
+        verify(exactly = 1) { cryptoService.fetchGCKeyPair() }
+        verify(exactly = 1) { secureStore.storeSecret("${ALIAS}_user_id", USER_ID) }
+    }
+
+    @Test
+    fun `Given userId is resolved, it reuses the established session`() {
+        // When
+        val userIds = List(3) { userService.session.userId.blockingGet() }
+
+        // Then
+        assertEquals(
+            actual = userIds,
+            expected = listOf(USER_ID, USER_ID, USER_ID)
+        )
+        verify(exactly = 1) { apiService.fetchUserInfo(ALIAS) }
+    }
+
+    @Test
+    fun `Given an operation fails with 401, it refreshes the session on the next call`() {
+        // Given
+        val error = HttpException(Response.error<Any>(401, "".toResponseBody()))
+
+        userService.session.execute { userId -> Single.just(userId) }.blockingGet()
+
+        // When
+        val actual = assertFailsWith<HttpException> {
+            userService.session.execute<String> { Single.error(error) }.blockingGet()
+        }
+        userService.session.execute { userId -> Single.just(userId) }.blockingGet()
+
+        // Then
+        assertSame(
+            actual = actual,
+            expected = error
+        )
+        verify(exactly = 2) { apiService.fetchUserInfo(ALIAS) }
+    }
+
+    @Test
+    fun `Given an operation fails with any other error, it keeps the session`() {
+        // Given
+        val error = RuntimeException("not important")
+
+        userService.session.execute { userId -> Single.just(userId) }.blockingGet()
+
+        // When
+        assertFailsWith<RuntimeException> {
+            userService.session.execute<String> { Single.error(error) }.blockingGet()
+        }
+        userService.session.execute { userId -> Single.just(userId) }.blockingGet()
+
+        // Then
+        verify(exactly = 1) { apiService.fetchUserInfo(ALIAS) }
+    }
+
+    @Test
+    fun `Given the CommonKey of the session is unknown, it refreshes the session`() {
+        // Given
+        userService.session.execute { userId -> Single.just(userId) }.blockingGet()
+
+        every { cryptoService.hasCommonKey(COMMON_KEY_ID) } returns false
+
+        // When
+        userService.session.execute { userId -> Single.just(userId) }.blockingGet()
+
+        // Then
+        verify(exactly = 2) { apiService.fetchUserInfo(ALIAS) }
+    }
+
+    @Test
+    fun `Given the User logs out, it refreshes the session on the next call`() {
+        // Given
+        every { apiService.logout(ALIAS) } returns Completable.complete()
+        every { secureStore.clear() } just Runs
+        every { cryptoService.clearKeyCache() } just Runs
+
+        userService.session.execute { userId -> Single.just(userId) }.blockingGet()
+
+        // When
+        userService.logout().blockingAwait()
+        userService.session.execute { userId -> Single.just(userId) }.blockingGet()
+
+        // Then
+        verify(exactly = 2) { apiService.fetchUserInfo(ALIAS) }
+    }
+
+    @Test
+    fun `Given the login fails, it does not keep the failed session`() {
+        // Given
+        val error = RuntimeException("not important")
+
+        every { apiService.fetchUserInfo(ALIAS) } returns Single.error(error) andThen Single.just(userInfo)
+
+        // When
+        assertFailsWith<RuntimeException> {
+            userService.session.userId.blockingGet()
+        }
+        val userId = userService.session.userId.blockingGet()
+
+        // Then
+        assertEquals(
+            actual = userId,
+            expected = USER_ID
+        )
+        verify(exactly = 2) { apiService.fetchUserInfo(ALIAS) }
+    }
+}
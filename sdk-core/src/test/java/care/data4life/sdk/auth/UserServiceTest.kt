@@ -16,6 +16,7 @@
 
 package care.data4life.sdk.auth
 
+import care.data4life.sdk.attachment.AttachmentContract
 import care.data4life.sdk.crypto.CryptoContract
 import care.data4life.sdk.crypto.GCKey
 import care.data4life.sdk.crypto.GCKeyPair
@@ -23,6 +24,7 @@ import care.data4life.sdk.log.Log
 import care.data4life.sdk.network.NetworkingContract
 import care.data4life.sdk.network.model.EncryptedKey
 import care.data4life.sdk.network.model.UserInfo
+import care.data4life.sdk.record.RecordContract
 import care.data4life.sdk.test.util.GenericTestDataProvider.ALIAS
 import care.data4life.sdk.test.util.GenericTestDataProvider.COMMON_KEY_ID
 import care.data4life.sdk.test.util.GenericTestDataProvider.USER_ID
@@ -128,6 +130,7 @@ class UserServiceTest {
         // Given
         every { apiService.logout(ALIAS) } returns Completable.fromAction { /* noop */ }
         every { secureStore.clear() } just Runs
+        every { cryptoService.clearKeyCache() } just Runs
 
         // When
         val loggedInState = service.logout().blockingGet()
@@ -135,6 +138,50 @@ class UserServiceTest {
         // Then
         assertNull(loggedInState)
         verify(exactly = 1) { secureStore.clear() }
+        verify(exactly = 1) { cryptoService.clearKeyCache() }
+    }
+
+    @Test
+    fun `Given logout is called, it clears the RecordCache and the BlobCache`() {
+        // Given
+        val recordCache: RecordContract.Cache = mockk()
+        val blobCache: AttachmentContract.BlobCache = mockk()
+        val service = UserService(ALIAS, authService, apiService, secureStore, cryptoService, recordCache, blobCache)
+
+        every { apiService.logout(ALIAS) } returns Completable.fromAction { /* noop */ }
+        every { secureStore.clear() } just Runs
+        every { cryptoService.clearKeyCache() } just Runs
+        every { recordCache.clear() } just Runs
+        every { blobCache.clear() } just Runs
+
+        // When
+        service.logout().blockingAwait()
+
+        // Then
+        verify(exactly = 1) { recordCache.clear() }
+        verify(exactly = 1) { blobCache.clear() }
+    }
+
+    @Test
+    fun `Given logout is called and the logout fails, it keeps the RecordCache and the BlobCache`() {
+        // Given
+        mockkObject(Log)
+        val error = RuntimeException("Does not matter")
+        val recordCache: RecordContract.Cache = mockk()
+        val blobCache: AttachmentContract.BlobCache = mockk()
+        val service = UserService(ALIAS, authService, apiService, secureStore, cryptoService, recordCache, blobCache)
+
+        every { apiService.logout(ALIAS) } returns Completable.fromAction { throw error }
+        every { Log.error(error, "Failed to logout") } just Runs
+
+        // When
+        service.logout().blockingGet()
+
+        // Then
+        verify(exactly = 0) { recordCache.clear() }
+        verify(exactly = 0) { blobCache.clear() }
+
+        unmockkObject(Log)
     }
 
     @Test
@@ -156,6 +203,7 @@ class UserServiceTest {
             expected = error
         )
         verify(exactly = 0) { secureStore.clear() }
+        verify(exactly = 0) { cryptoService.clearKeyCache() }
         verify(exactly = 1) { Log.error(error, "Failed to logout") }
 
         unmockkObject(Log)
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.crypto
+
+import care.data4life.sdk.crypto.error.CryptoException
+import io.mockk.Runs
+import io.mockk.every
+import io.mockk.just
+import io.mockk.mockk
+import io.mockk.verify
+import kotlin.test.assertEquals
+import kotlin.test.assertFalse
+import kotlin.test.assertSame
+import kotlin.test.assertTrue
+import org.junit.Before
+import org.junit.Test
+
+class CommonKeyServiceCacheTest {
+    private val storage: CryptoContract.SecureStore = mockk()
+    private val keyFactory: KeyFactory = mockk()
+    private val commonKey: GCKey = mockk()
+    private val exchangeKey: ExchangeKey = mockk()
+    private lateinit var commonKeyService: CommonKeyService
+
+    @Before
+    fun setUp() {
+        commonKeyService = CommonKeyService(ALIAS, storage, keyFactory)
+
+        every { storage.getSecret(ALIAS_CURRENT_COMMON_KEY_ID) } returns COMMON_KEY_ID.toCharArray()
+        every { storage.getExchangeKey(ALIAS_COMMON_KEY) } returns exchangeKey
+        every { keyFactory.createGCKey(exchangeKey) } returns commonKey
+    }
+
+    @Test
+    fun `Given fetchCurrentCommonKey is called repeatedly, it reads the SecureStore only once`() {
+        // When
+        val keys = List(42) { commonKeyService.fetchCurrentCommonKey() }
+
+        // Then
+        keys.forEach { key -> assertSame(commonKey, key) }
+        verify(exactly = 1) { storage.getSecret(ALIAS_CURRENT_COMMON_KEY_ID) }
+        verify(exactly = 1) { storage.getExchangeKey(ALIAS_COMMON_KEY) }
+        verify(exactly = 1) { keyFactory.createGCKey(exchangeKey) }
+    }
+
+    @Test
+    fun `Given no current common key id is stored, it falls back to the default id without caching it`() {
+        // Given
+        every {
+            storage.getSecret(ALIAS_CURRENT_COMMON_KEY_ID)
+        } throws CryptoException.DecryptionFailed("Failed to decrypt data")
+
+        // When
+        commonKeyService.fetchCurrentCommonKeyId()
+        val id = commonKeyService.fetchCurrentCommonKeyId()
+
+        // Then
+        assertEquals(
+            expected = CryptoInternalContract.CommonKeyService.DEFAULT_COMMON_KEY_ID,
+            actual = id
+        )
+        verify(exactly = 2) { storage.getSecret(ALIAS_CURRENT_COMMON_KEY_ID) }
+    }
+
+    @Test
+    fun `Given a common key was stored, it is served without reading the SecureStore`() {
+        // Given
+        every { storage.storeKey(ALIAS_COMMON_KEY, commonKey, KeyType.COMMON_KEY) } just Runs
+        every { storage.storeSecret(ALIAS_CURRENT_COMMON_KEY_ID, any<CharArray>()) } just Runs
+
+        // When
+        commonKeyService.storeCommonKey(COMMON_KEY_ID, commonKey)
+        commonKeyService.storeCurrentCommonKeyId(COMMON_KEY_ID)
+
+        // Then
+        assertTrue(commonKeyService.hasCommonKey(COMMON_KEY_ID))
+        assertSame(commonKey, commonKeyService.fetchCurrentCommonKey())
+        verify(exactly = 0) { storage.contains(any()) }
+        verify(exactly = 0) { storage.getSecret(ALIAS_CURRENT_COMMON_KEY_ID) }
+        verify(exactly = 0) { storage.getExchangeKey(any()) }
+    }
+
+    @Test
+    fun `Given clearCache is called, it reads the SecureStore again`() {
+        // Given
+        every { storage.contains(ALIAS_COMMON_KEY) } returns false
+
+        commonKeyService.fetchCurrentCommonKey()
+
+        // When
+        commonKeyService.clearCache()
+
+        // Then
+        assertFalse(commonKeyService.hasCommonKey(COMMON_KEY_ID))
+        commonKeyService.fetchCurrentCommonKey()
+        verify(exactly = 2) { storage.getSecret(ALIAS_CURRENT_COMMON_KEY_ID) }
+        verify(exactly = 2) { storage.getExchangeKey(ALIAS_COMMON_KEY) }
+    }
+
+    private companion object {
+        const val ALIAS = "alias"
+        const val COMMON_KEY_ID = "11111111-1111-1111-1111-111111111111"
+        const val ALIAS_CURRENT_COMMON_KEY_ID = "${ALIAS}_crypto_current_common_key_id"
+        const val ALIAS_COMMON_KEY = "${ALIAS}_crypto_common_key_$COMMON_KEY_ID"
+    }
+}
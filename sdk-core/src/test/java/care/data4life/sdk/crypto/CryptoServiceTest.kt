@@ -16,8 +16,12 @@
 
 package care.data4life.sdk.crypto
 
+import care.data4life.sdk.crypto.CryptoContract.Service.Companion.IV_SIZE
+import care.data4life.sdk.crypto.CryptoContract.Service.Companion.STREAM_BUFFER_SIZE
+import care.data4life.sdk.crypto.CryptoContract.Service.Companion.TAG_SIZE
 import care.data4life.sdk.crypto.ExchangeKeyFactory.createKey
 import care.data4life.sdk.crypto.GCAESKeyAlgorithm.Companion.createDataAlgorithm
+import care.data4life.sdk.crypto.error.CryptoException.DecryptionFailed
 import care.data4life.sdk.crypto.error.CryptoException.InvalidKeyVersion
 import care.data4life.sdk.crypto.error.CryptoException.KeyDecryptionFailed
 import care.data4life.sdk.crypto.error.CryptoException.KeyFetchingFailed
@@ -32,7 +36,10 @@ import io.mockk.mockk
 import io.mockk.runs
 import io.mockk.slot
 import io.mockk.verify
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
 import java.io.IOException
+import java.nio.ByteBuffer
 import java.security.InvalidAlgorithmParameterException
 import java.security.InvalidKeyException
 import java.security.Key
@@ -52,6 +59,11 @@ import javax.crypto.IllegalBlockSizeException
 import javax.crypto.KeyGenerator
 import javax.crypto.NoSuchPaddingException
 import javax.crypto.SecretKey
+import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
+import kotlin.test.assertNull
+import kotlin.test.assertSame
+import kotlin.test.assertTrue
 import org.junit.Assert
 import org.junit.Before
 import org.junit.Test
@@ -111,6 +123,16 @@ class CryptoServiceTest {
             cipher.init(1, any(), any<AlgorithmParameterSpec>())
         } just Runs
         every { cipher.init(2, keyPair.privateKey?.value) } just runs
+        every {
+            cipher.init(2, any(), any<AlgorithmParameterSpec>())
+        } just Runs
+        every { cipher.getOutputSize(any()) } answers { firstArg<Int>() + TAG_SIZE / 8 }
+        every { cipher.doFinal(any<ByteBuffer>(), any<ByteBuffer>()) } answers {
+            val input = firstArg<ByteBuffer>()
+            val size = input.remaining()
+            secondArg<ByteBuffer>().put(input)
+            size
+        }
 
         every { mockStorage.deleteSecret(any()) } just runs
 
@@ -163,6 +185,136 @@ class CryptoServiceTest {
             .assertComplete()
     }
 
+    @Test
+    fun `Given encryptBuffer is called with a Key and a Buffer, it writes the IV and the ciphertext into one buffer`() {
+        // Given
+        val service = createCipherBackedService()
+        val key = createDataKey()
+        val data = ByteArray(42) { idx -> idx.toByte() }
+
+        // When
+        val encrypted = service.encryptBuffer(key, ByteBuffer.wrap(data), false).blockingGet()
+
+        // Then
+        assertEquals(0, encrypted.position())
+        assertEquals(IV_SIZE + data.size + TAG_SIZE / 8, encrypted.limit())
+        assertEquals(encrypted.capacity(), encrypted.limit())
+    }
+
+    @Test
+    fun `Given decryptBuffer is called with an encrypted Buffer, it decrypts it in place`() {
+        // Given
+        val service = createCipherBackedService()
+        val key = createDataKey()
+        val data = ByteArray(42) { idx -> idx.toByte() }
+        val encrypted = service.encryptBuffer(key, ByteBuffer.wrap(data), false).blockingGet()
+
+        // When
+        val decrypted = service.decryptBuffer(key, encrypted).blockingGet()
+
+        // Then
+        assertSame(encrypted.array(), decrypted.array())
+        assertTrue(data.contentEquals(decrypted.toByteArray()))
+    }
+
+    @Test
+    fun `Given encryptBuffer is called with direct, it allocates a direct Buffer, which decryptBuffer decrypts`() {
+        // Given
+        val service = createCipherBackedService()
+        val key = createDataKey()
+        val data = ByteArray(42) { idx -> idx.toByte() }
+
+        // When
+        val encrypted = service.encryptBuffer(key, ByteBuffer.wrap(data), true).blockingGet()
+        val decrypted = service.decryptBuffer(key, encrypted).blockingGet()
+
+        // Then
+        assertTrue(encrypted.isDirect)
+        assertTrue(data.contentEquals(decrypted.toByteArray()))
+    }
+
+    @Test
+    fun `Given decryptBuffer is called with a tampered Buffer, it fails with a DecryptionFailed`() {
+        // Given
+        val service = createCipherBackedService()
+        val key = createDataKey()
+        val encrypted = service.encryptBuffer(key, ByteBuffer.wrap(ByteArray(42)), false).blockingGet()
+        encrypted.put(IV_SIZE, (encrypted.get(IV_SIZE) + 1).toByte())
+
+        // When
+        service.decryptBuffer(key, encrypted)
+            .test()
+            .await()
+            // Then
+            .assertError(DecryptionFailed::class.java)
+    }
+
+    @Test
+    fun `Given encryptStream is called with a Key, a Source and a Sink, it streams the IV and the ciphertext into the Sink`() {
+        // Given
+        val service = createCipherBackedService()
+        val key = createDataKey()
+        val data = ByteArray(STREAM_BUFFER_SIZE * 2 + 42) { idx -> idx.toByte() }
+        val sink = ByteArrayOutputStream()
+
+        // When
+        val size = service.encryptStream(key, ByteArrayInputStream(data), sink)
+
+        // Then
+        assertEquals(data.size.toLong(), size)
+        assertEquals(IV_SIZE + data.size + TAG_SIZE / 8, sink.size())
+
+        val decrypted = service.decryptBuffer(key, ByteBuffer.wrap(sink.toByteArray())).blockingGet()
+        assertTrue(data.contentEquals(decrypted.toByteArray()))
+    }
+
+    @Test
+    fun `Given decryptStream is called with a Key, a Source and a Sink, it streams the plaintext into the Sink`() {
+        // Given
+        val service = createCipherBackedService()
+        val key = createDataKey()
+        val data = ByteArray(STREAM_BUFFER_SIZE * 2 + 42) { idx -> idx.toByte() }
+        val encrypted = service.encryptBuffer(key, ByteBuffer.wrap(data), false).blockingGet().toByteArray()
+        val sink = ByteArrayOutputStream()
+
+        // When
+        val size = service.decryptStream(key, ByteArrayInputStream(encrypted), sink)
+
+        // Then
+        assertEquals(data.size.toLong(), size)
+        assertTrue(data.contentEquals(sink.toByteArray()))
+    }
+
+    @Test
+    fun `Given decryptStream is called with a Key, a tampered Source and a Sink, it fails with a DecryptionFailed`() {
+        // Given
+        val service = createCipherBackedService()
+        val key = createDataKey()
+        val data = ByteArray(STREAM_BUFFER_SIZE + 1) { idx -> idx.toByte() }
+        val encrypted = service.encryptBuffer(key, ByteBuffer.wrap(data), false).blockingGet().toByteArray()
+        encrypted[IV_SIZE + 7] = encrypted[IV_SIZE + 7].inc()
+
+        // Then
+        assertFailsWith<DecryptionFailed> {
+            // When
+            service.decryptStream(key, ByteArrayInputStream(encrypted), ByteArrayOutputStream())
+        }
+    }
+
+    @Test
+    fun `Given decryptStream is called with a Key, a truncated Source and a Sink, it fails with a DecryptionFailed`() {
+        // Given
+        val service = createCipherBackedService()
+        val key = createDataKey()
+        val encrypted = service.encryptBuffer(key, ByteBuffer.wrap(ByteArray(42)), false).blockingGet().toByteArray()
+
+        // Then
+        assertFailsWith<DecryptionFailed> {
+            // When
+            service.decryptStream(key, ByteArrayInputStream(encrypted.copyOf(IV_SIZE + 3)), ByteArrayOutputStream())
+        }
+    }
+
     @Test
     fun encryptAndEncodeString_shouldCompleteWithoutErrors() {
         // given
@@ -237,6 +389,37 @@ class CryptoServiceTest {
             .assertComplete()
     }
 
+    @Test
+    fun `Given no key pool capacity, it has no key pool`() {
+        assertNull(cryptoService.keyPool)
+    }
+
+    @Test
+    fun `Given a key pool capacity, generateGCKey draws the key from the key pool`() {
+        // Given
+        val service = CryptoService(
+            ALIAS,
+            mockStorage,
+            mockMoshi,
+            rnd,
+            mockBase64,
+            mockKeyFactory,
+            mockCommonKeyService,
+            2
+        )
+
+        // When
+        service.generateGCKey()
+            .test()
+            .await()
+            .assertNoErrors()
+            .assertComplete()
+
+        // Then
+        val keyPool = service.keyPool!!
+        assertEquals(1L, keyPool.hits + keyPool.misses)
+    }
+
     @Test
     fun generateGCKeyPair() {
         // when
@@ -567,8 +750,73 @@ class CryptoServiceTest {
         cryptoService.storeTagEncryptionKey(tekKey)
         val gcKey = cryptoService.fetchTagEncryptionKey()
         // then
+        Assert.assertSame(tekKey, gcKey)
         verify { mockStorage.storeKey(PREFIX + TEK_KEY, tekKey, KeyType.TAG_KEY) }
-        verify { mockStorage.getExchangeKey(PREFIX + TEK_KEY) }
+        verify(exactly = 0) { mockStorage.getExchangeKey(PREFIX + TEK_KEY) }
+    }
+
+    @Test
+    @Throws(Exception::class)
+    fun fetchingTEK_shouldReadTheSecureStoreOnlyOnce() {
+        // given
+        val tekKey = mockk<GCKey>()
+        every { mockStorage.getExchangeKey(PREFIX + TEK_KEY) } returns ExchangeKey(
+            KeyType.TAG_KEY,
+            "",
+            "",
+            "tekKeyBase64",
+            1
+        )
+        every { mockKeyFactory.createGCKey(any<ExchangeKey>()) } returns tekKey
+        // when
+        val gcKeys = List(42) { cryptoService.fetchTagEncryptionKey() }
+        // then
+        gcKeys.forEach { gcKey -> Assert.assertSame(tekKey, gcKey) }
+        verify(exactly = 1) { mockStorage.getExchangeKey(PREFIX + TEK_KEY) }
+        verify(exactly = 1) { mockKeyFactory.createGCKey(any<ExchangeKey>()) }
+    }
+
+    @Test
+    @Throws(Exception::class)
+    fun clearKeyCache_shouldReadTheTEKAgain() {
+        // given
+        val tekKey = mockk<GCKey>()
+        every { mockStorage.getExchangeKey(PREFIX + TEK_KEY) } returns ExchangeKey(
+            KeyType.TAG_KEY,
+            "",
+            "",
+            "tekKeyBase64",
+            1
+        )
+        every { mockKeyFactory.createGCKey(any<ExchangeKey>()) } returns tekKey
+        every { mockCommonKeyService.clearCache() } just runs
+        // when
+        cryptoService.fetchTagEncryptionKey()
+        cryptoService.clearKeyCache()
+        cryptoService.fetchTagEncryptionKey()
+        // then
+        verify(exactly = 2) { mockStorage.getExchangeKey(PREFIX + TEK_KEY) }
+        verify(exactly = 1) { mockCommonKeyService.clearCache() }
+    }
+
+    private fun createDataKey(): GCKey {
+        val generator = KeyGenerator.getInstance("AES")
+        generator.init(256)
+        return GCKey(createDataAlgorithm(), GCSymmetricKey(generator.generateKey()), 256)
+    }
+
+    private fun createCipherBackedService(): CryptoService {
+        return object : CryptoService(
+            ALIAS,
+            mockStorage,
+            mockMoshi,
+            rnd,
+            mockBase64,
+            mockKeyFactory,
+            mockCommonKeyService
+        ) {
+            override fun createCypher(transformation: String): Cipher = Cipher.getInstance(transformation)
+        }
     }
 
     internal inner class MockCryptoService(
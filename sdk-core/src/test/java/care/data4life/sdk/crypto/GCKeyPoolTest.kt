@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+package care.data4life.sdk.crypto
+
+import io.mockk.mockk
+import io.reactivex.schedulers.Schedulers
+import io.reactivex.schedulers.TestScheduler
+import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
+import kotlin.test.assertSame
+import kotlin.test.assertTrue
+import org.junit.Test
+
+class GCKeyPoolTest {
+    @Test
+    fun `It fulfils KeyPool`() {
+        val pool: Any = GCKeyPool({ mockk() })
+
+        assertTrue(pool is CryptoContract.KeyPool)
+    }
+
+    @Test
+    fun `Given a non positive capacity, it fails`() {
+        assertFailsWith<IllegalArgumentException> {
+            GCKeyPool({ mockk() }, 0)
+        }
+    }
+
+    @Test
+    fun `Given refill is called, it fills the pool up to its capacity`() {
+        // Given
+        var generated = 0
+        val pool = GCKeyPool({ generated++; mockk() }, 3, Schedulers.trampoline())
+
+        // When
+        pool.refill()
+
+        // Then
+        assertEquals(3, pool.size)
+        assertEquals(3, generated)
+    }
+
+    @Test
+    fun `Given the pool is empty, take generates a key and counts a miss`() {
+        // Given
+        val key: GCKey = mockk()
+        val scheduler = TestScheduler()
+        val pool = GCKeyPool({ key }, 2, scheduler)
+
+        // When
+        val result = pool.take()
+
+        // Then
+        assertSame(key, result)
+        assertEquals(0L, pool.hits)
+        assertEquals(1L, pool.misses)
+        assertEquals(0, pool.size)
+
+        scheduler.triggerActions()
+        assertEquals(2, pool.size)
+    }
+
+    @Test
+    fun `Given the pool is filled, take hands out a pre-generated key and counts a hit`() {
+        // Given
+        val keys = mutableListOf<GCKey>(mockk(), mockk(), mockk())
+        val scheduler = TestScheduler()
+        val pool = GCKeyPool({ keys.removeAt(0) }, 2, scheduler)
+
+        pool.refill()
+        scheduler.triggerActions()
+        val preGenerated = keys.size
+
+        // When
+        pool.take()
+
+        // Then
+        assertEquals(1, preGenerated)
+        assertEquals(1L, pool.hits)
+        assertEquals(0L, pool.misses)
+        assertEquals(1, pool.size)
+
+        scheduler.triggerActions()
+        assertEquals(2, pool.size)
+        assertTrue(keys.isEmpty())
+    }
+
+    @Test
+    fun `Given a refill is already scheduled, it does not schedule another one`() {
+        // Given
+        var generated = 0
+        val scheduler = TestScheduler()
+        val pool = GCKeyPool({ generated++; mockk() }, 2, scheduler)
+
+        // When
+        pool.refill()
+        pool.refill()
+        scheduler.triggerActions()
+
+        // Then
+        assertEquals(2, generated)
+    }
+
+    @Test
+    fun `Given the key generation fails during a refill, it keeps the pool usable`() {
+        // Given
+        val key: GCKey = mockk()
+        var fail = true
+        val pool = GCKeyPool(
+            {
+                if (fail) throw IllegalStateException()
+                key
+            },
+            1,
+            Schedulers.trampoline()
+        )
+
+        // When
+        pool.refill()
+        fail = false
+        pool.refill()
+
+        // Then
+        assertSame(key, pool.take())
+        assertEquals(1L, pool.hits)
+    }
+}
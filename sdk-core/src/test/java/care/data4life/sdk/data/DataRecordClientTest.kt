@@ -18,13 +18,16 @@ package care.data4life.sdk.data
 
 import care.data4life.sdk.SdkContract
 import care.data4life.sdk.auth.AuthContract
+import care.data4life.sdk.auth.SessionContext
 import care.data4life.sdk.call.CallHandler
 import care.data4life.sdk.call.Callback
 import care.data4life.sdk.call.DataRecord
 import care.data4life.sdk.call.Task
+import care.data4life.sdk.crypto.CryptoContract
 import care.data4life.sdk.record.RecordContract
 import care.data4life.sdk.tag.Annotations
 import care.data4life.sdk.test.util.GenericTestDataProvider
+import care.data4life.sdk.test.util.GenericTestDataProvider.COMMON_KEY_ID
 import io.mockk.every
 import io.mockk.mockk
 import io.mockk.slot
@@ -39,11 +42,16 @@ import org.junit.Test
 class DataRecordClientTest {
     private val recordService: RecordContract.Service = mockk()
     private val userService: AuthContract.UserService = mockk()
+    private val cryptoService: CryptoContract.Service = mockk()
     private val callHandler: CallHandler = mockk()
     private lateinit var client: SdkContract.DataRecordClient
 
     @Before
     fun setUp() {
+        every { userService.session } returns SessionContext(userService, cryptoService)
+        every { cryptoService.currentCommonKeyId } returns COMMON_KEY_ID
+        every { cryptoService.hasCommonKey(COMMON_KEY_ID) } returns true
+
         client = DataRecordClient(
             userService,
             recordService,
@@ -17,15 +17,20 @@
 package care.data4life.sdk.fhir
 
 import care.data4life.sdk.SdkContract
+import care.data4life.sdk.attachment.AttachmentContract
 import care.data4life.sdk.auth.AuthContract
+import care.data4life.sdk.auth.SessionContext
 import care.data4life.sdk.call.CallHandler
 import care.data4life.sdk.call.Callback
 import care.data4life.sdk.call.Fhir4Record
 import care.data4life.sdk.call.Task
+import care.data4life.sdk.crypto.CryptoContract
 import care.data4life.sdk.model.DownloadType
 import care.data4life.sdk.record.RecordContract
+import care.data4life.sdk.record.RecordHandle
 import care.data4life.sdk.tag.Annotations
 import care.data4life.sdk.test.util.GenericTestDataProvider.ATTACHMENT_ID
+import care.data4life.sdk.test.util.GenericTestDataProvider.COMMON_KEY_ID
 import care.data4life.sdk.test.util.GenericTestDataProvider.RECORD_ID
 import care.data4life.sdk.test.util.GenericTestDataProvider.USER_ID
 import io.mockk.every
@@ -33,6 +38,8 @@ import io.mockk.mockk
 import io.mockk.slot
 import io.reactivex.Completable
 import io.reactivex.Single
+import java.io.File
+import java.io.OutputStream
 import kotlin.test.assertEquals
 import kotlin.test.assertSame
 import kotlin.test.assertTrue
@@ -42,11 +49,16 @@ import org.junit.Test
 class FhirRecordClientTest {
     private val recordService: RecordContract.Service = mockk()
     private val userService: AuthContract.UserService = mockk()
+    private val cryptoService: CryptoContract.Service = mockk()
     private val callHandler: CallHandler = mockk()
     private lateinit var client: SdkContract.Fhir4RecordClient
 
     @Before
     fun setUp() {
+        every { userService.session } returns SessionContext(userService, cryptoService)
+        every { cryptoService.currentCommonKeyId } returns COMMON_KEY_ID
+        every { cryptoService.hasCommonKey(COMMON_KEY_ID) } returns true
+
         client = Fhir4RecordClient(
             userService,
             recordService,
@@ -138,6 +150,85 @@ class FhirRecordClientTest {
         )
     }
 
+    @Test
+    fun `Given create is called, with a Resource, AttachmentSources, Annotations and a Callback it returns the corresponding Task`() {
+        // Given
+        val resource: Fhir4Resource = mockk()
+        val attachmentSources: Map<Fhir4Attachment, AttachmentContract.UploadSource> = mapOf(mockk<Fhir4Attachment>() to mockk())
+        val annotations: Annotations = mockk()
+        val callback: Callback<Fhir4Record<Fhir4Resource>> = mockk()
+
+        val userId = USER_ID
+        val expectedRecord: Fhir4Record<Fhir4Resource> = mockk()
+        val record: Single<Fhir4Record<Fhir4Resource>> = Single.just(expectedRecord)
+        val expected: Task = mockk()
+        val observer = slot<Single<Fhir4Record<Fhir4Resource>>>()
+
+        every { userService.finishLogin(true) } returns Single.just(true)
+        every { userService.userID } returns Single.just(userId)
+        every {
+            recordService.createRecord(userId, resource, attachmentSources, annotations)
+        } returns record
+        every {
+            callHandler.executeSingle(capture(observer), callback)
+        } answers {
+            assertEquals(
+                expected = expectedRecord,
+                actual = observer.captured.blockingGet()
+            )
+            expected
+        }
+
+        // When
+        val actual = client.create(resource, attachmentSources, annotations, callback)
+
+        // Then
+        assertSame(
+            expected = expected,
+            actual = actual
+        )
+    }
+
+    @Test
+    fun `Given update is called, with a RecordId, a Resource, AttachmentSources, Annotations and a Callback it returns the corresponding Task`() {
+        // Given
+        val resource: Fhir4Resource = mockk()
+        val attachmentSources: Map<Fhir4Attachment, AttachmentContract.UploadSource> = mapOf(mockk<Fhir4Attachment>() to mockk())
+        val annotations: Annotations = mockk()
+        val callback: Callback<Fhir4Record<Fhir4Resource>> = mockk()
+        val recordId = RECORD_ID
+
+        val userId = USER_ID
+        val expectedRecord: Fhir4Record<Fhir4Resource> = mockk()
+        val record: Single<Fhir4Record<Fhir4Resource>> = Single.just(expectedRecord)
+        val expected: Task = mockk()
+        val observer = slot<Single<Fhir4Record<Fhir4Resource>>>()
+
+        every { userService.finishLogin(true) } returns Single.just(true)
+        every { userService.userID } returns Single.just(userId)
+        every {
+            recordService.updateRecord(userId, recordId, resource, attachmentSources, annotations)
+        } returns record
+        every {
+            callHandler.executeSingle(capture(observer), callback)
+        } answers {
+            assertEquals(
+                expected = expectedRecord,
+                actual = observer.captured.blockingGet()
+            )
+            expected
+        }
+
+        // When
+        val actual = client.update(recordId, resource, attachmentSources, annotations, callback)
+
+        // Then
+        assertSame(
+            expected = expected,
+            actual = actual
+        )
+    }
+
     @Test
     fun `Given fetch is called, with a RecordId and a Callback it returns the corresponding Task`() {
         // Given
@@ -175,6 +266,82 @@ class FhirRecordClientTest {
         )
     }
 
+    @Test
+    fun `Given fetchHandle is called, with a RecordId and a Callback it returns the corresponding Task`() {
+        // Given
+        val callback: Callback<RecordHandle<Fhir4Resource>> = mockk()
+        val recordId = RECORD_ID
+
+        val userId = USER_ID
+        val expectedHandle: RecordHandle<Fhir4Resource> = mockk()
+        val handle: Single<RecordHandle<Fhir4Resource>> = Single.just(expectedHandle)
+        val expected: Task = mockk()
+        val observer = slot<Single<RecordHandle<Fhir4Resource>>>()
+
+        every { userService.finishLogin(true) } returns Single.just(true)
+        every { userService.userID } returns Single.just(userId)
+        every {
+            recordService.fetchFhir4RecordHandle<Fhir4Resource>(userId, recordId)
+        } returns handle
+        every {
+            callHandler.executeSingle(capture(observer), callback)
+        } answers {
+            assertEquals(
+                expected = expectedHandle,
+                actual = observer.captured.blockingGet()
+            )
+            expected
+        }
+
+        // When
+        val actual = client.fetchHandle(recordId, callback)
+
+        // Then
+        assertSame(
+            expected = expected,
+            actual = actual
+        )
+    }
+
+    @Test
+    fun `Given update is called, with a RecordHandle, a Resource, Annotations and a Callback it returns the corresponding Task`() {
+        // Given
+        val resource: Fhir4Resource = mockk()
+        val annotations: Annotations = mockk()
+        val callback: Callback<RecordHandle<Fhir4Resource>> = mockk()
+        val handle: RecordHandle<Fhir4Resource> = mockk()
+
+        val userId = USER_ID
+        val expectedHandle: RecordHandle<Fhir4Resource> = mockk()
+        val updatedHandle: Single<RecordHandle<Fhir4Resource>> = Single.just(expectedHandle)
+        val expected: Task = mockk()
+        val observer = slot<Single<RecordHandle<Fhir4Resource>>>()
+
+        every { userService.finishLogin(true) } returns Single.just(true)
+        every { userService.userID } returns Single.just(userId)
+        every {
+            recordService.updateRecord(userId, handle, resource, annotations)
+        } returns updatedHandle
+        every {
+            callHandler.executeSingle(capture(observer), callback)
+        } answers {
+            assertEquals(
+                expected = expectedHandle,
+                actual = observer.captured.blockingGet()
+            )
+            expected
+        }
+
+        // When
+        val actual = client.update(handle, resource, annotations, callback)
+
+        // Then
+        assertSame(
+            expected = expected,
+            actual = actual
+        )
+    }
+
     @Test
     fun `Given search is called, with a ResourceType, Annotations, a CreationDateRange, a UpdateDateTimeRange, Pagesize, Offset and a Callback it returns the corresponding Task`() {
         // Given
@@ -421,4 +588,87 @@ class FhirRecordClientTest {
             actual = actual
         )
     }
+
+    @Test
+    fun `Given downloadAttachmentTo is called, with a recordId, an OutputStream and a Callback, it returns the corresponding Task`() {
+        // Given
+        val callback: Callback<Fhir4Attachment> = mockk()
+
+        val recordId = RECORD_ID
+        val userId = USER_ID
+        val attachmentId = ATTACHMENT_ID
+        val downloadType = DownloadType.Full
+        val target: OutputStream = mockk()
+        val attachment: Fhir4Attachment = mockk()
+        val expected: Task = mockk()
+        val observer = slot<Single<Fhir4Attachment>>()
+
+        every { userService.finishLogin(true) } returns Single.just(true)
+        every { userService.userID } returns Single.just(userId)
+        every {
+            recordService.downloadFhir4AttachmentTo(recordId, attachmentId, userId, downloadType, target)
+        } returns Single.just(attachment)
+        every {
+            callHandler.executeSingle(capture(observer), callback)
+        } answers {
+            assertEquals(
+                expected = attachment,
+                actual = observer.captured.blockingGet()
+            )
+            expected
+        }
+
+        // When
+        val actual = client.downloadAttachmentTo(recordId, attachmentId, downloadType, target, callback)
+
+        // Then
+        assertSame(
+            expected = expected,
+            actual = actual
+        )
+    }
+
+    @Test
+    fun `Given downloadAttachmentTo is called, with a recordId, a File and a Callback, it writes the Attachment into the File and returns the corresponding Task`() {
+        // Given
+        val callback: Callback<Fhir4Attachment> = mockk()
+
+        val recordId = RECORD_ID
+        val userId = USER_ID
+        val attachmentId = ATTACHMENT_ID
+        val downloadType = DownloadType.Full
+        val content = ByteArray(23) { idx -> idx.toByte() }
+        val target = File.createTempFile("attachment", null).also { it.deleteOnExit() }
+        val attachment: Fhir4Attachment = mockk()
+        val expected: Task = mockk()
+        val observer = slot<Single<Fhir4Attachment>>()
+
+        every { userService.finishLogin(true) } returns Single.just(true)
+        every { userService.userID } returns Single.just(userId)
+        every {
+            recordService.downloadFhir4AttachmentTo(recordId, attachmentId, userId, downloadType, any())
+        } answers {
+            arg<OutputStream>(4).write(content)
+            Single.just(attachment)
+        }
+        every {
+            callHandler.executeSingle(capture(observer), callback)
+        } answers {
+            assertEquals(
+                expected = attachment,
+                actual = observer.captured.blockingGet()
+            )
+            expected
+        }
+
+        // When
+        val actual = client.downloadAttachmentTo(recordId, attachmentId, downloadType, target, callback)
+
+        // Then
+        assertSame(
+            expected = expected,
+            actual = actual
+        )
+        assertTrue(content.contentEquals(target.readBytes()))
+    }
 }
@@ -574,4 +574,103 @@ class RecordCompatibilityServiceTest {
         verify(atLeast = 1) { searchTagsPipe.addOrTuple(encryptedGroups[1]) }
         verify(atLeast = 1) { searchTagsPipe.addOrTuple(encryptedGroups[2]) }
     }
+
+    @Test
+    fun `Given, resolveSearchTags is called twice with the same Tags and Annotations, it compiles the SearchTags only once`() {
+        // Given
+        val tagEncryptionKey: GCKey = mockk()
+        val sealedSearchTags: NetworkingContract.SearchTags = mockk()
+        val tags = mapOf("tag" to "tagValue")
+        val annotations = listOf("annotation")
+
+        every { compatibilityEncoder.encode(any()) } returns mockk(relaxed = true)
+        every { cryptoService.fetchTagEncryptionKey() } returns tagEncryptionKey
+        every { tagCryptoService.encryptList(any(), any(), any()) } returns mockk()
+
+        every { searchTagsBuilderFactory.newBuilder() } returns searchTagsPipe
+        every { searchTagsPipe.addOrTuple(any()) } returns searchTagsPipe
+        every { searchTagsPipe.seal() } returns sealedSearchTags
+
+        // When
+        val first = service.resolveSearchTags(tags, annotations)
+        val second = service.resolveSearchTags(tags.toMap(), annotations.toList())
+
+        // Then
+        assertSame(
+            expected = sealedSearchTags,
+            actual = first
+        )
+        assertSame(
+            expected = sealedSearchTags,
+            actual = second
+        )
+        verify(exactly = 2) { cryptoService.fetchTagEncryptionKey() }
+        verify(exactly = 1) { searchTagsBuilderFactory.newBuilder() }
+        verify(exactly = 1) { searchTagsPipe.seal() }
+    }
+
+    @Test
+    fun `Given, resolveSearchTags is called with Tags, whose encodings are equal, it encrypts each encoding only once`() {
+        // Given
+        val tagEncryptionKey: GCKey = mockk()
+        val tags = mapOf("tag" to "tagValue")
+        val encryptedGroup: List<String> = mockk()
+
+        every { compatibilityEncoder.encode(tags["tag"]!!) } returns QueryCompatibilityTag(
+            "encodedTagValue",
+            "encodedTagValue",
+            "encodedTagValue",
+            "encodedIOSLegacyTagValue"
+        )
+        every { cryptoService.fetchTagEncryptionKey() } returns tagEncryptionKey
+        every {
+            tagCryptoService.encryptList(
+                listOf("encodedTagValue", "encodedIOSLegacyTagValue"),
+                tagEncryptionKey,
+                "tag${TaggingContract.DELIMITER}"
+            )
+        } returns encryptedGroup
+
+        every { searchTagsBuilderFactory.newBuilder() } returns searchTagsPipe
+        every { searchTagsPipe.addOrTuple(encryptedGroup) } returns searchTagsPipe
+        every { searchTagsPipe.seal() } returns mockk()
+
+        // When
+        service.resolveSearchTags(tags, emptyList())
+
+        // Then
+        verify(exactly = 1) {
+            tagCryptoService.encryptList(
+                listOf("encodedTagValue", "encodedIOSLegacyTagValue"),
+                tagEncryptionKey,
+                "tag${TaggingContract.DELIMITER}"
+            )
+        }
+        verify(exactly = 1) { searchTagsPipe.addOrTuple(encryptedGroup) }
+    }
+
+    @Test
+    fun `Given, resolveSearchTags is called with duplicated Annotations, it encrypts them only once`() {
+        // Given
+        val tagEncryptionKey: GCKey = mockk()
+        val annotations = listOf("annotation", "annotation")
+        val encodedTag = QueryCompatibilityTag(
+            "encodedAnnotation",
+            "annotation",
+            "encodedJSLegacyAnnotation",
+            "encodedIOSLegacyAnnotation"
+        )
+
+        every { compatibilityEncoder.encode(annotations[0]) } returns encodedTag
+        every { cryptoService.fetchTagEncryptionKey() } returns tagEncryptionKey
+        every { tagCryptoService.encryptList(any(), any(), any()) } returns mockk()
+
+        every { searchTagsBuilderFactory.newBuilder() } returns mockk(relaxed = true)
+
+        // When
+        service.resolveSearchTags(emptyMap(), annotations)
+
+        // Then
+        verify(exactly = 1) { tagCryptoService.encryptList(any(), any(), any()) }
+    }
 }
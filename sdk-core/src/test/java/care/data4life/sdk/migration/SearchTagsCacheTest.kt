@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+package care.data4life.sdk.migration
+
+import care.data4life.sdk.crypto.GCKey
+import care.data4life.sdk.network.util.SearchTags
+import io.mockk.mockk
+import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
+import kotlin.test.assertTrue
+import org.junit.Test
+
+class SearchTagsCacheTest {
+    private val key: GCKey = mockk()
+
+    @Test
+    fun `It fulfils SearchTagsCache`() {
+        val cache: Any = SearchTagsCache()
+
+        assertTrue(cache is MigrationInternalContract.SearchTagsCache)
+    }
+
+    @Test
+    fun `Given a non positive capacity, it fails`() {
+        assertFailsWith<IllegalArgumentException> {
+            SearchTagsCache(0)
+        }
+    }
+
+    @Test
+    fun `Given a query is resolved twice with the same key, it compiles it only once`() {
+        // Given
+        val cache = SearchTagsCache()
+        var calls = 0
+
+        // When
+        val first = cache.resolve(key, mapOf("tag" to "value"), listOf("annotation")) {
+            calls++
+            SearchTags("compiled")
+        }
+        val second = cache.resolve(key, mapOf("tag" to "value"), listOf("annotation")) {
+            calls++
+            SearchTags("other")
+        }
+
+        // Then
+        assertEquals(SearchTags("compiled"), first)
+        assertEquals(SearchTags("compiled"), second)
+        assertEquals(1, calls)
+    }
+
+    @Test
+    fun `Given a query repeats its annotations in another order, it resolves the compiled SearchTags`() {
+        // Given
+        val cache = SearchTagsCache()
+
+        cache.resolve(key, mapOf("tag" to "value"), listOf("a", "b")) { SearchTags("compiled") }
+
+        // When
+        val result = cache.resolve(key, mapOf("tag" to "value"), listOf("b", "a", "b")) {
+            SearchTags("other")
+        }
+
+        // Then
+        assertEquals(SearchTags("compiled"), result)
+    }
+
+    @Test
+    fun `Given a query differs in its annotations, it compiles it again`() {
+        // Given
+        val cache = SearchTagsCache()
+
+        cache.resolve(key, mapOf("tag" to "value"), listOf("annotation")) { SearchTags("compiled") }
+
+        // When
+        val result = cache.resolve(key, mapOf("tag" to "value"), listOf("other")) {
+            SearchTags("other")
+        }
+
+        // Then
+        assertEquals(SearchTags("other"), result)
+    }
+
+    @Test
+    fun `Given the key changes, it drops the entries of the previous key`() {
+        // Given
+        val cache = SearchTagsCache()
+        val otherKey: GCKey = mockk()
+
+        cache.resolve(key, mapOf("tag" to "value"), emptyList()) { SearchTags("compiled") }
+        cache.resolve(otherKey, mapOf("tag" to "value"), emptyList()) { SearchTags("other") }
+
+        // When
+        val result = cache.resolve(key, mapOf("tag" to "value"), emptyList()) {
+            SearchTags("recompiled")
+        }
+
+        // Then
+        assertEquals(SearchTags("recompiled"), result)
+    }
+
+    @Test
+    fun `Given the capacity is exceeded, it evicts the least recently used query`() {
+        // Given
+        val cache = SearchTagsCache(2)
+
+        cache.resolve(key, mapOf("a" to "a"), emptyList()) { SearchTags("a") }
+        cache.resolve(key, mapOf("b" to "b"), emptyList()) { SearchTags("b") }
+        cache.resolve(key, mapOf("a" to "a"), emptyList()) { SearchTags("unused") }
+        cache.resolve(key, mapOf("c" to "c"), emptyList()) { SearchTags("c") }
+
+        // When
+        val a = cache.resolve(key, mapOf("a" to "a"), emptyList()) { SearchTags("recompiled") }
+        val b = cache.resolve(key, mapOf("b" to "b"), emptyList()) { SearchTags("recompiled") }
+
+        // Then
+        assertEquals(SearchTags("a"), a)
+        assertEquals(SearchTags("recompiled"), b)
+    }
+
+    @Test
+    fun `Given clear is called, it compiles the next query again`() {
+        // Given
+        val cache = SearchTagsCache()
+
+        cache.resolve(key, mapOf("tag" to "value"), emptyList()) { SearchTags("compiled") }
+
+        // When
+        cache.clear()
+        val result = cache.resolve(key, mapOf("tag" to "value"), emptyList()) {
+            SearchTags("recompiled")
+        }
+
+        // Then
+        assertEquals(SearchTags("recompiled"), result)
+    }
+}
@@ -426,6 +426,28 @@ class ApiServiceTest {
         }
     }
 
+    @Test
+    fun `Given, uploadDocument is called with an Alias, UserId and a RequestBody, it delegates the body as it is to the HealthCloudApi and returns the DocumentId`() {
+        // Given
+        val alias = ALIAS
+        val userId = USER_ID
+        val body: RequestBody = mockk()
+        val response: DocumentUploadResponse = mockk()
+        val result = "id"
+
+        every { healthCloudApi.uploadDocument(alias, userId, body) } returns Single.just(response)
+        every { response.documentId } returns result
+
+        // When
+        val actual = service.uploadDocument(alias, userId, body).blockingGet()
+
+        // Then
+        assertSame(
+            actual = actual,
+            expected = result
+        )
+    }
+
     @Test
     fun `Given, downloadDocument is called with an Alias, UserId and a DocumentId, it delegates it to the HealthCloudApi and returns the Resonses Datablob`() {
         // Given
@@ -454,6 +476,28 @@ class ApiServiceTest {
         }
     }
 
+    @Test
+    fun `Given, streamDocument is called with an Alias, UserId and a DocumentId, it delegates it to the HealthCloudApi and returns the unread Response`() {
+        // Given
+        val alias = ALIAS
+        val userId = USER_ID
+        val documentId = "doc"
+        val response: ResponseBody = mockk()
+
+        every { healthCloudApi.streamDocument(alias, userId, documentId) } returns Single.just(response)
+
+        // When
+        val actual = service.streamDocument(alias, userId, documentId).blockingGet()
+
+        // Then
+        assertSame(
+            actual = actual,
+            expected = response
+        )
+
+        verify(exactly = 0) { response.bytes() }
+    }
+
     @Test
     fun `Given, deleteDocument is called with an Alias, UserId and a DocumentId, it delegates it to the HealthCloudApi and returns always true`() {
         // Given
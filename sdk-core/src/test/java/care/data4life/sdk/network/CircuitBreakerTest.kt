@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.network
+
+import care.data4life.sdk.lang.NetworkException
+import care.data4life.sdk.network.CircuitBreaker.State
+import care.data4life.sdk.network.CircuitBreaker.StateChange
+import care.data4life.sdk.network.NetworkingContract.Endpoint
+import io.reactivex.Single
+import io.reactivex.subjects.SingleSubject
+import java.io.IOException
+import java.net.SocketTimeoutException
+import kotlin.test.assertEquals
+import kotlin.test.assertFalse
+import kotlin.test.assertTrue
+import okhttp3.ResponseBody.Companion.toResponseBody
+import org.junit.Test
+import retrofit2.HttpException
+import retrofit2.Response
+
+class CircuitBreakerTest {
+    private var now = 0L
+    private val breaker = CircuitBreaker(
+        CircuitBreakerPolicy(failureThreshold = 2, openDurationMillis = 1000),
+        { now }
+    )
+
+    private fun fail(endpoint: Endpoint = Endpoint.RECORDS, error: Throwable = SocketTimeoutException()) {
+        breaker.guard(endpoint, Single.error<Any>(error)).test().assertError(error)
+    }
+
+    private fun succeed(endpoint: Endpoint = Endpoint.RECORDS) {
+        breaker.guard(endpoint, Single.just(23)).test().assertValue(23)
+    }
+
+    private fun httpError(code: Int): HttpException {
+        return HttpException(Response.error<Any>(code, "".toResponseBody()))
+    }
+
+    @Test
+    fun `Given requests fail up to the threshold, it opens the circuit and fails fast`() {
+        // Given
+        val changes = breaker.stateChanges.test()
+        var isSubscribed = false
+        fail()
+        fail()
+
+        // When
+        val observer = breaker.guard(
+            Endpoint.RECORDS,
+            Single.fromCallable { isSubscribed = true }
+        ).test()
+
+        // Then
+        observer.assertError { error ->
+            error is NetworkException.CircuitOpen && error.endpoint == Endpoint.RECORDS
+        }
+        assertFalse(isSubscribed)
+        assertEquals(
+            actual = breaker.stateOf(Endpoint.RECORDS),
+            expected = State.OPEN
+        )
+        changes.assertValue(StateChange(Endpoint.RECORDS, State.CLOSED, State.OPEN))
+    }
+
+    @Test
+    fun `Given a request succeeds in between failures, it keeps the circuit closed`() {
+        // Given
+        fail()
+        succeed()
+
+        // When
+        fail()
+
+        // Then
+        assertEquals(
+            actual = breaker.stateOf(Endpoint.RECORDS),
+            expected = State.CLOSED
+        )
+    }
+
+    @Test
+    fun `Given requests fail with client errors, it keeps the circuit closed`() {
+        // When
+        fail(error = httpError(404))
+        fail(error = httpError(409))
+
+        // Then
+        assertEquals(
+            actual = breaker.stateOf(Endpoint.RECORDS),
+            expected = State.CLOSED
+        )
+    }
+
+    @Test
+    fun `Given requests fail with a failure status code, it opens the circuit`() {
+        // When
+        fail(error = httpError(503))
+        fail(error = httpError(502))
+
+        // Then
+        assertEquals(
+            actual = breaker.stateOf(Endpoint.RECORDS),
+            expected = State.OPEN
+        )
+    }
+
+    @Test
+    fun `Given the circuit of an endpoint is open, it admits requests to other endpoints`() {
+        // Given
+        fail()
+        fail()
+
+        // Then
+        succeed(Endpoint.DOCUMENTS)
+        assertEquals(
+            actual = breaker.stateOf(Endpoint.DOCUMENTS),
+            expected = State.CLOSED
+        )
+    }
+
+    @Test
+    fun `Given the open duration passed, it admits a probe, which closes the circuit on success`() {
+        // Given
+        val changes = breaker.stateChanges.test()
+        fail()
+        fail()
+        now += 1000
+
+        // When
+        succeed()
+
+        // Then
+        assertEquals(
+            actual = breaker.stateOf(Endpoint.RECORDS),
+            expected = State.CLOSED
+        )
+        changes.assertValues(
+            StateChange(Endpoint.RECORDS, State.CLOSED, State.OPEN),
+            StateChange(Endpoint.RECORDS, State.OPEN, State.HALF_OPEN),
+            StateChange(Endpoint.RECORDS, State.HALF_OPEN, State.CLOSED)
+        )
+    }
+
+    @Test
+    fun `Given the open duration passed, it opens the circuit again, if the probe fails`() {
+        // Given
+        fail()
+        fail()
+        now += 1000
+
+        // When
+        fail(error = IOException())
+
+        // Then
+        assertEquals(
+            actual = breaker.stateOf(Endpoint.RECORDS),
+            expected = State.OPEN
+        )
+        breaker.guard(Endpoint.RECORDS, Single.just(23)).test()
+            .assertError(NetworkException.CircuitOpen::class.java)
+    }
+
+    @Test
+    fun `Given a probe is in flight, it fails further requests fast`() {
+        // Given
+        fail()
+        fail()
+        now += 1000
+        val probe = SingleSubject.create<Int>()
+        val observer = breaker.guard(Endpoint.RECORDS, probe).test()
+
+        // When
+        val second = breaker.guard(Endpoint.RECORDS, Single.just(23)).test()
+
+        // Then
+        second.assertError(NetworkException.CircuitOpen::class.java)
+
+        // When
+        probe.onSuccess(42)
+
+        // Then
+        observer.assertValue(42)
+        assertEquals(
+            actual = breaker.stateOf(Endpoint.RECORDS),
+            expected = State.CLOSED
+        )
+    }
+
+    @Test
+    fun `Given a probe is disposed, it admits another probe`() {
+        // Given
+        fail()
+        fail()
+        now += 1000
+        val observer = breaker.guard(Endpoint.RECORDS, SingleSubject.create<Int>()).test()
+
+        // When
+        observer.dispose()
+
+        // Then
+        succeed()
+        assertTrue(breaker.stateOf(Endpoint.RECORDS) == State.CLOSED)
+    }
+}
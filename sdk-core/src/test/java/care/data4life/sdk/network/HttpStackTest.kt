@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.network
+
+import care.data4life.sdk.network.util.HealthCloudApiFactory
+import care.data4life.sdk.network.util.interceptor.RequestLimits
+import io.mockk.every
+import io.mockk.mockk
+import io.reactivex.Observable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.logging.Level
+import java.util.logging.Logger
+import kotlin.test.assertEquals
+import kotlin.test.assertNotSame
+import kotlin.test.assertNull
+import kotlin.test.assertSame
+import okhttp3.mockwebserver.Dispatcher
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+
+class HttpStackTest {
+    private val environment: NetworkingContract.Environment = mockk()
+    private val platform = "not important"
+    private lateinit var server: MockWebServer
+
+    @Before
+    fun setUp() {
+        server = MockWebServer()
+        Logger.getLogger(MockWebServer::class.java.name).level = Level.OFF
+
+        every { environment.getApiBaseURL(platform) } returns server.url("/").toString()
+    }
+
+    @After
+    fun tearDown() {
+        server.shutdown()
+    }
+
+    private fun awaitConcurrentRequests(expected: Int, timeoutMillis: Long): AtomicInteger {
+        val arrived = CountDownLatch(expected)
+        val concurrent = AtomicInteger(0)
+        val maxConcurrent = AtomicInteger(0)
+
+        server.dispatcher = object : Dispatcher() {
+            override fun dispatch(request: RecordedRequest): MockResponse {
+                maxConcurrent.accumulateAndGet(concurrent.incrementAndGet()) { max, current -> maxOf(max, current) }
+                arrived.countDown()
+                arrived.await(timeoutMillis, TimeUnit.MILLISECONDS)
+                concurrent.decrementAndGet()
+
+                return MockResponse().setBody("{\"versions\":[]}")
+            }
+        }
+
+        return maxConcurrent
+    }
+
+    private fun fetchVersionsConcurrently(stack: HttpStack, requests: Int) {
+        val api = HealthCloudApiFactory.getInstance(
+            stack.newClientBuilder().build(),
+            platform,
+            environment,
+            stack.configuration.asyncCalls
+        )
+
+        Observable.range(0, requests)
+            .flatMapSingle { api.fetchVersionInfo() }
+            .toList()
+            .blockingGet()
+    }
+
+    @Test
+    fun `Given a HttpStack, which allows more than 5 requests per host, it runs more than 5 asynchronous requests at once`() {
+        // Given
+        val requests = 8
+        val stack = HttpStack(NetworkConfiguration(maxRequestsPerHost = requests, asyncCalls = true))
+        val maxConcurrent = awaitConcurrentRequests(requests, 5000)
+
+        // When
+        fetchVersionsConcurrently(stack, requests)
+
+        // Then
+        assertEquals(
+            expected = requests,
+            actual = maxConcurrent.get()
+        )
+    }
+
+    @Test
+    fun `Given a HttpStack, which allows 5 requests per host, it runs not more than 5 asynchronous requests at once`() {
+        // Given
+        val requests = 8
+        val stack = HttpStack(NetworkConfiguration(maxRequestsPerHost = 5, asyncCalls = true))
+        val maxConcurrent = awaitConcurrentRequests(requests, 300)
+
+        // When
+        fetchVersionsConcurrently(stack, requests)
+
+        // Then
+        assertEquals(
+            expected = 5,
+            actual = maxConcurrent.get()
+        )
+    }
+
+    @Test
+    fun `Given clients are built from the same HttpStack, they share the dispatcher and the connection pool`() {
+        // Given
+        val stack = HttpStack()
+
+        // When
+        val client = stack.newClientBuilder().build()
+        val otherClient = stack.newClientBuilder().build()
+
+        // Then
+        assertNotSame(
+            illegal = client,
+            actual = otherClient
+        )
+        assertSame(
+            expected = client.dispatcher,
+            actual = otherClient.dispatcher
+        )
+        assertSame(
+            expected = client.connectionPool,
+            actual = otherClient.connectionPool
+        )
+    }
+
+    @Test
+    fun `Given a HttpStack is created with a NetworkConfiguration, it applies the configured limits`() {
+        // Given
+        val configuration = NetworkConfiguration(maxRequests = 12, maxRequestsPerHost = 7)
+
+        // When
+        val client = HttpStack(configuration).newClientBuilder().build()
+
+        // Then
+        assertEquals(
+            expected = 12,
+            actual = client.dispatcher.maxRequests
+        )
+        assertEquals(
+            expected = 7,
+            actual = client.dispatcher.maxRequestsPerHost
+        )
+    }
+
+    @Test
+    fun `Given a HttpStack is created without RequestLimits, it has no limiter`() {
+        assertNull(HttpStack().limiter)
+    }
+
+    @Test
+    fun `Given a HttpStack is created with RequestLimits, it provides a limiter with those limits`() {
+        // Given
+        val limits = RequestLimits(initialConcurrency = 4)
+
+        // When
+        val limiter = HttpStack(NetworkConfiguration(requestLimits = limits)).limiter
+
+        // Then
+        assertSame(
+            expected = limits,
+            actual = limiter?.limits
+        )
+        assertEquals(
+            expected = 4,
+            actual = limiter?.concurrencyLimit
+        )
+    }
+
+    @Test
+    fun `Given a HttpStack is created with a CircuitBreakerPolicy, it provides a circuit breaker with that policy`() {
+        // Given
+        val policy = CircuitBreakerPolicy(failureThreshold = 3)
+
+        // When
+        val stack = HttpStack(NetworkConfiguration(circuitBreaker = policy))
+
+        // Then
+        assertSame(
+            expected = policy,
+            actual = stack.circuitBreaker?.policy
+        )
+        assertNull(HttpStack().circuitBreaker)
+    }
+}
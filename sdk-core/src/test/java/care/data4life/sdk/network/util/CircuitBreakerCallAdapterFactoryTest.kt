@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.network.util
+
+import care.data4life.sdk.lang.NetworkException
+import care.data4life.sdk.network.CircuitBreaker
+import care.data4life.sdk.network.CircuitBreakerPolicy
+import care.data4life.sdk.network.HealthCloudApi
+import care.data4life.sdk.network.NetworkingContract
+import io.mockk.every
+import io.mockk.mockk
+import kotlin.test.assertEquals
+import okhttp3.OkHttpClient
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import retrofit2.HttpException
+
+class CircuitBreakerCallAdapterFactoryTest {
+    private val environment: NetworkingContract.Environment = mockk()
+    private val platform = "not important"
+    private lateinit var server: MockWebServer
+    private lateinit var api: HealthCloudApi
+
+    @Before
+    fun setUp() {
+        server = MockWebServer()
+        server.start()
+
+        every { environment.getApiBaseURL(platform) } returns server.url("/").toString()
+
+        api = HealthCloudApiFactory.getInstance(
+            OkHttpClient(),
+            platform,
+            environment,
+            false,
+            CircuitBreaker(CircuitBreakerPolicy(failureThreshold = 2))
+        )
+    }
+
+    @After
+    fun tearDown() {
+        server.shutdown()
+    }
+
+    @Test
+    fun `Given calls to an endpoint fail repeatedly, it fails further calls to it without issuing them`() {
+        // Given
+        server.enqueue(MockResponse().setResponseCode(503))
+        server.enqueue(MockResponse().setResponseCode(503))
+        server.enqueue(MockResponse())
+
+        // When
+        api.deleteRecord("alias", "user", "record").test().await().assertError(HttpException::class.java)
+        api.deleteRecord("alias", "user", "record").test().await().assertError(HttpException::class.java)
+        val observer = api.deleteRecord("alias", "user", "record").test().await()
+
+        // Then
+        observer.assertError { error ->
+            error is NetworkException.CircuitOpen && error.endpoint == NetworkingContract.Endpoint.RECORDS
+        }
+        assertEquals(
+            actual = server.requestCount,
+            expected = 2
+        )
+    }
+
+    @Test
+    fun `Given calls to an endpoint fail repeatedly, it still issues calls to other endpoints`() {
+        // Given
+        server.enqueue(MockResponse().setResponseCode(503))
+        server.enqueue(MockResponse().setResponseCode(503))
+        server.enqueue(MockResponse().setBody("{\"versions\":[]}"))
+
+        // When
+        api.deleteRecord("alias", "user", "record").test().await()
+        api.deleteRecord("alias", "user", "record").test().await()
+        val observer = api.fetchVersionInfo().test().await()
+
+        // Then
+        observer.assertComplete()
+        assertEquals(
+            actual = server.requestCount,
+            expected = 3
+        )
+    }
+}
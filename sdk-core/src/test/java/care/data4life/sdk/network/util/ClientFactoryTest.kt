@@ -17,14 +17,20 @@
 package care.data4life.sdk.network.util
 
 import care.data4life.sdk.auth.AuthorizationContract
+import care.data4life.sdk.network.HttpStack
+import care.data4life.sdk.network.NetworkConfiguration
 import care.data4life.sdk.network.NetworkingContract
 import care.data4life.sdk.network.NetworkingContract.Companion.PLATFORM_S4H
 import care.data4life.sdk.network.NetworkingContract.Companion.REQUEST_TIMEOUT
 import care.data4life.sdk.network.NetworkingInternalContract
 import care.data4life.sdk.network.util.interceptor.BasicAuthorizationInterceptor
+import care.data4life.sdk.network.util.interceptor.ConcurrencyLimiterInterceptor
+import care.data4life.sdk.network.util.interceptor.LimiterInterceptor
 import care.data4life.sdk.network.util.interceptor.LoggingInterceptor
 import care.data4life.sdk.network.util.interceptor.OAuthAuthorizationInterceptor
+import care.data4life.sdk.network.util.interceptor.RequestLimits
 import care.data4life.sdk.network.util.interceptor.RetryInterceptor
+import care.data4life.sdk.network.util.interceptor.RetryPolicy
 import care.data4life.sdk.network.util.interceptor.StaticAuthorizationInterceptor
 import care.data4life.sdk.network.util.interceptor.VersionInterceptor
 import care.data4life.sdk.test.util.GenericTestDataProvider.AUTH_TOKEN
@@ -95,7 +101,7 @@ class ClientFactoryTest {
         val pinner: CertificatePinner = mockk(relaxed = true)
 
         every { LoggingInterceptor.getInstance(flag) } returns loggingInterceptor
-        every { RetryInterceptor.getInstance(connectivityService) } returns retryInterceptor
+        every { RetryInterceptor.getInstance(connectivityService, RetryPolicy()) } returns retryInterceptor
         every {
             VersionInterceptor.getInstance(
                 Pair(
@@ -104,7 +110,7 @@ class ClientFactoryTest {
                 )
             )
         } returns versionInterceptor
-        every { OAuthAuthorizationInterceptor.getInstance(authService) } returns oAuthInterceptor
+        every { OAuthAuthorizationInterceptor.getInstance(authService, 0L) } returns oAuthInterceptor
         every {
             BasicAuthorizationInterceptor.getInstance(
                 Pair(
@@ -194,7 +200,7 @@ class ClientFactoryTest {
         val pinner: CertificatePinner = mockk(relaxed = true)
 
         every { LoggingInterceptor.getInstance(flag) } returns loggingInterceptor
-        every { RetryInterceptor.getInstance(connectivityService) } returns retryInterceptor
+        every { RetryInterceptor.getInstance(connectivityService, RetryPolicy()) } returns retryInterceptor
         every {
             VersionInterceptor.getInstance(
                 Pair(
@@ -203,7 +209,7 @@ class ClientFactoryTest {
                 )
             )
         } returns versionInterceptor
-        every { OAuthAuthorizationInterceptor.getInstance(authService) } returns oAuthInterceptor
+        every { OAuthAuthorizationInterceptor.getInstance(authService, 0L) } returns oAuthInterceptor
         every {
             BasicAuthorizationInterceptor.getInstance(
                 Pair(
@@ -282,7 +288,7 @@ class ClientFactoryTest {
         val pinner: CertificatePinner = mockk(relaxed = true)
 
         every { LoggingInterceptor.getInstance(flag) } returns loggingInterceptor
-        every { RetryInterceptor.getInstance(connectivityService) } returns retryInterceptor
+        every { RetryInterceptor.getInstance(connectivityService, RetryPolicy()) } returns retryInterceptor
         every {
             VersionInterceptor.getInstance(
                 Pair(
@@ -351,4 +357,68 @@ class ClientFactoryTest {
                 .trim(')')
         )
     }
+
+    @Test
+    fun `Given, getInstance is called with a HttpStack, which limits the requests, it throttles the Requests ahead of the authorization and limits each attempt behind the RetryInterceptor`() {
+        // Given
+        val clientID = CLIENT_ID
+        val clientVersion = "1.2.3"
+        val secret = "geheim"
+        val platform = PLATFORM_S4H
+        val flag = false
+        val httpStack = HttpStack(NetworkConfiguration(requestLimits = RequestLimits()))
+
+        val limiterInterceptor: NetworkingInternalContract.Interceptor = mockk()
+        val concurrencyLimiterInterceptor: NetworkingInternalContract.Interceptor = mockk()
+        val loggingInterceptor: NetworkingInternalContract.Interceptor = mockk()
+        val retryInterceptor: NetworkingInternalContract.Interceptor = mockk()
+        val versionInterceptor: NetworkingInternalContract.Interceptor = mockk()
+        val oAuthInterceptor: NetworkingInternalContract.Interceptor = mockk()
+        val basicInterceptor: NetworkingInternalContract.Interceptor = mockk()
+
+        mockkObject(LimiterInterceptor)
+        mockkObject(ConcurrencyLimiterInterceptor)
+
+        every { LimiterInterceptor.getInstance(httpStack.limiter!!) } returns limiterInterceptor
+        every {
+            ConcurrencyLimiterInterceptor.getInstance(httpStack.limiter!!)
+        } returns concurrencyLimiterInterceptor
+        every { LoggingInterceptor.getInstance(flag) } returns loggingInterceptor
+        every { RetryInterceptor.getInstance(connectivityService, RetryPolicy()) } returns retryInterceptor
+        every { VersionInterceptor.getInstance(Pair(clientName, clientVersion)) } returns versionInterceptor
+        every { OAuthAuthorizationInterceptor.getInstance(authService, 0L) } returns oAuthInterceptor
+        every { BasicAuthorizationInterceptor.getInstance(Pair(clientID, secret)) } returns basicInterceptor
+
+        // When
+        val client = ClientFactory.getInstanceLegacy(
+            authService,
+            environment,
+            clientID,
+            secret,
+            platform,
+            connectivityService,
+            clientName,
+            clientVersion,
+            null,
+            flag,
+            httpStack
+        )
+
+        // Then
+        assertEquals(
+            actual = client.interceptors,
+            expected = listOf(
+                limiterInterceptor,
+                oAuthInterceptor,
+                basicInterceptor,
+                retryInterceptor,
+                concurrencyLimiterInterceptor,
+                loggingInterceptor,
+                versionInterceptor
+            )
+        )
+
+        unmockkObject(LimiterInterceptor)
+        unmockkObject(ConcurrencyLimiterInterceptor)
+    }
 }
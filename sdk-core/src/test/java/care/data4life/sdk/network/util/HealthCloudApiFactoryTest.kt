@@ -132,4 +132,48 @@ class HealthCloudApiFactoryTest {
         unmockkStatic(RxJava2CallAdapterFactory::class)
         unmockkStatic(MoshiConverterFactory::class)
     }
+
+    @Test
+    fun `Given getInstance is called with asynchronous calls, it creates a HealthCloudApi with an asynchronous CallAdapter`() {
+        // Given
+        mockkConstructor(Retrofit.Builder::class)
+        mockkStatic(RxJava2CallAdapterFactory::class)
+
+        val platform = "NVIP"
+        val url = "https://notimportant.com"
+        val client: OkHttpClient = mockk()
+        val environment: NetworkingContract.Environment = mockk()
+        val service: HealthCloudApi = mockk()
+
+        val retrofitBuilder: Retrofit.Builder = mockk()
+        val retrofit: Retrofit = mockk()
+        val rxJAdapterFactory: RxJava2CallAdapterFactory = mockk()
+
+        every { environment.getApiBaseURL(platform) } returns url
+        every { RxJava2CallAdapterFactory.createAsync() } returns rxJAdapterFactory
+        every {
+            anyConstructed<Retrofit.Builder>()
+                .addCallAdapterFactory(rxJAdapterFactory)
+        } returns retrofitBuilder
+        every { retrofitBuilder.addConverterFactory(any()) } returns retrofitBuilder
+        every { retrofitBuilder.client(client) } returns retrofitBuilder
+        every { retrofitBuilder.baseUrl(url) } returns retrofitBuilder
+        every { retrofitBuilder.build() } returns retrofit
+        every { retrofit.create(HealthCloudApi::class.java) } returns service
+
+        // When
+        val actual = HealthCloudApiFactory.getInstance(client, platform, environment, true)
+
+        // Then
+        assertSame(
+            actual = actual,
+            expected = service
+        )
+
+        verify(exactly = 1) { RxJava2CallAdapterFactory.createAsync() }
+        verify(exactly = 0) { RxJava2CallAdapterFactory.create() }
+
+        unmockkConstructor(Retrofit.Builder::class)
+        unmockkStatic(RxJava2CallAdapterFactory::class)
+    }
 }
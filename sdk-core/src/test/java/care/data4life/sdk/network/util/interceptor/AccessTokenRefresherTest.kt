@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.network.util.interceptor
+
+import care.data4life.sdk.auth.AuthorizationContract
+import care.data4life.sdk.lang.D4LException
+import care.data4life.sdk.network.NetworkingInternalContract
+import care.data4life.sdk.test.util.GenericTestDataProvider.ALIAS
+import io.mockk.every
+import io.mockk.mockk
+import io.mockk.verify
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.test.assertEquals
+import kotlin.test.assertNull
+import kotlin.test.assertTrue
+import okio.ByteString.Companion.encodeUtf8
+import org.junit.Test
+
+class AccessTokenRefresherTest {
+    private val service: AuthorizationContract.Service = mockk()
+
+    private fun jwt(expiryInSeconds: Long): String {
+        val claims = "{\"sub\":\"$ALIAS\",\"exp\":$expiryInSeconds}".encodeUtf8().base64Url()
+        return "e30.$claims.c2ln"
+    }
+
+    @Test
+    fun `It fulfils TokenRefresher`() {
+        val refresher: Any = AccessTokenRefresher(service)
+
+        assertTrue(refresher is NetworkingInternalContract.TokenRefresher)
+    }
+
+    @Test
+    fun `Given decodeExpiry is called with a JWT, it returns its expiry in milliseconds`() {
+        assertEquals(
+            actual = AccessTokenRefresher.decodeExpiry(jwt(1700000000)),
+            expected = 1700000000000
+        )
+    }
+
+    @Test
+    fun `Given decodeExpiry is called with an opaque token, it returns null`() {
+        assertNull(AccessTokenRefresher.decodeExpiry("opaque"))
+        assertNull(AccessTokenRefresher.decodeExpiry("e30.e30.c2ln"))
+    }
+
+    @Test
+    fun `Given refresh is called concurrently for the same stale token, it refreshes the token only once`() {
+        // Given
+        val threads = 16
+        val refreshes = AtomicInteger(0)
+        var token = "stale"
+        val executor = Executors.newFixedThreadPool(threads)
+        val start = CountDownLatch(1)
+        val refresher = AccessTokenRefresher(service)
+
+        every { service.getAccessToken(ALIAS) } answers { token }
+        every { service.refreshAccessToken(ALIAS) } answers {
+            Thread.sleep(50)
+            refreshes.incrementAndGet()
+            token = "fresh"
+            token
+        }
+
+        // When
+        val results = (1..threads).map {
+            executor.submit<String> {
+                start.await()
+                refresher.refresh(ALIAS, "stale")
+            }
+        }
+        start.countDown()
+        val tokens = results.map { it.get(5, TimeUnit.SECONDS) }
+        executor.shutdown()
+
+        // Then
+        assertEquals(
+            actual = refreshes.get(),
+            expected = 1
+        )
+        assertTrue(tokens.all { it == "fresh" })
+    }
+
+    @Test
+    fun `Given refresh is called without a stale token, it refreshes the token`() {
+        // Given
+        every { service.refreshAccessToken(ALIAS) } returns "fresh"
+
+        // When
+        val token = AccessTokenRefresher(service).refresh(ALIAS, null)
+
+        // Then
+        assertEquals(
+            actual = token,
+            expected = "fresh"
+        )
+        verify(exactly = 0) { service.getAccessToken(any()) }
+    }
+
+    @Test
+    fun `Given fetch is called without a refresh margin, it returns the current token`() {
+        // Given
+        val token = jwt(0)
+        every { service.getAccessToken(ALIAS) } returns token
+
+        // When
+        val actual = AccessTokenRefresher(service).fetch(ALIAS)
+
+        // Then
+        assertEquals(
+            actual = actual,
+            expected = token
+        )
+        verify(exactly = 0) { service.refreshAccessToken(any()) }
+    }
+
+    @Test
+    fun `Given fetch is called with a refresh margin and the token expires within it, it refreshes the token beforehand`() {
+        // Given
+        val token = jwt(1000)
+        every { service.getAccessToken(ALIAS) } returns token
+        every { service.refreshAccessToken(ALIAS) } returns "fresh"
+
+        // When
+        val actual = AccessTokenRefresher(service, 30000, clock = { 980000 }).fetch(ALIAS)
+
+        // Then
+        assertEquals(
+            actual = actual,
+            expected = "fresh"
+        )
+    }
+
+    @Test
+    fun `Given fetch is called with a refresh margin and the token does not expire within it, it returns the current token`() {
+        // Given
+        val token = jwt(1000)
+        every { service.getAccessToken(ALIAS) } returns token
+
+        // When
+        val actual = AccessTokenRefresher(service, 30000, clock = { 960000 }).fetch(ALIAS)
+
+        // Then
+        assertEquals(
+            actual = actual,
+            expected = token
+        )
+        verify(exactly = 0) { service.refreshAccessToken(any()) }
+    }
+
+    @Test
+    fun `Given fetch is called with a refresh margin and the proactive refresh fails, it returns the current token`() {
+        // Given
+        val token = jwt(1000)
+        every { service.getAccessToken(ALIAS) } returns token
+        every { service.refreshAccessToken(ALIAS) } answers { throw D4LException("fail") }
+
+        // When
+        val actual = AccessTokenRefresher(service, 30000, clock = { 980000 }).fetch(ALIAS)
+
+        // Then
+        assertEquals(
+            actual = actual,
+            expected = token
+        )
+    }
+}
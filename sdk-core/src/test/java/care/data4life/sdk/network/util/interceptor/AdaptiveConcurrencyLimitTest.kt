@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.network.util.interceptor
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import kotlin.concurrent.thread
+import kotlin.test.assertEquals
+import kotlin.test.assertTrue
+import org.junit.Test
+
+class AdaptiveConcurrencyLimitTest {
+    private var now = 0L
+
+    private fun roundTrip(limit: AdaptiveConcurrencyLimit, latency: Long, rejected: Boolean = false) {
+        val start = limit.acquire()
+        now += latency
+        limit.release(start, rejected)
+    }
+
+    @Test
+    fun `Given a request is answered in time, while the limit is barely used, it keeps the limit`() {
+        // Given
+        val limit = AdaptiveConcurrencyLimit(RequestLimits(initialConcurrency = 4)) { now }
+
+        // When
+        repeat(100) { roundTrip(limit, 10) }
+
+        // Then
+        assertEquals(
+            actual = limit.currentLimit,
+            expected = 4
+        )
+    }
+
+    @Test
+    fun `Given requests are answered in time, it grows the limit up to its maximum`() {
+        // Given
+        val limit = AdaptiveConcurrencyLimit(
+            RequestLimits(initialConcurrency = 1, maxConcurrency = 3)
+        ) { now }
+
+        // When
+        repeat(100) {
+            val starts = (1..limit.currentLimit).map { limit.acquire() }
+            now += 10
+            starts.forEach { start -> limit.release(start, false) }
+        }
+
+        // Then
+        assertEquals(
+            actual = limit.currentLimit,
+            expected = 3
+        )
+    }
+
+    @Test
+    fun `Given a request is rejected, it shrinks the limit by the backoff ratio`() {
+        // Given
+        val limit = AdaptiveConcurrencyLimit(RequestLimits(initialConcurrency = 16)) { now }
+
+        // When
+        roundTrip(limit, 10, rejected = true)
+
+        // Then
+        assertEquals(
+            actual = limit.currentLimit,
+            expected = 8
+        )
+    }
+
+    @Test
+    fun `Given concurrent requests are rejected, it shrinks the limit only once per round trip`() {
+        // Given
+        val limit = AdaptiveConcurrencyLimit(RequestLimits(initialConcurrency = 16)) { now }
+        val first = limit.acquire()
+        val second = limit.acquire()
+
+        // When
+        now += 10
+        limit.release(first, true)
+        limit.release(second, true)
+
+        // Then
+        assertEquals(
+            actual = limit.currentLimit,
+            expected = 8
+        )
+    }
+
+    @Test
+    fun `Given the latency exceeds the tolerated baseline, it shrinks the limit`() {
+        // Given
+        val limit = AdaptiveConcurrencyLimit(RequestLimits(initialConcurrency = 16)) { now }
+        roundTrip(limit, 10)
+
+        // When
+        roundTrip(limit, 30)
+
+        // Then
+        assertTrue(limit.currentLimit < 16)
+    }
+
+    @Test
+    fun `Given a request failed without a response, it keeps the limit`() {
+        // Given
+        val limit = AdaptiveConcurrencyLimit(RequestLimits(initialConcurrency = 4)) { now }
+        val start = limit.acquire()
+
+        // When
+        limit.release(start, null)
+
+        // Then
+        assertEquals(
+            actual = limit.currentLimit,
+            expected = 4
+        )
+        assertEquals(
+            actual = limit.inFlight,
+            expected = 0
+        )
+    }
+
+    @Test
+    fun `Given the limit is reached, it queues further requests until a slot is released`() {
+        // Given
+        val limit = AdaptiveConcurrencyLimit(
+            RequestLimits(initialConcurrency = 1, maxConcurrency = 1)
+        ) { now }
+        val start = limit.acquire()
+        val admitted = CountDownLatch(1)
+
+        // When
+        val waiter = thread {
+            limit.release(limit.acquire(), false)
+            admitted.countDown()
+        }
+        while (limit.queueDepth == 0) {
+            Thread.sleep(1)
+        }
+
+        // Then
+        assertEquals(
+            actual = limit.queueDepth,
+            expected = 1
+        )
+
+        // When
+        limit.release(start, false)
+
+        // Then
+        assertTrue(admitted.await(5, TimeUnit.SECONDS))
+        waiter.join()
+        assertEquals(
+            actual = limit.queueDepth,
+            expected = 0
+        )
+    }
+}
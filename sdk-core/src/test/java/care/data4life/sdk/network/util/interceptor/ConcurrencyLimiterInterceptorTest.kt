@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.network.util.interceptor
+
+import care.data4life.sdk.network.NetworkingContract
+import care.data4life.sdk.network.NetworkingContract.Companion.HEADER_ALIAS
+import care.data4life.sdk.network.NetworkingInternalContract
+import care.data4life.sdk.test.util.GenericTestDataProvider.ALIAS
+import io.mockk.every
+import io.mockk.mockk
+import java.io.IOException
+import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
+import kotlin.test.assertTrue
+import okhttp3.OkHttpClient
+import okhttp3.Request
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.SocketPolicy
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+
+class ConcurrencyLimiterInterceptorTest {
+    private lateinit var server: MockWebServer
+    private val connection: NetworkingContract.NetworkConnectivityService = mockk()
+    private var now = 0L
+
+    @Before
+    fun setUp() {
+        server = MockWebServer()
+        server.start()
+
+        every { connection.isConnected() } returns true
+    }
+
+    @After
+    fun tearDown() {
+        server.shutdown()
+    }
+
+    private fun createClient(limiter: RequestLimiter): OkHttpClient {
+        return OkHttpClient.Builder()
+            .addInterceptor(LimiterInterceptor.getInstance(limiter))
+            .addInterceptor(RetryInterceptor(connection, RetryPolicy(), sleep = { millis -> now += millis }))
+            .addInterceptor(ConcurrencyLimiterInterceptor.getInstance(limiter))
+            .retryOnConnectionFailure(false)
+            .build()
+    }
+
+    private fun OkHttpClient.get(path: String): Int {
+        val request = Request.Builder()
+            .url(server.url(path))
+            .header(HEADER_ALIAS, ALIAS)
+            .build()
+        return newCall(request).execute().use { it.code }
+    }
+
+    @Test
+    fun `It fulfils InterceptorFactory`() {
+        val factory: Any = ConcurrencyLimiterInterceptor
+
+        assertTrue(factory is NetworkingInternalContract.InterceptorFactory<*>)
+    }
+
+    @Test
+    fun `Given the server rejects Requests, it shrinks the concurrency limit`() {
+        // Given
+        val limiter = RequestLimiter(RequestLimits(initialConcurrency = 16), { now }, {})
+        val client = createClient(limiter)
+        server.enqueue(MockResponse().setResponseCode(429))
+        server.enqueue(MockResponse().setResponseCode(200))
+        server.enqueue(MockResponse().setResponseCode(429))
+        server.enqueue(MockResponse().setResponseCode(200))
+
+        // When
+        client.get("/users/1/records")
+        now += 1
+        client.get("/users/1/records")
+
+        // Then
+        assertEquals(
+            actual = limiter.concurrencyLimit,
+            expected = 4
+        )
+    }
+
+    @Test
+    fun `Given a rejected Request is retried successfully, it still shrinks the concurrency limit`() {
+        // Given
+        val limiter = RequestLimiter(RequestLimits(initialConcurrency = 16), { now }, {})
+        server.enqueue(MockResponse().setResponseCode(429))
+        server.enqueue(MockResponse().setResponseCode(200))
+
+        // When
+        val code = createClient(limiter).get("/users/1/records")
+
+        // Then
+        assertEquals(
+            actual = code,
+            expected = 200
+        )
+        assertEquals(
+            actual = server.requestCount,
+            expected = 2
+        )
+        assertEquals(
+            actual = limiter.concurrencyLimit,
+            expected = 8
+        )
+        assertEquals(
+            actual = limiter.inFlight,
+            expected = 0
+        )
+    }
+
+    @Test
+    fun `Given a Request fails without a Response, it releases its slot`() {
+        // Given
+        val limiter = RequestLimiter(RequestLimits(initialConcurrency = 16), { now }, {})
+        val client = OkHttpClient.Builder()
+            .addInterceptor(LimiterInterceptor.getInstance(limiter))
+            .addInterceptor(ConcurrencyLimiterInterceptor.getInstance(limiter))
+            .retryOnConnectionFailure(false)
+            .build()
+        server.enqueue(MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START))
+
+        // Then
+        assertFailsWith<IOException> {
+            // When
+            client.get("/users/1/records")
+        }
+        assertEquals(
+            actual = limiter.inFlight,
+            expected = 0
+        )
+        assertEquals(
+            actual = limiter.concurrencyLimit,
+            expected = 16
+        )
+    }
+
+    @Test
+    fun `Given a Request was not admitted by the LimiterInterceptor, it does not take a slot`() {
+        // Given
+        val limiter = RequestLimiter(RequestLimits(initialConcurrency = 16), { now }, {})
+        val client = OkHttpClient.Builder()
+            .addInterceptor(ConcurrencyLimiterInterceptor.getInstance(limiter))
+            .build()
+        server.enqueue(MockResponse().setResponseCode(429))
+
+        // When
+        client.get("/users/1/records")
+
+        // Then
+        assertEquals(
+            actual = limiter.concurrencyLimit,
+            expected = 16
+        )
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.network.util.interceptor
+
+import care.data4life.sdk.network.NetworkingContract
+import care.data4life.sdk.network.NetworkingContract.Companion.HEADER_ALIAS
+import care.data4life.sdk.network.NetworkingInternalContract
+import care.data4life.sdk.test.util.GenericTestDataProvider.ALIAS
+import kotlin.test.assertEquals
+import kotlin.test.assertTrue
+import okhttp3.OkHttpClient
+import okhttp3.Request
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+
+class LimiterInterceptorTest {
+    private lateinit var server: MockWebServer
+    private var now = 0L
+
+    @Before
+    fun setUp() {
+        server = MockWebServer()
+        server.start()
+    }
+
+    @After
+    fun tearDown() {
+        server.shutdown()
+    }
+
+    private fun createClient(limiter: RequestLimiter): OkHttpClient {
+        return OkHttpClient.Builder()
+            .addInterceptor(LimiterInterceptor.getInstance(limiter))
+            .retryOnConnectionFailure(false)
+            .build()
+    }
+
+    private fun OkHttpClient.get(path: String): Int {
+        val request = Request.Builder()
+            .url(server.url(path))
+            .header(HEADER_ALIAS, ALIAS)
+            .build()
+        return newCall(request).execute().use { it.code }
+    }
+
+    @Test
+    fun `It fulfils InterceptorFactory`() {
+        val factory: Any = LimiterInterceptor
+
+        assertTrue(factory is NetworkingInternalContract.InterceptorFactory<*>)
+    }
+
+    @Test
+    fun `Given a Request passes, it takes a permit of its alias and endpoint`() {
+        // Given
+        val limiter = RequestLimiter(RequestLimits(burst = 10), { now }, {})
+        server.enqueue(MockResponse())
+
+        // When
+        createClient(limiter).get("/users/1/records")
+
+        // Then
+        assertEquals(
+            actual = limiter.availablePermits(ALIAS, NetworkingContract.Endpoint.RECORDS),
+            expected = 9.0
+        )
+        assertEquals(
+            actual = limiter.availablePermits(ALIAS, NetworkingContract.Endpoint.DOCUMENTS),
+            expected = 10.0
+        )
+        assertEquals(
+            actual = limiter.inFlight,
+            expected = 0
+        )
+    }
+
+    @Test
+    fun `Given a Request passes, it marks the Request as admitted`() {
+        // Given
+        val limiter = RequestLimiter(RequestLimits(), { now }, {})
+        var admission: RequestLimiter.Admission? = null
+        val client = OkHttpClient.Builder()
+            .addInterceptor(LimiterInterceptor.getInstance(limiter))
+            .addInterceptor { chain ->
+                admission = chain.request().tag(RequestLimiter.Admission::class.java)
+                chain.proceed(chain.request())
+            }
+            .build()
+        server.enqueue(MockResponse())
+
+        // When
+        client.get("/users/1/documents")
+
+        // Then
+        assertEquals(
+            actual = admission,
+            expected = RequestLimiter.Admission(ALIAS, NetworkingContract.Endpoint.DOCUMENTS)
+        )
+    }
+}
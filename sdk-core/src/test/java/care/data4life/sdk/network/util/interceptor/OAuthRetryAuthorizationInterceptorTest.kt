@@ -35,6 +35,7 @@ import kotlin.test.assertSame
 import kotlin.test.assertTrue
 import okhttp3.Interceptor
 import okhttp3.Request
+import okhttp3.RequestBody
 import okhttp3.Response
 import org.junit.Before
 import org.junit.Test
@@ -92,13 +93,18 @@ class OAuthRetryAuthorizationInterceptorTest {
         val modifiedRequest: Request = mockk()
         val builder: Request.Builder = mockk()
 
+        val sentRequest: Request = mockk()
+
         every { chain.proceed(modifiedRequest) } returns newResponse
 
         every { orgResponse.code } returns HTTP_401_UNAUTHORIZED
         every { orgResponse.close() } just Runs
+        every { orgResponse.request } returns sentRequest
+        every { sentRequest.header(NetworkingContract.HEADER_AUTHORIZATION) } returns null
 
         every { service.refreshAccessToken(alias) } returns token
 
+        every { request.body } returns null
         every { request.newBuilder() } returns builder
         every {
             builder.header(NetworkingContract.HEADER_AUTHORIZATION, "Bearer $token")
@@ -134,7 +140,11 @@ class OAuthRetryAuthorizationInterceptorTest {
         val chain: Interceptor.Chain = mockk()
         val request: Request = mockk()
 
+        val sentRequest: Request = mockk()
+
         every { response.code } returns HTTP_401_UNAUTHORIZED
+        every { response.request } returns sentRequest
+        every { sentRequest.header(NetworkingContract.HEADER_AUTHORIZATION) } returns null
 
         every { service.refreshAccessToken(alias) } answers { throw D4LException("fail") }
         every { service.clear() } just Runs
@@ -154,4 +164,92 @@ class OAuthRetryAuthorizationInterceptorTest {
         verify { request wasNot Called }
         verify { chain wasNot Called }
     }
+
+    @Test
+    fun `Given a interceptor was created and intercept was called, it hands the Token of the failed Request as stale Token to its TokenRefresher, if the ResponseCode was 401`() {
+        val alias = ALIAS
+        val token = AUTH_TOKEN
+        val refresher: NetworkingInternalContract.TokenRefresher = mockk()
+        val orgResponse: Response = mockk()
+        val newResponse: Response = mockk()
+
+        val chain: Interceptor.Chain = mockk()
+        val request: Request = mockk()
+        val sentRequest: Request = mockk()
+
+        val modifiedRequest: Request = mockk()
+        val builder: Request.Builder = mockk()
+
+        every { chain.proceed(modifiedRequest) } returns newResponse
+
+        every { orgResponse.code } returns HTTP_401_UNAUTHORIZED
+        every { orgResponse.close() } just Runs
+        every { orgResponse.request } returns sentRequest
+        every { sentRequest.header(NetworkingContract.HEADER_AUTHORIZATION) } returns "Bearer stale"
+
+        every { refresher.refresh(alias, "stale") } returns token
+
+        every { request.body } returns null
+        every { request.newBuilder() } returns builder
+        every {
+            builder.header(NetworkingContract.HEADER_AUTHORIZATION, "Bearer $token")
+        } returns builder
+        every {
+            builder.build()
+        } returns modifiedRequest
+
+        // When
+        val actual = OAuthRetryTokenAuthorizationInterceptor(service, refresher).intercept(
+            Triple(alias, request, orgResponse),
+            chain
+        )
+
+        // Then
+        assertSame(
+            actual = actual,
+            expected = newResponse
+        )
+
+        verify(exactly = 1) { refresher.refresh(alias, "stale") }
+        verify(exactly = 0) { service.refreshAccessToken(any()) }
+    }
+
+    @Test
+    fun `Given a interceptor was created and intercept was called, it refreshes the Token, but returns the failed Response, if the ResponseCode was 401 and the Request has a one-shot body`() {
+        val alias = ALIAS
+        val token = AUTH_TOKEN
+        val response: Response = mockk()
+
+        val chain: Interceptor.Chain = mockk()
+        val request: Request = mockk()
+        val body: RequestBody = mockk()
+
+        val sentRequest: Request = mockk()
+
+        every { response.code } returns HTTP_401_UNAUTHORIZED
+        every { response.request } returns sentRequest
+        every { sentRequest.header(NetworkingContract.HEADER_AUTHORIZATION) } returns null
+
+        every { service.refreshAccessToken(alias) } returns token
+
+        every { request.body } returns body
+        every { body.isOneShot() } returns true
+
+        // When
+        val actual = OAuthRetryTokenAuthorizationInterceptor(service).intercept(
+            Triple(alias, request, response),
+            chain
+        )
+
+        // Then
+        assertSame(
+            actual = actual,
+            expected = response
+        )
+
+        verify(exactly = 1) { service.refreshAccessToken(alias) }
+        verify(exactly = 0) { response.close() }
+        verify { chain wasNot Called }
+        verify(exactly = 0) { request.newBuilder() }
+    }
 }
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.network.util.interceptor
+
+import care.data4life.sdk.network.NetworkingContract
+import care.data4life.sdk.test.util.GenericTestDataProvider.ALIAS
+import java.util.concurrent.TimeUnit
+import kotlin.test.assertEquals
+import org.junit.Test
+
+class RequestLimiterTest {
+    private var now = 0L
+    private val sleeps = mutableListOf<Long>()
+
+    private fun createLimiter(limits: RequestLimits): RequestLimiter {
+        return RequestLimiter(limits, { now }, { nanos -> sleeps.add(nanos) })
+    }
+
+    @Test
+    fun `Given Endpoint of is called with a path, it classifies the endpoint`() {
+        assertEquals(
+            actual = NetworkingContract.Endpoint.of("/users/1/records/2"),
+            expected = NetworkingContract.Endpoint.RECORDS
+        )
+        assertEquals(
+            actual = NetworkingContract.Endpoint.of("/users/1/documents"),
+            expected = NetworkingContract.Endpoint.DOCUMENTS
+        )
+        assertEquals(
+            actual = NetworkingContract.Endpoint.of("/users/1/commonkeys/2"),
+            expected = NetworkingContract.Endpoint.KEYS
+        )
+        assertEquals(
+            actual = NetworkingContract.Endpoint.of("/users/1/tek"),
+            expected = NetworkingContract.Endpoint.KEYS
+        )
+        assertEquals(
+            actual = NetworkingContract.Endpoint.of("/userinfo"),
+            expected = NetworkingContract.Endpoint.OTHER
+        )
+    }
+
+    @Test
+    fun `Given the burst of an alias and endpoint is spent, it delays further requests by its rate`() {
+        // Given
+        val limiter = createLimiter(RequestLimits(requestsPerSecond = 4.0, burst = 1))
+        limiter.throttle(ALIAS, NetworkingContract.Endpoint.RECORDS)
+
+        // When
+        limiter.throttle(ALIAS, NetworkingContract.Endpoint.RECORDS)
+
+        // Then
+        assertEquals(
+            actual = sleeps,
+            expected = listOf(TimeUnit.MILLISECONDS.toNanos(250))
+        )
+    }
+
+    @Test
+    fun `Given the burst of an alias and endpoint is spent, it does not delay requests of other aliases or endpoints`() {
+        // Given
+        val limiter = createLimiter(RequestLimits(requestsPerSecond = 4.0, burst = 1))
+        limiter.throttle(ALIAS, NetworkingContract.Endpoint.RECORDS)
+
+        // When
+        limiter.throttle(ALIAS, NetworkingContract.Endpoint.DOCUMENTS)
+        limiter.throttle("other", NetworkingContract.Endpoint.RECORDS)
+
+        // Then
+        assertEquals(
+            actual = sleeps,
+            expected = emptyList()
+        )
+        assertEquals(
+            actual = limiter.availablePermits(ALIAS, NetworkingContract.Endpoint.RECORDS),
+            expected = 0.0
+        )
+    }
+
+    @Test
+    fun `Given an attempt is rejected with an overload status code, it shrinks the concurrency limit`() {
+        // Given
+        val limiter = createLimiter(RequestLimits(initialConcurrency = 8))
+
+        // When
+        limiter.release(limiter.acquire(), 429)
+
+        // Then
+        assertEquals(
+            actual = limiter.concurrencyLimit,
+            expected = 4
+        )
+        assertEquals(
+            actual = limiter.inFlight,
+            expected = 0
+        )
+    }
+}
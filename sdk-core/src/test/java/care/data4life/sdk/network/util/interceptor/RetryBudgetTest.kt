@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.network.util.interceptor
+
+import kotlin.test.assertFalse
+import kotlin.test.assertTrue
+import org.junit.Test
+
+class RetryBudgetTest {
+    @Test
+    fun `Given a RetryBudget was created, it allows to withdraw up to its capacity`() {
+        // Given
+        val budget = RetryBudget(0.0, 2)
+
+        // Then
+        assertTrue(budget.withdraw())
+        assertTrue(budget.withdraw())
+        assertFalse(budget.withdraw())
+    }
+
+    @Test
+    fun `Given deposits were made into a spent RetryBudget, it allows to withdraw once the deposits sum up to a retry`() {
+        // Given
+        val budget = RetryBudget(0.5, 1)
+        budget.withdraw()
+
+        // When
+        budget.deposit()
+
+        // Then
+        assertFalse(budget.withdraw())
+
+        // When
+        budget.deposit()
+
+        // Then
+        assertTrue(budget.withdraw())
+    }
+
+    @Test
+    fun `Given deposits exceed the capacity of a RetryBudget, it caps the balance at its capacity`() {
+        // Given
+        val budget = RetryBudget(1.0, 1)
+
+        // When
+        repeat(5) { budget.deposit() }
+
+        // Then
+        assertTrue(budget.withdraw())
+        assertFalse(budget.withdraw())
+    }
+}
@@ -22,16 +22,81 @@ import care.data4life.sdk.network.NetworkingInternalContract
 import io.mockk.every
 import io.mockk.mockk
 import io.mockk.verify
+import java.io.IOException
 import java.net.SocketTimeoutException
+import kotlin.random.Random
+import kotlin.test.assertEquals
 import kotlin.test.assertFailsWith
 import kotlin.test.assertSame
 import kotlin.test.assertTrue
 import okhttp3.Interceptor
+import okhttp3.MediaType.Companion.toMediaType
+import okhttp3.OkHttpClient
 import okhttp3.Request
+import okhttp3.RequestBody.Companion.toRequestBody
 import okhttp3.Response
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.SocketPolicy
+import org.junit.After
+import org.junit.Before
 import org.junit.Test
 
 class RetryInterceptorTest {
+    private lateinit var server: MockWebServer
+    private lateinit var connection: NetworkingContract.NetworkConnectivityService
+    private val delays = mutableListOf<Long>()
+
+    @Before
+    fun setUp() {
+        server = MockWebServer()
+        server.start()
+        connection = mockk()
+        delays.clear()
+
+        every { connection.isConnected() } returns true
+    }
+
+    @After
+    fun tearDown() {
+        server.shutdown()
+    }
+
+    private fun createClient(
+        policy: RetryPolicy = RetryPolicy(),
+        clock: () -> Long = System::currentTimeMillis
+    ): OkHttpClient {
+        val interceptor = RetryInterceptor(
+            connection,
+            policy,
+            random = Random(23),
+            clock = clock,
+            sleep = { delays.add(it) }
+        )
+
+        return OkHttpClient.Builder()
+            .addInterceptor(interceptor)
+            .retryOnConnectionFailure(false)
+            .build()
+    }
+
+    private fun OkHttpClient.get(): Int {
+        val request = Request.Builder().url(server.url("/")).build()
+        return newCall(request).execute().use { it.code }
+    }
+
+    private fun OkHttpClient.post(): Int {
+        val request = Request.Builder()
+            .url(server.url("/"))
+            .post("{}".toRequestBody("application/json".toMediaType()))
+            .build()
+        return newCall(request).execute().use { it.code }
+    }
+
+    private fun enqueue(vararg codes: Int) {
+        codes.forEach { code -> server.enqueue(MockResponse().setResponseCode(code)) }
+    }
+
     @Test
     fun `It fulfils InterceptorFactory`() {
         val factory: Any = RetryInterceptor
@@ -59,6 +124,8 @@ class RetryInterceptorTest {
         val response: Response = mockk()
         val request: Request = mockk()
 
+        every { request.method } returns "GET"
+        every { response.code } returns 200
         every { chain.request() } returns request
         every { chain.proceed(request) } returns response
 
@@ -85,6 +152,10 @@ class RetryInterceptorTest {
         var isFail = false
 
         every { service.isConnected() } returns true
+        every { request.method } returns "GET"
+        every { request.body } returns null
+        every { response.code } returns 200
+        every { chain.call().isCanceled() } returns false
         every { chain.request() } returns request
         every { chain.proceed(request) } answers {
             if (isFail) {
@@ -97,7 +168,7 @@ class RetryInterceptorTest {
         }
 
         // When
-        val result = RetryInterceptor.getInstance(service).intercept(chain)
+        val result = RetryInterceptor(service, RetryPolicy(), sleep = {}).intercept(chain)
 
         // Then
         assertSame(
@@ -119,6 +190,9 @@ class RetryInterceptorTest {
         var isFail = false
 
         every { service.isConnected() } returns false
+        every { request.method } returns "GET"
+        every { request.body } returns null
+        every { chain.call().isCanceled() } returns false
         every { chain.request() } returns request
         every { chain.proceed(request) } answers {
             if (isFail) {
@@ -136,4 +210,191 @@ class RetryInterceptorTest {
             RetryInterceptor.getInstance(service).intercept(chain)
         }
     }
+
+    @Test
+    fun `Given an idempotent Request fails with a retryable status code, it retries the Request with a backoff`() {
+        // Given
+        enqueue(503, 200)
+
+        // When
+        val code = createClient().get()
+
+        // Then
+        assertEquals(
+            actual = code,
+            expected = 200
+        )
+        assertEquals(
+            actual = server.requestCount,
+            expected = 2
+        )
+        assertEquals(
+            actual = delays.size,
+            expected = 1
+        )
+        assertTrue(delays.first() in 0..RetryPolicy().baseDelayMillis)
+    }
+
+    @Test
+    fun `Given a non idempotent Request fails with a retryable status code, it returns the Response without retrying`() {
+        // Given
+        enqueue(502, 200)
+
+        // When
+        val code = createClient().post()
+
+        // Then
+        assertEquals(
+            actual = code,
+            expected = 502
+        )
+        assertEquals(
+            actual = server.requestCount,
+            expected = 1
+        )
+    }
+
+    @Test
+    fun `Given a non idempotent Request is rejected with Retry-After, it retries the Request after the requested delay`() {
+        // Given
+        server.enqueue(MockResponse().setResponseCode(429).setHeader("Retry-After", "2"))
+        enqueue(201)
+
+        // When
+        val code = createClient().post()
+
+        // Then
+        assertEquals(
+            actual = code,
+            expected = 201
+        )
+        assertEquals(
+            actual = delays,
+            expected = listOf(2000L)
+        )
+    }
+
+    @Test
+    fun `Given a Request is rejected with Retry-After as date, it retries the Request until the given date`() {
+        // Given
+        val date = 1445412480000L
+        server.enqueue(
+            MockResponse().setResponseCode(503).setHeader("Retry-After", "Wed, 21 Oct 2015 07:28:00 GMT")
+        )
+        enqueue(200)
+
+        // When
+        val code = createClient(clock = { date - 4000 }).get()
+
+        // Then
+        assertEquals(
+            actual = code,
+            expected = 200
+        )
+        assertEquals(
+            actual = delays,
+            expected = listOf(4000L)
+        )
+    }
+
+    @Test
+    fun `Given a Request is rejected with a Retry-After above the maximum delay, it returns the Response without retrying`() {
+        // Given
+        server.enqueue(MockResponse().setResponseCode(503).setHeader("Retry-After", "120"))
+        enqueue(200)
+
+        // When
+        val code = createClient().get()
+
+        // Then
+        assertEquals(
+            actual = code,
+            expected = 503
+        )
+        assertEquals(
+            actual = server.requestCount,
+            expected = 1
+        )
+    }
+
+    @Test
+    fun `Given a Request keeps failing, it returns the last Response once the retries are exhausted`() {
+        // Given
+        val policy = RetryPolicy(maxRetries = 2, baseDelayMillis = 100, maxDelayMillis = 150)
+        enqueue(503, 503, 503, 200)
+
+        // When
+        val code = createClient(policy).get()
+
+        // Then
+        assertEquals(
+            actual = code,
+            expected = 503
+        )
+        assertEquals(
+            actual = server.requestCount,
+            expected = 3
+        )
+        assertTrue(delays[0] in 0..100L)
+        assertTrue(delays[1] in 0..150L)
+    }
+
+    @Test
+    fun `Given the retry budget is spent, it returns the Response without retrying`() {
+        // Given
+        val client = createClient(RetryPolicy(budgetRatio = 0.0, budgetCapacity = 1))
+        enqueue(503, 200, 503, 200)
+
+        // When
+        val first = client.get()
+        val second = client.get()
+
+        // Then
+        assertEquals(
+            actual = first,
+            expected = 200
+        )
+        assertEquals(
+            actual = second,
+            expected = 503
+        )
+        assertEquals(
+            actual = server.requestCount,
+            expected = 3
+        )
+    }
+
+    @Test
+    fun `Given the connection of an idempotent Request fails, it retries the Request`() {
+        // Given
+        server.enqueue(MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START))
+        enqueue(200)
+
+        // When
+        val code = createClient().get()
+
+        // Then
+        assertEquals(
+            actual = code,
+            expected = 200
+        )
+        assertEquals(
+            actual = delays.size,
+            expected = 1
+        )
+    }
+
+    @Test
+    fun `Given the connection of a non idempotent Request fails, it fails without retrying`() {
+        // Given
+        server.enqueue(MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START))
+        enqueue(201)
+
+        // Then
+        assertFailsWith<IOException> {
+            // When
+            createClient().post()
+        }
+        assertTrue(delays.isEmpty())
+    }
 }
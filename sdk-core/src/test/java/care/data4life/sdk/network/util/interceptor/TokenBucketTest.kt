@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.network.util.interceptor
+
+import java.util.concurrent.TimeUnit
+import kotlin.test.assertEquals
+import org.junit.Test
+
+class TokenBucketTest {
+    private var now = 0L
+
+    @Test
+    fun `Given a TokenBucket was created, it admits its capacity at once`() {
+        // Given
+        val bucket = TokenBucket(2.0, 3) { now }
+
+        // Then
+        repeat(3) {
+            assertEquals(
+                actual = bucket.reserve(),
+                expected = 0
+            )
+        }
+    }
+
+    @Test
+    fun `Given a TokenBucket was drained, it returns the time until the next permit is due`() {
+        // Given
+        val bucket = TokenBucket(2.0, 1) { now }
+        bucket.reserve()
+
+        // When
+        val first = bucket.reserve()
+        val second = bucket.reserve()
+
+        // Then
+        assertEquals(
+            actual = first,
+            expected = TimeUnit.MILLISECONDS.toNanos(500)
+        )
+        assertEquals(
+            actual = second,
+            expected = TimeUnit.MILLISECONDS.toNanos(1000)
+        )
+    }
+
+    @Test
+    fun `Given time passed, a TokenBucket refills up to its capacity`() {
+        // Given
+        val bucket = TokenBucket(2.0, 4) { now }
+        repeat(4) { bucket.reserve() }
+
+        // When
+        now += TimeUnit.SECONDS.toNanos(1)
+
+        // Then
+        assertEquals(
+            actual = bucket.available,
+            expected = 2.0
+        )
+
+        // When
+        now += TimeUnit.SECONDS.toNanos(10)
+
+        // Then
+        assertEquals(
+            actual = bucket.available,
+            expected = 4.0
+        )
+    }
+}
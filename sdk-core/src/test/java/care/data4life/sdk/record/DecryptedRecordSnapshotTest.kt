@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.record
+
+import care.data4life.sdk.crypto.GCKey
+import care.data4life.sdk.data.DataResource
+import care.data4life.sdk.fhir.Fhir4Resource
+import care.data4life.sdk.model.ModelContract
+import care.data4life.sdk.network.model.DecryptedDataRecord
+import care.data4life.sdk.network.model.DecryptedR4Record
+import care.data4life.sdk.tag.TaggingContract.Companion.TAG_FHIR_VERSION
+import care.data4life.sdk.tag.TaggingContract.Companion.TAG_RESOURCE_TYPE
+import care.data4life.sdk.test.util.GenericTestDataProvider.RECORD_ID
+import care.data4life.sdk.wrapper.WrapperContract
+import io.mockk.every
+import io.mockk.mockk
+import io.mockk.verify
+import kotlin.test.assertEquals
+import kotlin.test.assertNotSame
+import kotlin.test.assertSame
+import kotlin.test.assertTrue
+import org.junit.Test
+
+class DecryptedRecordSnapshotTest {
+    private val parser: WrapperContract.FhirParser = mockk()
+
+    @Test
+    fun `Given a snapshot of a Fhir Record, restore returns a copy of the Record with a freshly parsed resource`() {
+        // Given
+        val resource: Fhir4Resource = mockk()
+        val parsedResource: Fhir4Resource = mockk()
+        val record = DecryptedR4Record(
+            RECORD_ID,
+            resource,
+            mapOf(TAG_RESOURCE_TYPE to "documentreference", TAG_FHIR_VERSION to "4.0.1"),
+            listOf("annotation"),
+            null,
+            "2021-01-01T00:00:00",
+            mockk<GCKey>(),
+            null,
+            1,
+            ModelContract.RecordStatus.Active
+        )
+
+        every { parser.fromResource(resource) } returns "serialized"
+        every { parser.toFhir<Fhir4Resource>("documentreference", "4.0.1", "serialized") } returns parsedResource
+
+        val snapshot = DecryptedRecordSnapshot.of(record, parser)
+        record.annotations = listOf("changed")
+
+        // When
+        val restored = snapshot.restore<Fhir4Resource>()
+
+        // Then
+        assertNotSame(
+            illegal = record,
+            actual = restored
+        )
+        assertSame(
+            expected = parsedResource,
+            actual = restored.resource
+        )
+        assertEquals(
+            expected = listOf("annotation"),
+            actual = restored.annotations
+        )
+        assertSame(
+            expected = record.dataKey,
+            actual = restored.dataKey
+        )
+        verify(exactly = 1) { parser.fromResource(resource) }
+    }
+
+    @Test
+    fun `Given a snapshot of a Data Record, restore returns a copy of the Record with a copied resource`() {
+        // Given
+        val payload = byteArrayOf(1, 2, 3)
+        val record = DecryptedDataRecord(
+            RECORD_ID,
+            DataResource(payload),
+            emptyMap(),
+            emptyList(),
+            null,
+            null,
+            mockk(),
+            1,
+            ModelContract.RecordStatus.Active
+        )
+
+        val snapshot = DecryptedRecordSnapshot.of(record, parser)
+        payload[0] = 42
+
+        // When
+        val first = snapshot.restore<DataResource>()
+        val second = snapshot.restore<DataResource>()
+
+        // Then
+        assertTrue(byteArrayOf(1, 2, 3).contentEquals(first.resource.value))
+        assertNotSame(
+            illegal = first.resource,
+            actual = second.resource
+        )
+        verify(exactly = 0) { parser.fromResource(any()) }
+    }
+}
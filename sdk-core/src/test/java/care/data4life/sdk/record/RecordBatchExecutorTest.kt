@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.record
+
+import care.data4life.sdk.SdkContract
+import care.data4life.sdk.lang.D4LException
+import io.mockk.every
+import io.mockk.mockk
+import io.mockk.verify
+import io.reactivex.Single
+import io.reactivex.schedulers.Schedulers
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
+import kotlin.test.assertSame
+import kotlin.test.assertTrue
+import org.junit.Before
+import org.junit.Test
+
+class RecordBatchExecutorTest {
+    private val errorHandler: SdkContract.ErrorHandler = mockk()
+    private val d4lError: D4LException = mockk()
+
+    @Before
+    fun setUp() {
+        every { errorHandler.handleError(any()) } returns d4lError
+    }
+
+    @Test
+    fun `It fulfils BatchExecutor`() {
+        val executor: Any = RecordBatchExecutor(errorHandler)
+
+        assertTrue(executor is RecordContract.BatchExecutor)
+    }
+
+    @Test
+    fun `Given a non positive parallelism, it fails`() {
+        assertFailsWith<IllegalArgumentException> {
+            RecordBatchExecutor(errorHandler, 0)
+        }
+    }
+
+    @Test
+    fun `Given execute is called with items, it reports every item in the order of the given items`() {
+        // Given
+        val items = (0 until 20).toList()
+        val executor = RecordBatchExecutor(errorHandler, 4, Schedulers.io())
+
+        // When
+        val result = executor.execute(items) { item ->
+            Single.timer((20L - item) % 5, TimeUnit.MILLISECONDS).map { item * 2 }
+        }.blockingGet()
+
+        // Then
+        assertEquals(
+            expected = items.map { it * 2 },
+            actual = result.successfulOperations
+        )
+        assertEquals(
+            expected = emptyList(),
+            actual = result.failedOperations
+        )
+        assertEquals(
+            expected = 20,
+            actual = result.processedItems
+        )
+    }
+
+    @Test
+    fun `Given execute is called with failing items, it reports each failure exactly once`() {
+        // Given
+        val items = listOf("a", "b", "c", "d")
+        val error = RuntimeException("error")
+        val subscriptions = AtomicInteger(0)
+        val executor = RecordBatchExecutor(errorHandler, scheduler = Schedulers.trampoline())
+
+        // When
+        val result = executor.execute(items) { item ->
+            subscriptions.incrementAndGet()
+            if (item == "b" || item == "d") {
+                Single.error(error)
+            } else {
+                Single.just(item.uppercase())
+            }
+        }.blockingGet()
+
+        // Then
+        assertEquals(
+            expected = listOf("A", "C"),
+            actual = result.successfulOperations
+        )
+        assertEquals(
+            expected = listOf("b", "d"),
+            actual = result.failedOperations.map { it.first }
+        )
+        result.failedOperations.forEach { (_, cause) -> assertSame(d4lError, cause) }
+        assertEquals(
+            expected = 4,
+            actual = subscriptions.get()
+        )
+        verify(exactly = 2) { errorHandler.handleError(error) }
+    }
+
+    @Test
+    fun `Given execute is called, it never runs more items at once than the given parallelism`() {
+        // Given
+        val parallelism = 3
+        val items = (0 until 30).toList()
+        val inFlight = AtomicInteger(0)
+        val maxInFlight = AtomicInteger(0)
+        val executor = RecordBatchExecutor(errorHandler, parallelism, Schedulers.io())
+
+        // When
+        val result = executor.execute(items) { item ->
+            Single.fromCallable {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet()) { a, b -> maxOf(a, b) }
+                Thread.sleep(2)
+                inFlight.decrementAndGet()
+                item
+            }
+        }.blockingGet()
+
+        // Then
+        assertEquals(
+            expected = items,
+            actual = result.successfulOperations
+        )
+        assertTrue(maxInFlight.get() <= parallelism)
+    }
+
+    @Test
+    fun `Given execute is called, it measures the duration and throughput with the given clock`() {
+        // Given
+        val times = mutableListOf(1000L, 1500L)
+        val executor = RecordBatchExecutor(
+            errorHandler,
+            scheduler = Schedulers.trampoline(),
+            clock = { times.removeAt(0) }
+        )
+
+        // When
+        val result = executor.execute(listOf(1, 2, 3, 4)) { item -> Single.just(item) }
+            .blockingGet()
+
+        // Then
+        assertEquals(
+            expected = 500L,
+            actual = result.durationMillis
+        )
+        assertEquals(
+            expected = 8.0,
+            actual = result.throughput
+        )
+    }
+
+    @Test
+    fun `Given execute is called with no items, it emits an empty result`() {
+        // Given
+        val executor = RecordBatchExecutor(errorHandler, scheduler = Schedulers.trampoline())
+
+        // When
+        val result = executor.execute(emptyList<String>()) { item -> Single.just(item) }
+            .blockingGet()
+
+        // Then
+        assertEquals(
+            expected = 0,
+            actual = result.processedItems
+        )
+    }
+}
@@ -0,0 +1,348 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.record
+
+import care.data4life.sdk.crypto.GCKey
+import care.data4life.sdk.data.DataResource
+import care.data4life.sdk.fhir.Fhir4Resource
+import care.data4life.sdk.model.ModelContract
+import care.data4life.sdk.network.model.DecryptedDataRecord
+import care.data4life.sdk.network.model.DecryptedR4Record
+import care.data4life.sdk.network.model.NetworkModelContract.DecryptedBaseRecord
+import care.data4life.sdk.network.model.NetworkModelContract.EncryptedRecord
+import care.data4life.sdk.tag.TaggingContract.Companion.TAG_FHIR_VERSION
+import care.data4life.sdk.tag.TaggingContract.Companion.TAG_RESOURCE_TYPE
+import care.data4life.sdk.test.util.GenericTestDataProvider.RECORD_ID
+import care.data4life.sdk.test.util.GenericTestDataProvider.USER_ID
+import care.data4life.sdk.wrapper.WrapperContract
+import io.mockk.every
+import io.mockk.mockk
+import io.mockk.verify
+import io.reactivex.Single
+import io.reactivex.subjects.SingleSubject
+import kotlin.test.assertEquals
+import kotlin.test.assertNotSame
+import kotlin.test.assertSame
+import kotlin.test.assertTrue
+import org.junit.Test
+
+class RecordCacheTest {
+    private val parser: WrapperContract.FhirParser = mockk()
+    private val tags = mapOf(
+        TAG_RESOURCE_TYPE to "documentreference",
+        TAG_FHIR_VERSION to "4.0.1"
+    )
+
+    private fun encryptedRecord(version: Int, updatedDate: String = "2021-01-01T00:00:00"): EncryptedRecord {
+        return mockk<EncryptedRecord>().also { record ->
+            every { record.version } returns version
+            every { record.updatedDate } returns updatedDate
+        }
+    }
+
+    private fun decryptedRecord(resource: Fhir4Resource): DecryptedBaseRecord<Fhir4Resource> {
+        return DecryptedR4Record(
+            RECORD_ID,
+            resource,
+            tags,
+            listOf("annotation"),
+            null,
+            "2021-01-01T00:00:00",
+            mockk<GCKey>(),
+            null,
+            1,
+            ModelContract.RecordStatus.Active
+        )
+    }
+
+    @Test
+    fun `It fulfils Cache`() {
+        val cache: Any = RecordCache()
+
+        assertTrue(cache is RecordContract.Cache)
+    }
+
+    @Test
+    fun `Given fetch is called for a Record, which is not cached, it decrypts the fetched Record and returns it`() {
+        // Given
+        val cache = RecordCache(4, parser)
+        val encrypted = encryptedRecord(1)
+        val resource: Fhir4Resource = mockk()
+        val decrypted = decryptedRecord(resource)
+
+        every { parser.fromResource(resource) } returns "serialized"
+
+        // When
+        val record = cache.fetch(
+            USER_ID,
+            RECORD_ID,
+            { Single.just(encrypted) },
+            { fetched -> decrypted.also { assertSame(encrypted, fetched) } }
+        ).blockingGet()
+
+        // Then
+        assertSame(
+            expected = decrypted,
+            actual = record
+        )
+        assertEquals(
+            expected = 1L,
+            actual = cache.misses
+        )
+        assertEquals(
+            expected = 0L,
+            actual = cache.hits
+        )
+    }
+
+    @Test
+    fun `Given fetch is called for a cached Record, which version and update date did not change, it returns a copy without decrypting it again`() {
+        // Given
+        val cache = RecordCache(4, parser)
+        val resource: Fhir4Resource = mockk()
+        val copiedResource: Fhir4Resource = mockk()
+        val decrypted = decryptedRecord(resource)
+        var decryptions = 0
+
+        every { parser.fromResource(resource) } returns "serialized"
+        every { parser.toFhir<Fhir4Resource>("documentreference", "4.0.1", "serialized") } returns copiedResource
+
+        val first = cache.fetch(
+            USER_ID,
+            RECORD_ID,
+            { Single.just(encryptedRecord(1)) },
+            { decryptions += 1; decrypted }
+        ).blockingGet()
+        first.annotations = listOf("changed")
+
+        // When
+        val second = cache.fetch(
+            USER_ID,
+            RECORD_ID,
+            { Single.just(encryptedRecord(1)) },
+            { decryptions += 1; decrypted }
+        ).blockingGet()
+
+        // Then
+        assertEquals(
+            expected = 1,
+            actual = decryptions
+        )
+        assertNotSame(
+            illegal = first,
+            actual = second
+        )
+        assertSame(
+            expected = copiedResource,
+            actual = second.resource
+        )
+        assertEquals(
+            expected = listOf("annotation"),
+            actual = second.annotations
+        )
+        assertEquals(
+            expected = 1L,
+            actual = cache.hits
+        )
+        verify(exactly = 1) { parser.fromResource(resource) }
+    }
+
+    @Test
+    fun `Given fetch is called for a cached Record, which version changed, it decrypts the fetched Record`() {
+        // Given
+        val cache = RecordCache(4, parser)
+        val resource: Fhir4Resource = mockk()
+        val updatedResource: Fhir4Resource = mockk()
+        val decrypted = decryptedRecord(resource)
+        val updated = decryptedRecord(updatedResource)
+
+        every { parser.fromResource(any()) } returns "serialized"
+
+        cache.fetch(USER_ID, RECORD_ID, { Single.just(encryptedRecord(1)) }, { decrypted }).blockingGet()
+
+        // When
+        val record = cache.fetch(
+            USER_ID,
+            RECORD_ID,
+            { Single.just(encryptedRecord(2)) },
+            { updated }
+        ).blockingGet()
+
+        // Then
+        assertSame(
+            expected = updated,
+            actual = record
+        )
+        assertEquals(
+            expected = 2L,
+            actual = cache.misses
+        )
+    }
+
+    @Test
+    fun `Given fetch is called concurrently for the same Record, it fetches and decrypts it only once`() {
+        // Given
+        val cache = RecordCache(4, parser)
+        val fetched = SingleSubject.create<EncryptedRecord>()
+        val resource: Fhir4Resource = mockk()
+        val copiedResource: Fhir4Resource = mockk()
+        val decrypted = decryptedRecord(resource)
+        var fetches = 0
+        var decryptions = 0
+
+        every { parser.fromResource(resource) } returns "serialized"
+        every { parser.toFhir<Fhir4Resource>("documentreference", "4.0.1", "serialized") } returns copiedResource
+
+        val first = cache.fetch(
+            USER_ID,
+            RECORD_ID,
+            { fetches += 1; fetched },
+            { decryptions += 1; decrypted }
+        ).test()
+        val second = cache.fetch(
+            USER_ID,
+            RECORD_ID,
+            { fetches += 1; fetched },
+            { decryptions += 1; decrypted }
+        ).test()
+
+        // When
+        fetched.onSuccess(encryptedRecord(1))
+
+        // Then
+        assertEquals(
+            expected = 1,
+            actual = fetches
+        )
+        assertEquals(
+            expected = 1,
+            actual = decryptions
+        )
+        assertSame(
+            expected = decrypted,
+            actual = first.values()[0]
+        )
+        assertSame(
+            expected = copiedResource,
+            actual = second.values()[0].resource
+        )
+    }
+
+    @Test
+    fun `Given fetch exceeds the capacity of the cache, it evicts the least recently used Record`() {
+        // Given
+        val cache = RecordCache(1, parser)
+        var decryptions = 0
+
+        every { parser.fromResource(any()) } returns "serialized"
+
+        cache.fetch(
+            USER_ID,
+            "first",
+            { Single.just(encryptedRecord(1)) },
+            { decryptions += 1; decryptedRecord(mockk()) }
+        ).blockingGet()
+        cache.fetch(
+            USER_ID,
+            "second",
+            { Single.just(encryptedRecord(1)) },
+            { decryptions += 1; decryptedRecord(mockk()) }
+        ).blockingGet()
+
+        // When
+        cache.fetch(
+            USER_ID,
+            "first",
+            { Single.just(encryptedRecord(1)) },
+            { decryptions += 1; decryptedRecord(mockk()) }
+        ).blockingGet()
+
+        // Then
+        assertEquals(
+            expected = 3,
+            actual = decryptions
+        )
+        assertEquals(
+            expected = 2L,
+            actual = cache.evictions
+        )
+    }
+
+    @Test
+    fun `Given invalidate is called with a UserId and a RecordId, the next fetch decrypts the Record again`() {
+        // Given
+        val cache = RecordCache(4, parser)
+        var decryptions = 0
+
+        every { parser.fromResource(any()) } returns "serialized"
+
+        cache.fetch(
+            USER_ID,
+            RECORD_ID,
+            { Single.just(encryptedRecord(1)) },
+            { decryptions += 1; decryptedRecord(mockk()) }
+        ).blockingGet()
+
+        // When
+        cache.invalidate(USER_ID, RECORD_ID)
+        cache.fetch(
+            USER_ID,
+            RECORD_ID,
+            { Single.just(encryptedRecord(1)) },
+            { decryptions += 1; decryptedRecord(mockk()) }
+        ).blockingGet()
+
+        // Then
+        assertEquals(
+            expected = 2,
+            actual = decryptions
+        )
+    }
+
+    @Test
+    fun `Given fetch is called for a cached DataRecord, it copies its payload without the FhirParser`() {
+        // Given
+        val cache = RecordCache(4, parser)
+        val payload = byteArrayOf(1, 2, 3)
+        val decrypted = DecryptedDataRecord(
+            RECORD_ID,
+            DataResource(payload),
+            emptyMap(),
+            emptyList(),
+            null,
+            null,
+            mockk(),
+            1,
+            ModelContract.RecordStatus.Active
+        )
+
+        cache.fetch<DataResource>(USER_ID, RECORD_ID, { Single.just(encryptedRecord(1)) }, { decrypted }).blockingGet()
+        payload[0] = 42
+
+        // When
+        val record = cache.fetch<DataResource>(
+            USER_ID,
+            RECORD_ID,
+            { Single.just(encryptedRecord(1)) },
+            { decrypted }
+        ).blockingGet()
+
+        // Then
+        assertTrue(byteArrayOf(1, 2, 3).contentEquals(record.resource.value))
+        verify(exactly = 0) { parser.fromResource(any()) }
+    }
+}
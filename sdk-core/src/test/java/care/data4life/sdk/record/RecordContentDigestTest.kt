@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.record
+
+import care.data4life.sdk.data.DataResource
+import care.data4life.sdk.fhir.Fhir4Resource
+import care.data4life.sdk.wrapper.WrapperContract
+import io.mockk.every
+import io.mockk.mockk
+import kotlin.test.assertFalse
+import kotlin.test.assertTrue
+import org.junit.Test
+
+class RecordContentDigestTest {
+    private val parser: WrapperContract.FhirParser = mockk()
+
+    @Test
+    fun `It fulfils ContentDigest`() {
+        val digest: Any = RecordContentDigest()
+
+        assertTrue(digest is RecordContract.ContentDigest)
+    }
+
+    @Test
+    fun `Given digest is called with equally serialized resources and the same annotations in any order, it returns equal digests`() {
+        // Given
+        val resource: Fhir4Resource = mockk()
+        val otherResource: Fhir4Resource = mockk()
+
+        every { parser.fromResource(resource) } returns "{\"resourceType\":\"Observation\"}"
+        every { parser.fromResource(otherResource) } returns "{\"resourceType\":\"Observation\"}"
+
+        // When
+        val digest = RecordContentDigest(parser).digest(resource, listOf("a", "b"))
+        val otherDigest = RecordContentDigest(parser).digest(otherResource, listOf("b", "a"))
+
+        // Then
+        assertTrue(digest.contentEquals(otherDigest))
+    }
+
+    @Test
+    fun `Given digest is called with differently serialized resources, it returns different digests`() {
+        // Given
+        val resource: Fhir4Resource = mockk()
+        val otherResource: Fhir4Resource = mockk()
+
+        every { parser.fromResource(resource) } returns "{\"resourceType\":\"Observation\"}"
+        every { parser.fromResource(otherResource) } returns "{\"resourceType\":\"Observation\",\"id\":\"1\"}"
+
+        // When
+        val digest = RecordContentDigest(parser).digest(resource, emptyList())
+        val otherDigest = RecordContentDigest(parser).digest(otherResource, emptyList())
+
+        // Then
+        assertFalse(digest.contentEquals(otherDigest))
+    }
+
+    @Test
+    fun `Given digest is called with the same resource and different annotations, it returns different digests`() {
+        // Given
+        val resource = DataResource(byteArrayOf(1, 2, 3))
+
+        // When
+        val digest = RecordContentDigest(parser).digest(resource, listOf("ab"))
+        val otherDigest = RecordContentDigest(parser).digest(resource, listOf("a", "b"))
+
+        // Then
+        assertFalse(digest.contentEquals(otherDigest))
+    }
+
+    @Test
+    fun `Given digest is called with DataResources, it digests their payloads`() {
+        // When
+        val digest = RecordContentDigest(parser).digest(DataResource(byteArrayOf(1, 2, 3)), emptyList())
+        val sameDigest = RecordContentDigest(parser).digest(DataResource(byteArrayOf(1, 2, 3)), emptyList())
+        val otherDigest = RecordContentDigest(parser).digest(DataResource(byteArrayOf(3, 2, 1)), emptyList())
+
+        // Then
+        assertTrue(digest.contentEquals(sameDigest))
+        assertFalse(digest.contentEquals(otherDigest))
+    }
+}
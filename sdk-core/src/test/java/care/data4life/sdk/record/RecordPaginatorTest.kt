@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.record
+
+import io.reactivex.Single
+import io.reactivex.schedulers.Schedulers
+import java.util.concurrent.TimeUnit
+import kotlin.test.assertEquals
+import kotlin.test.assertTrue
+import org.junit.Test
+
+class RecordPaginatorTest {
+    private val paginator = RecordPaginator(Schedulers.trampoline())
+
+    private fun pageSource(
+        totalItems: Int,
+        pageSize: Int,
+        requestedOffsets: MutableList<Int>
+    ): (Int) -> Single<List<Int>> = { offset ->
+        requestedOffsets.add(offset)
+        Single.just((offset until minOf(offset + pageSize, totalItems)).toList())
+    }
+
+    @Test
+    fun `It fulfils Paginator`() {
+        val paginator: Any = RecordPaginator()
+
+        assertTrue(paginator is RecordContract.Paginator)
+    }
+
+    @Test
+    fun `Given a non positive page size, it emits an IllegalArgumentException`() {
+        paginator.paginate(0) { Single.just(emptyList<Int>()) }
+            .test()
+            .assertError(IllegalArgumentException::class.java)
+    }
+
+    @Test
+    fun `Given paginate is called, it emits the items of all pages in order`() {
+        // Given
+        val requestedOffsets = mutableListOf<Int>()
+
+        // When
+        val subscriber = paginator.paginate(10, pageSource(35, 10, requestedOffsets)).test()
+
+        // Then
+        subscriber
+            .assertComplete()
+            .assertValueSequence((0 until 35).toList())
+        assertEquals(
+            expected = listOf(0, 10, 20, 30),
+            actual = requestedOffsets.take(4)
+        )
+    }
+
+    @Test
+    fun `Given the last page is full, it stops at the following empty page`() {
+        // Given
+        val requestedOffsets = mutableListOf<Int>()
+
+        // When
+        val subscriber = paginator.paginate(10, pageSource(20, 10, requestedOffsets)).test()
+
+        // Then
+        subscriber
+            .assertComplete()
+            .assertValueCount(20)
+        assertEquals(
+            expected = listOf(0, 10, 20),
+            actual = requestedOffsets
+        )
+    }
+
+    @Test
+    fun `Given the downstream requests only a few items, it fetches only the current and the next pages`() {
+        // Given
+        val requestedOffsets = mutableListOf<Int>()
+
+        // When
+        val subscriber = paginator.paginate(10, pageSource(10_000, 10, requestedOffsets)).test(5)
+
+        // Then
+        subscriber
+            .assertNotComplete()
+            .assertValueCount(5)
+        assertTrue(requestedOffsets.size <= RecordContract.Paginator.PAGES_IN_FLIGHT + 1)
+
+        // When
+        subscriber.request(10)
+
+        // Then
+        subscriber.assertValueCount(15)
+        assertTrue(requestedOffsets.size <= RecordContract.Paginator.PAGES_IN_FLIGHT + 2)
+    }
+
+    @Test
+    fun `Given a page fails, it emits the error`() {
+        // Given
+        val error = RuntimeException("error")
+
+        // When
+        val subscriber = paginator.paginate(2) { offset ->
+            if (offset < 4) {
+                Single.just(listOf(offset, offset + 1))
+            } else {
+                Single.error(error)
+            }
+        }.test()
+
+        // Then
+        subscriber.assertError(error)
+        assertEquals(
+            expected = listOf(0, 1, 2, 3).take(subscriber.values().size),
+            actual = subscriber.values()
+        )
+    }
+
+    @Test
+    fun `Given pages are fetched asynchronously, it fetches the next page while the current one is consumed`() {
+        // Given
+        val requestedOffsets = mutableListOf<Int>()
+        val paginator = RecordPaginator(Schedulers.io())
+
+        // When
+        val subscriber = paginator.paginate(5) { offset ->
+            synchronized(requestedOffsets) { requestedOffsets.add(offset) }
+            Single.just((offset until minOf(offset + 5, 12)).toList())
+                .delay(5, TimeUnit.MILLISECONDS)
+        }.test(1)
+
+        subscriber.awaitCount(1)
+
+        // Then
+        subscriber.assertValue(0)
+        Thread.sleep(50)
+        synchronized(requestedOffsets) {
+            assertTrue(requestedOffsets.contains(5))
+        }
+
+        // When
+        subscriber.request(Long.MAX_VALUE)
+        subscriber.awaitTerminalEvent()
+
+        // Then
+        subscriber
+            .assertComplete()
+            .assertValueSequence((0 until 12).toList())
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.record
+
+import io.reactivex.Flowable
+import io.reactivex.schedulers.Schedulers
+import java.util.Collections
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
+import kotlin.test.assertTrue
+import org.junit.Test
+
+class RecordParallelDecoderTest {
+    @Test
+    fun `It fulfils Decoder`() {
+        val decoder: Any = RecordParallelDecoder()
+
+        assertTrue(decoder is RecordContract.Decoder)
+    }
+
+    @Test
+    fun `Given a non positive parallelism, it fails`() {
+        assertFailsWith<IllegalArgumentException> {
+            RecordParallelDecoder(0)
+        }
+    }
+
+    @Test
+    fun `Given decode is called with a parallelism of 1, it decodes the items on the calling thread`() {
+        // Given
+        val caller = Thread.currentThread()
+        val threads = mutableSetOf<Thread>()
+        val decoder = RecordParallelDecoder(1)
+
+        // When
+        val subscriber = decoder.decode(Flowable.range(0, 10)) { item ->
+            threads.add(Thread.currentThread())
+            item * 2
+        }.test()
+
+        // Then
+        subscriber
+            .assertComplete()
+            .assertValueSequence((0 until 10).map { it * 2 })
+        assertEquals(
+            expected = setOf(caller),
+            actual = threads
+        )
+    }
+
+    @Test
+    fun `Given decode is called, it keeps the order of the items while decoding them in parallel`() {
+        // Given
+        val parallelism = 4
+        val started = CountDownLatch(parallelism)
+        val threads = Collections.synchronizedSet(mutableSetOf<Thread>())
+        val decoder = RecordParallelDecoder(parallelism, Schedulers.io())
+
+        // When
+        val subscriber = decoder.decode(Flowable.range(0, 100)) { item ->
+            threads.add(Thread.currentThread())
+            if (item < parallelism) {
+                started.countDown()
+                started.await(1, TimeUnit.SECONDS)
+            }
+            Thread.sleep((100L - item) % 3)
+            "item$item"
+        }.test()
+
+        // Then
+        subscriber
+            .awaitDone(5, TimeUnit.SECONDS)
+            .assertComplete()
+            .assertValueSequence((0 until 100).map { "item$it" })
+        assertEquals(
+            expected = 0,
+            actual = started.count
+        )
+        assertTrue(threads.size > 1)
+    }
+
+    @Test
+    fun `Given decode is called, it never decodes more items at once than the given parallelism`() {
+        // Given
+        val parallelism = 3
+        val inFlight = AtomicInteger(0)
+        val maxInFlight = AtomicInteger(0)
+        val decoder = RecordParallelDecoder(parallelism, Schedulers.io())
+
+        // When
+        val subscriber = decoder.decode(Flowable.range(0, 30)) { item ->
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet()) { a, b -> maxOf(a, b) }
+            Thread.sleep(2)
+            inFlight.decrementAndGet()
+            item
+        }.test()
+
+        // Then
+        subscriber
+            .awaitDone(5, TimeUnit.SECONDS)
+            .assertComplete()
+            .assertValueCount(30)
+        assertTrue(maxInFlight.get() <= parallelism)
+    }
+
+    @Test
+    fun `Given decode is called and an item fails, it emits the error`() {
+        // Given
+        val error = RuntimeException("error")
+        val decoder = RecordParallelDecoder(2, Schedulers.io())
+
+        // When
+        val subscriber = decoder.decode(Flowable.range(0, 10)) { item ->
+            if (item == 5) throw error else item
+        }.test()
+
+        // Then
+        subscriber
+            .awaitDone(5, TimeUnit.SECONDS)
+            .assertError(error)
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.tag
+
+import care.data4life.sdk.crypto.GCKey
+import io.mockk.mockk
+import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
+import kotlin.test.assertNull
+import org.junit.Test
+
+class KeyScopedLruCacheTest {
+    private val key: GCKey = mockk()
+
+    @Test
+    fun `Given a non positive capacity, it fails`() {
+        assertFailsWith<IllegalArgumentException> {
+            KeyScopedLruCache<String, String>(0)
+        }
+    }
+
+    @Test
+    fun `Given an entry was put under a key, it returns the entry for the same key`() {
+        // Given
+        val cache = KeyScopedLruCache<String, String>(2)
+
+        // When
+        cache.put(key, "entry", "value")
+
+        // Then
+        assertEquals("value", cache[key, "entry"])
+    }
+
+    @Test
+    fun `Given an entry was put under a key, it does not return the entry for another key`() {
+        // Given
+        val cache = KeyScopedLruCache<String, String>(2)
+        val otherKey: GCKey = mockk()
+
+        // When
+        cache.put(key, "entry", "value")
+
+        // Then
+        assertNull(cache[otherKey, "entry"])
+    }
+
+    @Test
+    fun `Given an entry is put under another key, it drops the entries of the previous key`() {
+        // Given
+        val cache = KeyScopedLruCache<String, String>(2)
+        val otherKey: GCKey = mockk()
+        cache.put(key, "entry", "value")
+
+        // When
+        cache.put(otherKey, "other", "value")
+
+        // Then
+        assertNull(cache[key, "entry"])
+        assertEquals("value", cache[otherKey, "other"])
+    }
+
+    @Test
+    fun `Given the capacity is exceeded, it evicts the least recently used entry`() {
+        // Given
+        val cache = KeyScopedLruCache<String, String>(2)
+        cache.put(key, "a", "1")
+        cache.put(key, "b", "2")
+        cache[key, "a"]
+
+        // When
+        cache.put(key, "c", "3")
+
+        // Then
+        assertEquals("1", cache[key, "a"])
+        assertNull(cache[key, "b"])
+        assertEquals("3", cache[key, "c"])
+    }
+
+    @Test
+    fun `Given clear is called, it drops all entries`() {
+        // Given
+        val cache = KeyScopedLruCache<String, String>(2)
+        cache.put(key, "entry", "value")
+
+        // When
+        cache.clear()
+
+        // Then
+        assertNull(cache[key, "entry"])
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+
+package care.data4life.sdk.tag
+
+import care.data4life.sdk.crypto.GCKey
+import io.mockk.mockk
+import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
+import kotlin.test.assertTrue
+import org.junit.Test
+
+class TagCipherCacheTest {
+    private val key: GCKey = mockk()
+
+    @Test
+    fun `It fulfils CipherCache`() {
+        val cache: Any = TagCipherCache()
+
+        assertTrue(cache is TaggingContract.CipherCache)
+    }
+
+    @Test
+    fun `Given a non positive capacity, it fails`() {
+        assertFailsWith<IllegalArgumentException> {
+            TagCipherCache(0)
+        }
+    }
+
+    @Test
+    fun `Given a tag is encrypted twice with the same key, it encrypts it only once`() {
+        // Given
+        val cache = TagCipherCache()
+        val calls = mutableListOf<String>()
+
+        // When
+        val first = cache.encrypt(key, "tag") { plain -> calls.add(plain); "encrypted" }
+        val second = cache.encrypt(key, "tag") { plain -> calls.add(plain); "other" }
+
+        // Then
+        assertEquals("encrypted", first)
+        assertEquals("encrypted", second)
+        assertEquals(listOf("tag"), calls)
+    }
+
+    @Test
+    fun `Given a tag was encrypted, it decrypts its ciphertext without decrypting`() {
+        // Given
+        val cache = TagCipherCache()
+        cache.encrypt(key, "tag") { "encrypted" }
+
+        // When
+        val plain = cache.decrypt(key, "encrypted") { throw IllegalStateException("not expected") }
+
+        // Then
+        assertEquals("tag", plain)
+    }
+
+    @Test
+    fun `Given a tag was decrypted, it encrypts it without encrypting`() {
+        // Given
+        val cache = TagCipherCache()
+        cache.decrypt(key, "encrypted") { "tag" }
+
+        // When
+        val encrypted = cache.encrypt(key, "tag") { throw IllegalStateException("not expected") }
+
+        // Then
+        assertEquals("encrypted", encrypted)
+    }
+
+    @Test
+    fun `Given the key changes, it drops the entries of the previous key`() {
+        // Given
+        val cache = TagCipherCache()
+        val newKey: GCKey = mockk()
+        cache.encrypt(key, "tag") { "encrypted" }
+
+        // When
+        val encrypted = cache.encrypt(newKey, "tag") { "newEncrypted" }
+        val encryptedWithOldKey = cache.encrypt(key, "tag") { "encryptedAgain" }
+
+        // Then
+        assertEquals("newEncrypted", encrypted)
+        assertEquals("encryptedAgain", encryptedWithOldKey)
+    }
+
+    @Test
+    fun `Given the capacity is exceeded, it evicts the least recently used tag`() {
+        // Given
+        val cache = TagCipherCache(2)
+        var calls = 0
+        val encrypt: (String) -> String = { plain -> calls++; "encrypted$plain" }
+
+        cache.encrypt(key, "a", encrypt)
+        cache.encrypt(key, "b", encrypt)
+        cache.encrypt(key, "a", encrypt)
+
+        // When
+        cache.encrypt(key, "c", encrypt)
+        cache.encrypt(key, "a", encrypt)
+        cache.encrypt(key, "b", encrypt)
+
+        // Then
+        assertEquals(4, calls)
+    }
+
+    @Test
+    fun `Given clear is called, it forgets all tags`() {
+        // Given
+        val cache = TagCipherCache()
+        var calls = 0
+        cache.encrypt(key, "tag") { calls++; "encrypted" }
+
+        // When
+        cache.clear()
+        cache.encrypt(key, "tag") { calls++; "encrypted" }
+
+        // Then
+        assertEquals(2, calls)
+    }
+
+    @Test
+    fun `Given the encryption fails, it does not remember the tag`() {
+        // Given
+        val cache = TagCipherCache()
+
+        // When
+        assertFailsWith<IllegalStateException> {
+            cache.encrypt(key, "tag") { throw IllegalStateException() }
+        }
+        val encrypted = cache.encrypt(key, "tag") { "encrypted" }
+
+        // Then
+        assertEquals("encrypted", encrypted)
+    }
+}
@@ -278,8 +278,8 @@ class TagCryptoServiceTest {
         )
 
         verify(exactly = 2) { tagEncoding.decode(tag) }
-        verify(exactly = 2) { base64.decode(encryptedTag) }
-        verify(exactly = 2) {
+        verify(exactly = 1) { base64.decode(encryptedTag) }
+        verify(exactly = 1) {
             cryptoService.symDecrypt(
                 gcKey,
                 encryptedTag.toByteArray(),
@@ -320,8 +320,8 @@ class TagCryptoServiceTest {
         )
 
         verify(exactly = 2) { tagEncoding.decode(tag) }
-        verify(exactly = 2) { base64.decode(encryptedTag) }
-        verify(exactly = 2) {
+        verify(exactly = 1) { base64.decode(encryptedTag) }
+        verify(exactly = 1) {
             cryptoService.symDecrypt(
                 gcKey,
                 encryptedTag.toByteArray(),
@@ -365,8 +365,8 @@ class TagCryptoServiceTest {
         )
 
         verify(exactly = 2) { tagEncoding.decode(annotation) }
-        verify(exactly = 2) { base64.decode(encryptedAnnotation) }
-        verify(exactly = 2) {
+        verify(exactly = 1) { base64.decode(encryptedAnnotation) }
+        verify(exactly = 1) {
             cryptoService.symDecrypt(
                 gcKey,
                 encryptedAnnotation.toByteArray(),
@@ -409,8 +409,8 @@ class TagCryptoServiceTest {
         )
 
         verify(exactly = 2) { tagEncoding.decode(tag) }
-        verify(exactly = 2) { base64.decode(encryptedTag) }
-        verify(exactly = 2) {
+        verify(exactly = 1) { base64.decode(encryptedTag) }
+        verify(exactly = 1) {
             cryptoService.symDecrypt(
                 gcKey,
                 encryptedTag.toByteArray(),
@@ -472,8 +472,8 @@ class TagCryptoServiceTest {
         )
 
         verify(exactly = 2) { tagEncoding.decode(tag) }
-        verify(exactly = 2) { base64.decode(encryptedTag) }
-        verify(exactly = 2) {
+        verify(exactly = 1) { base64.decode(encryptedTag) }
+        verify(exactly = 1) {
             cryptoService.symDecrypt(
                 gcKey,
                 encryptedTag.toByteArray(),
@@ -501,4 +501,68 @@ class TagCryptoServiceTest {
             actual = exception.message
         )
     }
+
+    @Test
+    fun `Given encryptTagsAndAnnotations is called repeatedly with the same Tags, it encrypts each Tag only once`() {
+        // given
+        val tags = hashMapOf("key" to "value")
+        val gcKey: GCKey = mockk()
+        val symEncrypted = ByteArray(23)
+
+        every { tagEncoding.encode("value") } returns "value"
+        every { cryptoService.fetchTagEncryptionKey() } returns gcKey
+        every {
+            cryptoService.symEncrypt(gcKey, "key${DELIMITER}value".toByteArray(), IV)
+        } returns symEncrypted
+        every { base64.encodeToString(symEncrypted) } returns "encryptedTag"
+
+        // when
+        val results = List(3) {
+            tagEncryptionService.encryptTagsAndAnnotations(tags, emptyList())
+        }
+
+        // then
+        results.forEach { result ->
+            assertEquals(
+                expected = listOf("encryptedTag"),
+                actual = result
+            )
+        }
+        verify(exactly = 1) {
+            cryptoService.symEncrypt(gcKey, "key${DELIMITER}value".toByteArray(), IV)
+        }
+    }
+
+    @Test
+    fun `Given warm up Tags are provided, it encrypts them once per TagEncryptionKey before they are needed`() {
+        // given
+        val gcKey: GCKey = mockk()
+        val warmUpTags = listOf(mapOf("client" to "id"), mapOf("fhirversion" to "4.0.1"))
+        val service = TagCryptoService(
+            cryptoService,
+            base64,
+            tagEncoding,
+            tagConverter,
+            TagCipherCache(),
+            warmUpTags
+        )
+
+        every { tagEncoding.encode(any()) } answers { firstArg() }
+        every { cryptoService.fetchTagEncryptionKey() } returns gcKey
+        every { cryptoService.symEncrypt(gcKey, any(), IV) } answers { secondArg() }
+        every { base64.encodeToString(any<ByteArray>()) } answers { String(firstArg<ByteArray>()) }
+
+        // when
+        service.encryptTagsAndAnnotations(emptyMap(), emptyList())
+        service.encryptTagsAndAnnotations(mapOf("client" to "id"), emptyList())
+
+        // then
+        verify(exactly = 1) {
+            cryptoService.symEncrypt(gcKey, "client${DELIMITER}id".toByteArray(), IV)
+        }
+        verify(exactly = 1) {
+            cryptoService.symEncrypt(gcKey, "fhirversion${DELIMITER}4.0.1".toByteArray(), IV)
+        }
+        verify(exactly = 2) { cryptoService.symEncrypt(gcKey, any(), IV) }
+    }
 }
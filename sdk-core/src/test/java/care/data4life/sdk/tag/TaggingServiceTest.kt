@@ -28,6 +28,7 @@ import care.data4life.sdk.tag.TaggingContract.Companion.TAG_FHIR_VERSION
 import care.data4life.sdk.tag.TaggingContract.Companion.TAG_PARTNER
 import care.data4life.sdk.tag.TaggingContract.Companion.TAG_RESOURCE_TYPE
 import care.data4life.sdk.tag.TaggingContract.Companion.TAG_UPDATED_BY_CLIENT
+import care.data4life.sdk.tag.TaggingContract.Companion.TAG_UPDATED_BY_PARTNER
 import care.data4life.sdk.test.util.GenericTestDataProvider.CLIENT_ID
 import care.data4life.sdk.test.util.GenericTestDataProvider.PARTNER_ID
 import care.data4life.sdk.wrapper.SdkFhirElementFactory
@@ -292,6 +293,24 @@ class TaggingServiceTest {
         unmockkObject(SdkFhirElementFactory)
     }
 
+    @Test
+    fun `Given, warmUpTags is called, it returns the client, partner, version and appdata Tags`() {
+        // When
+        val result = taggingService.warmUpTags
+
+        // Then
+        assertEquals(
+            expected = listOf(
+                mapOf(TAG_CLIENT to CLIENT_ID, TAG_PARTNER to PARTNER_ID),
+                mapOf(TAG_UPDATED_BY_CLIENT to CLIENT_ID, TAG_UPDATED_BY_PARTNER to PARTNER_ID),
+                mapOf(TAG_FHIR_VERSION to FhirContract.FhirVersion.FHIR_3.version),
+                mapOf(TAG_FHIR_VERSION to FhirContract.FhirVersion.FHIR_4.version),
+                mapOf(TAG_APPDATA_KEY to TAG_APPDATA_VALUE)
+            ),
+            actual = result
+        )
+    }
+
     companion object {
         private const val OTHER_CLIENT_ID = "other_client_id"
     }
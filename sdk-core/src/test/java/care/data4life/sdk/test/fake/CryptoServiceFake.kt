@@ -21,12 +21,16 @@ import care.data4life.sdk.crypto.GCAsymmetricKey
 import care.data4life.sdk.crypto.GCKey
 import care.data4life.sdk.crypto.GCKeyPair
 import care.data4life.sdk.crypto.KeyType
+import care.data4life.sdk.crypto.toByteArray
 import care.data4life.sdk.network.model.EncryptedKey
 import care.data4life.sdk.network.model.NetworkModelContract
 import care.data4life.sdk.tag.Annotations
 import care.data4life.sdk.test.util.GenericTestDataProvider.IV
 import io.mockk.mockk
 import io.reactivex.Single
+import java.io.InputStream
+import java.io.OutputStream
+import java.nio.ByteBuffer
 
 data class CryptoServiceIteration(
     val gcKeyOrder: List<GCKey>,
@@ -124,6 +128,25 @@ class CryptoServiceFake : CryptoContract.Service {
         }
     }
 
+    override fun encryptBuffer(
+        key: GCKey,
+        data: ByteBuffer,
+        direct: Boolean
+    ): Single<ByteBuffer> = encrypt(key, data.toByteArray()).map { encrypted -> ByteBuffer.wrap(encrypted) }
+
+    override fun decryptBuffer(
+        key: GCKey,
+        data: ByteBuffer
+    ): Single<ByteBuffer> = decrypt(key, data.toByteArray()).map { decrypted -> ByteBuffer.wrap(decrypted) }
+
+    override fun encryptStream(key: GCKey, source: InputStream, sink: OutputStream): Long {
+        TODO("Not yet implemented")
+    }
+
+    override fun decryptStream(key: GCKey, source: InputStream, sink: OutputStream): Long {
+        TODO("Not yet implemented")
+    }
+
     override fun encryptAndEncodeByteArray(
         key: GCKey,
         data: ByteArray
@@ -433,4 +456,8 @@ class CryptoServiceFake : CryptoContract.Service {
     override fun storeCurrentCommonKeyId(commonKeyId: String) {
         TODO("Not yet implemented")
     }
+
+    override fun clearKeyCache() {
+        TODO("Not yet implemented")
+    }
 }
@@ -45,6 +45,11 @@ object GenericTestDataProvider {
 
     val PDF_OVERSIZED_ENCODED = Base64.encodeToString(PDF_OVERSIZED)
 
+    val PDF_SMALL = TestAttachmentHelper.makeAttachmentData(
+        TestAttachmentHelper.byteArrayOf(MimeType.PDF.byteSignature()[0]!!),
+        42
+    )
+
     val PREVIEW = "preview".toByteArray()
 
     val THUMBNAIL = "thumbnail".toByteArray()
@@ -24,6 +24,7 @@ import io.mockk.mockk
 import io.mockk.mockkObject
 import io.mockk.unmockkObject
 import io.mockk.verify
+import kotlin.test.assertEquals
 import kotlin.test.assertSame
 import kotlin.test.assertTrue
 import org.junit.Before
@@ -119,4 +120,60 @@ class SdkImageResizerTest {
 
         unmockkObject(Log)
     }
+
+    @Test
+    fun `Given resize is called with a Payload and Heights it delegates the call to the wrapped resizer and returns resized images`() {
+        // Given
+        val payload = ByteArray(42)
+        val heights = listOf(7, 3)
+        val downsizedImages = listOf(ByteArray(23), null)
+
+        every {
+            actualResizer.resizeToHeights(
+                payload,
+                heights,
+                AttachmentContract.ImageResizer.DEFAULT_JPEG_QUALITY_PERCENT
+            )
+        } returns downsizedImages
+
+        // When
+        val result = wrapper.resize(payload, heights)
+
+        // Then
+        assertSame(
+            actual = result,
+            expected = downsizedImages
+        )
+    }
+
+    @Test
+    fun `Given resize is called with a Payload and Heights it logs and returns the Payload for each Height if the wrapped resizer fails with a ImageResizeException`() {
+        // Given
+        mockkObject(Log)
+
+        val payload = ByteArray(42)
+        val heights = listOf(7, 3)
+        val error = ImageResizeException.JpegWriterMissing()
+
+        every {
+            actualResizer.resizeToHeights(
+                payload,
+                heights,
+                AttachmentContract.ImageResizer.DEFAULT_JPEG_QUALITY_PERCENT
+            )
+        } throws error
+
+        // When
+        val result = wrapper.resize(payload, heights)
+
+        // Then
+        assertEquals(
+            actual = result,
+            expected = listOf(payload, payload)
+        )
+
+        verify(exactly = 1) { Log.error(error, error.message) }
+
+        unmockkObject(Log)
+    }
 }
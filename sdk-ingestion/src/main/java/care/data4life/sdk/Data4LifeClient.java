@@ -26,11 +26,15 @@ import care.data4life.sdk.auth.AuthorizationConfiguration;
 import care.data4life.sdk.auth.AuthorizationContract;
 import care.data4life.sdk.auth.AuthorizationService;
 import care.data4life.sdk.auth.storage.InMemoryAuthStorage;
+import care.data4life.sdk.attachment.AttachmentContract;
 import care.data4life.sdk.attachment.AttachmentService;
+import care.data4life.sdk.attachment.AttachmentTransferLimiter;
 import care.data4life.sdk.attachment.FileService;
+import care.data4life.sdk.attachment.ThumbnailService;
 import care.data4life.sdk.auth.UserService;
 import care.data4life.sdk.call.CallHandler;
 import care.data4life.sdk.config.SDKConfig;
+import care.data4life.sdk.crypto.CryptoContract;
 import care.data4life.sdk.crypto.CryptoSecureStore;
 import care.data4life.sdk.crypto.CryptoService;
 import care.data4life.sdk.fhir.ResourceCryptoService;
@@ -39,6 +43,9 @@ import care.data4life.sdk.network.ApiService;
 import care.data4life.sdk.network.Environment;
 import care.data4life.sdk.tag.TagCryptoService;
 import care.data4life.sdk.network.NetworkingContract;
+import care.data4life.sdk.record.RecordBatchExecutor;
+import care.data4life.sdk.record.RecordContract;
+import care.data4life.sdk.record.RecordParallelDecoder;
 import care.data4life.sdk.tag.TaggingService;
 import care.data4life.sdk.securestore.SecureStore;
 import care.data4life.sdk.securestore.SecureStoreContract;
@@ -105,6 +112,93 @@ public final class Data4LifeClient extends BaseClient {
                                        byte[] capPrivateKey,
                                        Environment environment,
                                        String platform) {
+        return init(accessToken, capPrivateKey, environment, platform, false);
+    }
+
+    /**
+     * Factory method for creating an ingestion SDK client instance, see {@link #init(byte[], byte[], Environment, String)}.
+     * <p>
+     * If the thumbnails are generated in the background, a record is created as soon as its original
+     * attachments are uploaded. The preview and thumbnail of its images are added by a later update.
+     *
+     * @param accessToken                    Valid OAuth access token
+     * @param capPrivateKey                  Private key (used for common key exchange) in PEM format (not base 64 encoded)
+     * @param environment                    PHPD environment to be used by SDK client
+     * @param platform                       Platform to be used (S4H/D4L)
+     * @param generateThumbnailsInBackground Whether to defer the downscaling of images after the record creation
+     * @return SDK client instance
+     */
+    public static Data4LifeClient init(byte[] accessToken,
+                                       byte[] capPrivateKey,
+                                       Environment environment,
+                                       String platform,
+                                       boolean generateThumbnailsInBackground) {
+        return init(
+                accessToken,
+                capPrivateKey,
+                environment,
+                platform,
+                generateThumbnailsInBackground,
+                RecordContract.BatchExecutor.DEFAULT_PARALLELISM
+        );
+    }
+
+    /**
+     * Factory method for creating an ingestion SDK client instance, see {@link #init(byte[], byte[], Environment, String, boolean)}.
+     * <p>
+     * The batch operations on records, like the import of many records at once, run at most the given
+     * number of record operations at the same time.
+     *
+     * @param accessToken                    Valid OAuth access token
+     * @param capPrivateKey                  Private key (used for common key exchange) in PEM format (not base 64 encoded)
+     * @param environment                    PHPD environment to be used by SDK client
+     * @param platform                       Platform to be used (S4H/D4L)
+     * @param generateThumbnailsInBackground Whether to defer the downscaling of images after the record creation
+     * @param batchParallelism               Maximum number of concurrent record operations of a batch
+     * @return SDK client instance
+     */
+    public static Data4LifeClient init(byte[] accessToken,
+                                       byte[] capPrivateKey,
+                                       Environment environment,
+                                       String platform,
+                                       boolean generateThumbnailsInBackground,
+                                       int batchParallelism) {
+        return init(
+                accessToken,
+                capPrivateKey,
+                environment,
+                platform,
+                generateThumbnailsInBackground,
+                batchParallelism,
+                AttachmentContract.DEFAULT_CONCURRENCY,
+                null
+        );
+    }
+
+    /**
+     * Factory method for creating an ingestion SDK client instance, see {@link #init(byte[], byte[], Environment, String, boolean, int)}.
+     * <p>
+     * The attachments of a record are transferred with at most the given concurrency, while all clients
+     * without an own limit of concurrent transfers share one process-wide limit.
+     *
+     * @param accessToken                    Valid OAuth access token
+     * @param capPrivateKey                  Private key (used for common key exchange) in PEM format (not base 64 encoded)
+     * @param environment                    PHPD environment to be used by SDK client
+     * @param platform                       Platform to be used (S4H/D4L)
+     * @param generateThumbnailsInBackground Whether to defer the downscaling of images after the record creation
+     * @param batchParallelism               Maximum number of concurrent record operations of a batch
+     * @param attachmentConcurrency          Maximum number of concurrent attachment transfers of a record
+     * @param maxConcurrentTransfers         Maximum number of concurrent attachment transfers of the client or null to share the process-wide limit
+     * @return SDK client instance
+     */
+    public static Data4LifeClient init(byte[] accessToken,
+                                       byte[] capPrivateKey,
+                                       Environment environment,
+                                       String platform,
+                                       boolean generateThumbnailsInBackground,
+                                       int batchParallelism,
+                                       int attachmentConcurrency,
+                                       Integer maxConcurrentTransfers) {
         Log.info("Initializing ingestion SDK client SDK");
 
         // Need the client ID for tags etc.
@@ -146,22 +240,31 @@ public final class Data4LifeClient extends BaseClient {
         );
 
         CryptoSecureStore cryptoSecureStore = new CryptoSecureStore(secureStore);
-        CryptoService cryptoService = new CryptoService(ALIAS, cryptoSecureStore);
+        CryptoService cryptoService = new CryptoService(ALIAS, cryptoSecureStore, CryptoContract.KeyPool.DEFAULT_CAPACITY);
 
         // Inject private key
         cryptoService.setGCKeyPairFromPemPrivateKey(new String(capPrivateKey, StandardCharsets.UTF_8));
 
         UserService userService = new UserService(ALIAS, authorizationService, apiService, cryptoSecureStore, cryptoService);
 
-        TagCryptoService tagEncryptionService = new TagCryptoService(cryptoService);
         TaggingService taggingService = new TaggingService(clientId);
+        TagCryptoService tagEncryptionService = new TagCryptoService(cryptoService, taggingService.getWarmUpTags());
         ResourceCryptoService resourceCryptoService = new ResourceCryptoService(cryptoService);
         FileService fileService = new FileService(ALIAS, apiService, cryptoService);
-        AttachmentService attachmentService = new AttachmentService(fileService, new JvmImageResizer());
+        AttachmentContract.TransferLimiter transferLimiter = maxConcurrentTransfers == null
+                ? AttachmentTransferLimiter.SHARED
+                : new AttachmentTransferLimiter(maxConcurrentTransfers);
+        AttachmentService attachmentService = new AttachmentService(
+                fileService,
+                new JvmImageResizer(),
+                attachmentConcurrency,
+                transferLimiter
+        );
         D4LErrorHandler errorHandler = new D4LErrorHandler();
         CallHandler callHandler = new CallHandler(errorHandler);
         String partnerId = clientId.split(CLIENT_ID_SPLIT_CHAR)[PARTNER_ID_INDEX];
-        RecordService recordService = new RecordService(partnerId, ALIAS, apiService, tagEncryptionService, taggingService, resourceCryptoService, attachmentService, cryptoService, errorHandler);
+        ThumbnailService thumbnailService = generateThumbnailsInBackground ? new ThumbnailService() : null;
+        RecordService recordService = new RecordService(partnerId, ALIAS, apiService, tagEncryptionService, taggingService, resourceCryptoService, attachmentService, cryptoService, errorHandler, new RecordBatchExecutor(errorHandler, batchParallelism), new RecordParallelDecoder(), thumbnailService);
 
         return new Data4LifeClient(ALIAS, userService, recordService, callHandler);
     }
@@ -63,6 +63,30 @@ dependencies {
     testImplementation(Dependency.JvmTest.jsonAssert)
 }
 
+val jmh: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output
+    runtimeClasspath += sourceSets.main.get().output
+}
+
+configurations.named("jmhImplementation") {
+    extendsFrom(configurations.implementation.get())
+}
+
+dependencies {
+    "jmhImplementation"(Dependency.JvmTest.jmhCore)
+    "jmhAnnotationProcessor"(Dependency.JvmTest.jmhGenerator)
+}
+
+val runBenchmarks by tasks.registering(JavaExec::class) {
+    group = "verification"
+    description = "Runs the JMH benchmarks of sdk-jvm"
+
+    classpath = jmh.runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    args = listOfNotNull(project.findProperty("jmhInclude")?.toString()) +
+        (project.findProperty("jmhProfiler")?.let { profiler -> listOf("-prof", profiler.toString()) } ?: emptyList())
+}
+
 tasks {
     named<com.github.jengelman.gradle.plugins.shadow.tasks.ShadowJar>("shadowJar") {
         exclude("bcprov-jdk18on-1.71.jar")
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2021 D4L data4life gGmbH / All rights reserved.
+ *
+ * D4L owns all legal rights, title and interest in and to the Software Development Kit ("SDK"),
+ * including any intellectual property rights that subsist in the SDK.
+ *
+ * The SDK and its documentation may be accessed and used for viewing/review purposes only.
+ * Any usage of the SDK for other purposes, including usage for the development of
+ * applications/third-party applications shall require the conclusion of a license agreement
+ * between you and D4L.
+ *
+ * If you are interested in licensing the SDK for your own applications/third-party
+ * applications and/or if you’d like to contribute to the development of the SDK, please
+ * contact D4L by email to help@data4life.care.
+ */
+package care.data4life.sdk;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+
+import care.data4life.sdk.lang.ImageResizeException;
+
+import static care.data4life.sdk.attachment.AttachmentContract.ImageResizer.DEFAULT_JPEG_QUALITY_PERCENT;
+import static care.data4life.sdk.attachment.AttachmentContract.ImageResizer.DEFAULT_PREVIEW_SIZE_PX;
+import static care.data4life.sdk.attachment.AttachmentContract.ImageResizer.DEFAULT_THUMBNAIL_SIZE_PX;
+
+/**
+ * Compares producing preview and thumbnail of a 12 MP image with one resize call per target,
+ * which decodes the original each time, against the multi-target resize, which decodes it once
+ * and derives the thumbnail from the preview.
+ * <p>
+ * Run it with: ./gradlew :sdk-jvm:runBenchmarks -PjmhInclude=ImageResizerBenchmark -PjmhProfiler=gc
+ * <p>
+ * No results of it have been recorded so far. Timings of the resizer, which were not taken by this
+ * benchmark against JvmImageResizer, are estimates and must not be quoted as its results.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ImageResizerBenchmark {
+    private static final int WIDTH = 4000;
+    private static final int HEIGHT = 3000;
+    private static final List<Integer> TARGET_HEIGHTS = Arrays.asList(DEFAULT_PREVIEW_SIZE_PX, DEFAULT_THUMBNAIL_SIZE_PX);
+
+    @Param({"jpeg", "png"})
+    public String format;
+
+    private final JvmImageResizer resizer = new JvmImageResizer();
+    private byte[] image;
+
+    @Setup
+    public void setUp() throws IOException {
+        BufferedImage original = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = original.createGraphics();
+        graphics.setPaint(new GradientPaint(0, 0, Color.WHITE, WIDTH, HEIGHT, Color.BLUE));
+        graphics.fillRect(0, 0, WIDTH, HEIGHT);
+        graphics.dispose();
+
+        // noise keeps the encoders from compressing the image to almost nothing
+        Random random = new Random(42);
+        for (int y = 0; y < HEIGHT; y += 2) {
+            for (int x = 0; x < WIDTH; x += 2) {
+                original.setRGB(x, y, original.getRGB(x, y) ^ random.nextInt(0x1f1f1f));
+            }
+        }
+
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        ImageIO.write(original, format, encoded);
+        image = encoded.toByteArray();
+    }
+
+    @Benchmark
+    public byte[][] resizePerTarget() throws ImageResizeException.JpegWriterMissing {
+        return new byte[][]{
+                resizer.resizeToHeight(image, DEFAULT_PREVIEW_SIZE_PX, DEFAULT_JPEG_QUALITY_PERCENT),
+                resizer.resizeToHeight(image, DEFAULT_THUMBNAIL_SIZE_PX, DEFAULT_JPEG_QUALITY_PERCENT)
+        };
+    }
+
+    @Benchmark
+    public List<byte[]> resizeMultiTarget() throws ImageResizeException.JpegWriterMissing {
+        return resizer.resizeToHeights(image, TARGET_HEIGHTS, DEFAULT_JPEG_QUALITY_PERCENT);
+    }
+}
@@ -15,8 +15,12 @@
  */
 package care.data4life.sdk
 
+import care.data4life.sdk.attachment.AttachmentBlobCache
+import care.data4life.sdk.attachment.AttachmentContract
 import care.data4life.sdk.attachment.AttachmentService
+import care.data4life.sdk.attachment.AttachmentTransferLimiter
 import care.data4life.sdk.attachment.FileService
+import care.data4life.sdk.attachment.ThumbnailService
 import care.data4life.sdk.auth.Authorization
 import care.data4life.sdk.auth.AuthorizationConfiguration
 import care.data4life.sdk.auth.AuthorizationContract
@@ -34,13 +38,19 @@ import care.data4life.sdk.log.Log
 import care.data4life.sdk.log.Logger
 import care.data4life.sdk.network.ApiService
 import care.data4life.sdk.network.Environment
+import care.data4life.sdk.network.HttpStack
 import care.data4life.sdk.network.NetworkingContract
+import care.data4life.sdk.record.RecordBatchExecutor
+import care.data4life.sdk.record.RecordCache
+import care.data4life.sdk.record.RecordContentDigest
+import care.data4life.sdk.record.RecordContract
 import care.data4life.sdk.securestore.SecureStore
 import care.data4life.sdk.securestore.SecureStoreContract
 import care.data4life.sdk.securestore.SecureStoreCryptor
 import care.data4life.sdk.securestore.SecureStoreStorage
 import care.data4life.sdk.tag.TagCryptoService
 import care.data4life.sdk.tag.TaggingService
+import java.io.File
 
 class Data4LifeClient(
     alias: String,
@@ -107,7 +117,16 @@ class Data4LifeClient(
             platform: String,
             scopes: Set<String> = Authorization.defaultScopes,
             secureStore: SecureStoreContract.SecureStore = SecureStore(SecureStoreCryptor(), SecureStoreStorage()),
-            authorizationStore: AuthorizationContract.Storage = InMemoryAuthStorage()
+            authorizationStore: AuthorizationContract.Storage = InMemoryAuthStorage(),
+            generateThumbnailsInBackground: Boolean = false,
+            attachmentCacheDirectory: File? = null,
+            attachmentCacheSize: Long = AttachmentContract.BlobCache.DEFAULT_MAX_BYTES,
+            cacheDecryptedRecords: Boolean = false,
+            skipUnchangedUpdates: Boolean = false,
+            batchParallelism: Int = RecordContract.BatchExecutor.DEFAULT_PARALLELISM,
+            attachmentConcurrency: Int = AttachmentContract.DEFAULT_CONCURRENCY,
+            maxConcurrentTransfers: Int? = null,
+            httpStack: HttpStack = HttpStack.SHARED
         ): Data4LifeClient {
             Log.info(String.format("Initializing SDK for alias(%s) with scopes(%s)", alias, scopes))
 
@@ -137,20 +156,46 @@ class Data4LifeClient(
                 NetworkingContract.Client.JAVA,
                 SDKConfig.version,
                 null,
-                DEBUG
+                DEBUG,
+                httpStack
             )
 
             val cryptoSecureStore = CryptoSecureStore(secureStore = secureStore)
             val cryptoService = CryptoService(alias, cryptoSecureStore)
 
-            val userService = UserService(alias, authorizationService, apiService, cryptoSecureStore, cryptoService)
+            val recordCache = if (cacheDecryptedRecords) RecordCache() else null
+            val blobCache = attachmentCacheDirectory?.let { directory ->
+                AttachmentBlobCache(directory, attachmentCacheSize)
+            }
+
+            val userService = UserService(
+                alias,
+                authorizationService,
+                apiService,
+                cryptoSecureStore,
+                cryptoService,
+                recordCache,
+                blobCache
+            )
 
-            val tagEncryptionService = TagCryptoService(cryptoService)
             val taggingService = TaggingService(clientId)
+            val tagEncryptionService = TagCryptoService(cryptoService, taggingService.warmUpTags)
 
             val resourceCryptoService = ResourceCryptoService(cryptoService)
-            val fileService = FileService(alias, apiService, cryptoService)
-            val attachmentService = AttachmentService(fileService, JvmImageResizer())
+            val fileService = FileService(
+                alias,
+                apiService,
+                cryptoService,
+                blobCache
+            )
+            val attachmentService = AttachmentService(
+                fileService,
+                JvmImageResizer(),
+                attachmentConcurrency,
+                // without an own limit the client shares the process-wide limit of concurrent transfers
+                maxConcurrentTransfers?.let { limit -> AttachmentTransferLimiter(limit) }
+                    ?: AttachmentTransferLimiter.SHARED
+            )
 
             val errorHandler = D4LErrorHandler()
             val callHandler = CallHandler(errorHandler)
@@ -166,7 +211,11 @@ class Data4LifeClient(
                 resourceCryptoService,
                 attachmentService,
                 cryptoService,
-                errorHandler
+                errorHandler,
+                RecordBatchExecutor(errorHandler, batchParallelism),
+                thumbnailService = if (generateThumbnailsInBackground) ThumbnailService() else null,
+                recordCache = recordCache,
+                contentDigest = if (skipUnchangedUpdates) RecordContentDigest() else null
             )
 
             return Data4LifeClient(alias, authorizationService, cryptoService, userService, recordService, callHandler)
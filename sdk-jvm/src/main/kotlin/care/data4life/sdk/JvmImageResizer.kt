@@ -23,6 +23,7 @@ import care.data4life.sdk.log.Log
 import care.data4life.sdk.util.MimeType.Companion.recognizeMimeType
 import care.data4life.sdk.util.MimeType.JPEG
 import care.data4life.sdk.util.MimeType.PNG
+import java.awt.AlphaComposite
 import java.awt.RenderingHints
 import java.awt.Transparency
 import java.awt.image.BufferedImage
@@ -31,7 +32,9 @@ import java.io.ByteArrayOutputStream
 import java.io.IOException
 import javax.imageio.IIOImage
 import javax.imageio.ImageIO
+import javax.imageio.ImageReader
 import javax.imageio.ImageWriteParam
+import javax.imageio.stream.MemoryCacheImageInputStream
 import javax.imageio.stream.MemoryCacheImageOutputStream
 
 class JvmImageResizer : ImageResizer {
@@ -48,6 +51,30 @@ class JvmImageResizer : ImageResizer {
         return resize(Height, originalImage, targetHeight, targetQuality)
     }
 
+    override fun resizeToHeights(
+        originalImage: ByteArray,
+        targetHeights: List<Int>,
+        targetQuality: Int
+    ): List<ByteArray?> {
+        val resizedImages = readImage(originalImage) { reader ->
+            val width = reader.getWidth(IMAGE_INDEX)
+            val height = reader.getHeight(IMAGE_INDEX)
+            val heights = targetHeights.distinct().filter { targetHeight -> height > targetHeight }.sortedDescending()
+            if (heights.isEmpty()) return@readImage emptyMap()
+
+            val widthOf = { targetHeight: Int -> (targetHeight.toDouble() * width / height).toInt() }
+            var source = decodeSubsampled(reader, width, height, widthOf(heights.first()), heights.first())
+
+            // each target is scaled down from the next larger one instead of from the original
+            heights.associateWith { targetHeight ->
+                source = downscaleImage(source, widthOf(targetHeight), targetHeight, true)
+                compressImage(source, targetQuality)
+            }
+        }
+
+        return targetHeights.map { targetHeight -> resizedImages?.get(targetHeight) }
+    }
+
     override fun isResizable(data: ByteArray): Boolean {
         val dataMimeType = recognizeMimeType(data)
         return dataMimeType == JPEG || dataMimeType == PNG
@@ -59,31 +86,71 @@ class JvmImageResizer : ImageResizer {
         targetSizePx: Int,
         targetQuality: Int
     ): ByteArray? {
-        val image = decodeImage(originalImage) ?: return null
-        val scaledImage: BufferedImage = when (resizeType) {
-            Width -> {
-                if (image.width <= targetSizePx) return null
-                val targetHeightPx = (targetSizePx.toDouble() * image.height / image.width).toInt()
-                downscaleImage(image, targetSizePx, targetHeightPx, true)
-            }
-            Height -> {
-                if (image.height <= targetSizePx) return null
-                val targetWidthPx = (targetSizePx.toDouble() * image.width / image.height).toInt()
-                downscaleImage(image, targetWidthPx, targetSizePx, true)
+        return readImage(originalImage) { reader ->
+            val width = reader.getWidth(IMAGE_INDEX)
+            val height = reader.getHeight(IMAGE_INDEX)
+            val (targetWidthPx, targetHeightPx) = when (resizeType) {
+                Width -> {
+                    if (width <= targetSizePx) return@readImage null
+                    targetSizePx to (targetSizePx.toDouble() * height / width).toInt()
+                }
+                Height -> {
+                    if (height <= targetSizePx) return@readImage null
+                    (targetSizePx.toDouble() * width / height).toInt() to targetSizePx
+                }
             }
+
+            val image = decodeSubsampled(reader, width, height, targetWidthPx, targetHeightPx)
+            compressImage(downscaleImage(image, targetWidthPx, targetHeightPx, true), targetQuality)
         }
-        return compressImage(scaledImage, targetQuality)
     }
 
-    private fun decodeImage(imageData: ByteArray): BufferedImage? {
+    private fun <T : Any> readImage(imageData: ByteArray, read: (ImageReader) -> T?): T? {
+        // an explicit in-memory stream keeps ImageIO from spooling the data into a cache file
+        val input = MemoryCacheImageInputStream(ByteArrayInputStream(imageData))
+        val readers = ImageIO.getImageReaders(input)
+        if (!readers.hasNext()) {
+            input.close()
+            return null
+        }
+
+        val reader = readers.next()
         return try {
-            ImageIO.read(ByteArrayInputStream(imageData))
+            reader.setInput(input, true, true)
+            read(reader)
         } catch (e: IOException) {
             Log.error(e, e.message)
             null
+        } finally {
+            reader.dispose()
+            input.close()
         }
     }
 
+    /**
+     * Decodes only every n-th pixel of every n-th row, so a large scan never lands in memory at full resolution.
+     * Since the skipped pixels are not averaged, the image is kept at least at twice the target size
+     * and the interpolation of the following downscaling smooths the result.
+     */
+    private fun decodeSubsampled(
+        reader: ImageReader,
+        width: Int,
+        height: Int,
+        targetWidth: Int,
+        targetHeight: Int
+    ): BufferedImage {
+        val param = reader.defaultReadParam
+        val subsampling = minOf(
+            width / (targetWidth.coerceAtLeast(1) * SUBSAMPLING_MARGIN),
+            height / (targetHeight.coerceAtLeast(1) * SUBSAMPLING_MARGIN)
+        )
+        if (subsampling > 1) {
+            param.setSourceSubsampling(subsampling, subsampling, 0, 0)
+        }
+
+        return reader.read(IMAGE_INDEX, param)
+    }
+
     private fun downscaleImage(
         originalImage: BufferedImage,
         targetWidth: Int,
@@ -107,6 +174,10 @@ class JvmImageResizer : ImageResizer {
             w = targetWidth
             h = targetHeight
         }
+        // the passes alternate between two scratch images, which are allocated by the first pass drawing into them,
+        // since every further pass is smaller, it only fills the upper left corner of its scratch image
+        val scratchImages = arrayOfNulls<BufferedImage>(2)
+        var pass = 0
         do {
             if (higherQuality && w > targetWidth) {
                 w /= 2
@@ -120,15 +191,18 @@ class JvmImageResizer : ImageResizer {
                     h = targetHeight
                 }
             }
-            val tmp = BufferedImage(w, h, type)
+            val tmp = scratchImages[pass % 2] ?: BufferedImage(w, h, type).also { scratchImages[pass % 2] = it }
             val g2 = tmp.createGraphics()
+            // overwrites what an earlier pass left behind instead of blending with it
+            g2.composite = AlphaComposite.Src
             g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR)
             g2.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY)
             g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON)
             g2.drawImage(scaledImage, 0, 0, w, h, null)
             g2.dispose()
 
-            scaledImage = tmp
+            scaledImage = tmp.getSubimage(0, 0, w, h)
+            pass++
         } while (w != targetWidth || h != targetHeight)
         return scaledImage
     }
@@ -161,5 +235,7 @@ class JvmImageResizer : ImageResizer {
         private const val JPEG_WRITER = "jpeg"
         private const val VALUE_UNKNOWN = -1
         private const val HUNDRED_PERCENT = 100f
+        private const val IMAGE_INDEX = 0
+        private const val SUBSAMPLING_MARGIN = 2
     }
 }
@@ -19,8 +19,14 @@ package care.data4life.sdk;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
 
 import javax.imageio.ImageIO;
 import javax.imageio.ImageReader;
@@ -41,6 +47,10 @@ public class JvmImageResizerTest {
     private static final String FAILED_TO_LOAD_IMG_MSG = "Failed to load test image!";
     private static final String FAILED_TO_DECODE_IMG_MSG = "Failed to decode test image!";
     private static final float TOLERANCE = 0.01f;
+    private static final int LARGE_IMAGE_WIDTH = 6000;
+    private static final int LARGE_IMAGE_HEIGHT = 4500;
+    private static final Color LARGE_IMAGE_COLOR = new Color(40, 120, 200);
+    private static final int COLOR_TOLERANCE = 4;
 
     private static byte[] originalImage;
     private static float originalAspectRatio;
@@ -114,6 +124,70 @@ public class JvmImageResizerTest {
         assertThat(downscaledImage).isNull();
     }
 
+    @Test
+    public void imageResizer_shouldResizeImageToAllTargetHeights_inTheirOrder() throws IOException, ImageResizeException.JpegWriterMissing {
+        //when
+        List<byte[]> downscaledImages = imageResizer.resizeToHeights(
+                originalImage,
+                Arrays.asList(DEFAULT_THUMBNAIL_SIZE_PX, DEFAULT_PREVIEW_SIZE_PX),
+                DEFAULT_JPEG_QUALITY_PERCENT
+        );
+
+        //then
+        assertThat(downscaledImages).hasSize(2);
+        ImageBounds thumbnailBounds = decodeImageBounds(downscaledImages.get(0));
+        ImageBounds previewBounds = decodeImageBounds(downscaledImages.get(1));
+        assertThat(thumbnailBounds.height).isEqualTo(DEFAULT_THUMBNAIL_SIZE_PX);
+        assertThat((float) thumbnailBounds.width / thumbnailBounds.height).isWithin(TOLERANCE).of(originalAspectRatio);
+        assertThat(previewBounds.height).isEqualTo(DEFAULT_PREVIEW_SIZE_PX);
+        assertThat((float) previewBounds.width / previewBounds.height).isWithin(TOLERANCE).of(originalAspectRatio);
+    }
+
+    @Test
+    public void imageResizer_shouldReturnNull_forTargetHeightsNotSmallerThanTheOriginalHeight() throws IOException, ImageResizeException.JpegWriterMissing {
+        //when
+        List<byte[]> downscaledImages = imageResizer.resizeToHeights(
+                originalImage,
+                Arrays.asList(originalHeight, DEFAULT_THUMBNAIL_SIZE_PX),
+                DEFAULT_JPEG_QUALITY_PERCENT
+        );
+
+        //then
+        assertThat(downscaledImages.get(0)).isNull();
+        assertThat(decodeImageBounds(downscaledImages.get(1)).height).isEqualTo(DEFAULT_THUMBNAIL_SIZE_PX);
+    }
+
+    @Test
+    public void imageResizer_shouldResizeLargeImageToTargetSize_whileDecodingItSubsampled() throws IOException, ImageResizeException.JpegWriterMissing {
+        //given
+        BufferedImage largeImage = new BufferedImage(LARGE_IMAGE_WIDTH, LARGE_IMAGE_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = largeImage.createGraphics();
+        graphics.setColor(LARGE_IMAGE_COLOR);
+        graphics.fillRect(0, 0, LARGE_IMAGE_WIDTH, LARGE_IMAGE_HEIGHT);
+        graphics.dispose();
+        ByteArrayOutputStream encodedImage = new ByteArrayOutputStream();
+        ImageIO.write(largeImage, "png", encodedImage);
+
+        //when
+        List<byte[]> downscaledImages = imageResizer.resizeToHeights(
+                encodedImage.toByteArray(),
+                Arrays.asList(DEFAULT_PREVIEW_SIZE_PX, DEFAULT_THUMBNAIL_SIZE_PX),
+                DEFAULT_JPEG_QUALITY_PERCENT
+        );
+
+        //then
+        for (int i = 0; i < downscaledImages.size(); i++) {
+            BufferedImage downscaledImage = ImageIO.read(new ByteArrayInputStream(downscaledImages.get(i)));
+            int targetHeight = i == 0 ? DEFAULT_PREVIEW_SIZE_PX : DEFAULT_THUMBNAIL_SIZE_PX;
+            assertThat(downscaledImage.getHeight()).isEqualTo(targetHeight);
+            assertThat(downscaledImage.getWidth()).isEqualTo(targetHeight * LARGE_IMAGE_WIDTH / LARGE_IMAGE_HEIGHT);
+            Color color = new Color(downscaledImage.getRGB(downscaledImage.getWidth() / 2, downscaledImage.getHeight() / 2));
+            assertThat(Math.abs(color.getRed() - LARGE_IMAGE_COLOR.getRed())).isAtMost(COLOR_TOLERANCE);
+            assertThat(Math.abs(color.getGreen() - LARGE_IMAGE_COLOR.getGreen())).isAtMost(COLOR_TOLERANCE);
+            assertThat(Math.abs(color.getBlue() - LARGE_IMAGE_COLOR.getBlue())).isAtMost(COLOR_TOLERANCE);
+        }
+    }
+
     private static ImageBounds decodeImageBounds(byte[] image) throws IOException {
         ImageInputStream is = ImageIO.createImageInputStream(new ByteArrayInputStream(image));
         ImageReader reader = ImageIO.getImageReaders(is).next();